@@ -0,0 +1,41 @@
+plugins {
+    id("java")
+    id("me.champeau.gradle.jmh") version "0.4.8"
+}
+
+evaluationDependsOn(":core")
+
+val coreTest = project(":core").the<SourceSetContainer>()["test"]
+
+dependencies {
+    jmh(project(":core"))
+    // The mock network publishers and test injector module let the operations run without a
+    // NetworkTables or ROS connection
+    jmh(coreTest.output)
+    jmh(coreTest.runtimeClasspath)
+}
+
+jmh {
+    jmhVersion = "1.21"
+    jvmArgsAppend = listOf("-Dgrip.samples=${rootDir.resolve("samples/images")}")
+    // Pass -PjmhInclude=<regex> to only run some of the benchmarks
+    if (project.hasProperty("jmhInclude")) {
+        include = listOf(project.property("jmhInclude") as String)
+    }
+    resultFormat = "JSON"
+    // Reports the bytes allocated per benchmark invocation as gc.alloc.rate.norm
+    profilers = listOf("gc")
+}
+
+tasks.register<JavaExec>("jmhAllOperations") {
+    group = "benchmark"
+    description = "Benchmarks every operation in the palette, not just the ones listed in " +
+            "OperationBenchmark."
+    val jmhJar = tasks.named<Jar>("jmhJar")
+    dependsOn(jmhJar)
+    classpath = files(jmhJar.map { it.archivePath })
+    main = "edu.wpi.grip.benchmarks.OperationBenchmark"
+    systemProperty("grip.samples", rootDir.resolve("samples/images"))
+    args = listOf("-prof", "gc", "-rf", "json",
+            "-rff", buildDir.resolve("reports/jmh/all-operations.json").path)
+}
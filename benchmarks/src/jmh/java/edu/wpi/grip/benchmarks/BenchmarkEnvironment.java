@@ -0,0 +1,67 @@
+package edu.wpi.grip.benchmarks;
+
+import edu.wpi.grip.core.GripCoreModule;
+import edu.wpi.grip.core.GripFileModule;
+import edu.wpi.grip.core.OperationMetaData;
+import edu.wpi.grip.core.Palette;
+import edu.wpi.grip.core.operations.CVOperations;
+import edu.wpi.grip.core.operations.Operations;
+import edu.wpi.grip.core.operations.network.GripNetworkModule;
+import edu.wpi.grip.core.operations.network.MockGripNetworkModule;
+import edu.wpi.grip.util.GripCoreTestModule;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+import java.util.Collection;
+
+/**
+ * The injector and palette that benchmarks create operations from. This is set up the same way as
+ * for the core tests, with network publishing mocked out, so that nothing is published while
+ * benchmarking.
+ */
+final class BenchmarkEnvironment implements AutoCloseable {
+
+  private final GripCoreTestModule testModule;
+  private final Injector injector;
+  private final Palette palette;
+
+  BenchmarkEnvironment() {
+    testModule = new GripCoreTestModule();
+    testModule.setUp();
+    injector = Guice.createInjector(
+        Modules.override(new GripCoreModule(), new GripNetworkModule(), new GripFileModule())
+            .with(new MockGripNetworkModule(), testModule));
+    palette = injector.getInstance(Palette.class);
+    injector.getInstance(Operations.class).addOperations();
+    injector.getInstance(CVOperations.class).addOperations();
+  }
+
+  Injector getInjector() {
+    return injector;
+  }
+
+  /**
+   * @return every operation in the palette.
+   */
+  Collection<OperationMetaData> getOperations() {
+    return palette.getOperations();
+  }
+
+  /**
+   * @throws IllegalArgumentException if there is no operation with the given name.
+   */
+  OperationMetaData getOperation(String name) {
+    return palette.getOperationByName(name)
+        .orElseThrow(() -> new IllegalArgumentException("No operation named " + name));
+  }
+
+  /**
+   * Rethrows anything that went wrong on other threads or in event handlers while benchmarking.
+   */
+  @Override
+  public void close() {
+    testModule.tearDown();
+  }
+}
@@ -0,0 +1,126 @@
+package edu.wpi.grip.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Point;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+import org.bytedeco.javacpp.opencv_core.Size;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.bytedeco.javacpp.opencv_core.CV_8UC3;
+import static org.bytedeco.javacpp.opencv_imgcodecs.imread;
+import static org.bytedeco.javacpp.opencv_imgproc.COLOR_BGR2GRAY;
+import static org.bytedeco.javacpp.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.javacpp.opencv_imgproc.THRESH_BINARY;
+import static org.bytedeco.javacpp.opencv_imgproc.THRESH_OTSU;
+import static org.bytedeco.javacpp.opencv_imgproc.circle;
+import static org.bytedeco.javacpp.opencv_imgproc.cvtColor;
+import static org.bytedeco.javacpp.opencv_imgproc.line;
+import static org.bytedeco.javacpp.opencv_imgproc.rectangle;
+import static org.bytedeco.javacpp.opencv_imgproc.resize;
+import static org.bytedeco.javacpp.opencv_imgproc.threshold;
+
+/**
+ * Creates the images that benchmarks run on.
+ */
+final class BenchmarkImages {
+
+  /**
+   * The system property with the directory of sample images. The build sets this to the
+   * {@code samples/images} directory of the repository.
+   */
+  static final String SAMPLES_PROPERTY = "grip.samples";
+
+  private static final long SEED = 2084;
+  private static final int SHAPE_COUNT = 40;
+  private static final int FILLED = -1;
+  private static final int LINE_8 = 8;
+
+  private BenchmarkImages() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Parses a resolution such as {@code 640x480}.
+   */
+  static Size parseResolution(String resolution) {
+    final String[] parts = resolution.split("x");
+    checkArgument(parts.length == 2, "Resolution must be <width>x<height>: " + resolution);
+    return new Size(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+  }
+
+  /**
+   * Draws a color image of rectangles, circles and lines on a dark background. The same size
+   * always gives the same image, so results are comparable between runs.
+   */
+  static Mat synthetic(Size size) {
+    final Mat image = new Mat(size, CV_8UC3, new Scalar(30, 30, 30, 0));
+    final Random random = new Random(SEED);
+    final int width = size.width();
+    final int height = size.height();
+    for (int i = 0; i < SHAPE_COUNT; i++) {
+      final Scalar color = new Scalar(random.nextInt(256), random.nextInt(256),
+          random.nextInt(256), 0);
+      final Point corner = new Point(random.nextInt(width), random.nextInt(height));
+      final int extent = 5 + random.nextInt(Math.max(1, Math.min(width, height) / 6));
+      switch (i % 3) {
+        case 0:
+          rectangle(image, corner, new Point(corner.x() + extent, corner.y() + extent / 2), color,
+              FILLED, LINE_8, 0);
+          break;
+        case 1:
+          circle(image, corner, extent / 2, color, FILLED, LINE_8, 0);
+          break;
+        default:
+          line(image, corner, new Point(random.nextInt(width), random.nextInt(height)), color,
+              3, LINE_8, 0);
+          break;
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Loads every image in the samples directory, resized to the given size.
+   *
+   * @throws IllegalStateException if the samples directory is not set or has no images.
+   */
+  static ImmutableList<Mat> samples(Size size) {
+    final String directory = System.getProperty(SAMPLES_PROPERTY);
+    if (directory == null) {
+      throw new IllegalStateException("Set " + SAMPLES_PROPERTY + " to the sample image directory");
+    }
+    final File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(".jpeg")
+        || name.endsWith(".jpg") || name.endsWith(".png"));
+    if (files == null || files.length == 0) {
+      throw new IllegalStateException("There are no sample images in " + directory);
+    }
+    Arrays.sort(files);
+    final ImmutableList.Builder<Mat> images = ImmutableList.builder();
+    for (File file : files) {
+      final Mat original = imread(file.getAbsolutePath());
+      final Mat resized = new Mat();
+      resize(original, resized, size, 0, 0, INTER_AREA);
+      original.release();
+      images.add(resized);
+    }
+    return images.build();
+  }
+
+  /**
+   * Makes a black and white version of an image, for operations that only work on binary images.
+   */
+  static Mat binary(Mat image) {
+    final Mat gray = new Mat();
+    final Mat binary = new Mat();
+    cvtColor(image, gray, COLOR_BGR2GRAY);
+    threshold(gray, binary, 0, 255, THRESH_BINARY | THRESH_OTSU);
+    gray.release();
+    return binary;
+  }
+}
@@ -0,0 +1,79 @@
+package edu.wpi.grip.benchmarks;
+
+import edu.wpi.grip.core.MatWrapper;
+import edu.wpi.grip.core.MockSource;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.sockets.SocketHints;
+
+import com.google.common.collect.ImmutableList;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+
+import java.util.List;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+
+/**
+ * A source with a new frame every time the pipeline runs. Frames are either a counter, or a tiny
+ * image so that copying pixels doesn't hide the cost of passing the image around.
+ */
+abstract class FrameSource extends MockSource {
+
+  abstract OutputSocket<?> getOutput();
+
+  @Override
+  public String getName() {
+    return "Frames";
+  }
+
+  @Override
+  protected List<OutputSocket> createOutputSockets() {
+    return ImmutableList.of(getOutput());
+  }
+
+  static final class Numbers extends FrameSource {
+    private final OutputSocket<Number> output;
+    private int frame = 0;
+
+    Numbers(OutputSocket.Factory osf) {
+      output = osf.create(SocketHints.Outputs.createNumberSocketHint("Frame", 0));
+    }
+
+    @Override
+    OutputSocket<Number> getOutput() {
+      return output;
+    }
+
+    @Override
+    protected boolean updateOutputSockets() {
+      output.setValue(++frame);
+      return true;
+    }
+  }
+
+  static final class Images extends FrameSource {
+    private final OutputSocket<MatWrapper> output;
+    private final Mat frame = new Mat(4, 4, CV_8UC1, new Scalar(0, 0, 0, 0));
+
+    Images(OutputSocket.Factory osf) {
+      output = osf.create(SocketHints.createImageSocketHint("Frame"));
+    }
+
+    @Override
+    OutputSocket<MatWrapper> getOutput() {
+      return output;
+    }
+
+    @Override
+    protected boolean updateOutputSockets() {
+      output.getValue().get().set(frame);
+      output.flagChanged();
+      return true;
+    }
+
+    void release() {
+      frame.release();
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package edu.wpi.grip.benchmarks;
+
+import edu.wpi.grip.core.Connection;
+import edu.wpi.grip.core.ManualPipelineRunner;
+import edu.wpi.grip.core.MockOperation;
+import edu.wpi.grip.core.Operation;
+import edu.wpi.grip.core.OperationMetaData;
+import edu.wpi.grip.core.Pipeline;
+import edu.wpi.grip.core.PipelineRunner;
+import edu.wpi.grip.core.Step;
+import edu.wpi.grip.core.events.ConnectionAddedEvent;
+import edu.wpi.grip.core.events.SourceAddedEvent;
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+
+import com.google.common.eventbus.EventBus;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures how much of each frame is spent on GRIP itself rather than on OpenCV: updating sources,
+ * checking which steps have changed inputs, setting socket values, pushing them along connections,
+ * posting events and keeping track of time.
+ *
+ * <p>The pipeline is a source followed by a chain of steps that do nothing but copy their input to
+ * their output. Each benchmark invocation is one run of the pipeline. Run with the {@code gc}
+ * profiler (the {@code jmh} task does by default) to see the bytes allocated per frame as
+ * {@code gc.alloc.rate.norm}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 6, time = 1)
+@Fork(1)
+public class FrameworkBenchmark {
+
+  /**
+   * Steps made from {@link MockOperation}, which have no sockets and are not connected to
+   * anything. This shows the cost of going through the steps on its own.
+   */
+  private static final String NONE = "none";
+  private static final String NUMBER = "number";
+  private static final String IMAGE = "image";
+
+  @Param({"1", "10", "50", "100", "200"})
+  public int steps;
+
+  /**
+   * What is passed from the source down the chain of steps.
+   */
+  @Param({NONE, NUMBER, IMAGE})
+  public String payload;
+
+  private BenchmarkEnvironment environment;
+  private FrameSource source;
+  private ManualPipelineRunner runner;
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    environment = new BenchmarkEnvironment();
+    final Injector injector = environment.getInjector();
+    final EventBus eventBus = injector.getInstance(EventBus.class);
+    final Pipeline pipeline = injector.getInstance(Pipeline.class);
+    final Step.Factory stepFactory = injector.getInstance(Step.Factory.class);
+    final InputSocket.Factory isf = injector.getInstance(InputSocket.Factory.class);
+    final OutputSocket.Factory osf = injector.getInstance(OutputSocket.Factory.class);
+    final Connection.Factory<Object> connectionFactory =
+        injector.getInstance(Key.get(new TypeLiteral<Connection.Factory<Object>>() {
+        }));
+
+    final Supplier<Operation> operation;
+    if (IMAGE.equals(payload)) {
+      source = new FrameSource.Images(osf);
+      operation = () -> new PassThroughOperation.Images(isf, osf);
+    } else if (NUMBER.equals(payload)) {
+      source = new FrameSource.Numbers(osf);
+      operation = () -> new PassThroughOperation.Numbers(isf, osf);
+    } else {
+      source = new FrameSource.Numbers(osf);
+      operation = MockOperation::new;
+    }
+    final OperationMetaData metaData = new OperationMetaData(
+        NONE.equals(payload) ? MockOperation.DESCRIPTION : PassThroughOperation.DESCRIPTION,
+        operation);
+    eventBus.post(new SourceAddedEvent(source));
+
+    OutputSocket<?> previous = source.getOutput();
+    for (int i = 0; i < steps; i++) {
+      final Step step = stepFactory.create(metaData);
+      pipeline.addStep(step);
+      if (!NONE.equals(payload)) {
+        eventBus.post(new ConnectionAddedEvent(connectionFactory.create(previous,
+            (InputSocket<Object>) step.getInputSockets().get(0))));
+        previous = step.getOutputSockets().get(0);
+      }
+    }
+
+    runner = (ManualPipelineRunner) injector.getInstance(PipelineRunner.class);
+    // Make the runner plan the pipeline now, instead of in the first measured frame
+    runner.runPipeline();
+  }
+
+  @Benchmark
+  public void frame() {
+    runner.runPipeline();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (source instanceof FrameSource.Images) {
+      ((FrameSource.Images) source).release();
+    }
+    environment.close();
+  }
+}
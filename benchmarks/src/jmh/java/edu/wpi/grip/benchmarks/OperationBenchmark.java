@@ -0,0 +1,181 @@
+package edu.wpi.grip.benchmarks;
+
+import edu.wpi.grip.core.Operation;
+import edu.wpi.grip.core.OperationMetaData;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures how long it takes to perform each operation once on images of different sizes.
+ *
+ * <p>Running the {@code jmh} task only benchmarks the operations listed in {@link #operation}.
+ * The {@code jmhAllOperations} task runs {@link #main(String[])}, which benchmarks every operation
+ * in the palette that can run on the benchmark images.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 6, time = 1)
+@Fork(1)
+public class OperationBenchmark {
+
+  private static final Logger logger = Logger.getLogger(OperationBenchmark.class.getName());
+
+  private static final String SYNTHETIC = "synthetic";
+  private static final String SAMPLES = "samples";
+
+  /**
+   * Operations that can't be benchmarked because they write to disk or open a server.
+   */
+  private static final ImmutableSet<String> EXCLUDED =
+      ImmutableSet.of("Save Images to Disk", "Publish Video");
+
+  /**
+   * The operation to benchmark. See {@link OperationInputs} for how operations are named.
+   */
+  @Param({
+      "HSV Threshold",
+      "HSL Threshold",
+      "RGB Threshold",
+      "Blur[Box Blur]",
+      "Blur[Gaussian Blur]",
+      "Blur[Median Filter]",
+      "Blur[Bilateral Filter]",
+      "Desaturate",
+      "Find Contours",
+      "Filter Contours",
+      "Convex Hulls",
+      "Find Blobs",
+      "Find Lines",
+      "Filter Lines",
+      "Watershed",
+      "Distance Transform",
+      "Mask",
+      "Normalize",
+      "Resize Image",
+      "CV Canny",
+      "CV cvtColor",
+      "CV GaussianBlur",
+      "CV medianBlur",
+      "CV resize",
+      "CV Threshold",
+      "CV adaptiveThreshold",
+      "CV dilate",
+      "CV erode",
+      "CV absdiff"
+  })
+  public String operation;
+
+  @Param({"320x240", "640x480", "1280x720"})
+  public String resolution;
+
+  /**
+   * Either a synthetic image of shapes, or the sample images in the repository. Each measurement
+   * iteration uses the next sample image, so the results are averaged over all of them.
+   */
+  @Param({SYNTHETIC, SAMPLES})
+  public String input;
+
+  private BenchmarkEnvironment environment;
+  private OperationInputs inputs;
+  private Operation benchmarked;
+  private List<Mat> images;
+  private int nextImage = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    environment = new BenchmarkEnvironment();
+    inputs = new OperationInputs(environment);
+    final Size size = BenchmarkImages.parseResolution(resolution);
+    images = SAMPLES.equals(input)
+        ? BenchmarkImages.samples(size)
+        : ImmutableList.of(BenchmarkImages.synthetic(size));
+    benchmarked = environment.getOperation(OperationInputs.nameOf(operation))
+        .getOperationSupplier().get();
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpIteration() {
+    inputs.prepare(benchmarked, images.get(nextImage), OperationInputs.variantOf(operation));
+    nextImage = (nextImage + 1) % images.size();
+  }
+
+  @Benchmark
+  public void perform() {
+    benchmarked.perform();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    benchmarked.cleanUp();
+    images.forEach(Mat::release);
+    environment.close();
+  }
+
+  /**
+   * Benchmarks every operation in the palette. Any JMH command line options can be given, except
+   * for which operations to benchmark.
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    final List<String> benchmarks = new ArrayList<>();
+    try (BenchmarkEnvironment environment = new BenchmarkEnvironment()) {
+      final OperationInputs inputs = new OperationInputs(environment);
+      final Mat image = BenchmarkImages.synthetic(new Size(320, 240));
+      // Aliases are in the palette too, so the same operation can show up more than once
+      final Set<OperationMetaData> operations = new LinkedHashSet<>(environment.getOperations());
+      for (OperationMetaData metaData : operations) {
+        if (EXCLUDED.contains(metaData.getDescription().name())) {
+          continue;
+        }
+        for (String benchmark : OperationInputs.benchmarksFor(metaData)) {
+          final Operation operation = metaData.getOperationSupplier().get();
+          try {
+            inputs.prepare(operation, image, OperationInputs.variantOf(benchmark));
+            benchmarks.add(benchmark);
+          } catch (IllegalStateException e) {
+            logger.log(java.util.logging.Level.WARNING, "Skipping " + benchmark, e);
+          } finally {
+            operation.cleanUp();
+          }
+        }
+      }
+      image.release();
+    }
+    new Runner(new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .include(OperationBenchmark.class.getName())
+        .param("operation", benchmarks.toArray(new String[benchmarks.size()]))
+        .build())
+        .run();
+  }
+}
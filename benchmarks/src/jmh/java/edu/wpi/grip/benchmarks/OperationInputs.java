@@ -0,0 +1,180 @@
+package edu.wpi.grip.benchmarks;
+
+import edu.wpi.grip.core.MatWrapper;
+import edu.wpi.grip.core.Operation;
+import edu.wpi.grip.core.OperationMetaData;
+import edu.wpi.grip.core.operations.composite.BlobsReport;
+import edu.wpi.grip.core.operations.composite.ContoursReport;
+import edu.wpi.grip.core.operations.composite.LinesReport;
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.sockets.SocketHint;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+/**
+ * Fills in the inputs of an operation so that it has something to do when it is benchmarked.
+ * Image inputs get the benchmark image, report inputs get the report made from that image by the
+ * operation that normally makes it, and everything else keeps its default value.
+ *
+ * <p>A benchmark names an operation either by its name, or by its name followed by the value of
+ * its {@code Type} input in brackets, eg {@code Blur[Gaussian Blur]}.</p>
+ */
+final class OperationInputs {
+
+  private static final String TYPE_INPUT = "Type";
+  private static final String RADIUS_INPUT = "Radius";
+  /**
+   * Radius inputs default to 0, which makes the operation do almost nothing.
+   */
+  private static final double RADIUS = 5;
+
+  /**
+   * The operations that make the reports other operations take as inputs.
+   */
+  private static final ImmutableMap<Class<?>, String> PRODUCERS = ImmutableMap.of(
+      ContoursReport.class, "Find Contours",
+      BlobsReport.class, "Find Blobs",
+      LinesReport.class, "Find Lines");
+
+  private final BenchmarkEnvironment environment;
+
+  OperationInputs(BenchmarkEnvironment environment) {
+    this.environment = environment;
+  }
+
+  /**
+   * @return the name of the operation in a benchmark name.
+   */
+  static String nameOf(String benchmark) {
+    final int bracket = benchmark.indexOf('[');
+    return bracket < 0 || !benchmark.endsWith("]") ? benchmark : benchmark.substring(0, bracket);
+  }
+
+  /**
+   * @return the value of the {@code Type} input in a benchmark name, or null if it doesn't have
+   *     one.
+   */
+  @Nullable
+  static String variantOf(String benchmark) {
+    final int bracket = benchmark.indexOf('[');
+    return bracket < 0 || !benchmark.endsWith("]")
+        ? null
+        : benchmark.substring(bracket + 1, benchmark.length() - 1);
+  }
+
+  /**
+   * Gets the names of the benchmarks for an operation. Operations with a {@code Type} input get
+   * one benchmark for each type.
+   */
+  static ImmutableList<String> benchmarksFor(OperationMetaData metaData) {
+    final String name = metaData.getDescription().name();
+    final Operation operation = metaData.getOperationSupplier().get();
+    try {
+      for (InputSocket<?> socket : operation.getInputSockets()) {
+        final SocketHint<?> hint = socket.getSocketHint();
+        if (TYPE_INPUT.equals(hint.getIdentifier()) && hint.getType().isEnum()
+            && hint.getDomain().isPresent()) {
+          return ImmutableList.copyOf(Arrays.stream(hint.getDomain().get())
+              .map(type -> name + "[" + type + "]")
+              .collect(Collectors.toList()));
+        }
+      }
+      return ImmutableList.of(name);
+    } finally {
+      operation.cleanUp();
+    }
+  }
+
+  /**
+   * Fills in the inputs of an operation and runs it once to check that it works. If the operation
+   * can't run on the color image, it is given a black and white version instead.
+   *
+   * @param operation the operation to set up
+   * @param image     a color image
+   * @param variant   the value for the {@code Type} input, or null to keep the default
+   *
+   * @throws IllegalStateException if the operation can't run on either image.
+   */
+  void prepare(Operation operation, Mat image, @Nullable String variant) {
+    try {
+      fill(operation, MatWrapper.wrap(image), variant);
+      operation.perform();
+    } catch (RuntimeException colorFailure) {
+      try {
+        fill(operation, MatWrapper.wrap(BenchmarkImages.binary(image)), variant);
+        operation.perform();
+      } catch (RuntimeException binaryFailure) {
+        binaryFailure.addSuppressed(colorFailure);
+        throw new IllegalStateException("The operation can't run on the benchmark images",
+            binaryFailure);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void fill(Operation operation, MatWrapper image, @Nullable String variant) {
+    for (InputSocket socket : operation.getInputSockets()) {
+      final SocketHint<?> hint = socket.getSocketHint();
+      final Class<?> type = hint.getType();
+      final Optional<?> value = socket.getValue();
+      if (type == MatWrapper.class) {
+        socket.setValue(image);
+      } else if (PRODUCERS.containsKey(type)) {
+        socket.setValue(produce(type, image));
+      } else if (variant != null && TYPE_INPUT.equals(hint.getIdentifier()) && type.isEnum()) {
+        socket.setValue(valueNamed(hint, variant));
+      } else if (RADIUS_INPUT.equals(hint.getIdentifier()) && value.isPresent()
+          && ((Number) value.get()).doubleValue() == 0) {
+        socket.setValue(RADIUS);
+      } else if (!value.isPresent()) {
+        if (type == Object.class) {
+          socket.setValue(image);
+        } else if (type == Number.class) {
+          socket.setValue(0);
+        } else if (type == Boolean.class) {
+          socket.setValue(false);
+        } else if (type == String.class) {
+          socket.setValue("benchmark");
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the operation that makes the given type of report on an image, and returns the report.
+   */
+  private Object produce(Class<?> reportType, MatWrapper image) {
+    final Operation producer = environment.getOperation(PRODUCERS.get(reportType))
+        .getOperationSupplier().get();
+    try {
+      prepare(producer, image.getCpu(), null);
+      for (OutputSocket<?> socket : producer.getOutputSockets()) {
+        if (socket.getSocketHint().getType() == reportType && socket.getValue().isPresent()) {
+          return socket.getValue().get();
+        }
+      }
+      throw new IllegalStateException("No " + reportType.getSimpleName() + " was made");
+    } finally {
+      producer.cleanUp();
+    }
+  }
+
+  private static Object valueNamed(SocketHint<?> hint, String name) {
+    return Arrays.stream(hint.getDomain().orElseThrow(() ->
+        new IllegalArgumentException(hint.getIdentifier() + " has no values to choose from")))
+        .filter(value -> value.toString().equals(name))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("No " + hint.getIdentifier() + " named "
+            + name));
+  }
+}
@@ -0,0 +1,82 @@
+package edu.wpi.grip.benchmarks;
+
+import edu.wpi.grip.core.MatWrapper;
+import edu.wpi.grip.core.Operation;
+import edu.wpi.grip.core.OperationDescription;
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.sockets.SocketHints;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * An operation that copies its input to its output without doing anything else, so that running
+ * it only costs what GRIP itself costs.
+ */
+abstract class PassThroughOperation implements Operation {
+
+  static final OperationDescription DESCRIPTION = OperationDescription.builder()
+      .name("Pass Through")
+      .summary("Copies its input to its output")
+      .build();
+
+  /**
+   * Passes a number through. Setting the output boxes a new number, like most operations with
+   * number outputs.
+   */
+  static final class Numbers extends PassThroughOperation {
+    private final InputSocket<Number> input;
+    private final OutputSocket<Number> output;
+
+    Numbers(InputSocket.Factory isf, OutputSocket.Factory osf) {
+      input = isf.create(SocketHints.createNumberSocketHint("Input", 0));
+      output = osf.create(SocketHints.Outputs.createNumberSocketHint("Output", 0));
+    }
+
+    @Override
+    public List<InputSocket> getInputSockets() {
+      return ImmutableList.of(input);
+    }
+
+    @Override
+    public List<OutputSocket> getOutputSockets() {
+      return ImmutableList.of(output);
+    }
+
+    @Override
+    public void perform() {
+      output.setValue(input.getValue().get().intValue());
+    }
+  }
+
+  /**
+   * Passes an image through, the same way image operations write their outputs.
+   */
+  static final class Images extends PassThroughOperation {
+    private final InputSocket<MatWrapper> input;
+    private final OutputSocket<MatWrapper> output;
+
+    Images(InputSocket.Factory isf, OutputSocket.Factory osf) {
+      input = isf.create(SocketHints.createImageSocketHint("Input"));
+      output = osf.create(SocketHints.createImageSocketHint("Output"));
+    }
+
+    @Override
+    public List<InputSocket> getInputSockets() {
+      return ImmutableList.of(input);
+    }
+
+    @Override
+    public List<OutputSocket> getOutputSockets() {
+      return ImmutableList.of(output);
+    }
+
+    @Override
+    public void perform() {
+      output.getValue().get().set(input.getValue().get());
+      output.flagChanged();
+    }
+  }
+}
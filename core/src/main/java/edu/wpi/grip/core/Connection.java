@@ -2,9 +2,9 @@ package edu.wpi.grip.core;
 
 import edu.wpi.grip.core.events.ConnectionAddedEvent;
 import edu.wpi.grip.core.events.ConnectionRemovedEvent;
-import edu.wpi.grip.core.events.SocketChangedEvent;
 import edu.wpi.grip.core.events.SourceRemovedEvent;
 import edu.wpi.grip.core.events.StepRemovedEvent;
+import edu.wpi.grip.core.metrics.FlightRecorder;
 import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
 
@@ -15,6 +15,8 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
@@ -24,21 +26,45 @@ import static com.google.common.base.Preconditions.checkArgument;
 public class Connection<T> {
 
   private final EventBus eventBus;
+  private final FlightRecorder flightRecorder;
+  private final String spanName;
   private final OutputSocket<? extends T> outputSocket;
   private final InputSocket<T> inputSocket;
+  /**
+   * If true, changes to the output socket are not copied to the input socket until they are taken
+   * with {@link #takeDeferredChange()}.
+   */
+  private volatile boolean deferred = false;
+  private final AtomicBoolean outputChanged = new AtomicBoolean(false);
 
+  /**
+   * @param connectionValidator An object to validate that the connection can be made
+   * @param outputSocket        The socket to listen for changes in.
+   * @param inputSocket         A different socket to update when a change occurs in the first.
+   */
+  Connection(EventBus eventBus,
+             ConnectionValidator connectionValidator,
+             OutputSocket<? extends T> outputSocket,
+             InputSocket<T> inputSocket) {
+    this(eventBus, connectionValidator, FlightRecorder.NONE, outputSocket, inputSocket);
+  }
 
   /**
    * @param connectionValidator An object to validate that the connection can be made
+   * @param flightRecorder      Records how long it takes to copy values along the connection
    * @param outputSocket        The socket to listen for changes in.
    * @param inputSocket         A different socket to update when a change occurs in the first.
    */
   @Inject
   Connection(EventBus eventBus,
              ConnectionValidator connectionValidator,
+             FlightRecorder flightRecorder,
              @Assisted OutputSocket<? extends T> outputSocket,
              @Assisted InputSocket<T> inputSocket) {
     this.eventBus = eventBus;
+    this.flightRecorder = flightRecorder;
+    this.spanName = outputSocket.getSocketHint().getIdentifier() + " -> "
+        + inputSocket.getSocketHint().getIdentifier();
     this.outputSocket = outputSocket;
     this.inputSocket = inputSocket;
     checkArgument(connectionValidator.canConnect(outputSocket, inputSocket), "Cannot connect "
@@ -62,13 +88,54 @@ public class Connection<T> {
     }
   }
 
-  @Subscribe
-  public void onOutputChanged(SocketChangedEvent e) {
-    if (e.isRegarding(outputSocket)) {
-      inputSocket.setValueOptional(outputSocket.getValue());
+  /**
+   * Called by the output socket every time its value changes. Copies the new value to the input
+   * socket, unless this connection is {@link #setDeferred(boolean) deferred}.
+   */
+  public void onOutputChanged() {
+    if (deferred) {
+      outputChanged.set(true);
+    } else {
+      propagate();
     }
   }
 
+  /**
+   * Sets whether changes to the output socket should be held back instead of being copied to the
+   * input socket as soon as they happen. This is used by the {@link PipelineRunner} when it needs
+   * to control when each step sees new values. When deferral is turned off, the input socket is
+   * immediately set to the current value of the output socket, unless this connection has already
+   * been removed from it.
+   */
+  void setDeferred(boolean deferred) {
+    this.deferred = deferred;
+    if (!deferred) {
+      outputChanged.set(false);
+      if (inputSocket.getConnections().contains(this)) {
+        propagate();
+      }
+    }
+  }
+
+  /**
+   * Copies the value of the output socket to the input socket.
+   */
+  private void propagate() {
+    final long begin = flightRecorder.begin();
+    inputSocket.setValueOptional(outputSocket.getValue());
+    flightRecorder.end(FlightRecorder.Category.CONNECTION, spanName, begin);
+  }
+
+  /**
+   * Checks if the output socket has changed since the last call to this method while this
+   * connection is {@link #setDeferred(boolean) deferred}, and clears the flag.
+   *
+   * @return true if the output socket changed.
+   */
+  boolean takeDeferredChange() {
+    return outputChanged.getAndSet(false);
+  }
+
   @Subscribe
   public void onConnectionRemoved(ConnectionRemovedEvent e) {
     if (e.getConnection() == this) {
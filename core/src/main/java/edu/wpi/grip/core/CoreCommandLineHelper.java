@@ -1,9 +1,12 @@
 package edu.wpi.grip.core;
 
 import edu.wpi.grip.core.events.AppSettingsChangedEvent;
+import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
 import edu.wpi.grip.core.http.GripServer;
+import edu.wpi.grip.core.metrics.BenchmarkReport;
 import edu.wpi.grip.core.serialization.Project;
 import edu.wpi.grip.core.settings.AppSettings;
+import edu.wpi.grip.core.settings.ProjectSettings;
 import edu.wpi.grip.core.settings.SettingsProvider;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -18,7 +21,11 @@ import org.apache.commons.cli.ParseException;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,6 +40,13 @@ public class CoreCommandLineHelper {
   public static final String PORT_OPTION = "p"; // "p" for "port"
   public static final String HELP_OPTION = "h"; // "h" for "help" (this is standard)
   public static final String VERSION_OPTION = "v"; // "v" for "version" (this is standard)
+  public static final String RUN_POLICY_OPTION = "run-policy";
+  public static final String RUN_RATE_OPTION = "run-rate";
+  public static final String PIPELINE_OPTION = "pipeline";
+  public static final String BENCHMARK_OPTION = "benchmark";
+  public static final String WARMUP_OPTION = "warmup";
+  public static final String REPORT_OPTION = "report";
+  public static final String INPUT_OPTION = "input";
 
   private final Options options = new Options();
   private static final Option saveOption =
@@ -51,6 +65,68 @@ public class CoreCommandLineHelper {
           .numberOfArgs(1)
           .argName("port")
           .build();
+  private static final Option runPolicyOption =
+      Option.builder()
+          .longOpt(RUN_POLICY_OPTION)
+          .desc("Set when the pipeline runs. One of: as-fast-as-possible, limited-rate, "
+              + "fixed-rate, new-frames-only, manual")
+          .hasArg()
+          .numberOfArgs(1)
+          .argName("policy")
+          .build();
+  private static final Option runRateOption =
+      Option.builder()
+          .longOpt(RUN_RATE_OPTION)
+          .desc("Set how many times per second to run the pipeline with the limited-rate and "
+              + "fixed-rate run policies")
+          .hasArg()
+          .numberOfArgs(1)
+          .argName("fps")
+          .build();
+  private static final Option pipelineOption =
+      Option.builder()
+          .longOpt(PIPELINE_OPTION)
+          .desc("Run another GRIP save file alongside the main one. Its HTTP paths are under "
+              + "/GRIP/<name> and its NetworkTables keys are under GRIP/<name>. Can be given "
+              + "more than once")
+          .hasArg()
+          .numberOfArgs(1)
+          .argName("name=path")
+          .build();
+  private static final Option benchmarkOption =
+      Option.builder()
+          .longOpt(BENCHMARK_OPTION)
+          .desc("Benchmark the pipeline by running it this many times, write a report and exit "
+              + "instead of running normally")
+          .hasArg()
+          .numberOfArgs(1)
+          .argName("runs")
+          .build();
+  private static final Option warmupOption =
+      Option.builder()
+          .longOpt(WARMUP_OPTION)
+          .desc("Set how many times to run the pipeline before measuring it when benchmarking")
+          .hasArg()
+          .numberOfArgs(1)
+          .argName("runs")
+          .build();
+  private static final Option reportOption =
+      Option.builder()
+          .longOpt(REPORT_OPTION)
+          .desc("Set the .json or .csv file to write the benchmark report to")
+          .hasArg()
+          .numberOfArgs(1)
+          .argName("file")
+          .build();
+  private static final Option inputOption =
+      Option.builder()
+          .longOpt(INPUT_OPTION)
+          .desc("Replace the image sources with a folder of images or a video file when "
+              + "benchmarking")
+          .hasArg()
+          .numberOfArgs(1)
+          .argName("path")
+          .build();
   private static final Option helpOption
       = new Option(HELP_OPTION, "help", false, "Prints the command line options");
   private static final Option versionOption
@@ -62,6 +138,13 @@ public class CoreCommandLineHelper {
   public CoreCommandLineHelper() {
     options.addOption(saveOption);
     options.addOption(portOption);
+    options.addOption(runPolicyOption);
+    options.addOption(runRateOption);
+    options.addOption(pipelineOption);
+    options.addOption(benchmarkOption);
+    options.addOption(warmupOption);
+    options.addOption(reportOption);
+    options.addOption(inputOption);
     options.addOption(helpOption);
     options.addOption(versionOption);
   }
@@ -203,4 +286,131 @@ public class CoreCommandLineHelper {
     }
   }
 
+  /**
+   * Tries to set the run policy and run rate of the current project from the command line
+   * arguments. Does nothing if neither was specified. This should be called after loading a file,
+   * since loading a project replaces its settings.
+   *
+   * @param args             the parsed command line arguments
+   * @param settingsProvider the app's settings provider
+   * @param eventBus         the app's event bus
+   */
+  public void setRunPolicy(CommandLine args,
+                           SettingsProvider settingsProvider,
+                           EventBus eventBus) {
+    if (!args.hasOption(RUN_POLICY_OPTION) && !args.hasOption(RUN_RATE_OPTION)) {
+      return;
+    }
+    final ProjectSettings settings = settingsProvider.getProjectSettings().clone();
+    if (args.hasOption(RUN_POLICY_OPTION)) {
+      final String policy = args.getOptionValue(RUN_POLICY_OPTION);
+      try {
+        settings.setRunPolicy(
+            RunPolicy.valueOf(policy.trim().toUpperCase(Locale.ENGLISH).replace('-', '_')));
+        logger.info("Setting run policy: " + settings.getRunPolicy());
+      } catch (IllegalArgumentException e) {
+        logger.warning("Not a valid run policy: " + policy);
+      }
+    }
+    if (args.hasOption(RUN_RATE_OPTION)) {
+      final String rate = args.getOptionValue(RUN_RATE_OPTION);
+      try {
+        settings.setRunRate(Double.parseDouble(rate));
+        logger.info("Setting run rate: " + settings.getRunRate());
+      } catch (IllegalArgumentException e) {
+        // Also catches the NumberFormatException from an unparsable rate
+        logger.warning("Not a valid run rate: " + rate);
+      }
+    }
+    eventBus.post(new ProjectSettingsChangedEvent(settings));
+  }
+
+  /**
+   * Gets the save files of the pipelines to run alongside the main one from the command line
+   * arguments. Arguments that don't have a valid name, or that repeat a name, are ignored.
+   *
+   * @param args the parsed command line arguments
+   *
+   * @return the save file of each additional pipeline by the name of the pipeline, in the order
+   *     they were given
+   */
+  public Map<String, File> getAdditionalPipelines(CommandLine args) {
+    final Map<String, File> pipelines = new LinkedHashMap<>();
+    if (!args.hasOption(PIPELINE_OPTION)) {
+      return pipelines;
+    }
+    for (String value : args.getOptionValues(PIPELINE_OPTION)) {
+      final int separator = value.indexOf('=');
+      final String name = separator < 0 ? "" : value.substring(0, separator);
+      if (!PipelineNamespace.isValidName(name) || separator == value.length() - 1) {
+        logger.warning("Not a valid pipeline: " + value);
+      } else if (pipelines.containsKey(name)) {
+        logger.warning("Pipeline name used more than once: " + name);
+      } else {
+        pipelines.put(name, new File(value.substring(separator + 1)));
+      }
+    }
+    return pipelines;
+  }
+
+  /**
+   * Checks if the command line arguments ask for the pipeline to be benchmarked instead of run
+   * normally.
+   *
+   * @param args the parsed command line arguments
+   */
+  public boolean isBenchmark(CommandLine args) {
+    return args.hasOption(BENCHMARK_OPTION);
+  }
+
+  /**
+   * Benchmarks the pipeline with the number of runs, warmup runs, input and report file from the
+   * command line arguments. The report is logged, and is also written to the report file if one
+   * was given. This should be called after loading a file.
+   *
+   * @param args      the parsed command line arguments
+   * @param benchmark the benchmark for the app's pipeline
+   *
+   * @throws IllegalArgumentException if the number of runs, the number of warmup runs or the report
+   *                                  file is not valid
+   * @throws IOException              if the input couldn't be read or the report couldn't be
+   *                                  written
+   */
+  public void runBenchmark(CommandLine args, HeadlessBenchmark benchmark)
+      throws IOException, InterruptedException {
+    final int runs = parseRuns(args, BENCHMARK_OPTION, 1);
+    final int warmup = args.hasOption(WARMUP_OPTION) ? parseRuns(args, WARMUP_OPTION, 0) : 0;
+    final File report = args.hasOption(REPORT_OPTION)
+        ? new File(args.getOptionValue(REPORT_OPTION))
+        : null;
+    if (report != null && !BenchmarkReport.canWriteTo(report)) {
+      throw new IllegalArgumentException("The report must be a .json or .csv file: " + report);
+    }
+    if (args.hasOption(INPUT_OPTION)) {
+      benchmark.replay(new File(args.getOptionValue(INPUT_OPTION)));
+    }
+    logger.info("Benchmarking the pipeline: " + warmup + " warmup runs, " + runs + " runs");
+    final BenchmarkReport results = benchmark.run(warmup, runs);
+    final StringWriter csv = new StringWriter();
+    results.writeCsv(csv);
+    logger.info("Benchmark results:\n" + csv);
+    if (report != null) {
+      results.write(report);
+      logger.info("Wrote the benchmark report to " + report);
+    }
+  }
+
+  private static int parseRuns(CommandLine args, String option, int min) {
+    final String value = args.getOptionValue(option);
+    try {
+      final int runs = Integer.parseInt(value);
+      if (runs >= min) {
+        return runs;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below along with numbers that are too small
+    }
+    throw new IllegalArgumentException("Not a valid number of runs for --" + option + ": " + value);
+  }
+
 }
@@ -0,0 +1,36 @@
+package edu.wpi.grip.core;
+
+/**
+ * The ways the {@link PipelineRunner} can run the steps in a pipeline.
+ */
+public enum ExecutionMode {
+
+  /**
+   * Runs every step in pipeline order on the pipeline thread.
+   */
+  SEQUENTIAL("Sequential"),
+
+  /**
+   * Runs steps as soon as every step they are connected to has finished, so independent branches
+   * of the pipeline run concurrently.
+   */
+  PARALLEL("Parallel"),
+
+  /**
+   * Splits the pipeline into stages that each work on a different frame at the same time. This
+   * increases throughput on pipelines with many steps, at the cost of each frame taking one run
+   * per stage to get through the pipeline.
+   */
+  PIPELINED("Pipelined");
+
+  private final String label;
+
+  ExecutionMode(String label) {
+    this.label = label;
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
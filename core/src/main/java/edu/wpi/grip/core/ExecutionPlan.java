@@ -0,0 +1,136 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.metrics.Timer;
+import edu.wpi.grip.core.sockets.InputSocket;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the structure of a pipeline, in the form the {@link PipelineRunner}
+ * runs it in. Building a plan copies the sources and steps and works out how the steps are
+ * connected, so it is only done when the structure of the pipeline changes. Running a frame
+ * against a plan only walks its arrays, without copying or allocating anything.
+ *
+ * <p>The plan also knows which steps are {@link StepDemand needed}. That depends on the values of
+ * the inputs of switches and valves as well as on the structure, so the plan remembers which
+ * inputs those steps demanded, and {@link #withCurrentDemand()} works the needed steps out again
+ * when they pick different ones.</p>
+ */
+final class ExecutionPlan {
+
+  static final ExecutionPlan EMPTY = new ExecutionPlan(
+      new Source[0], new Timer[0], new Step[0], StepGraph.of(ImmutableList.of()), new Step[0]);
+
+  private final Source[] sources;
+  private final Timer[] sourceTimers;
+  private final Step[] steps;
+  private final StepGraph graph;
+  private final StepGraph neededGraph;
+  /**
+   * The steps whose demanded inputs depend on the values of their inputs.
+   */
+  private final Step[] selectors;
+  /**
+   * The inputs each of the {@link #selectors} demanded when the needed steps were worked out.
+   */
+  private final List<List<InputSocket>> selectorDemands;
+
+  private ExecutionPlan(Source[] sources, Timer[] sourceTimers, Step[] steps, StepGraph graph,
+                        Step[] selectors) {
+    this.sources = sources;
+    this.sourceTimers = sourceTimers;
+    this.steps = steps;
+    this.graph = graph;
+    this.selectors = selectors;
+    this.neededGraph = StepGraph.of(StepDemand.neededSteps(graph.getSteps()));
+    this.selectorDemands = new ArrayList<>(selectors.length);
+    for (Step selector : selectors) {
+      selectorDemands.add(ImmutableList.copyOf(selector.getDemandedInputSockets()));
+    }
+  }
+
+  /**
+   * Builds a plan for the given sources and steps.
+   *
+   * @param sources      the sources in the pipeline.
+   * @param steps        the steps in the pipeline, in pipeline order.
+   * @param timerFactory creates the timers for updating each source.
+   */
+  static ExecutionPlan compile(List<Source> sources, List<Step> steps,
+                               Timer.Factory timerFactory) {
+    final Source[] sourceArray = sources.toArray(new Source[sources.size()]);
+    final Timer[] sourceTimers = new Timer[sourceArray.length];
+    for (int i = 0; i < sourceArray.length; i++) {
+      sourceTimers[i] = timerFactory.create(sourceArray[i]);
+    }
+    return new ExecutionPlan(
+        sourceArray,
+        sourceTimers,
+        steps.toArray(new Step[steps.size()]),
+        StepGraph.of(steps),
+        steps.stream().filter(Step::hasSelectiveDemand).toArray(Step[]::new));
+  }
+
+  /**
+   * Checks if any switch or valve demands different inputs than when the needed steps were worked
+   * out, which means that other steps may be needed now.
+   */
+  boolean demandChanged() {
+    for (int i = 0; i < selectors.length; i++) {
+      // Switches and valves return the same list until their demand changes, and copying an
+      // immutable list keeps it the same, so this is normally just a check for the same list
+      if (!selectors[i].getDemandedInputSockets().equals(selectorDemands.get(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return a plan for the same pipeline, with the needed steps worked out from the inputs the
+   *     switches and valves demand now.
+   */
+  ExecutionPlan withCurrentDemand() {
+    return new ExecutionPlan(sources, sourceTimers, steps, graph, selectors);
+  }
+
+  /**
+   * @return the sources to update before running the steps. Must not be modified.
+   */
+  Source[] sources() {
+    return sources;
+  }
+
+  /**
+   * @return the timers for updating each source, in the same order as {@link #sources()}. Must
+   *     not be modified.
+   */
+  Timer[] sourceTimers() {
+    return sourceTimers;
+  }
+
+  /**
+   * @return the steps to run, in pipeline order. Must not be modified.
+   */
+  Step[] steps() {
+    return steps;
+  }
+
+  /**
+   * @return the dependencies between the steps, which are in the same order as {@link #steps()}.
+   */
+  StepGraph graph() {
+    return graph;
+  }
+
+  /**
+   * @return the dependencies between the steps that are needed to produce the results of every
+   *     sink.
+   */
+  StepGraph neededGraph() {
+    return neededGraph;
+  }
+}
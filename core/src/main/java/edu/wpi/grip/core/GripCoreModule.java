@@ -25,6 +25,7 @@ import edu.wpi.grip.core.sources.VideoFileSource;
 import edu.wpi.grip.core.util.ExceptionWitness;
 import edu.wpi.grip.core.util.GripMode;
 
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.SubscriberExceptionContext;
 import com.google.inject.AbstractModule;
@@ -37,7 +38,9 @@ import com.google.inject.spi.InjectionListener;
 import com.google.inject.spi.TypeEncounter;
 import com.google.inject.spi.TypeListener;
 
+import java.util.Collections;
 import java.util.Properties;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -51,6 +54,11 @@ import javax.annotation.Nullable;
 public class GripCoreModule extends AbstractModule {
 
   private final EventBus eventBus;
+  /**
+   * Objects that belong to another pipeline in the same process, which are not registered on this
+   * module's event bus.
+   */
+  private final Set<Object> sharedInstances;
 
   private static final Logger logger = Logger.getLogger(GripCoreModule.class.getName());
 
@@ -60,11 +68,32 @@ public class GripCoreModule extends AbstractModule {
   @SuppressWarnings("JavadocMethod")
   public GripCoreModule() {
     this.eventBus = new EventBus(this::onSubscriberException);
+    this.sharedInstances = Collections.emptySet();
     // TODO: HACK! Don't assign the global thread handler to an instance method. Creates global
     // state.
     Thread.setDefaultUncaughtExceptionHandler(this::onThreadException);
   }
 
+  private GripCoreModule(Set<Object> sharedInstances) {
+    this.eventBus = new EventBus(this::onSubscriberException);
+    this.sharedInstances = sharedInstances;
+  }
+
+  /**
+   * Creates the module for a pipeline that runs alongside the main pipeline in the same process.
+   * Process-wide state, such as the default uncaught exception handler, is left to the module of
+   * the main pipeline.
+   *
+   * @param sharedInstances objects of the main pipeline that are also bound in this pipeline.
+   *                        They stay registered on the main pipeline's event bus only, so that
+   *                        events of this pipeline don't reach them.
+   */
+  public static GripCoreModule forAdditionalPipeline(Object... sharedInstances) {
+    final Set<Object> shared = Sets.newIdentityHashSet();
+    Collections.addAll(shared, sharedInstances);
+    return new GripCoreModule(shared);
+  }
+
   @Override
   protected void configure() {
     bind(GripMode.class).toInstance(GripMode.HEADLESS);
@@ -73,7 +102,11 @@ public class GripCoreModule extends AbstractModule {
     bindListener(Matchers.any(), new TypeListener() {
       @Override
       public <I> void hear(TypeLiteral<I> type, TypeEncounter<I> encounter) {
-        encounter.register((InjectionListener<I>) eventBus::register);
+        encounter.register((InjectionListener<I>) injectee -> {
+          if (!sharedInstances.contains(injectee)) {
+            eventBus.register(injectee);
+          }
+        });
       }
     });
 
@@ -129,7 +162,8 @@ public class GripCoreModule extends AbstractModule {
 
     bind(BenchmarkRunner.class).asEagerSingleton();
 
-    bind(Cleaner.class).asEagerSingleton();
+    // Created eagerly so it sees the settings of the first project that is loaded
+    bind(StepOutputCache.class).asEagerSingleton();
   }
 
   protected void onSubscriberException(Throwable exception, @Nullable SubscriberExceptionContext
@@ -0,0 +1,264 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.events.BenchmarkEvent;
+import edu.wpi.grip.core.events.ConnectionAddedEvent;
+import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
+import edu.wpi.grip.core.events.RunStoppedEvent;
+import edu.wpi.grip.core.events.SourceAddedEvent;
+import edu.wpi.grip.core.events.SourceRemovedEvent;
+import edu.wpi.grip.core.events.StartSingleBenchmarkRunEvent;
+import edu.wpi.grip.core.metrics.BenchmarkReport;
+import edu.wpi.grip.core.metrics.LatencyHistogram;
+import edu.wpi.grip.core.metrics.MetricsRegistry;
+import edu.wpi.grip.core.settings.ProjectSettings;
+import edu.wpi.grip.core.settings.SettingsProvider;
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.sources.BackpressurePolicy;
+import edu.wpi.grip.core.sources.FrameQueue;
+import edu.wpi.grip.core.sources.MultiImageFileSource;
+import edu.wpi.grip.core.sources.VideoFileSource;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Service;
+import com.google.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Benchmarks a pipeline without the UI, so that pipelines can be compared on the hardware they will
+ * run on from a script.
+ *
+ * <p>By default every step is run again on the frame the sources already have, the same way the
+ * benchmark in the analysis window works. If the pipeline's sources are {@link #replay replaced}
+ * with a folder of images or a video, every run processes the next frame of that input instead, so
+ * runs see realistic, but still repeatable, frames.</p>
+ */
+public class HeadlessBenchmark {
+
+  private static final Logger logger = Logger.getLogger(HeadlessBenchmark.class.getName());
+
+  private static final ImmutableSet<String> IMAGE_EXTENSIONS =
+      ImmutableSet.of("jpg", "jpeg", "png", "bmp", "gif");
+  /**
+   * How long to wait for a single run of the pipeline before giving up.
+   */
+  private static final long RUN_TIMEOUT_SECONDS = 60;
+
+  private final EventBus eventBus;
+  private final Pipeline pipeline;
+  private final PipelineRunner pipelineRunner;
+  private final SettingsProvider settingsProvider;
+  private final MetricsRegistry metricsRegistry;
+  private final MultiImageFileSource.Factory multiImageFactory;
+  private final VideoFileSource.Factory videoFactory;
+  private final Connection.Factory<Object> connectionFactory;
+  private final Semaphore runsStopped = new Semaphore(0);
+  private boolean replaying = false;
+
+  @Inject
+  HeadlessBenchmark(EventBus eventBus,
+                    Pipeline pipeline,
+                    PipelineRunner pipelineRunner,
+                    SettingsProvider settingsProvider,
+                    MetricsRegistry metricsRegistry,
+                    MultiImageFileSource.Factory multiImageFactory,
+                    VideoFileSource.Factory videoFactory,
+                    Connection.Factory<Object> connectionFactory) {
+    this.eventBus = eventBus;
+    this.pipeline = pipeline;
+    this.pipelineRunner = pipelineRunner;
+    this.settingsProvider = settingsProvider;
+    this.metricsRegistry = metricsRegistry;
+    this.multiImageFactory = multiImageFactory;
+    this.videoFactory = videoFactory;
+    this.connectionFactory = connectionFactory;
+  }
+
+  /**
+   * Replaces every source in the pipeline that has an image output with one that replays the given
+   * input. Whatever the replaced source's image was connected to is connected to the replayed
+   * images instead.
+   *
+   * @param input a directory of images, which are replayed in alphabetical order, or a video file.
+   *              Every frame of a video is processed, however long the pipeline takes.
+   *
+   * @throws IOException if the input can't be read
+   */
+  @SuppressWarnings("unchecked")
+  public void replay(File input) throws IOException {
+    for (Source source : pipeline.getSources()) {
+      final OutputSocket<?> images = source.getOutputSockets().stream()
+          .filter(socket -> socket.getSocketHint().getType() == MatWrapper.class)
+          .findFirst()
+          .orElse(null);
+      if (images == null) {
+        continue;
+      }
+      final Source replacement = createReplay(input);
+      replacement.initialize();
+      final List<InputSocket> destinations = new ArrayList<>();
+      for (Connection<?> connection : images.getConnections()) {
+        destinations.add(connection.getInputSocket());
+      }
+      // Removing the source also removes its connections
+      eventBus.post(new SourceRemovedEvent(source));
+      eventBus.post(new SourceAddedEvent(replacement));
+      final OutputSocket<?> replayed = replacement.getOutputSockets().get(0);
+      for (InputSocket destination : destinations) {
+        eventBus.post(new ConnectionAddedEvent(connectionFactory.create(replayed, destination)));
+      }
+      logger.info("Replaying " + input + " instead of " + source.getName());
+      replaying = true;
+    }
+  }
+
+  private Source createReplay(File input) throws IOException {
+    if (input.isDirectory()) {
+      final File[] files = input.listFiles(file -> file.isFile() && IMAGE_EXTENSIONS.contains(
+          Files.getFileExtension(file.getName()).toLowerCase(Locale.ENGLISH)));
+      if (files == null || files.length == 0) {
+        throw new IOException("There are no images in " + input);
+      }
+      Arrays.sort(files);
+      return multiImageFactory.create(Arrays.asList(files));
+    } else if (!input.isFile()) {
+      throw new IOException("No such file: " + input);
+    }
+    final Properties properties = new Properties();
+    properties.setProperty("path", input.getAbsolutePath());
+    properties.setProperty(FrameQueue.POLICY_PROPERTY, BackpressurePolicy.BLOCK_PRODUCER.name());
+    return videoFactory.create(properties);
+  }
+
+  /**
+   * Runs the pipeline without measuring it to warm it up, then measures it. The pipeline runner is
+   * started if it isn't running yet, and the project's run policy is changed so that only the
+   * benchmark makes the pipeline run.
+   *
+   * @param warmupRuns   the number of runs before measuring
+   * @param measuredRuns the number of runs to measure
+   *
+   * @return how long the pipeline, each source and each step took over the measured runs
+   *
+   * @throws IllegalStateException if the pipeline stops running before the benchmark is done
+   */
+  public BenchmarkReport run(int warmupRuns, int measuredRuns) throws InterruptedException {
+    checkArgument(warmupRuns >= 0, "Warmup runs cannot be negative");
+    checkArgument(measuredRuns > 0, "Must measure at least one run");
+    final ProjectSettings settings = settingsProvider.getProjectSettings().clone();
+    settings.setRunPolicy(replaying ? RunPolicy.NEW_FRAMES_ONLY : RunPolicy.MANUAL);
+    eventBus.post(new ProjectSettingsChangedEvent(settings));
+    if (pipelineRunner.state() == Service.State.NEW) {
+      pipelineRunner.startAsync();
+    }
+    // Let the first frame get through the pipeline before starting
+    pipelineRunner.trigger();
+    awaitRun();
+    runsStopped.drainPermits();
+
+    if (!replaying) {
+      eventBus.post(BenchmarkEvent.started());
+    }
+    try {
+      Map<Object, LatencyHistogram.Snapshot> before = snapshot();
+      for (int run = 0; run < warmupRuns + measuredRuns; run++) {
+        if (run == warmupRuns) {
+          before = snapshot();
+        }
+        requestRun();
+        awaitRun();
+      }
+      return report(before, warmupRuns, measuredRuns);
+    } finally {
+      if (!replaying) {
+        eventBus.post(BenchmarkEvent.finished());
+      }
+    }
+  }
+
+  private void requestRun() {
+    if (!replaying) {
+      eventBus.post(new StartSingleBenchmarkRunEvent());
+      return;
+    }
+    // Video sources move on to the next frame by themselves once the last one has been taken
+    for (Source source : pipeline.getSources()) {
+      if (source instanceof PreviousNext) {
+        ((PreviousNext) source).next();
+      }
+    }
+  }
+
+  private void awaitRun() throws InterruptedException {
+    if (!runsStopped.tryAcquire(RUN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      throw new IllegalStateException(
+          "The pipeline didn't finish a run within " + RUN_TIMEOUT_SECONDS + " seconds");
+    }
+  }
+
+  /**
+   * The things that are timed, in the order they are reported.
+   */
+  private ImmutableList<Object> targets() {
+    return ImmutableList.<Object>builder()
+        .add(pipelineRunner)
+        .addAll(pipeline.getSources())
+        .addAll(pipeline.getSteps())
+        .build();
+  }
+
+  private Map<Object, LatencyHistogram.Snapshot> snapshot() {
+    final Map<Object, LatencyHistogram.Snapshot> snapshots = new IdentityHashMap<>();
+    for (Object target : targets()) {
+      snapshots.put(target, metricsRegistry.find(target)
+          .map(LatencyHistogram::snapshot)
+          .orElse(LatencyHistogram.Snapshot.EMPTY));
+    }
+    return snapshots;
+  }
+
+  private BenchmarkReport report(Map<Object, LatencyHistogram.Snapshot> before, int warmupRuns,
+                                 int measuredRuns) {
+    final Map<Object, LatencyHistogram.Snapshot> after = snapshot();
+    final BenchmarkReport.Builder report = BenchmarkReport.builder(warmupRuns, measuredRuns);
+    int stepNumber = 0;
+    for (Object target : targets()) {
+      final LatencyHistogram.Snapshot times = after.get(target)
+          .since(before.getOrDefault(target, LatencyHistogram.Snapshot.EMPTY));
+      if (target instanceof Step) {
+        stepNumber++;
+        report.add(stepNumber + ". " + ((Step) target).getOperationDescription().name(), "step",
+            times);
+      } else if (target instanceof Source) {
+        report.add(((Source) target).getName(), "source", times);
+      } else {
+        report.add("Pipeline", "pipeline", times);
+      }
+    }
+    return report.build();
+  }
+
+  @Subscribe
+  @SuppressWarnings({"PMD.UnusedPrivateMethod", "PMD.UnusedFormalParameter"})
+  private void onRunStopped(RunStoppedEvent event) {
+    runsStopped.release();
+  }
+}
@@ -5,7 +5,10 @@ import edu.wpi.grip.core.events.ExceptionClearedEvent;
 import edu.wpi.grip.core.events.ExceptionEvent;
 import edu.wpi.grip.core.exception.GripServerException;
 import edu.wpi.grip.core.http.GripServer;
+import edu.wpi.grip.core.http.HttpMetricsHandler;
 import edu.wpi.grip.core.http.HttpPipelineSwitcher;
+import edu.wpi.grip.core.http.HttpPipelineTrigger;
+import edu.wpi.grip.core.http.HttpTraceHandler;
 import edu.wpi.grip.core.operations.CVOperations;
 import edu.wpi.grip.core.operations.Operations;
 import edu.wpi.grip.core.operations.network.GripNetworkModule;
@@ -19,11 +22,16 @@ import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.Service;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
 import com.google.inject.util.Modules;
 
 import org.apache.commons.cli.CommandLine;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,6 +60,14 @@ public class Main {
   private GripServer gripServer;
   @Inject
   private HttpPipelineSwitcher pipelineSwitcher;
+  @Inject
+  private HttpPipelineTrigger pipelineTrigger;
+  @Inject
+  private HttpTraceHandler traceHandler;
+  @Inject
+  private HttpMetricsHandler metricsHandler;
+  @Inject
+  private Injector injector;
 
   @SuppressWarnings("JavadocMethod")
   public static void main(String[] args) throws IOException, InterruptedException {
@@ -64,27 +80,46 @@ public class Main {
     CudaVerifier cudaVerifier = Guice.createInjector(cudaModule).getInstance(CudaVerifier.class);
     cudaVerifier.verifyCuda();
 
-    final Injector injector = Guice.createInjector(
+    final Injector injector = createInjector(new GripCoreModule(), new GripNetworkModule());
+    injector.getInstance(Main.class).start(args);
+  }
+
+  /**
+   * Creates an injector for one pipeline. Every pipeline gets its own event bus, project, runner,
+   * sources and steps.
+   */
+  private static Injector createInjector(GripCoreModule coreModule, Module networkModule) {
+    return Guice.createInjector(
         Modules.override(
-            new GripCoreModule(),
+            coreModule,
             new GripFileModule(),
             new GripSourcesHardwareModule()
-        ).with(new GripNetworkModule(), cudaModule));
-    injector.getInstance(Main.class).start(args);
+        ).with(networkModule, new GripCudaModule()));
   }
 
   @SuppressWarnings("JavadocMethod")
   public void start(String[] args) throws IOException, InterruptedException {
 
-    operations.addOperations();
-    cvOperations.addOperations();
-    gripServer.addHandler(pipelineSwitcher);
+    setUpPipeline();
 
     CoreCommandLineHelper commandLineHelper = new CoreCommandLineHelper();
     CommandLine parsedArgs = commandLineHelper.parse(args);
 
     commandLineHelper.loadFile(parsedArgs, project);
     commandLineHelper.setServerPort(parsedArgs, settingsProvider, eventBus);
+    commandLineHelper.setRunPolicy(parsedArgs, settingsProvider, eventBus);
+
+    if (commandLineHelper.isBenchmark(parsedArgs)) {
+      runBenchmark(commandLineHelper, parsedArgs);
+      return;
+    }
+
+    final List<Main> additionalPipelines = new ArrayList<>();
+    for (Map.Entry<String, File> pipeline
+        : commandLineHelper.getAdditionalPipelines(parsedArgs).entrySet()) {
+      additionalPipelines.add(
+          createAdditionalPipeline(pipeline.getKey(), pipeline.getValue(), parsedArgs));
+    }
 
     // This will throw an exception if the port specified by the save file or command line
     // argument is already taken. Since we have to have the server running to handle remotely
@@ -97,11 +132,8 @@ public class Main {
       SafeShutdown.exit(SafeShutdown.ExitCode.HTTP_SERVER_COULD_NOT_START);
     }
 
-    if (pipelineRunner.state() == Service.State.NEW) {
-      // Loading a project will start the pipeline, so only start it if a project wasn't specified
-      // as a command line argument.
-      pipelineRunner.startAsync();
-    }
+    startPipelineRunner();
+    additionalPipelines.forEach(Main::startPipelineRunner);
 
     // This is done in order to indicate to the user using the deployment UI that this is running
     logger.log(Level.INFO, "SUCCESS! The project is running in headless mode!");
@@ -111,6 +143,64 @@ public class Main {
     }
   }
 
+  private void setUpPipeline() {
+    operations.addOperations();
+    cvOperations.addOperations();
+    gripServer.addHandler(pipelineSwitcher);
+    gripServer.addHandler(pipelineTrigger);
+    gripServer.addHandler(traceHandler);
+    gripServer.addHandler(metricsHandler);
+  }
+
+  /**
+   * Benchmarks the pipeline as the command line arguments say to, then exits.
+   */
+  private void runBenchmark(CoreCommandLineHelper commandLineHelper, CommandLine parsedArgs)
+      throws InterruptedException {
+    try {
+      commandLineHelper.runBenchmark(parsedArgs, injector.getInstance(HeadlessBenchmark.class));
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.SEVERE, "The pipeline could not be benchmarked", e);
+      SafeShutdown.exit(SafeShutdown.ExitCode.MISC_ERROR);
+    }
+    SafeShutdown.exit(SafeShutdown.ExitCode.SAFE_SHUTDOWN);
+  }
+
+  private void startPipelineRunner() {
+    if (pipelineRunner.state() == Service.State.NEW) {
+      // Loading a project will start the pipeline, so only start it if a project wasn't specified
+      // as a command line argument.
+      pipelineRunner.startAsync();
+    }
+  }
+
+  /**
+   * Loads a pipeline to run in this process alongside this one. The new pipeline is completely
+   * separate from this one, except that it shares the HTTP server (under its own namespace) and
+   * the NetworkTables connection.
+   */
+  private Main createAdditionalPipeline(String name, File file, CommandLine parsedArgs)
+      throws IOException {
+    final PipelineNamespace namespace = new PipelineNamespace(name);
+    // The HTTP server is shared, and must only see the events of the main pipeline
+    final Injector pipelineInjector = createInjector(
+        GripCoreModule.forAdditionalPipeline(gripServer),
+        Modules.override(new GripNetworkModule())
+            .with(GripNetworkModule.sharedWith(injector, namespace)));
+    final Main pipeline = pipelineInjector.getInstance(Main.class);
+    pipeline.setUpPipeline();
+    try {
+      pipeline.project.open(file);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Invalid file for pipeline " + name + ": " + file, e);
+      throw e;
+    }
+    new CoreCommandLineHelper()
+        .setRunPolicy(parsedArgs, pipeline.settingsProvider, pipeline.eventBus);
+    logger.info("Loaded pipeline " + name + " from " + file);
+    return pipeline;
+  }
+
   @Subscribe
   public final void onExceptionEvent(ExceptionEvent event) {
     Logger.getLogger(event.getOrigin().getClass().getName()).log(
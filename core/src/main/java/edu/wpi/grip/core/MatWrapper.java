@@ -170,6 +170,17 @@ public final class MatWrapper {
     changed = true;
   }
 
+  /**
+   * Sets this as being backed by the data of an image in host memory, without copying it. Until
+   * this wrapper is set to something else, it refers to the same pixels as the given mat, so the
+   * mat must not be written to while this wrapper may still be read.
+   */
+  public void share(Mat mat) {
+    cpuMat.put(mat);
+    isCpu = true;
+    changed = true;
+  }
+
   /**
    * Sets this as being backed by an image in GPU memory. The data in the given mat will be copied
    * into the internal GPU mat, but not the mat residing in host memory until {@link #getCpu()} is
@@ -0,0 +1,108 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.util.NativeResource;
+
+import com.google.common.collect.Sets;
+
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.opencv_core.GpuMat;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Frees the native memory of the values that steps output as soon as the pipeline is done with
+ * them, so the memory used by a running pipeline stays flat without forcing garbage collections.
+ *
+ * <p>Every step output that is a {@link NativeResource}, or a JavaCPP object other than an image,
+ * is tracked. Images are not, since operations update them in place and keep them for as long as
+ * they exist. Once a tracked value is no longer the output of any step it is retired, and it is
+ * freed after the next run if nothing in the pipeline refers to it by then: no socket, no cached
+ * output and no value being held back between stages. Values read away from the pipeline thread,
+ * such as by previews, are {@link edu.wpi.grip.core.util.SharedNativeResource shared}, so
+ * releasing them only frees them once those readers are done.</p>
+ *
+ * <p>Values that only sources output are left alone, since sources manage their own values.</p>
+ *
+ * <p>Only accessed from the thread running the pipeline.</p>
+ */
+final class NativeValueReleaser {
+
+  /**
+   * The values that steps output as of the last run.
+   */
+  private Set<Object> outputs = Sets.newIdentityHashSet();
+  /**
+   * The values that steps output in this run, which is empty between runs. Swapped with
+   * {@link #outputs} after every run, so no new set has to be made.
+   */
+  private Set<Object> current = Sets.newIdentityHashSet();
+  /**
+   * Tracked values that stopped being outputs before the last run, which are freed once they are
+   * unused.
+   */
+  private List<Object> retired = new ArrayList<>();
+  /**
+   * The retired values that are still used after this run, which is empty between runs. Swapped
+   * with {@link #retired}.
+   */
+  private List<Object> stillRetired = new ArrayList<>();
+
+  /**
+   * Retires the values steps no longer output, and frees the ones retired by the previous call
+   * that are no longer used.
+   *
+   * @param steps every step in the pipeline
+   * @param inUse values the pipeline refers to outside of the steps. Every value the steps refer to
+   *              is added to this set.
+   */
+  void releaseUnused(Step[] steps, Set<Object> inUse) {
+    for (Step step : steps) {
+      step.collectOutputValues(current);
+      step.collectValues(inUse);
+    }
+
+    for (int i = 0; i < retired.size(); i++) {
+      final Object value = retired.get(i);
+      if (current.contains(value)) {
+        // It's an output again, so it will be retired again once it's replaced
+        continue;
+      }
+      if (inUse.contains(value)) {
+        stillRetired.add(value);
+      } else {
+        release(value);
+      }
+    }
+    for (Object value : outputs) {
+      if (!current.contains(value) && isTracked(value)) {
+        stillRetired.add(value);
+      }
+    }
+
+    final Set<Object> previousOutputs = outputs;
+    outputs = current;
+    current = previousOutputs;
+    final List<Object> previousRetired = retired;
+    retired = stillRetired;
+    stillRetired = previousRetired;
+    // Empty them now rather than next run, so they don't keep freed values around
+    current.clear();
+    stillRetired.clear();
+  }
+
+  private static boolean isTracked(Object value) {
+    return value instanceof NativeResource
+        || (value instanceof Pointer && !(value instanceof Mat) && !(value instanceof GpuMat));
+  }
+
+  private static void release(Object value) {
+    if (value instanceof NativeResource) {
+      ((NativeResource) value).release();
+    } else {
+      ((Pointer) value).deallocate();
+    }
+  }
+}
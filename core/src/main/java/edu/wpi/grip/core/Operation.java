@@ -27,6 +27,51 @@ public interface Operation {
    */
   void perform();
 
+  /**
+   * Checks if this operation does something outside of the pipeline, such as publishing or saving
+   * its inputs. When the pipeline only runs the steps that are needed, these are the steps that
+   * everything else is run for.
+   *
+   * @return true if this operation should always run, even if nothing uses its outputs.
+   */
+  default boolean isSink() {
+    return false;
+  }
+
+  /**
+   * Checks if this operation picks the inputs it reads based on their values, like a switch or a
+   * valve. Operations that return true must override {@link #getDemandedInputSockets()}.
+   *
+   * @return true if the inputs this operation needs can change without the pipeline changing.
+   */
+  default boolean hasSelectiveDemand() {
+    return false;
+  }
+
+  /**
+   * Gets the inputs that the next call to {@link #perform()} will actually read, based on the
+   * current values of the inputs. Operations that pick between their inputs, like a switch, can
+   * override this so that the steps feeding the inputs they ignore don't have to run. This is
+   * checked after every run, so overrides should return lists they already have instead of making
+   * new ones.
+   *
+   * @return the inputs that are needed to perform this operation. Defaults to every input.
+   */
+  default List<InputSocket> getDemandedInputSockets() {
+    return getInputSockets();
+  }
+
+  /**
+   * Checks if the outputs of this operation depend only on the current values of its inputs.
+   * Operations that remember anything between runs, such as the previous frame, must return false
+   * so that their outputs are never replayed from the {@link StepOutputCache}.
+   *
+   * @return true if running this operation twice with the same inputs gives the same outputs.
+   */
+  default boolean isStateless() {
+    return true;
+  }
+
   /**
    * Allows the step to clean itself up when removed from the pipeline. This should only be called
    * by {@link Step#setRemoved()} to ensure correct synchronization.
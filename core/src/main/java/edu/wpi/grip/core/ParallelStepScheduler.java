@@ -0,0 +1,149 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.util.DaemonThread;
+
+import com.google.common.base.Throwables;
+
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs the steps of a pipeline on a bounded pool of threads, using the connections between the
+ * steps to decide which of them can run at the same time.
+ *
+ * <p>A step is only started once every step that feeds one of its inputs has finished, so it
+ * always sees the values its upstream steps produced in the same run. Steps that have no path
+ * between them, such as two branches fed by the same source, may run concurrently. Each step is
+ * still run with {@link Step#runPerform(boolean)}, so a step with no dirty inputs will not run its
+ * operation.</p>
+ *
+ * <p>All of the bookkeeping for a run is done on the thread that calls {@link #run}; the worker
+ * threads only ever run steps.</p>
+ */
+class ParallelStepScheduler {
+
+  private final int threads;
+  private final ExecutorService executor;
+
+  /**
+   * @param threads the maximum number of steps to run at the same time.
+   */
+  ParallelStepScheduler(int threads) {
+    checkArgument(threads > 0, "There must be at least one thread");
+    this.threads = threads;
+    this.executor = Executors.newFixedThreadPool(threads,
+        r -> new DaemonThread(r, "Pipeline Step Worker"));
+  }
+
+  /**
+   * @return the maximum number of steps this scheduler will run at the same time.
+   */
+  int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Runs the given steps, blocking until every step that was started has finished.
+   *
+   * @param steps     the steps to run, in pipeline order.
+   * @param force     if every step should be forced to run regardless of 'dirtiness'.
+   * @param isRunning checked before starting each step. Once this returns false no more steps are
+   *                  started, but the steps that are already running are allowed to finish.
+   */
+  void run(List<Step> steps, boolean force, Supplier<Boolean> isRunning) {
+    run(StepGraph.of(steps), force, isRunning);
+  }
+
+  /**
+   * Runs the steps in an already built graph, blocking until every step that was started has
+   * finished.
+   *
+   * @see #run(List, boolean, Supplier)
+   */
+  void run(StepGraph graph, boolean force, Supplier<Boolean> isRunning) {
+    final List<Step> steps = graph.getSteps();
+    final int[] waitingOn = new int[graph.size()];
+    for (int i = 0; i < graph.size(); i++) {
+      waitingOn[i] = graph.upstreamOf(i).length;
+    }
+
+    final CompletionService<Integer> completionService =
+        new ExecutorCompletionService<>(executor);
+    int pending = 0;
+    for (int i = 0; i < steps.size() && isRunning.get(); i++) {
+      if (waitingOn[i] == 0) {
+        submit(completionService, steps.get(i), i, force);
+        pending++;
+      }
+    }
+
+    boolean interrupted = false;
+    Throwable failure = null;
+    while (pending > 0) {
+      final Future<Integer> finished;
+      try {
+        finished = completionService.take();
+      } catch (InterruptedException e) {
+        // Don't leave steps from this run going in the background, wait for them to finish first
+        interrupted = true;
+        continue;
+      }
+      pending--;
+
+      final int index;
+      try {
+        index = finished.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+        continue;
+      } catch (InterruptedException e) {
+        // The future has already completed so this can't actually block
+        interrupted = true;
+        continue;
+      }
+
+      if (interrupted || failure != null || !isRunning.get()) {
+        continue;
+      }
+      for (int dependent : graph.downstreamOf(index)) {
+        if (--waitingOn[dependent] == 0) {
+          submit(completionService, steps.get(dependent), dependent, force);
+          pending++;
+        }
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure != null) {
+      Throwables.throwIfUnchecked(failure);
+      throw new IllegalStateException("A step failed to run", failure);
+    }
+  }
+
+  /**
+   * Stops the worker threads. This scheduler can not be used after it has been shut down.
+   */
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static void submit(CompletionService<Integer> completionService, Step step, int index,
+                             boolean force) {
+    completionService.submit(() -> {
+      step.runPerform(force);
+      return index;
+    });
+  }
+}
@@ -0,0 +1,88 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.http.GripServer;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The name of a pipeline when several pipelines run in the same headless process. Every pipeline
+ * after the first one has its HTTP paths and NetworkTables control keys under its own name, so
+ * that they don't clash with the other pipelines sharing the same server and NetworkTables
+ * connection. The first pipeline has the default namespace, which keeps the usual paths and keys.
+ */
+@Singleton
+public class PipelineNamespace {
+
+  /**
+   * The namespace of the main pipeline.
+   */
+  public static final PipelineNamespace DEFAULT = new PipelineNamespace("");
+
+  private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+  private final String name;
+
+  @Inject
+  PipelineNamespace() {
+    this("");
+  }
+
+  /**
+   * @param name the name of the pipeline. This can only contain letters, numbers, dashes and
+   *             underscores, since it is used in URLs and NetworkTables keys.
+   */
+  public PipelineNamespace(String name) {
+    checkNotNull(name, "Name cannot be null");
+    checkArgument(name.isEmpty() || isValidName(name), "Invalid pipeline name: %s", name);
+    this.name = name;
+  }
+
+  /**
+   * Checks if the given string can be used as the name of a pipeline.
+   */
+  public static boolean isValidName(String name) {
+    return VALID_NAME.matcher(name).matches();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return true if this is the namespace of the main pipeline.
+   */
+  public boolean isDefault() {
+    return name.isEmpty();
+  }
+
+  /**
+   * Moves an HTTP path under {@link GripServer#ROOT_PATH} into this namespace. For example, the
+   * data path of a pipeline named {@code balls} is {@code /GRIP/balls/data}. Paths outside of the
+   * root path, and every path in the default namespace, are left as they are.
+   */
+  public String resolvePath(String path) {
+    if (isDefault() || !path.startsWith(GripServer.ROOT_PATH)) {
+      return path;
+    }
+    return GripServer.ROOT_PATH + "/" + name + path.substring(GripServer.ROOT_PATH.length());
+  }
+
+  /**
+   * @return the NetworkTables table that holds the keys controlling this pipeline, such as
+   *     {@code run} and {@code trigger}.
+   */
+  public String getTableName() {
+    return isDefault() ? "GRIP" : "GRIP/" + name;
+  }
+
+  @Override
+  public String toString() {
+    return isDefault() ? "(default)" : name;
+  }
+}
@@ -2,12 +2,24 @@ package edu.wpi.grip.core;
 
 
 import edu.wpi.grip.core.events.BenchmarkEvent;
+import edu.wpi.grip.core.events.ConnectionAddedEvent;
+import edu.wpi.grip.core.events.ConnectionRemovedEvent;
+import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
 import edu.wpi.grip.core.events.RenderEvent;
 import edu.wpi.grip.core.events.RunPipelineEvent;
 import edu.wpi.grip.core.events.RunStartedEvent;
 import edu.wpi.grip.core.events.RunStoppedEvent;
+import edu.wpi.grip.core.events.SocketPreviewChangedEvent;
+import edu.wpi.grip.core.events.SourceAddedEvent;
+import edu.wpi.grip.core.events.SourceHasPendingUpdateEvent;
+import edu.wpi.grip.core.events.SourceRemovedEvent;
+import edu.wpi.grip.core.events.StartSingleBenchmarkRunEvent;
+import edu.wpi.grip.core.events.StepAddedEvent;
+import edu.wpi.grip.core.events.StepMovedEvent;
+import edu.wpi.grip.core.events.StepRemovedEvent;
 import edu.wpi.grip.core.events.StopPipelineEvent;
 import edu.wpi.grip.core.metrics.Timer;
+import edu.wpi.grip.core.settings.ProjectSettings;
 import edu.wpi.grip.core.util.SinglePermitSemaphore;
 import edu.wpi.grip.core.util.service.AutoRestartingService;
 import edu.wpi.grip.core.util.service.LoggingListener;
@@ -15,6 +27,7 @@ import edu.wpi.grip.core.util.service.RestartableService;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -23,6 +36,8 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -48,10 +63,59 @@ public class PipelineRunner implements RestartableService {
   private final SinglePermitSemaphore pipelineFlag = new SinglePermitSemaphore();
   private final Supplier<ImmutableList<Source>> sourceSupplier;
   private final Supplier<ImmutableList<Step>> stepSupplier;
+  private final Timer.Factory timerFactory;
   private final AutoRestartingService pipelineService;
 
   private final AtomicBoolean benchmarking = new AtomicBoolean(false);
 
+  private volatile ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+  private volatile int executionThreads = 0;
+  private volatile boolean onlyNeededSteps = false;
+  private volatile RunPolicy runPolicy = RunPolicy.AS_FAST_AS_POSSIBLE;
+  private volatile double runRate = 30;
+  /**
+   * The earliest time the next run is allowed to start when the run rate is being limited, or the
+   * time it should start when running at a fixed rate. Only accessed from the thread running the
+   * pipeline.
+   */
+  private long nextRunNanos = System.nanoTime();
+
+  /**
+   * Set whenever the structure of the pipeline changes, so that the plan is rebuilt before the
+   * next run.
+   */
+  private final AtomicBoolean planStale = new AtomicBoolean(true);
+  /**
+   * Only accessed from the thread running the pipeline.
+   */
+  private ExecutionPlan plan = ExecutionPlan.EMPTY;
+  private final EventBus eventBus;
+  // These events don't carry any information, so the same ones are posted for every run
+  private final RunStartedEvent runStartedEvent = new RunStartedEvent();
+  private final RunStoppedEvent runStoppedEvent = new RunStoppedEvent();
+  private final RenderEvent renderEvent = new RenderEvent();
+  /**
+   * Only accessed from the thread running the pipeline. Created the first time the pipeline is run
+   * in {@link ExecutionMode#PARALLEL parallel} mode.
+   */
+  @Nullable
+  private ParallelStepScheduler parallelScheduler;
+  /**
+   * Only accessed from the thread running the pipeline. Created the first time the pipeline is run
+   * in {@link ExecutionMode#PIPELINED pipelined} mode.
+   */
+  @Nullable
+  private PipelinedStepScheduler pipelinedScheduler;
+  /**
+   * Only accessed from the thread running the pipeline.
+   */
+  private final NativeValueReleaser nativeValues = new NativeValueReleaser();
+  /**
+   * The values the pipeline refers to, gathered again after every run. Only accessed from the
+   * thread running the pipeline.
+   */
+  private final Set<Object> valuesInUse = Sets.newIdentityHashSet();
+
   @Inject
   PipelineRunner(EventBus eventBus,
                  Provider<Pipeline> pipelineProvider,
@@ -66,11 +130,20 @@ public class PipelineRunner implements RestartableService {
                  Supplier<ImmutableList<Source>> sourceSupplier,
                  Supplier<ImmutableList<Step>> stepSupplier,
                  Timer.Factory timerFactory) {
+    this.eventBus = eventBus;
     this.sourceSupplier = sourceSupplier;
     this.stepSupplier = stepSupplier;
+    this.timerFactory = timerFactory;
     Timer timer = timerFactory.create(this);
+    // Handlers of these events run on the pipeline thread, so time them to see when they block it
+    Timer runStoppedTimer = timerFactory.create(runStoppedEvent);
+    Timer renderTimer = timerFactory.create(renderEvent);
     this.pipelineService = new AutoRestartingService<>(
         () -> new AbstractScheduledService() {
+          private final Supplier<Boolean> isRunning = super::isRunning;
+          private final Runnable runPipeline = () -> runPipeline(isRunning);
+          private final Runnable postRunStopped = () -> eventBus.post(runStoppedEvent);
+          private final Runnable postRender = () -> eventBus.post(renderEvent);
 
           /**
            *
@@ -82,20 +155,26 @@ public class PipelineRunner implements RestartableService {
               return;
             }
 
-            pipelineFlag.acquire();
-            eventBus.post(new RunStartedEvent());
+            awaitNextRun();
+            eventBus.post(runStartedEvent);
 
             if (!super.isRunning()) {
               return;
             }
-            timer.time(() -> runPipeline(super::isRunning));
+            timer.time(runPipeline);
             // This should not block access to the steps array
-            eventBus.post(new RunStoppedEvent());
+            runStoppedTimer.time(postRunStopped);
             if (super.isRunning()) {
-              eventBus.post(new RenderEvent());
+              renderTimer.time(postRender);
             }
           }
 
+          @Override
+          protected void shutDown() {
+            shutDownParallelScheduler();
+            shutDownPipelinedScheduler();
+          }
+
           @Override
           protected Scheduler scheduler() {
             return Scheduler.newFixedRateSchedule(0, 1, TimeUnit.MILLISECONDS);
@@ -188,48 +267,307 @@ public class PipelineRunner implements RestartableService {
   }
 
   private void runPipeline(Supplier<Boolean> isRunning) {
-    // Take a snapshot of both of the pipeline at the present time before running it.
-    final ImmutableList<Source> sources = sourceSupplier.get();
-    final ImmutableList<Step> steps = stepSupplier.get();
-    // Now that we have a snapshot we can run the pipeline with our copy.
+    runSourcesAndSteps(isRunning);
+    releaseUnusedValues();
+  }
+
+  private void runSourcesAndSteps(Supplier<Boolean> isRunning) {
+    // The plan is a snapshot of the pipeline, so it can be run without holding any locks
+    ExecutionPlan plan = currentPlan();
 
     if (!benchmarking.get()) {
       // Don't update sources if this run is being benchmarked
-      for (Source source : sources) {
+      final Source[] sources = plan.sources();
+      final Timer[] sourceTimers = plan.sourceTimers();
+      for (int i = 0; i < sources.length; i++) {
         // if we have been stopped then we need to exit as soon as possible.
         // then don't continue to run the pipeline.
         if (!isRunning.get()) {
           break;
         }
-        source.updateOutputSockets();
+        sourceTimers[i].started();
+        try {
+          sources[i].updateOutputSockets();
+        } finally {
+          sourceTimers[i].stop();
+        }
       }
     }
 
-    for (Step step : steps) {
+    final ExecutionMode mode = executionMode;
+    if (mode != ExecutionMode.PIPELINED) {
+      // Give the connections back before running steps the normal way
+      shutDownPipelinedScheduler();
+    }
+
+    if (!onlyNeededSteps) {
+      runSteps(mode, plan.graph(), isRunning);
+      return;
+    }
+
+    if (plan.demandChanged()) {
+      // A switch or valve was changed since the last run
+      this.plan = plan.withCurrentDemand();
+      plan = this.plan;
+    }
+    runSteps(mode, plan.neededGraph(), isRunning);
+    if (mode == ExecutionMode.PIPELINED) {
+      // Values take several runs to get through the pipeline anyway, so any change in which steps
+      // are needed will be picked up on the next run
+      return;
+    }
+    // A switch or valve controlled by another step may have changed which branches are needed
+    for (int i = 0; i < plan.steps().length && isRunning.get() && plan.demandChanged(); i++) {
+      this.plan = plan.withCurrentDemand();
+      plan = this.plan;
+      // Steps that already ran and have not been changed since are skipped as usual
+      runSteps(mode, plan.neededGraph(), isRunning);
+    }
+  }
+
+  private void runSteps(ExecutionMode mode, StepGraph graph, Supplier<Boolean> isRunning) {
+    if (mode == ExecutionMode.PIPELINED) {
+      if (pipelinedScheduler().run(graph, benchmarking.get(), isRunning)) {
+        // There are frames partway through the pipeline, keep going until they come out the end
+        pipelineFlag.release();
+      }
+      return;
+    } else if (mode == ExecutionMode.PARALLEL && graph.size() > 1) {
+      parallelScheduler().run(graph, benchmarking.get(), isRunning);
+      return;
+    }
+
+    final List<Step> steps = graph.getSteps();
+    for (int i = 0; i < steps.size(); i++) {
       if (!isRunning.get()) {
         break;
       }
-      step.runPerform(benchmarking.get());
+      steps.get(i).runPerform(benchmarking.get());
+    }
+  }
+
+  /**
+   * Frees the native memory of values that the steps have stopped using.
+   */
+  private void releaseUnusedValues() {
+    valuesInUse.clear();
+    if (pipelinedScheduler != null) {
+      pipelinedScheduler.collectHeldValues(valuesInUse);
+    }
+    // The plan has the same steps as the pipeline without having to lock it and copy them
+    nativeValues.releaseUnused(currentPlan().steps(), valuesInUse);
+    // Don't keep the values alive until the next run
+    valuesInUse.clear();
+  }
+
+  /**
+   * Blocks until the run policy says the pipeline should run again.
+   *
+   * @throws InterruptedException if the pipeline thread is interrupted while waiting.
+   */
+  private void awaitNextRun() throws InterruptedException {
+    final long period = (long) (TimeUnit.SECONDS.toNanos(1) / runRate);
+    if (runPolicy == RunPolicy.FIXED_RATE) {
+      final long target = nextRunNanos;
+      sleepUntil(target);
+      final long now = System.nanoTime();
+      // If a run took more than a whole period, start counting again instead of trying to catch up
+      nextRunNanos = now - target > period ? now + period : target + period;
+      return;
+    }
+
+    pipelineFlag.acquire();
+    if (runPolicy == RunPolicy.LIMITED_RATE) {
+      // Any updates that arrive while waiting are picked up by this run
+      sleepUntil(nextRunNanos);
+      nextRunNanos = System.nanoTime() + period;
+    }
+  }
+
+  private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+    final long remaining = deadlineNanos - System.nanoTime();
+    if (remaining > 0) {
+      TimeUnit.NANOSECONDS.sleep(remaining);
+    }
+  }
+
+  /**
+   * Gets the plan to run, rebuilding it first if the structure of the pipeline has changed since
+   * it was built.
+   */
+  private ExecutionPlan currentPlan() {
+    if (planStale.getAndSet(false)) {
+      plan = ExecutionPlan.compile(sourceSupplier.get(), stepSupplier.get(), timerFactory);
+    }
+    return plan;
+  }
+
+  /**
+   * Marks the plan as needing to be rebuilt. The subscribers that actually apply a change to the
+   * pipeline may not have seen the event yet, so this also posts an event that marks the plan
+   * again. Events posted from a subscriber are only dispatched once every subscriber has received
+   * the current event, so the plan is always rebuilt after the change has been applied.
+   */
+  private void invalidatePlan() {
+    planStale.set(true);
+    eventBus.post(new PlanInvalidatedEvent());
+  }
+
+  /**
+   * Gets the scheduler used to run steps in parallel, replacing it if the number of threads it
+   * should use has changed since it was created.
+   */
+  private ParallelStepScheduler parallelScheduler() {
+    final int threads = executionThreads();
+    if (parallelScheduler != null && parallelScheduler.getThreads() != threads) {
+      shutDownParallelScheduler();
+    }
+    if (parallelScheduler == null) {
+      parallelScheduler = new ParallelStepScheduler(threads);
+    }
+    return parallelScheduler;
+  }
+
+  private void shutDownParallelScheduler() {
+    if (parallelScheduler != null) {
+      parallelScheduler.shutdown();
+      parallelScheduler = null;
+    }
+  }
+
+  /**
+   * Gets the scheduler used to run steps in stages, replacing it if the number of threads it should
+   * use has changed since it was created.
+   */
+  private PipelinedStepScheduler pipelinedScheduler() {
+    final int threads = executionThreads();
+    if (pipelinedScheduler != null && pipelinedScheduler.getThreads() != threads) {
+      shutDownPipelinedScheduler();
+    }
+    if (pipelinedScheduler == null) {
+      pipelinedScheduler = new PipelinedStepScheduler(threads);
     }
+    return pipelinedScheduler;
+  }
+
+  private void shutDownPipelinedScheduler() {
+    if (pipelinedScheduler != null) {
+      pipelinedScheduler.shutdown();
+      pipelinedScheduler = null;
+    }
+  }
+
+  private int executionThreads() {
+    return executionThreads == 0 ? Runtime.getRuntime().availableProcessors() : executionThreads;
+  }
+
+  /**
+   * Runs the pipeline as soon as possible, whatever the run policy is. This is how the pipeline is
+   * run with the {@link RunPolicy#MANUAL manual} run policy.
+   */
+  public void trigger() {
+    pipelineFlag.release();
   }
 
   @Subscribe
   @AllowConcurrentEvents
   public void onRunPipeline(RunPipelineEvent event) {
     checkNotNull(event);
-    if (event.pipelineShouldRun()) {
+    if (event.pipelineShouldRun() && runPolicyAllows(event)) {
       pipelineFlag.release();
     }
   }
 
+  private boolean runPolicyAllows(RunPipelineEvent event) {
+    if (event instanceof StartSingleBenchmarkRunEvent) {
+      // Benchmarks need to be able to run the pipeline whatever the policy is
+      return true;
+    }
+    switch (runPolicy) {
+      case NEW_FRAMES_ONLY:
+        return event instanceof SourceHasPendingUpdateEvent;
+      case FIXED_RATE:
+      case MANUAL:
+        return false;
+      default:
+        return true;
+    }
+  }
+
   @Subscribe
   public void onStopPipeline(@Nullable StopPipelineEvent event) {
     stopAsync();
   }
 
+  @Subscribe
+  public void onProjectSettingsChanged(ProjectSettingsChangedEvent event) {
+    final ProjectSettings settings = event.getProjectSettings();
+    this.executionMode = settings.getExecutionMode();
+    this.executionThreads = settings.getExecutionThreads();
+    this.onlyNeededSteps = settings.isOnlyRunNeededSteps();
+    this.runRate = settings.getRunRate();
+    if (this.runPolicy != settings.getRunPolicy()) {
+      this.runPolicy = settings.getRunPolicy();
+      // Wake the pipeline thread in case it is waiting for something the new policy won't provide
+      pipelineFlag.release();
+    }
+  }
+
   @Subscribe
   public void onBenchmarkEvent(BenchmarkEvent event) {
     benchmarking.set(event.isStart());
   }
 
+  @Subscribe
+  public void onStepAdded(StepAddedEvent event) {
+    invalidatePlan();
+  }
+
+  @Subscribe
+  public void onStepRemoved(StepRemovedEvent event) {
+    invalidatePlan();
+  }
+
+  @Subscribe
+  public void onStepMoved(StepMovedEvent event) {
+    invalidatePlan();
+  }
+
+  @Subscribe
+  public void onSourceAdded(SourceAddedEvent event) {
+    invalidatePlan();
+  }
+
+  @Subscribe
+  public void onSourceRemoved(SourceRemovedEvent event) {
+    invalidatePlan();
+  }
+
+  @Subscribe
+  public void onConnectionAdded(ConnectionAddedEvent event) {
+    invalidatePlan();
+  }
+
+  @Subscribe
+  public void onConnectionRemoved(ConnectionRemovedEvent event) {
+    invalidatePlan();
+  }
+
+  @Subscribe
+  public void onSocketPreviewChanged(SocketPreviewChangedEvent event) {
+    // Previewed steps are always needed
+    invalidatePlan();
+  }
+
+  @Subscribe
+  @SuppressWarnings("PMD.UnusedPrivateMethod")
+  private void onPlanInvalidated(PlanInvalidatedEvent event) {
+    planStale.set(true);
+  }
+
+  /**
+   * Posted by the runner to itself after the structure of the pipeline changes.
+   */
+  private static final class PlanInvalidatedEvent {
+  }
 }
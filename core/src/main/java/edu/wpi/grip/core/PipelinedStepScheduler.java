@@ -0,0 +1,350 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.util.DaemonThread;
+
+import com.google.common.base.Throwables;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs the steps of a pipeline as a series of stages, so that consecutive frames are processed at
+ * the same time by different parts of the pipeline.
+ *
+ * <p>Steps are split into stages by their {@link StepGraph#levels() level}. Each call to
+ * {@link #run} is one tick: first the values produced during the previous tick are handed to the
+ * next stage, then every stage runs at the same time. While stage N works on frame k, stage N - 1
+ * is working on frame k + 1, so throughput is limited by the slowest stage instead of the whole
+ * pipeline. The cost is latency: a frame needs one tick per stage to get through the pipeline.</p>
+ *
+ * <p>The connections between steps are {@link Connection#setDeferred(boolean) deferred} while
+ * this scheduler manages them, so values only move between stages between ticks, when no step is
+ * running. Images are copied into buffers owned by the scheduler, so a step never sees an image
+ * that its upstream step is in the middle of writing. Other values are handed over by reference,
+ * which is safe because operations create new values for them every time they run. A connection
+ * that skips over stages holds its values back one tick per skipped stage, so every step always
+ * gets inputs that came from the same frame.</p>
+ */
+class PipelinedStepScheduler {
+
+  private final int threads;
+  private final ExecutorService executor;
+  /**
+   * The connections this scheduler has deferred. Only accessed from the thread calling
+   * {@link #run}.
+   */
+  private final Map<Connection<?>, DelayLine> delayLines = new HashMap<>();
+  /**
+   * The graph that {@link #stages}, {@link #connections} and {@link #delays} were worked out for.
+   * Only accessed from the thread calling {@link #run}, like the fields that follow.
+   */
+  private StepGraph scheduled;
+  private Stage[] stages = new Stage[0];
+  private Future<?>[] running = new Future<?>[0];
+  /**
+   * Every connection to a step in {@link #scheduled}, and how many ticks each one holds its values
+   * back for.
+   */
+  private Connection<?>[] connections = new Connection<?>[0];
+  private int[] delays = new int[0];
+  /**
+   * Set for the stages while a tick is running.
+   */
+  private boolean force;
+  private Supplier<Boolean> isRunning;
+
+  /**
+   * @param threads the maximum number of stages to run at the same time.
+   */
+  PipelinedStepScheduler(int threads) {
+    checkArgument(threads > 0, "There must be at least one thread");
+    this.threads = threads;
+    this.executor = Executors.newFixedThreadPool(threads,
+        r -> new DaemonThread(r, "Pipeline Stage Worker"));
+  }
+
+  /**
+   * @return the maximum number of stages this scheduler will run at the same time.
+   */
+  int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Runs one tick of the pipeline, blocking until every stage has finished.
+   *
+   * @param steps     the steps to run, in pipeline order.
+   * @param force     if every step should be forced to run regardless of 'dirtiness'.
+   * @param isRunning checked before starting each step.
+   * @return true if there are still frames partway through the pipeline, meaning that another tick
+   *     is needed even if the sources don't have anything new.
+   */
+  boolean run(List<Step> steps, boolean force, Supplier<Boolean> isRunning) {
+    return run(StepGraph.of(steps), force, isRunning);
+  }
+
+  /**
+   * Runs one tick of the pipeline for the steps in an already built graph.
+   *
+   * @see #run(List, boolean, Supplier)
+   */
+  boolean run(StepGraph graph, boolean force, Supplier<Boolean> isRunning) {
+    if (graph != scheduled) {
+      schedule(graph);
+    }
+    final boolean inFlight = handOff();
+
+    // The stages read these when they run. Submitting them to the executor makes them visible.
+    this.force = force;
+    this.isRunning = isRunning;
+    for (int i = 0; i < stages.length; i++) {
+      running[i] = executor.submit(stages[i]);
+    }
+
+    Throwable failure = null;
+    for (int i = 0; i < stages.length; i++) {
+      try {
+        // Never leave a stage running in the background, since the next hand off would race it
+        Uninterruptibles.getUninterruptibly(running[i]);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+      running[i] = null;
+    }
+    if (failure != null) {
+      Throwables.throwIfUnchecked(failure);
+      throw new IllegalStateException("A pipeline stage failed to run", failure);
+    }
+    return inFlight;
+  }
+
+  /**
+   * Stops the worker threads and stops deferring the connections. The inputs of every connection
+   * are set back to the current values of their outputs. This scheduler can not be used after it
+   * has been shut down.
+   */
+  void shutdown() {
+    executor.shutdownNow();
+    for (Connection<?> connection : delayLines.keySet()) {
+      connection.setDeferred(false);
+    }
+    delayLines.clear();
+    scheduled = null;
+  }
+
+  /**
+   * Adds every value that is being held back between stages to a set.
+   */
+  void collectHeldValues(Set<Object> values) {
+    for (DelayLine line : delayLines.values()) {
+      line.collectHeldValues(values);
+    }
+  }
+
+  /**
+   * Works out the stages and the connections between steps for a graph. This only has to be done
+   * when the pipeline changes, since every change to the pipeline builds a new graph.
+   */
+  private void schedule(StepGraph graph) {
+    final List<Step> steps = graph.getSteps();
+    final int[] levels = graph.levels();
+    final List<List<Step>> stageSteps = new ArrayList<>();
+    final Map<Connection<?>, Integer> connectionDelays = new LinkedHashMap<>();
+    for (int i = 0; i < graph.size(); i++) {
+      while (stageSteps.size() < levels[i]) {
+        stageSteps.add(new ArrayList<>());
+      }
+      stageSteps.get(levels[i] - 1).add(steps.get(i));
+      for (InputSocket<?> inputSocket : steps.get(i).getInputSockets()) {
+        for (Connection<?> connection : inputSocket.getConnections()) {
+          connectionDelays.put(connection,
+              Math.max(levels[i] - levelOf(connection.getOutputSocket(), graph, levels), 1));
+        }
+      }
+    }
+
+    stages = new Stage[stageSteps.size()];
+    for (int i = 0; i < stages.length; i++) {
+      stages[i] = new Stage(stageSteps.get(i).toArray(new Step[0]));
+    }
+    running = new Future<?>[stages.length];
+    connections = connectionDelays.keySet().toArray(new Connection<?>[0]);
+    delays = Ints.toArray(connectionDelays.values());
+
+    // Connections that were removed, or whose steps were removed, are no longer ours to manage
+    final Iterator<Connection<?>> managed = delayLines.keySet().iterator();
+    while (managed.hasNext()) {
+      final Connection<?> connection = managed.next();
+      if (!connectionDelays.containsKey(connection)) {
+        connection.setDeferred(false);
+        managed.remove();
+      }
+    }
+    scheduled = graph;
+  }
+
+  /**
+   * Moves the values produced in the previous tick along each connection.
+   *
+   * @return true if any value was handed to a step, or if any values are still being held back.
+   */
+  private boolean handOff() {
+    boolean inFlight = false;
+    for (int i = 0; i < connections.length; i++) {
+      final DelayLine line = delayLines.get(connections[i]);
+      if (line == null || line.delay() != delays[i]) {
+        // Creating the line hands the current value to the input socket
+        delayLines.put(connections[i], new DelayLine(connections[i], delays[i]));
+        inFlight = true;
+      } else {
+        inFlight |= line.shift();
+      }
+    }
+    return inFlight;
+  }
+
+  private static int levelOf(OutputSocket<?> outputSocket, StepGraph graph, int[] levels) {
+    final int index = outputSocket.getStep().map(graph::indexOf).orElse(-1);
+    // Sources are treated as the stage before the first one
+    return index == -1 ? 0 : levels[index];
+  }
+
+  /**
+   * The steps on one level of the graph, which run one after another on a worker thread.
+   */
+  private final class Stage implements Runnable {
+    private final Step[] steps;
+
+    Stage(Step[] steps) {
+      this.steps = steps;
+    }
+
+    @Override
+    public void run() {
+      for (Step step : steps) {
+        if (!isRunning.get()) {
+          return;
+        }
+        step.runPerform(force);
+      }
+    }
+  }
+
+  /**
+   * Holds the values of a connection's output socket back for a number of ticks before handing them
+   * to its input socket.
+   */
+  private static final class DelayLine {
+    private final Connection<?> connection;
+    private final Slot[] slots;
+    /**
+     * The value currently held by the input socket. Swapped with a slot when a new value is handed
+     * over so that images never have to be copied twice.
+     */
+    private Slot applied = new Slot();
+    private int head = 0;
+
+    DelayLine(Connection<?> connection, int delay) {
+      this.connection = connection;
+      this.slots = new Slot[delay];
+      for (int i = 0; i < delay; i++) {
+        slots[i] = new Slot();
+      }
+      connection.setDeferred(true);
+      // Start from a copy of the current output value, so the input never refers to the output's
+      // own image
+      connection.takeDeferredChange();
+      applied.capture(connection.getOutputSocket());
+      applied.applyTo(connection.getInputSocket());
+    }
+
+    int delay() {
+      return slots.length;
+    }
+
+    /**
+     * Captures the output value if it has changed, and hands over the value captured
+     * {@link #delay()} ticks ago if that one changed.
+     *
+     * @return true if a value was handed over or is still being held back.
+     */
+    boolean shift() {
+      final Slot incoming = slots[head];
+      incoming.changed = connection.takeDeferredChange();
+      if (incoming.changed) {
+        incoming.capture(connection.getOutputSocket());
+      }
+      head = (head + 1) % slots.length;
+
+      final Slot outgoing = slots[head];
+      final boolean handedOver = outgoing.changed;
+      if (handedOver) {
+        slots[head] = applied;
+        applied = outgoing;
+        applied.applyTo(connection.getInputSocket());
+        slots[head].changed = false;
+      }
+
+      boolean holding = false;
+      for (Slot slot : slots) {
+        holding |= slot.changed;
+      }
+      return handedOver || holding;
+    }
+
+    void collectHeldValues(Set<Object> values) {
+      for (Slot slot : slots) {
+        // Slots that haven't changed hold values that have already been handed over
+        if (slot.changed) {
+          slot.value.ifPresent(values::add);
+        }
+      }
+    }
+  }
+
+  /**
+   * A single value from an output socket. Images are copied into a buffer that belongs to the slot.
+   */
+  private static final class Slot {
+    private boolean changed = false;
+    private Optional<?> value = Optional.empty();
+    private MatWrapper buffer;
+
+    void capture(OutputSocket<?> outputSocket) {
+      final Optional<?> outputValue = outputSocket.getValue();
+      if (outputValue.isPresent() && outputValue.get() instanceof MatWrapper) {
+        if (buffer == null) {
+          buffer = MatWrapper.emptyWrapper();
+        }
+        buffer.set((MatWrapper) outputValue.get());
+        value = Optional.of(buffer);
+      } else {
+        value = outputValue;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    void applyTo(InputSocket inputSocket) {
+      inputSocket.setValueOptional(value);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package edu.wpi.grip.core;
+
+/**
+ * The ways the {@link PipelineRunner} can decide when to run the pipeline.
+ */
+public enum RunPolicy {
+
+  /**
+   * Runs whenever a source has a new frame or anything in the pipeline changes.
+   */
+  AS_FAST_AS_POSSIBLE("As fast as possible"),
+
+  /**
+   * Runs whenever a source has a new frame or anything in the pipeline changes, but no more often
+   * than the run rate allows.
+   */
+  LIMITED_RATE("Limited rate"),
+
+  /**
+   * Runs at exactly the run rate, whether or not anything has changed.
+   */
+  FIXED_RATE("Fixed rate"),
+
+  /**
+   * Only runs when a source has a new frame. Changes made to steps are not seen until the next
+   * frame comes in.
+   */
+  NEW_FRAMES_ONLY("New frames only"),
+
+  /**
+   * Only runs when triggered through the HTTP server or the {@code GRIP/trigger} NetworkTables
+   * key.
+   */
+  MANUAL("Manual trigger");
+
+  private final String label;
+
+  RunPolicy(String label) {
+    this.label = label;
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
@@ -3,6 +3,7 @@ package edu.wpi.grip.core;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sources.CameraSource;
 import edu.wpi.grip.core.sources.ClassifierSource;
+import edu.wpi.grip.core.sources.FrameQueue;
 import edu.wpi.grip.core.sources.HttpSource;
 import edu.wpi.grip.core.sources.ImageFileSource;
 import edu.wpi.grip.core.sources.MultiImageFileSource;
@@ -68,6 +69,17 @@ public abstract class Source {
    */
   protected abstract boolean updateOutputSockets();
 
+  /**
+   * Gets the queue that hands frames from the thread capturing them to the pipeline. Sources that
+   * only update when something changes, rather than producing a stream of frames, don't have one.
+   *
+   * @return the frame queue of this source, which has counts of the frames it has captured,
+   *     processed and dropped.
+   */
+  public Optional<FrameQueue> getFrameQueue() {
+    return Optional.empty();
+  }
+
   /**
    * This is used for serialization/deserialization.
    *
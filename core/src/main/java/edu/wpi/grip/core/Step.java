@@ -14,6 +14,7 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +31,11 @@ public class Step {
 
   private final ExceptionWitness witness;
   private final Timer timer;
+  /**
+   * Created once so that running the step doesn't allocate a new method reference every time.
+   */
+  private final Runnable perform = () -> this.operation.perform();
+  private final StepOutputCache outputCache;
 
   private final Operation operation;
   private final OperationDescription description;
@@ -52,12 +58,34 @@ public class Step {
        List<OutputSocket> outputSockets,
        ExceptionWitness.Factory exceptionWitnessFactory,
        Timer.Factory timerFactory) {
+    this(operation, description, inputSockets, outputSockets, exceptionWitnessFactory,
+        timerFactory, new StepOutputCache());
+  }
+
+  /**
+   * @param operation               The operation that is performed at this step.
+   * @param description             The description of the operation.
+   * @param inputSockets            The input sockets from the operation.
+   * @param outputSockets           The output sockets provided by the operation.
+   * @param exceptionWitnessFactory A factory used to create an {@link ExceptionWitness}.
+   * @param timerFactory            A factory used to create a {@link Timer}.
+   * @param outputCache             The cache used to skip running the operation when it gets the
+   *                                same inputs as an earlier run.
+   */
+  Step(Operation operation,
+       OperationDescription description,
+       List<InputSocket> inputSockets,
+       List<OutputSocket> outputSockets,
+       ExceptionWitness.Factory exceptionWitnessFactory,
+       Timer.Factory timerFactory,
+       StepOutputCache outputCache) {
     this.operation = operation;
     this.description = description;
     this.inputSockets = inputSockets;
     this.outputSockets = outputSockets;
     this.witness = exceptionWitnessFactory.create(this);
     this.timer = timerFactory.create(this);
+    this.outputCache = outputCache;
   }
 
   /**
@@ -81,13 +109,83 @@ public class Step {
     return ImmutableList.copyOf(outputSockets);
   }
 
+  /**
+   * Checks if this step has to run even when nothing is connected to it, either because its
+   * operation {@link Operation#isSink() is a sink} or because one of its outputs is being
+   * previewed.
+   */
+  boolean isSink() {
+    if (operation.isSink()) {
+      return true;
+    }
+    for (OutputSocket<?> outputSocket : outputSockets) {
+      if (outputSocket.isPreviewed()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds every value this step refers to, in its sockets or in the outputs cached for it, to a set.
+   */
+  void collectValues(Set<Object> values) {
+    for (int i = 0; i < inputSockets.size(); i++) {
+      addValue(inputSockets.get(i), values);
+    }
+    collectOutputValues(values);
+    outputCache.collectValues(this, values);
+  }
+
+  /**
+   * Adds the current value of each of this step's outputs to a set.
+   */
+  void collectOutputValues(Set<Object> values) {
+    for (int i = 0; i < outputSockets.size(); i++) {
+      addValue(outputSockets.get(i), values);
+    }
+  }
+
+  private static void addValue(Socket<?> socket, Set<Object> values) {
+    // Not Optional.ifPresent, which would need a new method reference for every socket
+    final Optional<?> value = socket.getValue();
+    if (value.isPresent()) {
+      values.add(value.get());
+    }
+  }
+
+  /**
+   * Checks if the outputs of this step can be restored from the {@link StepOutputCache} instead of
+   * running the operation. Sinks always have to run, and so do operations that keep state between
+   * runs.
+   */
+  private boolean isCacheable() {
+    return outputCache.isEnabled() && operation.isStateless() && !operation.isSink();
+  }
+
+  /**
+   * Checks if this step's operation picks the inputs it needs based on their values, like a switch
+   * or a valve, so that the steps it needs can change without the pipeline changing.
+   */
+  boolean hasSelectiveDemand() {
+    return operation.hasSelectiveDemand();
+  }
+
+  /**
+   * @return the inputs that this step's operation will read the next time it runs.
+   * @see Operation#getDemandedInputSockets()
+   */
+  List<InputSocket> getDemandedInputSockets() {
+    return operation.getDemandedInputSockets();
+  }
+
   /**
    * Resets all {@link OutputSocket OutputSockets} to their initial value. Should only be used by
    * {@link Step#runPerformIfPossible()}.
    */
   private void resetOutputSockets() {
-    for (OutputSocket<?> outputSocket : outputSockets) {
-      outputSocket.resetValueToInitial();
+    for (int i = 0; i < outputSockets.size(); i++) {
+      outputSockets.get(i).resetValueToInitial();
     }
   }
 
@@ -113,7 +211,9 @@ public class Step {
   protected final void runPerform(boolean force) {
     boolean anyDirty = false; // Keeps track of if there are sockets that are dirty
 
-    for (InputSocket<?> inputSocket : inputSockets) {
+    // Indexed loops avoid creating an iterator every time a step runs
+    for (int i = 0; i < inputSockets.size(); i++) {
+      final InputSocket<?> inputSocket = inputSockets.get(i);
       // If there is a socket that isn't present then we have a problem.
       if (!inputSocket.getValue().isPresent()) {
         witness.flagWarning(inputSocket.getSocketHint().getIdentifier()
@@ -130,12 +230,21 @@ public class Step {
       return;
     }
 
+    // Forced runs are used for benchmarking, so they always perform
+    final ImmutableList<Object> fingerprint = !force && isCacheable()
+        ? StepOutputCache.fingerprint(inputSockets)
+        : null;
     try {
       // We need to ensure that if perform disabled is switching states that we don't run the
       // perform method while that is happening.
       synchronized (removedLock) {
         if (!removed) {
-          timer.time(this.operation::perform);
+          if (fingerprint == null) {
+            timer.time(perform);
+          } else if (!outputCache.restore(this, fingerprint, outputSockets)) {
+            timer.time(perform);
+            outputCache.store(this, fingerprint, outputSockets);
+          }
         }
       }
     } catch (RuntimeException e) {
@@ -162,6 +271,7 @@ public class Step {
     synchronized (removedLock) {
       removed = true;
       operation.cleanUp();
+      outputCache.invalidate(this);
     }
   }
 
@@ -186,12 +296,23 @@ public class Step {
   public static class Factory {
     private final ExceptionWitness.Factory exceptionWitnessFactory;
     private final Timer.Factory timerFactory;
+    private final StepOutputCache outputCache;
 
-    @Inject
+    /**
+     * Creates a factory for steps that never have their outputs cached.
+     */
     public Factory(ExceptionWitness.Factory exceptionWitnessFactory,
                    Timer.Factory timerFactory) {
+      this(exceptionWitnessFactory, timerFactory, new StepOutputCache());
+    }
+
+    @Inject
+    public Factory(ExceptionWitness.Factory exceptionWitnessFactory,
+                   Timer.Factory timerFactory,
+                   StepOutputCache outputCache) {
       this.exceptionWitnessFactory = exceptionWitnessFactory;
       this.timerFactory = timerFactory;
+      this.outputCache = outputCache;
     }
 
     /**
@@ -211,7 +332,8 @@ public class Step {
           inputSockets,
           outputSockets,
           exceptionWitnessFactory,
-          timerFactory
+          timerFactory,
+          outputCache
       );
 
       for (Socket<?> socket : inputSockets) {
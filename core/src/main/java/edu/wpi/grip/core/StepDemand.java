@@ -0,0 +1,63 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Works out which steps actually need to run, by pulling backwards from the steps whose results
+ * are used outside of the pipeline.
+ *
+ * <p>A step is needed if it is a {@link Step#isSink() sink}, or if it feeds one of the
+ * {@link Step#getDemandedInputSockets() demanded inputs} of a needed step. This means that a
+ * branch behind a closed valve, or behind the side of a switch that is not selected, does not run.
+ * Steps that are skipped keep their dirty inputs, so they catch up as soon as they are needed
+ * again.</p>
+ */
+final class StepDemand {
+
+  private StepDemand() {
+    /* no-op */
+  }
+
+  /**
+   * @param steps the steps in the pipeline, in pipeline order.
+   * @return the steps that are needed to produce the results of every sink, in pipeline order.
+   */
+  static ImmutableList<Step> neededSteps(List<Step> steps) {
+    final Set<Step> needed = new HashSet<>();
+    final Deque<Step> toVisit = new ArrayDeque<>();
+    for (Step step : steps) {
+      if (step.isSink() && needed.add(step)) {
+        toVisit.push(step);
+      }
+    }
+
+    while (!toVisit.isEmpty()) {
+      final Step step = toVisit.pop();
+      for (InputSocket<?> inputSocket : step.getDemandedInputSockets()) {
+        for (Connection<?> connection : inputSocket.getConnections()) {
+          connection.getOutputSocket().getStep().ifPresent(upstream -> {
+            if (needed.add(upstream)) {
+              toVisit.push(upstream);
+            }
+          });
+        }
+      }
+    }
+
+    final ImmutableList.Builder<Step> inOrder = ImmutableList.builder();
+    for (Step step : steps) {
+      if (needed.contains(step)) {
+        inOrder.add(step);
+      }
+    }
+    return inOrder.build();
+  }
+}
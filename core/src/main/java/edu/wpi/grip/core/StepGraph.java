@@ -0,0 +1,144 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dependencies between the steps in a pipeline, built from the connections to their input
+ * sockets. Steps are referred to by their index in the list the graph was built from.
+ *
+ * <p>Connections from sources are not part of the graph, since sources are always updated before
+ * any step runs.</p>
+ */
+final class StepGraph {
+
+  private final ImmutableList<Step> steps;
+  private final ImmutableMap<Step, Integer> indices;
+  private final int[][] upstream;
+  private final int[][] downstream;
+  private final int[] levels;
+
+  private StepGraph(ImmutableList<Step> steps, ImmutableMap<Step, Integer> indices,
+                    int[][] upstream, int[][] downstream) {
+    this.steps = steps;
+    this.indices = indices;
+    this.upstream = upstream;
+    this.downstream = downstream;
+    this.levels = computeLevels(upstream);
+  }
+
+  /**
+   * Builds the graph for the given steps.
+   *
+   * @param steps the steps in the pipeline, in pipeline order.
+   */
+  static StepGraph of(List<Step> steps) {
+    final Map<Step, Integer> indices = new HashMap<>();
+    final List<List<Integer>> downstream = new ArrayList<>(steps.size());
+    for (int i = 0; i < steps.size(); i++) {
+      indices.put(steps.get(i), i);
+      downstream.add(new ArrayList<>());
+    }
+
+    final int[][] upstream = new int[steps.size()][];
+    for (int i = 0; i < steps.size(); i++) {
+      final Set<Integer> feeding = new LinkedHashSet<>();
+      for (InputSocket<?> inputSocket : steps.get(i).getInputSockets()) {
+        for (Connection<?> connection : inputSocket.getConnections()) {
+          connection.getOutputSocket().getStep()
+              .map(indices::get)
+              .ifPresent(feeding::add);
+        }
+      }
+      upstream[i] = Ints.toArray(feeding);
+      for (int dependency : upstream[i]) {
+        downstream.get(dependency).add(i);
+      }
+    }
+
+    final int[][] downstreamArray = new int[steps.size()][];
+    for (int i = 0; i < steps.size(); i++) {
+      downstreamArray[i] = Ints.toArray(downstream.get(i));
+    }
+    return new StepGraph(ImmutableList.copyOf(steps), ImmutableMap.copyOf(indices), upstream,
+        downstreamArray);
+  }
+
+  /**
+   * @return the number of steps in the graph.
+   */
+  int size() {
+    return steps.size();
+  }
+
+  /**
+   * @return the steps in the graph, in pipeline order.
+   */
+  ImmutableList<Step> getSteps() {
+    return steps;
+  }
+
+  /**
+   * @return the index of the given step, or -1 if it is not in this graph.
+   */
+  int indexOf(Step step) {
+    final Integer index = indices.get(step);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * @return the indices of the steps that feed at least one input of the step at {@code index}.
+   */
+  int[] upstreamOf(int index) {
+    return upstream[index];
+  }
+
+  /**
+   * @return the indices of the steps that the step at {@code index} feeds.
+   */
+  int[] downstreamOf(int index) {
+    return downstream[index];
+  }
+
+  /**
+   * Computes the level of every step. Steps that are only fed by sources (or nothing at all) are
+   * at level 1, and every other step is one level after the highest level of the steps feeding
+   * it. Steps on the same level never depend on each other.
+   *
+   * @return the level of each step, indexed the same way as the steps. Must not be modified.
+   */
+  int[] levels() {
+    return levels;
+  }
+
+  private static int[] computeLevels(int[][] upstream) {
+    final int[] levels = new int[upstream.length];
+    Arrays.fill(levels, 1);
+    // Upstream steps almost always come before their dependents, so this normally settles after a
+    // single pass. The pass limit keeps a malformed graph from looping forever.
+    boolean changed = true;
+    for (int pass = 0; changed && pass < upstream.length; pass++) {
+      changed = false;
+      for (int i = 0; i < upstream.length; i++) {
+        for (int dependency : upstream[i]) {
+          if (levels[dependency] + 1 > levels[i]) {
+            levels[i] = levels[dependency] + 1;
+            changed = true;
+          }
+        }
+      }
+    }
+    return levels;
+  }
+}
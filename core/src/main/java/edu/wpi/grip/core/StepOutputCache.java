@@ -0,0 +1,387 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.util.MatPool;
+import edu.wpi.grip.core.util.NativeResource;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Singleton;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Remembers the outputs of steps for the inputs they were last run with, so that a step that gets
+ * the same inputs again can have its outputs restored instead of running its operation. This
+ * helps when a source keeps providing the same image, or when a slider is moved back and forth
+ * while tuning a pipeline.
+ *
+ * <p>Inputs are identified by a fingerprint made of a hash of the contents of every image and the
+ * values of every other input. Only inputs with simple values (numbers, booleans, strings, enums,
+ * lists of those, and images in CPU memory) can be fingerprinted; steps with any other kind of
+ * input always run. Images in the cache are copies, and the cache evicts the least recently used
+ * outputs once the images and other {@link NativeResource native values} it holds take up more
+ * than its capacity, or once it holds more than {@value #MAX_ENTRIES} sets of outputs.</p>
+ *
+ * <p>The cache is disabled until it is given a capacity through the project settings.</p>
+ */
+@Singleton
+public class StepOutputCache {
+
+  private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+  /**
+   * The most sets of outputs to hold. Outputs that aren't images are small on their own, but a
+   * live camera gives every frame a new fingerprint, so they have to be limited too.
+   */
+  @VisibleForTesting
+  static final int MAX_ENTRIES = 256;
+
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final MatPool matPool;
+  private volatile long capacity = 0;
+  private long size = 0;
+
+  StepOutputCache() {
+    this(new MatPool());
+  }
+
+  @Inject
+  StepOutputCache(MatPool matPool) {
+    this.matPool = matPool;
+  }
+
+  /**
+   * @return true if the cache has any capacity.
+   */
+  boolean isEnabled() {
+    return capacity > 0;
+  }
+
+  /**
+   * Sets the maximum number of bytes of image data to hold, evicting outputs if needed.
+   *
+   * @param capacity the capacity in bytes. If 0, the cache is disabled and emptied.
+   */
+  @VisibleForTesting
+  synchronized void setCapacity(long capacity) {
+    checkArgument(capacity >= 0, "Capacity cannot be negative");
+    this.capacity = capacity;
+    evict();
+  }
+
+  /**
+   * @return the number of bytes of image data held by the cache.
+   */
+  @VisibleForTesting
+  synchronized long size() {
+    return size;
+  }
+
+  /**
+   * @return the number of sets of outputs held by the cache.
+   */
+  @VisibleForTesting
+  synchronized int entryCount() {
+    return entries.size();
+  }
+
+  /**
+   * Computes the fingerprint of the current values of the given inputs.
+   *
+   * @return the fingerprint, or null if any of the inputs can't be fingerprinted.
+   */
+  @Nullable
+  static ImmutableList<Object> fingerprint(List<InputSocket> inputSockets) {
+    final ImmutableList.Builder<Object> fingerprint = ImmutableList.builder();
+    for (InputSocket<?> inputSocket : inputSockets) {
+      final Optional<?> value = inputSocket.getValue();
+      if (!value.isPresent()) {
+        return null;
+      }
+      final Object part = fingerprintOf(value.get());
+      if (part == null) {
+        return null;
+      }
+      fingerprint.add(part);
+    }
+    return fingerprint.build();
+  }
+
+  @Nullable
+  private static Object fingerprintOf(Object value) {
+    if (value instanceof Number || value instanceof Boolean || value instanceof String
+        || value instanceof Character || value instanceof Enum) {
+      return value;
+    } else if (value instanceof MatWrapper) {
+      final MatWrapper wrapper = (MatWrapper) value;
+      // Downloading from the GPU just to hash the image would cost more than it could save
+      return wrapper.isCpu() ? new MatFingerprint(wrapper.getCpu()) : null;
+    } else if (value instanceof List) {
+      final ImmutableList.Builder<Object> elements = ImmutableList.builder();
+      for (Object element : (List<?>) value) {
+        final Object part = element == null ? null : fingerprintOf(element);
+        if (part == null) {
+          return null;
+        }
+        elements.add(part);
+      }
+      return elements.build();
+    }
+    return null;
+  }
+
+  /**
+   * Restores the outputs the step produced the last time it was run with inputs matching the
+   * fingerprint.
+   *
+   * @return true if the outputs were restored, or false if the step needs to run.
+   */
+  synchronized boolean restore(Step step, ImmutableList<Object> fingerprint,
+                               List<OutputSocket> outputSockets) {
+    final Entry entry = entries.get(new Key(step, fingerprint));
+    if (entry == null || entry.values.length != outputSockets.size()) {
+      return false;
+    }
+    for (int i = 0; i < outputSockets.size(); i++) {
+      restoreValue(outputSockets.get(i), entry.values[i]);
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void restoreValue(OutputSocket outputSocket, Object cached) {
+    if (cached instanceof Mat) {
+      final Optional<?> current = outputSocket.getValue();
+      if (current.isPresent() && current.get() instanceof MatWrapper) {
+        // Images are updated in place, like operations do
+        ((MatWrapper) current.get()).set((Mat) cached);
+        outputSocket.flagChanged();
+      } else {
+        outputSocket.setValue(MatWrapper.wrap(((Mat) cached).clone()));
+      }
+    } else {
+      outputSocket.setValueOptional((Optional) cached);
+    }
+  }
+
+  /**
+   * Remembers the current outputs of a step that just ran with inputs matching the fingerprint.
+   * Images are copied; other values are kept as they are, since operations create new ones each
+   * time they run.
+   */
+  synchronized void store(Step step, ImmutableList<Object> fingerprint,
+                          List<OutputSocket> outputSockets) {
+    if (!isEnabled()) {
+      return;
+    }
+    final Object[] values = new Object[outputSockets.size()];
+    long bytes = 0;
+    for (int i = 0; i < outputSockets.size(); i++) {
+      final Optional<?> value = outputSockets.get(i).getValue();
+      if (value.isPresent() && value.get() instanceof MatWrapper) {
+        final Mat image = ((MatWrapper) value.get()).getCpu();
+        final Mat copy = matPool.borrow(image.rows(), image.cols(), image.type());
+        image.copyTo(copy);
+        bytes += bytesOf(copy);
+        values[i] = copy;
+      } else {
+        if (value.isPresent() && value.get() instanceof NativeResource) {
+          bytes += ((NativeResource) value.get()).estimatedSize();
+        }
+        values[i] = value;
+      }
+    }
+
+    final Entry previous = entries.put(new Key(step, fingerprint), new Entry(values, bytes));
+    if (previous != null) {
+      release(previous);
+    }
+    size += bytes;
+    evict();
+  }
+
+  /**
+   * Forgets every output of the given step. Called when a step is removed from the pipeline.
+   */
+  synchronized void invalidate(Step step) {
+    final Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<Key, Entry> entry = iterator.next();
+      if (entry.getKey().step == step) {
+        release(entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Adds every value cached for the given step, other than the copies of images that belong to the
+   * cache, to a set.
+   */
+  synchronized void collectValues(Step step, Set<Object> values) {
+    for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+      if (entry.getKey().step != step) {
+        continue;
+      }
+      for (Object value : entry.getValue().values) {
+        if (value instanceof Optional) {
+          ((Optional<?>) value).ifPresent(values::add);
+        }
+      }
+    }
+  }
+
+  @Subscribe
+  public void onProjectSettingsChanged(ProjectSettingsChangedEvent event) {
+    setCapacity(event.getProjectSettings().getStepCacheSize() * BYTES_PER_MEGABYTE);
+  }
+
+  private void evict() {
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while ((size > capacity || entries.size() > MAX_ENTRIES) && iterator.hasNext()) {
+      release(iterator.next());
+      iterator.remove();
+    }
+    if (capacity == 0) {
+      // Outputs without any images don't take up any capacity, but they're still not needed
+      entries.clear();
+    }
+  }
+
+  private void release(Entry entry) {
+    for (Object value : entry.values) {
+      if (value instanceof Mat) {
+        matPool.giveBack((Mat) value);
+      }
+    }
+    size -= entry.bytes;
+  }
+
+  private static long bytesOf(Mat mat) {
+    return mat.total() * mat.elemSize();
+  }
+
+  private static final class Key {
+    private final Step step;
+    private final ImmutableList<Object> fingerprint;
+
+    Key(Step step, ImmutableList<Object> fingerprint) {
+      this.step = step;
+      this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return step == key.step && fingerprint.equals(key.fingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(step) + fingerprint.hashCode();
+    }
+  }
+
+  private static final class Entry {
+    /**
+     * A copy of each image output, or the {@link Optional} value of any other output.
+     */
+    private final Object[] values;
+    private final long bytes;
+
+    Entry(Object[] values, long bytes) {
+      this.values = values;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * The size, type, and a 128 bit hash of the contents of an image.
+   */
+  @VisibleForTesting
+  static final class MatFingerprint {
+    private static final long PRIME_1 = 0x9E3779B97F4A7C15L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final int rows;
+    private final int cols;
+    private final int type;
+    private final long hash1;
+    private final long hash2;
+
+    MatFingerprint(Mat mat) {
+      this.rows = mat.rows();
+      this.cols = mat.cols();
+      this.type = mat.type();
+
+      long h1 = PRIME_1;
+      long h2 = PRIME_2;
+      if (!mat.empty()) {
+        // Images that are a region of a bigger image are not laid out in one block
+        final Mat continuous = mat.isContinuous() ? mat : mat.clone();
+        final ByteBuffer data = new BytePointer(continuous.data())
+            .capacity(bytesOf(continuous))
+            .asByteBuffer()
+            .order(ByteOrder.nativeOrder());
+        while (data.remaining() >= Long.BYTES) {
+          final long word = data.getLong();
+          h1 = Long.rotateLeft(h1 ^ word, 31) * PRIME_1;
+          h2 = Long.rotateLeft(h2 + word, 27) * PRIME_2;
+        }
+        while (data.hasRemaining()) {
+          final byte b = data.get();
+          h1 = Long.rotateLeft(h1 ^ b, 31) * PRIME_1;
+          h2 = Long.rotateLeft(h2 + b, 27) * PRIME_2;
+        }
+        if (continuous != mat) {
+          continuous.release();
+        }
+      }
+      this.hash1 = h1 ^ (h1 >>> 29);
+      this.hash2 = h2 ^ (h2 >>> 32);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof MatFingerprint)) {
+        return false;
+      }
+      final MatFingerprint that = (MatFingerprint) o;
+      return rows == that.rows && cols == that.cols && type == that.type
+          && hash1 == that.hash1 && hash2 == that.hash2;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(rows, cols, type, hash1, hash2);
+    }
+  }
+}
@@ -1,7 +1,10 @@
 package edu.wpi.grip.core.http;
 
+import edu.wpi.grip.core.PipelineNamespace;
+
 import com.google.inject.Singleton;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -12,11 +15,47 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Keeps a record of contexts claimed by HTTP request handlers.
+ *
+ * <p>When several pipelines share one server, each pipeline gets a view of the same store
+ * through {@link #forNamespace(PipelineNamespace)}. Handlers created with that view serve their
+ * contexts under the pipeline's namespace.</p>
  */
 @Singleton
 public class ContextStore {
 
-  private final Set<String> store = new HashSet<>();
+  private final Set<String> store;
+  private final PipelineNamespace namespace;
+
+  public ContextStore() {
+    this(Collections.synchronizedSet(new HashSet<>()), PipelineNamespace.DEFAULT);
+  }
+
+  private ContextStore(Set<String> store, PipelineNamespace namespace) {
+    this.store = store;
+    this.namespace = namespace;
+  }
+
+  /**
+   * Creates a view of this store for handlers of the pipeline with the given namespace. Contexts
+   * are recorded in this store, so they are still known to the server.
+   *
+   * @param namespace the namespace of the pipeline
+   * @return a store that resolves contexts in the given namespace
+   */
+  public ContextStore forNamespace(PipelineNamespace namespace) {
+    return new ContextStore(store, namespace);
+  }
+
+  /**
+   * Gets the context a handler created with this store should actually handle.
+   *
+   * @param context the context the handler asked for
+   * @return the context in the namespace of this store
+   * @see PipelineNamespace#resolvePath(String)
+   */
+  public String resolve(@Nonnull String context) {
+    return namespace.resolvePath(checkNotNull(context));
+  }
 
   /**
    * Records the given context.
@@ -53,6 +92,4 @@ public class ContextStore {
   public boolean contains(@Nullable String context) {
     return store.contains(context);
   }
-
-
 }
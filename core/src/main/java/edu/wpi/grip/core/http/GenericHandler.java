@@ -69,18 +69,20 @@ public abstract class GenericHandler extends AbstractHandler {
    * </p>
    *
    * @param store   the context store to use to check for claimed contexts
-   * @param context the context for this handler
+   * @param context the context for this handler. This is resolved in the namespace of the
+   *                store, see {@link ContextStore#resolve(String)}
    * @param doClaim flag marking if the given context should be claimed
    * @throws IllegalArgumentException if the given context has already been claimed
    */
   protected GenericHandler(ContextStore store, String context, boolean doClaim) {
     super();
     checkNotNull(context);
+    final String resolvedContext = store.resolve(context);
     if (doClaim) {
-      store.record(context);
+      store.record(resolvedContext);
     }
     this.contextStore = store;
-    this.context = context;
+    this.context = resolvedContext;
   }
 
   /**
@@ -74,7 +74,8 @@ public class GripServer {
 
   /**
    * The path for uploading images. To upload an image, post an HTTP event to
-   * {@code /GRIP/upload/image}, with the image bytes as the data.
+   * {@code /GRIP/upload/image}, with the image bytes as the data. The image can be an encoded file
+   * or raw pixels; see {@link edu.wpi.grip.core.sources.HttpImageHandler}.
    */
   public static final String IMAGE_UPLOAD_PATH = UPLOAD_PATH + "/image";
 
@@ -85,6 +86,27 @@ public class GripServer {
    */
   public static final String PIPELINE_UPLOAD_PATH = UPLOAD_PATH + "/pipeline";
 
+  /**
+   * The path for triggering a run of the pipeline. To run the pipeline, post an HTTP event to
+   * {@code /GRIP/trigger}. This is mostly useful with the manual run policy.
+   */
+  public static final String TRIGGER_PATH = ROOT_PATH + "/trigger";
+
+  /**
+   * The path for downloading a trace of what the pipeline has been doing. A {@code GET} request on
+   * this path returns the last ten seconds in the Chrome trace format, which can be opened in
+   * {@code chrome://tracing} or Perfetto. A different amount of time can be given in seconds with
+   * the {@code seconds} parameter, eg {@code /GRIP/trace?seconds=30}.
+   */
+  public static final String TRACE_PATH = ROOT_PATH + "/trace";
+
+  /**
+   * The path for scraping metrics. A {@code GET} request on this path returns how long the
+   * pipeline and each step take to run, frame counts for each source and memory use in the
+   * OpenMetrics text format, which Prometheus can scrape.
+   */
+  public static final String METRICS_PATH = ROOT_PATH + "/metrics";
+
   /**
    * The path for requesting data. Data will be returned as a json-formatted
    * map of the outputs of all requested data sets.
@@ -103,6 +125,11 @@ public class GripServer {
    *     }
    * }
    * </code></pre>
+   *
+   * <p>The data is from the last finished run of the pipeline. Responses have an {@code ETag} that
+   * changes with the data, and a {@code since} parameter with the version from an earlier
+   * response waits for newer data; see
+   * {@link edu.wpi.grip.core.operations.network.http.DataHandler}.</p>
    */
   public static final String DATA_PATH = ROOT_PATH + "/data";
 
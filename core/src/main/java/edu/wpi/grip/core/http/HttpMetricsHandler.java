@@ -0,0 +1,184 @@
+package edu.wpi.grip.core.http;
+
+import edu.wpi.grip.annotation.operation.OperationCategory;
+import edu.wpi.grip.core.Pipeline;
+import edu.wpi.grip.core.PipelineRunner;
+import edu.wpi.grip.core.Source;
+import edu.wpi.grip.core.Step;
+import edu.wpi.grip.core.metrics.LatencyHistogram;
+import edu.wpi.grip.core.metrics.MetricsRegistry;
+import edu.wpi.grip.core.metrics.OpenMetricsExporter;
+import edu.wpi.grip.core.metrics.OpenMetricsExporter.Type;
+import edu.wpi.grip.core.sources.FrameQueue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.bytedeco.javacpp.Pointer;
+import org.eclipse.jetty.server.Request;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Optional;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Jetty handler that sends how the pipeline is performing in the OpenMetrics text format, for
+ * monitoring systems such as Prometheus to scrape.
+ *
+ * <p>Everything is read from counters and histograms that are kept up to date as the pipeline
+ * runs, so a scrape never waits for the pipeline. Rates, such as frames per second, are left to
+ * the monitoring system to work out from the counters, eg with {@code
+ * rate(grip_pipeline_run_duration_seconds_count[1m])}.</p>
+ *
+ * @see GripServer#METRICS_PATH
+ */
+@Singleton
+public class HttpMetricsHandler extends PedanticHandler {
+
+  private final Pipeline pipeline;
+  private final PipelineRunner pipelineRunner;
+  private final MetricsRegistry metricsRegistry;
+
+  @Inject
+  HttpMetricsHandler(ContextStore store,
+                     Pipeline pipeline,
+                     PipelineRunner pipelineRunner,
+                     MetricsRegistry metricsRegistry) {
+    super(store, GripServer.METRICS_PATH, true);
+    this.pipeline = pipeline;
+    this.pipelineRunner = pipelineRunner;
+    this.metricsRegistry = metricsRegistry;
+  }
+
+  @Override
+  protected void handleIfPassed(String target,
+                                Request baseRequest,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException, ServletException {
+    if (!isGet(request)) {
+      response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+      baseRequest.setHandled(true);
+      return;
+    }
+    response.setContentType(OpenMetricsExporter.CONTENT_TYPE);
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.getWriter().write(export());
+    baseRequest.setHandled(true);
+  }
+
+  /**
+   * Exports the current metrics of the pipeline.
+   */
+  String export() {
+    final OpenMetricsExporter exporter = new OpenMetricsExporter();
+    final ImmutableList<Source> sources = pipeline.getSources();
+    final ImmutableList<Step> steps = pipeline.getSteps();
+
+    exporter.family("grip_pipeline_run_duration_seconds", Type.HISTOGRAM, "seconds",
+        "How long it takes to update the sources and run the steps")
+        .histogram(snapshot(pipelineRunner));
+
+    exporter.family("grip_step_duration_seconds", Type.HISTOGRAM, "seconds",
+        "How long each step takes to run");
+    for (int i = 0; i < steps.size(); i++) {
+      final Step step = steps.get(i);
+      exporter.histogram(snapshot(step), stepLabels(i, step));
+    }
+
+    // Counted from the runs of each step, since publishers don't report whether they sent anything
+    exporter.family("grip_network_step_runs", Type.COUNTER, "",
+        "The number of times each network publishing step has run");
+    for (int i = 0; i < steps.size(); i++) {
+      final Step step = steps.get(i);
+      if (step.getOperationDescription().category() == OperationCategory.NETWORK) {
+        exporter.counter(count(step), stepLabels(i, step));
+      }
+    }
+
+    exportSources(exporter, sources);
+    exportMemory(exporter);
+    return exporter.export();
+  }
+
+  private static void exportSources(OpenMetricsExporter exporter, ImmutableList<Source> sources) {
+    exporter.family("grip_source_frames_captured", Type.COUNTER, "",
+        "The number of frames each source has captured");
+    for (Source source : sources) {
+      final Optional<FrameQueue> frames = source.getFrameQueue();
+      if (frames.isPresent()) {
+        exporter.counter(frames.get().getCapturedCount(), "source", source.getName());
+      }
+    }
+    exporter.family("grip_source_frames_processed", Type.COUNTER, "",
+        "The number of frames from each source that the pipeline has processed");
+    for (Source source : sources) {
+      final Optional<FrameQueue> frames = source.getFrameQueue();
+      if (frames.isPresent()) {
+        exporter.counter(frames.get().getProcessedCount(), "source", source.getName());
+      }
+    }
+    exporter.family("grip_source_frames_dropped", Type.COUNTER, "",
+        "The number of frames from each source that were dropped before the pipeline got to them");
+    for (Source source : sources) {
+      final Optional<FrameQueue> frames = source.getFrameQueue();
+      if (frames.isPresent()) {
+        exporter.counter(frames.get().getDroppedCount(), "source", source.getName());
+      }
+    }
+    exporter.family("grip_source_frame_age_seconds", Type.GAUGE, "seconds",
+        "How long the last frame the pipeline took from each source had been waiting");
+    for (Source source : sources) {
+      final Optional<FrameQueue> frames = source.getFrameQueue();
+      if (frames.isPresent()) {
+        exporter.gauge(frames.get().getFrameAge() / 1e3, "source", source.getName());
+      }
+    }
+  }
+
+  private static void exportMemory(OpenMetricsExporter exporter) {
+    final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    exporter.family("grip_jvm_heap_used_bytes", Type.GAUGE, "bytes",
+        "The amount of heap memory in use")
+        .gauge(heap.getUsed());
+    exporter.family("grip_jvm_heap_committed_bytes", Type.GAUGE, "bytes",
+        "The amount of heap memory the JVM has reserved")
+        .gauge(heap.getCommitted());
+    exporter.family("grip_jvm_heap_max_bytes", Type.GAUGE, "bytes",
+        "The most heap memory the JVM can use")
+        .gauge(heap.getMax());
+    exporter.family("grip_native_allocated_bytes", Type.GAUGE, "bytes",
+        "The amount of native memory allocated for images and other OpenCV objects")
+        .gauge(Pointer.totalBytes());
+    exporter.family("grip_native_physical_bytes", Type.GAUGE, "bytes",
+        "The amount of physical memory used by the whole process")
+        .gauge(Pointer.physicalBytes());
+  }
+
+  /**
+   * Labels a step with its number and operation, in the same form as benchmark reports (eg
+   * {@code 1. Blur}), so a series can be told apart without looking up the pipeline.
+   */
+  private static String[] stepLabels(int index, Step step) {
+    final String operation = step.getOperationDescription().name();
+    return new String[]{
+        "step", (index + 1) + ". " + operation,
+        "operation", operation
+    };
+  }
+
+  private LatencyHistogram.Snapshot snapshot(Object target) {
+    return metricsRegistry.find(target)
+        .map(LatencyHistogram::snapshot)
+        .orElse(LatencyHistogram.Snapshot.EMPTY);
+  }
+
+  private long count(Object target) {
+    return metricsRegistry.find(target).map(LatencyHistogram::getCount).orElse(0L);
+  }
+}
@@ -0,0 +1,46 @@
+package edu.wpi.grip.core.http;
+
+import edu.wpi.grip.core.PipelineRunner;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.eclipse.jetty.server.Request;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Jetty handler responsible for running the pipeline when asked to over HTTP. This is how the
+ * pipeline is run with the {@link edu.wpi.grip.core.RunPolicy#MANUAL manual} run policy.
+ */
+@Singleton
+public class HttpPipelineTrigger extends PedanticHandler {
+
+  private final PipelineRunner pipelineRunner;
+
+  @Inject
+  HttpPipelineTrigger(ContextStore store, PipelineRunner pipelineRunner) {
+    super(store, GripServer.TRIGGER_PATH, true);
+    this.pipelineRunner = pipelineRunner;
+  }
+
+  @Override
+  protected void handleIfPassed(String target,
+                                Request baseRequest,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException, ServletException {
+    if (!isPost(request)) {
+      response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+      baseRequest.setHandled(true);
+      return;
+    }
+    pipelineRunner.trigger();
+    // The pipeline runs on its own thread, so it has only been queued to run at this point
+    response.setStatus(HttpServletResponse.SC_ACCEPTED);
+    baseRequest.setHandled(true);
+  }
+}
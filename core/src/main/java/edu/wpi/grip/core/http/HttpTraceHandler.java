@@ -0,0 +1,67 @@
+package edu.wpi.grip.core.http;
+
+import edu.wpi.grip.core.metrics.FlightRecorder;
+
+import com.google.common.primitives.Longs;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.eclipse.jetty.server.Request;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Jetty handler that sends the spans kept by the {@link FlightRecorder} as a Chrome trace.
+ *
+ * @see GripServer#TRACE_PATH
+ */
+@Singleton
+public class HttpTraceHandler extends PedanticHandler {
+
+  /**
+   * The parameter for how many seconds of spans to send.
+   */
+  public static final String SECONDS_PARAMETER = "seconds";
+
+  private static final long DEFAULT_SECONDS = 10;
+
+  private final FlightRecorder flightRecorder;
+
+  @Inject
+  HttpTraceHandler(ContextStore store, FlightRecorder flightRecorder) {
+    super(store, GripServer.TRACE_PATH, true);
+    this.flightRecorder = flightRecorder;
+  }
+
+  @Override
+  protected void handleIfPassed(String target,
+                                Request baseRequest,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException, ServletException {
+    if (!isGet(request)) {
+      response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+      baseRequest.setHandled(true);
+      return;
+    }
+    final String secondsParameter = request.getParameter(SECONDS_PARAMETER);
+    final Long seconds = secondsParameter == null
+        ? Long.valueOf(DEFAULT_SECONDS)
+        : Longs.tryParse(secondsParameter);
+    if (seconds == null || seconds <= 0) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "The number of seconds must be a positive whole number");
+      baseRequest.setHandled(true);
+      return;
+    }
+    response.setContentType(CONTENT_TYPE_JSON);
+    response.setHeader("Content-Disposition", "attachment; filename=\"grip-trace.json\"");
+    response.setStatus(HttpServletResponse.SC_OK);
+    flightRecorder.writeChromeTrace(response.getWriter(), seconds, TimeUnit.SECONDS);
+    baseRequest.setHandled(true);
+  }
+}
@@ -0,0 +1,193 @@
+package edu.wpi.grip.core.metrics;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The results of benchmarking a pipeline: how long the whole pipeline, each source and each step
+ * took over the measured runs. All times are in microseconds.
+ */
+public final class BenchmarkReport {
+
+  private static final String[] CSV_HEADERS = {
+      "Name", "Kind", "Count", "Mean (us)", "Standard deviation (us)", "Min (us)", "P50 (us)",
+      "P95 (us)", "P99 (us)", "Max (us)"
+  };
+
+  private final int warmupRuns;
+  private final int measuredRuns;
+  private final ImmutableList<Row> rows;
+
+  private BenchmarkReport(int warmupRuns, int measuredRuns, ImmutableList<Row> rows) {
+    this.warmupRuns = warmupRuns;
+    this.measuredRuns = measuredRuns;
+    this.rows = rows;
+  }
+
+  public static Builder builder(int warmupRuns, int measuredRuns) {
+    return new Builder(warmupRuns, measuredRuns);
+  }
+
+  public int getWarmupRuns() {
+    return warmupRuns;
+  }
+
+  public int getMeasuredRuns() {
+    return measuredRuns;
+  }
+
+  public ImmutableList<Row> getRows() {
+    return rows;
+  }
+
+  /**
+   * Writes the report to a file. The format is picked from the file extension, which must be
+   * either {@code .json} or {@code .csv}.
+   *
+   * @throws IllegalArgumentException if the file has any other extension
+   */
+  public void write(File file) throws IOException {
+    checkArgument(canWriteTo(file), "The report must be a .json or .csv file: " + file);
+    final boolean json = file.getName().toLowerCase(Locale.ENGLISH).endsWith(".json");
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      if (json) {
+        writeJson(writer);
+      } else {
+        writeCsv(writer);
+      }
+    }
+  }
+
+  /**
+   * @return true if the file has an extension that {@link #write(File)} knows the format of.
+   */
+  public static boolean canWriteTo(File file) {
+    final String name = file.getName().toLowerCase(Locale.ENGLISH);
+    return name.endsWith(".json") || name.endsWith(".csv");
+  }
+
+  /**
+   * Writes the report as a JSON object. This does not close the writer.
+   */
+  public void writeJson(Writer writer) throws IOException {
+    final JsonWriter json = new JsonWriter(writer);
+    json.setIndent("  ");
+    json.beginObject();
+    json.name("warmupRuns").value(warmupRuns);
+    json.name("measuredRuns").value(measuredRuns);
+    json.name("unit").value("us");
+    json.name("results").beginArray();
+    for (Row row : rows) {
+      final LatencyHistogram.Snapshot times = row.times;
+      json.beginObject()
+          .name("name").value(row.name)
+          .name("kind").value(row.kind)
+          .name("count").value(times.getCount())
+          .name("mean").value(times.getMean())
+          .name("standardDeviation").value(times.getStandardDeviation())
+          .name("min").value(times.getMin())
+          .name("p50").value(times.getPercentile(50))
+          .name("p95").value(times.getPercentile(95))
+          .name("p99").value(times.getPercentile(99))
+          .name("max").value(times.getMax())
+          .endObject();
+    }
+    json.endArray();
+    json.endObject();
+    json.flush();
+  }
+
+  /**
+   * Writes the report as CSV, with one line per row of the report. This does not close the
+   * writer.
+   */
+  public void writeCsv(Writer writer) throws IOException {
+    final CsvExporter exporter = new CsvExporter(CSV_HEADERS.length, CSV_HEADERS);
+    for (Row row : rows) {
+      final LatencyHistogram.Snapshot times = row.times;
+      exporter.addRow(
+          // The exporter doesn't quote anything, so keep commas in names from adding columns
+          row.name.replace(',', ' '),
+          row.kind,
+          times.getCount(),
+          String.format(Locale.ENGLISH, "%.1f", times.getMean()),
+          String.format(Locale.ENGLISH, "%.1f", times.getStandardDeviation()),
+          times.getMin(),
+          times.getPercentile(50),
+          times.getPercentile(95),
+          times.getPercentile(99),
+          times.getMax());
+    }
+    writer.write(exporter.export());
+    writer.flush();
+  }
+
+  /**
+   * The times of one thing in the pipeline.
+   */
+  public static final class Row {
+    private final String name;
+    private final String kind;
+    private final LatencyHistogram.Snapshot times;
+
+    Row(String name, String kind, LatencyHistogram.Snapshot times) {
+      this.name = checkNotNull(name, "name");
+      this.kind = checkNotNull(kind, "kind");
+      this.times = checkNotNull(times, "times");
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return what was timed: {@code pipeline}, {@code source} or {@code step}.
+     */
+    public String getKind() {
+      return kind;
+    }
+
+    public LatencyHistogram.Snapshot getTimes() {
+      return times;
+    }
+  }
+
+  public static final class Builder {
+    private final int warmupRuns;
+    private final int measuredRuns;
+    private final ImmutableList.Builder<Row> rows = ImmutableList.builder();
+
+    private Builder(int warmupRuns, int measuredRuns) {
+      checkArgument(warmupRuns >= 0, "Warmup runs cannot be negative");
+      checkArgument(measuredRuns > 0, "Must measure at least one run");
+      this.warmupRuns = warmupRuns;
+      this.measuredRuns = measuredRuns;
+    }
+
+    /**
+     * Adds a row to the report.
+     *
+     * @param name  the name of what was timed
+     * @param kind  what kind of thing was timed
+     * @param times the times measured, not including the warmup runs
+     */
+    public Builder add(String name, String kind, LatencyHistogram.Snapshot times) {
+      rows.add(new Row(name, kind, times));
+      return this;
+    }
+
+    public BenchmarkReport build() {
+      return new BenchmarkReport(warmupRuns, measuredRuns, rows.build());
+    }
+  }
+}
@@ -4,18 +4,14 @@ import edu.wpi.grip.core.events.BenchmarkEvent;
 import edu.wpi.grip.core.events.RunStartedEvent;
 import edu.wpi.grip.core.events.RunStoppedEvent;
 import edu.wpi.grip.core.events.StartSingleBenchmarkRunEvent;
-import edu.wpi.grip.core.events.TimerEvent;
 
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
 
@@ -41,11 +37,6 @@ public class BenchmarkRunner {
    */
   private final AtomicInteger runsRemaining = new AtomicInteger(0);
 
-  /**
-   * Keep track of timers so we can reset them after the benchmark finishes running.
-   */
-  private final AtomicReference<Set<Timer>> timers = new AtomicReference<>(new HashSet<>());
-
   @Inject
   BenchmarkRunner(EventBus eventBus) {
     this.eventBus = eventBus;
@@ -64,12 +55,6 @@ public class BenchmarkRunner {
     eventBus.post(new StartSingleBenchmarkRunEvent());
   }
 
-  @Subscribe
-  @SuppressWarnings("PMD.UnusedPrivateMethod")
-  private void onTimerEvent(TimerEvent event) {
-    this.timers.get().add(event.getTimer());
-  }
-
   @Subscribe
   @SuppressWarnings({"PMD.UnusedPrivateMethod", "PMD.UnusedFormalParameter"})
   private void onRunStart(@Nullable RunStartedEvent event) {
@@ -108,8 +93,6 @@ public class BenchmarkRunner {
   private void cleanUp() {
     isBenchmarking.set(false);
     runsRemaining.set(0);
-    timers.get().forEach(Timer::reset);
-    timers.get().clear();
   }
 
   /**
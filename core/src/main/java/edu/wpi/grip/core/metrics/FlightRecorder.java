@@ -0,0 +1,391 @@
+package edu.wpi.grip.core.metrics;
+
+import edu.wpi.grip.annotation.operation.OperationCategory;
+import edu.wpi.grip.core.PipelineRunner;
+import edu.wpi.grip.core.Source;
+import edu.wpi.grip.core.Step;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.stream.JsonWriter;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Keeps the most recent spans of time spent updating sources, running steps, publishing, copying
+ * values along connections, dispatching pipeline events and collecting garbage, so that a slow
+ * frame can be explained after the fact. The spans can be written out in the Chrome trace format,
+ * which can be opened in {@code chrome://tracing} or Perfetto.
+ *
+ * <p>Spans are kept in a fixed size ring buffer of primitive arrays, so recording a span doesn't
+ * lock or allocate anything and the recorder can be left on all the time. Once the buffer is full
+ * the oldest spans are overwritten.</p>
+ */
+@Singleton
+public class FlightRecorder {
+
+  /**
+   * A recorder that never records anything. Used for things that are created outside of an
+   * injector.
+   */
+  public static final FlightRecorder NONE = new FlightRecorder(0);
+
+  @VisibleForTesting
+  static final int DEFAULT_CAPACITY = 1 << 16;
+
+  /**
+   * The thread ID garbage collection spans are shown on, since they don't happen on any one of
+   * our threads.
+   */
+  private static final long GC_THREAD_ID = 0;
+
+  /**
+   * The recorders that record garbage collections. There is only one listener on the garbage
+   * collectors for the whole process, which passes collections on to these. Recorders that are no
+   * longer used are dropped by the garbage collector.
+   */
+  private static final Set<FlightRecorder> gcRecorders =
+      Collections.newSetFromMap(new WeakHashMap<>());
+  private static boolean listeningForGc = false;
+
+  /**
+   * The kinds of spans the recorder keeps.
+   */
+  public enum Category {
+    RUN("run"),
+    SOURCE("source"),
+    STEP("step"),
+    PUBLISH("publish"),
+    CONNECTION("connection"),
+    EVENT("event"),
+    GC("gc");
+
+    private static final Category[] VALUES = values();
+
+    private final String label;
+
+    Category(String label) {
+      this.label = label;
+    }
+
+    /**
+     * @return the category of the spans of time spent on the given object.
+     */
+    static Category of(Object target) {
+      if (target instanceof Step) {
+        return ((Step) target).getOperationDescription().category() == OperationCategory.NETWORK
+            ? PUBLISH
+            : STEP;
+      } else if (target instanceof Source) {
+        return SOURCE;
+      } else if (target instanceof PipelineRunner) {
+        return RUN;
+      }
+      return EVENT;
+    }
+
+    @Override
+    public String toString() {
+      return label;
+    }
+  }
+
+  /**
+   * @return the name of the spans of time spent on the given object.
+   */
+  static String nameOf(Object target) {
+    if (target instanceof Step) {
+      return ((Step) target).getOperationDescription().name();
+    } else if (target instanceof Source) {
+      return ((Source) target).getName();
+    } else if (target instanceof PipelineRunner) {
+      return "Pipeline";
+    }
+    return target.getClass().getSimpleName();
+  }
+
+  private final int mask;
+  private final AtomicLong nextSequence = new AtomicLong();
+  /**
+   * The sequence number (plus one) of the span in each slot, 0 if the slot is empty, or -1 while
+   * the slot is being written. Readers only trust a slot if its sequence number is the same before
+   * and after reading it.
+   */
+  private final AtomicLongArray sequences;
+  private final AtomicIntegerArray categories;
+  private final AtomicReferenceArray<String> names;
+  private final AtomicLongArray threadIds;
+  private final AtomicLongArray starts;
+  private final AtomicLongArray durations;
+  private volatile boolean enabled;
+
+  @Inject
+  FlightRecorder() {
+    this(DEFAULT_CAPACITY);
+    listenForGarbageCollections();
+  }
+
+  /**
+   * @param capacity the number of spans to keep. Must be 0 or a power of two.
+   */
+  @VisibleForTesting
+  FlightRecorder(int capacity) {
+    checkArgument(capacity >= 0 && Integer.bitCount(capacity) <= 1,
+        "Capacity must be 0 or a power of two");
+    this.mask = capacity - 1;
+    this.sequences = new AtomicLongArray(capacity);
+    this.categories = new AtomicIntegerArray(capacity);
+    this.names = new AtomicReferenceArray<>(capacity);
+    this.threadIds = new AtomicLongArray(capacity);
+    this.starts = new AtomicLongArray(capacity);
+    this.durations = new AtomicLongArray(capacity);
+    this.enabled = capacity > 0;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Turns recording on or off. Spans that were already recorded are kept.
+   */
+  public void setEnabled(boolean enabled) {
+    checkState(!enabled || mask >= 0, "This recorder can't record anything");
+    this.enabled = enabled;
+  }
+
+  /**
+   * @return the time to pass to {@link #end} when the span of work ends.
+   */
+  public long begin() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records a span of work on the current thread that started at the given time and has just
+   * ended.
+   *
+   * @param category what kind of work was done
+   * @param name     what the work was done for, such as the name of a step
+   * @param begin    the time returned by {@link #begin()} when the work started
+   */
+  public void end(Category category, String name, long begin) {
+    if (enabled) {
+      final long now = System.nanoTime();
+      record(category, name, Thread.currentThread().getId(), begin, now - begin);
+    }
+  }
+
+  /**
+   * Records a span of work on the current thread that has just ended.
+   *
+   * @param category      what kind of work was done
+   * @param name          what the work was done for, such as the name of a step
+   * @param durationNanos how long the work took, in nanoseconds
+   */
+  public void endedNow(Category category, String name, long durationNanos) {
+    if (enabled) {
+      final long now = System.nanoTime();
+      record(category, name, Thread.currentThread().getId(), now - durationNanos, durationNanos);
+    }
+  }
+
+  @VisibleForTesting
+  void record(Category category, String name, long threadId, long start, long duration) {
+    if (!enabled) {
+      return;
+    }
+    final long sequence = nextSequence.getAndIncrement();
+    final int slot = (int) sequence & mask;
+    sequences.set(slot, -1);
+    categories.set(slot, category.ordinal());
+    names.set(slot, name);
+    threadIds.set(slot, threadId);
+    starts.set(slot, start);
+    durations.set(slot, duration);
+    sequences.set(slot, sequence + 1);
+  }
+
+  /**
+   * Gets the spans that ended within the given amount of time before now, in the order they
+   * started.
+   */
+  public List<Span> getSpans(long window, TimeUnit unit) {
+    final long cutoff = System.nanoTime() - unit.toNanos(window);
+    final List<Span> spans = new ArrayList<>();
+    for (int slot = 0; slot <= mask; slot++) {
+      final long sequence = sequences.get(slot);
+      if (sequence <= 0) {
+        continue;
+      }
+      final Span span = new Span(
+          Category.VALUES[categories.get(slot)],
+          names.get(slot),
+          threadIds.get(slot),
+          starts.get(slot),
+          durations.get(slot));
+      if (sequences.get(slot) == sequence && span.startNanos + span.durationNanos - cutoff >= 0) {
+        spans.add(span);
+      }
+    }
+    spans.sort(Comparator.comparingLong(Span::getStartNanos));
+    return spans;
+  }
+
+  /**
+   * Writes the spans that ended within the given amount of time before now as a Chrome trace.
+   *
+   * @param writer where to write the trace. This is not closed.
+   * @param window how far back to go
+   * @param unit   the unit of {@code window}
+   */
+  public void writeChromeTrace(Writer writer, long window, TimeUnit unit) throws IOException {
+    final List<Span> spans = getSpans(window, unit);
+    final long origin = spans.isEmpty() ? 0 : spans.get(0).startNanos;
+    final Set<Long> threadIds = new LinkedHashSet<>();
+    final JsonWriter json = new JsonWriter(writer);
+    json.beginObject();
+    json.name("displayTimeUnit").value("ms");
+    json.name("traceEvents").beginArray();
+    for (Span span : spans) {
+      threadIds.add(span.threadId);
+      json.beginObject()
+          .name("name").value(span.name)
+          .name("cat").value(span.category.toString())
+          .name("ph").value("X")
+          .name("ts").value((span.startNanos - origin) / 1e3)
+          .name("dur").value(span.durationNanos / 1e3)
+          .name("pid").value(1)
+          .name("tid").value(span.threadId)
+          .endObject();
+    }
+    final Map<Long, String> threadNames = threadNames();
+    for (long threadId : threadIds) {
+      json.beginObject()
+          .name("name").value("thread_name")
+          .name("ph").value("M")
+          .name("pid").value(1)
+          .name("tid").value(threadId)
+          .name("args").beginObject()
+          .name("name").value(threadNames.getOrDefault(threadId, "Thread " + threadId))
+          .endObject()
+          .endObject();
+    }
+    json.endArray();
+    json.endObject();
+    json.flush();
+  }
+
+  private static Map<Long, String> threadNames() {
+    final Map<Long, String> threadNames = new HashMap<>();
+    threadNames.put(GC_THREAD_ID, "Garbage collection");
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      threadNames.put(thread.getId(), thread.getName());
+    }
+    return threadNames;
+  }
+
+  private void listenForGarbageCollections() {
+    synchronized (gcRecorders) {
+      gcRecorders.add(this);
+      if (listeningForGc) {
+        return;
+      }
+      listeningForGc = true;
+    }
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter) {
+        ((NotificationEmitter) collector)
+            .addNotificationListener(FlightRecorder::onGarbageCollection, null, null);
+      }
+    }
+  }
+
+  @SuppressWarnings("PMD.UnusedFormalParameter")
+  private static void onGarbageCollection(Notification notification, Object handback) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+        .equals(notification.getType())) {
+      return;
+    }
+    final List<FlightRecorder> recorders;
+    synchronized (gcRecorders) {
+      recorders = new ArrayList<>(gcRecorders);
+    }
+    final GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    final long duration = TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration());
+    // Notifications are sent right after the collection, so this is close to when it started
+    final long start = System.nanoTime() - duration;
+    final String name = info.getGcName() + " (" + info.getGcCause() + ")";
+    for (FlightRecorder recorder : recorders) {
+      recorder.record(Category.GC, name, GC_THREAD_ID, start, duration);
+    }
+  }
+
+  /**
+   * A span of time spent on something. All times are in nanoseconds, from {@link
+   * System#nanoTime()}.
+   */
+  public static final class Span {
+    private final Category category;
+    private final String name;
+    private final long threadId;
+    private final long startNanos;
+    private final long durationNanos;
+
+    Span(Category category, String name, long threadId, long startNanos, long durationNanos) {
+      this.category = checkNotNull(category, "category");
+      this.name = checkNotNull(name, "name");
+      this.threadId = threadId;
+      this.startNanos = startNanos;
+      this.durationNanos = durationNanos;
+    }
+
+    public Category getCategory() {
+      return category;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getThreadId() {
+      return threadId;
+    }
+
+    public long getStartNanos() {
+      return startNanos;
+    }
+
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+  }
+}
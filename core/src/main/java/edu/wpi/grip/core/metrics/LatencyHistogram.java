@@ -0,0 +1,262 @@
+package edu.wpi.grip.core.metrics;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A histogram of latencies, in microseconds, that can be recorded into from any thread without
+ * locking or allocating. The histogram takes the same amount of memory no matter how many values
+ * are recorded into it.
+ *
+ * <p>Values below 32µs are counted exactly. Larger values are counted in buckets that are 1/16th
+ * of a power of two wide, so percentiles are accurate to within about 6%. The mean and standard
+ * deviation are exact.</p>
+ *
+ * <p>Consumers read the histogram by taking a {@link Snapshot}.</p>
+ */
+public final class LatencyHistogram {
+
+  private static final int LINEAR_BUCKETS = 32;
+  private static final int MIN_EXPONENT = 5; // log2(LINEAR_BUCKETS)
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  @VisibleForTesting
+  static final int BUCKET_COUNT = LINEAR_BUCKETS + (Long.SIZE - 1 - MIN_EXPONENT) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  /**
+   * The raw bits of the {@code double} sum of the squares of every value, since the squares of
+   * long run times would quickly overflow a {@code long}.
+   */
+  private final AtomicLong sumOfSquaresBits = new AtomicLong(Double.doubleToRawLongBits(0));
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+  private volatile long last = 0;
+
+  /**
+   * Records a latency.
+   *
+   * @param micros the latency in microseconds. Negative values are recorded as 0.
+   */
+  public void record(long micros) {
+    final long value = Math.max(micros, 0);
+    counts.incrementAndGet(indexOf(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    final double square = (double) value * value;
+    long bits;
+    do {
+      bits = sumOfSquaresBits.get();
+    } while (!sumOfSquaresBits.compareAndSet(bits,
+        Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + square)));
+    long current;
+    do {
+      current = min.get();
+    } while (value < current && !min.compareAndSet(current, value));
+    do {
+      current = max.get();
+    } while (value > current && !max.compareAndSet(current, value));
+    last = value;
+  }
+
+  /**
+   * @return the most recently recorded latency, in microseconds, or 0 if nothing has been
+   *     recorded.
+   */
+  public long getLast() {
+    return last;
+  }
+
+  /**
+   * @return the number of values recorded. This is cheaper than taking a snapshot, so it can be
+   *     used to check whether anything new has been recorded.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Takes a snapshot of the values recorded so far. If values are being recorded while the
+   * snapshot is taken, the snapshot may include only part of the most recent value; it will be
+   * included in full in the next snapshot.
+   */
+  public Snapshot snapshot() {
+    final long[] bucketCounts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      bucketCounts[i] = counts.get(i);
+      count += bucketCounts[i];
+    }
+    return new Snapshot(bucketCounts, count, sum.get(),
+        Double.longBitsToDouble(sumOfSquaresBits.get()),
+        count == 0 ? 0 : min.get(), count == 0 ? 0 : max.get());
+  }
+
+  @VisibleForTesting
+  static int indexOf(long value) {
+    if (value < LINEAR_BUCKETS) {
+      return (int) value;
+    }
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return LINEAR_BUCKETS + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * @return the smallest value that is counted in the bucket with the given index.
+   */
+  @VisibleForTesting
+  static long lowerBoundOf(int index) {
+    if (index < LINEAR_BUCKETS) {
+      return index;
+    }
+    final int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + MIN_EXPONENT;
+    final long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+    return (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+  }
+
+  /**
+   * @return the largest value that is counted in the bucket with the given index.
+   */
+  private static long upperBoundOf(int index) {
+    return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowerBoundOf(index + 1) - 1;
+  }
+
+  /**
+   * An immutable copy of the values in a histogram at some point in time. All times are in
+   * microseconds.
+   */
+  public static final class Snapshot {
+
+    /**
+     * A snapshot of a histogram that nothing has been recorded into.
+     */
+    public static final Snapshot EMPTY = new Snapshot(new long[BUCKET_COUNT], 0, 0, 0, 0, 0);
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final double sumOfSquares;
+    private final long min;
+    private final long max;
+
+    private Snapshot(long[] counts, long count, long sum, double sumOfSquares, long min,
+                     long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.sumOfSquares = sumOfSquares;
+      this.min = min;
+      this.max = max;
+    }
+
+    /**
+     * Gets the values that were recorded between an earlier snapshot of the same histogram and
+     * this one. The smallest and largest values of the difference are only as accurate as the
+     * buckets they fall in.
+     *
+     * @param earlier a snapshot of the same histogram taken before this one
+     */
+    public Snapshot since(Snapshot earlier) {
+      final long[] difference = new long[BUCKET_COUNT];
+      int first = -1;
+      int last = -1;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        difference[i] = counts[i] - earlier.counts[i];
+        if (difference[i] > 0) {
+          if (first < 0) {
+            first = i;
+          }
+          last = i;
+        }
+      }
+      if (first < 0) {
+        return EMPTY;
+      }
+      return new Snapshot(difference, count - earlier.count, sum - earlier.sum,
+          sumOfSquares - earlier.sumOfSquares,
+          Math.max(lowerBoundOf(first), min), Math.min(upperBoundOf(last), max));
+    }
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    public long getSum() {
+      return sum;
+    }
+
+    public long getMin() {
+      return min;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @return the population standard deviation of the recorded values.
+     */
+    public double getStandardDeviation() {
+      if (count == 0) {
+        return 0;
+      }
+      final double mean = getMean();
+      return Math.sqrt(Math.max(sumOfSquares / count - mean * mean, 0));
+    }
+
+    /**
+     * Gets the number of recorded values that were at most the given value. Values in the bucket
+     * that the given value falls in are only counted if every value that bucket can hold is at
+     * most the given value, so this never counts a value that was larger.
+     *
+     * @param micros the largest value to count, in microseconds
+     */
+    public long getCountAtMost(long micros) {
+      if (micros < 0) {
+        return 0;
+      }
+      final int index = indexOf(micros);
+      long atMost = 0;
+      for (int i = 0; i < index; i++) {
+        atMost += counts[i];
+      }
+      return upperBoundOf(index) == micros ? atMost + counts[index] : atMost;
+    }
+
+    /**
+     * Gets an estimate of the value at the given percentile. The estimate is the largest value
+     * in the bucket the percentile falls in, but never more than the largest recorded value.
+     *
+     * @param percentile the percentile, between 0 and 100
+     */
+    public long getPercentile(double percentile) {
+      checkArgument(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+      if (count == 0) {
+        return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.max(Math.min(upperBoundOf(i), max), min);
+        }
+      }
+      return max;
+    }
+  }
+}
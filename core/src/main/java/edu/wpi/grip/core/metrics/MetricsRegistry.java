@@ -0,0 +1,106 @@
+package edu.wpi.grip.core.metrics;
+
+import edu.wpi.grip.core.events.SourceRemovedEvent;
+import edu.wpi.grip.core.events.StepRemovedEvent;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Holds a {@link LatencyHistogram} for everything that is timed, such as each step, each source
+ * and the whole pipeline run. {@link Timer Timers} record into the histogram of the object they
+ * time, and anything interested in how long things take reads the histograms whenever it wants
+ * to, instead of being told about every single run.
+ *
+ * <p>Histograms are kept by the identity of the object they time, and are forgotten when the step
+ * or source they belong to is removed.</p>
+ */
+@Singleton
+public class MetricsRegistry {
+
+  private final ConcurrentMap<IdentityKey, LatencyHistogram> histograms =
+      new ConcurrentHashMap<>();
+
+  @Inject
+  public MetricsRegistry() {
+    /* no-op */
+  }
+
+  /**
+   * Gets the histogram for the given object, creating it if it doesn't exist yet. This should be
+   * called once when setting up a timer, not every time something is timed.
+   *
+   * @param target the object that is timed
+   */
+  public LatencyHistogram histogram(Object target) {
+    checkNotNull(target, "target");
+    return histograms.computeIfAbsent(new IdentityKey(target), k -> new LatencyHistogram());
+  }
+
+  /**
+   * Gets the histogram for the given object, if anything has been set up to time it.
+   *
+   * @param target the object that is timed
+   */
+  public Optional<LatencyHistogram> find(Object target) {
+    return Optional.ofNullable(histograms.get(new IdentityKey(target)));
+  }
+
+  /**
+   * Gets every histogram in the registry.
+   *
+   * @return a copy of the histograms, by the object they time
+   */
+  public ImmutableMap<Object, LatencyHistogram> getHistograms() {
+    final ImmutableMap.Builder<Object, LatencyHistogram> builder = ImmutableMap.builder();
+    histograms.forEach((key, histogram) -> builder.put(key.target, histogram));
+    return builder.build();
+  }
+
+  /**
+   * Forgets the histogram for the given object.
+   */
+  public void remove(Object target) {
+    histograms.remove(new IdentityKey(target));
+  }
+
+  @Subscribe
+  public void onStepRemoved(StepRemovedEvent event) {
+    remove(event.getStep());
+  }
+
+  @Subscribe
+  public void onSourceRemoved(SourceRemovedEvent event) {
+    remove(event.getSource());
+  }
+
+  /**
+   * Compares targets by identity, since steps and sources that are equal are still timed
+   * separately.
+   */
+  private static final class IdentityKey {
+    private final Object target;
+
+    IdentityKey(Object target) {
+      this.target = target;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IdentityKey && ((IdentityKey) o).target == target;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(target);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package edu.wpi.grip.core.metrics;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Class for exporting metrics in the OpenMetrics text format, which Prometheus and most other
+ * monitoring systems can scrape.
+ *
+ * <p>Metrics are written one family at a time: {@link #family start a family}, then write every
+ * sample of it before starting the next one. Labels are given as alternating names and values,
+ * eg {@code counter(10, "source", "Camera")}.</p>
+ */
+public class OpenMetricsExporter {
+
+  /**
+   * The content type of the exported text.
+   */
+  public static final String CONTENT_TYPE =
+      "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+  /**
+   * The upper bounds of the buckets that durations are exported in, in microseconds. These go from
+   * 100µs to 10s, which covers anything from a trivial step to a very slow pipeline.
+   */
+  private static final long[] DURATION_BUCKETS = {
+      100, 250, 500,
+      1_000, 2_500, 5_000,
+      10_000, 25_000, 50_000,
+      100_000, 250_000, 500_000,
+      1_000_000, 2_500_000, 5_000_000, 10_000_000
+  };
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+  private static final double MICROS_PER_SECOND = 1e6;
+
+  /**
+   * The types of metric families.
+   */
+  public enum Type {
+    COUNTER("counter"),
+    GAUGE("gauge"),
+    HISTOGRAM("histogram");
+
+    private final String label;
+
+    Type(String label) {
+      this.label = label;
+    }
+
+    @Override
+    public String toString() {
+      return label;
+    }
+  }
+
+  private final StringBuilder text = new StringBuilder(4096);
+  private final Set<String> families = new HashSet<>();
+  private String family;
+  private Type type;
+
+  /**
+   * Starts a new family of metrics. Every family can only be started once.
+   *
+   * @param name the name of the family. Counters should not end in {@code _total}, since that is
+   *             added to each sample.
+   * @param type the type of the metrics in the family
+   * @param unit the unit of the metrics, or an empty string if they don't have one. If there is a
+   *             unit, the name must end with it.
+   * @param help a description of the metrics
+   */
+  public OpenMetricsExporter family(String name, Type type, String unit, String help) {
+    checkArgument(NAME.matcher(name).matches(), "Not a valid metric name: " + name);
+    checkArgument(unit.isEmpty() || name.endsWith("_" + unit),
+        "The name of a metric must end with its unit: " + name);
+    checkArgument(families.add(name), "The family has already been written: " + name);
+    this.family = name;
+    this.type = checkNotNull(type, "type");
+    text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    if (!unit.isEmpty()) {
+      text.append("# UNIT ").append(name).append(' ').append(unit).append('\n');
+    }
+    text.append("# HELP ").append(name).append(' ').append(escape(help)).append('\n');
+    return this;
+  }
+
+  /**
+   * Writes a sample of the current counter family.
+   *
+   * @param value  the value of the counter
+   * @param labels alternating label names and values
+   */
+  public OpenMetricsExporter counter(long value, String... labels) {
+    checkFamily(Type.COUNTER);
+    sample("_total", labels, null).append(value).append('\n');
+    return this;
+  }
+
+  /**
+   * Writes a sample of the current gauge family.
+   *
+   * @param value  the value of the gauge
+   * @param labels alternating label names and values
+   */
+  public OpenMetricsExporter gauge(double value, String... labels) {
+    checkFamily(Type.GAUGE);
+    sample("", labels, null).append(format(value)).append('\n');
+    return this;
+  }
+
+  /**
+   * Writes the durations in a snapshot as a sample of the current histogram family, in seconds.
+   *
+   * @param durations the durations, in microseconds
+   * @param labels    alternating label names and values
+   */
+  public OpenMetricsExporter histogram(LatencyHistogram.Snapshot durations, String... labels) {
+    checkFamily(Type.HISTOGRAM);
+    for (long bound : DURATION_BUCKETS) {
+      sample("_bucket", labels, format(bound / MICROS_PER_SECOND))
+          .append(durations.getCountAtMost(bound)).append('\n');
+    }
+    sample("_bucket", labels, "+Inf").append(durations.getCount()).append('\n');
+    sample("_count", labels, null).append(durations.getCount()).append('\n');
+    sample("_sum", labels, null).append(format(durations.getSum() / MICROS_PER_SECOND))
+        .append('\n');
+    return this;
+  }
+
+  /**
+   * Exports the metrics written so far. Nothing can be written after exporting.
+   *
+   * @return the metrics in the OpenMetrics text format
+   */
+  public String export() {
+    family = null;
+    return text.append("# EOF\n").toString();
+  }
+
+  private void checkFamily(Type expected) {
+    checkState(family != null, "A family must be started before writing samples");
+    checkState(type == expected, "The current family is a " + type + ", not a " + expected);
+  }
+
+  private StringBuilder sample(String suffix, String[] labels, String le) {
+    checkArgument(labels.length % 2 == 0, "Labels must be given as names and values");
+    text.append(family).append(suffix);
+    if (labels.length > 0 || le != null) {
+      text.append('{');
+      for (int i = 0; i < labels.length; i += 2) {
+        if (i > 0) {
+          text.append(',');
+        }
+        text.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+      }
+      if (le != null) {
+        if (labels.length > 0) {
+          text.append(',');
+        }
+        text.append("le=\"").append(le).append('"');
+      }
+      text.append('}');
+    }
+    return text.append(' ');
+  }
+
+  private static String format(double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    } else if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    }
+    return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+  }
+
+  private static String escape(String value) {
+    final StringBuilder escaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '\\') {
+        escaped.append("\\\\");
+      } else if (c == '\n') {
+        escaped.append("\\n");
+      } else if (c == '"') {
+        escaped.append("\\\"");
+      } else {
+        escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+}
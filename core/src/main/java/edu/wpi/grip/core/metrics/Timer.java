@@ -1,10 +1,7 @@
 package edu.wpi.grip.core.metrics;
 
-import edu.wpi.grip.core.events.TimerEvent;
-
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
-import com.google.common.eventbus.EventBus;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 
@@ -13,7 +10,12 @@ import java.util.concurrent.TimeUnit;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Timer for code that gets run.
+ * Timer for code that gets run. Every time the timer is stopped, the elapsed time is recorded in
+ * the {@link LatencyHistogram} for the timed object in the {@link MetricsRegistry} and kept as a
+ * span in the {@link FlightRecorder}.
+ *
+ * <p>A timer must only be used by one thread at a time. It doesn't lock or allocate anything, so
+ * it can be used for every run of the pipeline.</p>
  *
  * <p>Sample usage:
  * <pre><code>
@@ -23,22 +25,40 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class Timer {
 
-  private final EventBus eventBus;
+  private final LatencyHistogram histogram;
+  private final FlightRecorder flightRecorder;
+  private final Object target;
   private final Stopwatch stopwatch;
+  /**
+   * The category and name of the spans in the flight recorder. These are worked out the first
+   * time they are needed, since a step creates its timer before it is fully constructed.
+   */
+  private FlightRecorder.Category spanCategory;
+  private String spanName;
 
-  private final Object target;
-  private long elapsedTime = 0;
+  private volatile long elapsedTime = 0;
 
   @Inject
-  Timer(EventBus eventBus, @Assisted Object target) {
-    this(eventBus, target, Stopwatch.createUnstarted());
+  Timer(MetricsRegistry metricsRegistry,
+        FlightRecorder flightRecorder,
+        @Assisted Object target) {
+    this(metricsRegistry, flightRecorder, target, Stopwatch.createUnstarted());
   }
 
   @VisibleForTesting
-  Timer(EventBus eventBus, Object target, Stopwatch stopwatch) {
-    this.eventBus = eventBus;
+  Timer(MetricsRegistry metricsRegistry, Object target, Stopwatch stopwatch) {
+    this(metricsRegistry, FlightRecorder.NONE, target, stopwatch);
+  }
+
+  @VisibleForTesting
+  Timer(MetricsRegistry metricsRegistry,
+        FlightRecorder flightRecorder,
+        Object target,
+        Stopwatch stopwatch) {
+    this.histogram = metricsRegistry.histogram(checkNotNull(target, "target"));
+    this.flightRecorder = checkNotNull(flightRecorder, "flightRecorder");
+    this.target = target;
     this.stopwatch = stopwatch;
-    this.target = checkNotNull(target, "target");
   }
 
   /**
@@ -47,7 +67,7 @@ public class Timer {
    * @throws IllegalStateException if this a call to this method is preceded by another call to
    *                               {@code started()}
    */
-  public synchronized void started() {
+  public void started() {
     if (stopwatch.isRunning()) {
       throw new IllegalStateException("Already started");
     }
@@ -55,25 +75,33 @@ public class Timer {
   }
 
   /**
-   * Stops the timer. This will post a {@link TimerEvent} containing the elapsed time
-   * and analysis to the event bus.
+   * Stops the timer. This records the elapsed time in the histogram of the timed object and in
+   * the flight recorder.
    *
    * @throws IllegalStateException if this a call to this method is not preceded by a call to
    *                               {@link #started()}.
    */
-  public synchronized void stop() {
+  public void stop() {
     if (!stopwatch.isRunning()) {
       throw new IllegalStateException("Already stopped");
     }
     stopwatch.stop();
-    this.elapsedTime = stopwatch.elapsed(TimeUnit.MICROSECONDS);
-    eventBus.post(new TimerEvent(this, target, elapsedTime));
+    final long elapsedNanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+    this.elapsedTime = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+    histogram.record(elapsedTime);
+    if (flightRecorder.isEnabled()) {
+      if (spanName == null) {
+        spanCategory = FlightRecorder.Category.of(target);
+        spanName = FlightRecorder.nameOf(target);
+      }
+      flightRecorder.endedNow(spanCategory, spanName, elapsedNanos);
+    }
   }
 
   /**
    * Resets this timer.
    */
-  public synchronized void reset() {
+  public void reset() {
     if (stopwatch.isRunning()) {
       stopwatch.stop();
     }
@@ -106,6 +106,12 @@ public class PythonScriptOperation implements Operation {
     return ImmutableList.copyOf(outputSockets);
   }
 
+  @Override
+  public boolean isStateless() {
+    // Scripts can keep whatever state they want between calls
+    return false;
+  }
+
   /**
    * Perform the operation by calling a function in the Python script. This method adapts each of
    * the inputs into Python objects, calls the Python function, and then converts the outputs of the
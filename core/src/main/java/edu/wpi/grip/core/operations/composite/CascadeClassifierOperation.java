@@ -58,6 +58,11 @@ public class CascadeClassifierOperation implements Operation {
   private final InputSocket<Size> maxSizeSocket;
   private final OutputSocket<RectsReport> output;
 
+  /**
+   * Reused for the detections of every run, so that its memory is only allocated once.
+   */
+  private final RectVector detections = new RectVector();
+
   @Inject
   @SuppressWarnings("JavadocMethod")
   public CascadeClassifierOperation(InputSocket.Factory isf, OutputSocket.Factory osf) {
@@ -104,13 +109,17 @@ public class CascadeClassifierOperation implements Operation {
     final int minNeighbors = minNeighborsSocket.getValue().get().intValue();
     final Size minSize = minSizeSocket.getValue().get();
     final Size maxSize = maxSizeSocket.getValue().get();
-    RectVector detections = new RectVector();
     classifier.detectMultiScale(image, detections, scaleFactor, minNeighbors, 0, minSize, maxSize);
-    List<Rect> rects = new ArrayList<>();
+    final List<Rect> rects = new ArrayList<>();
     for (int i = 0; i < detections.size(); i++) {
-      rects.add(detections.get(i));
+      // The vector is reused in the next run, so the report gets copies of the rectangles
+      rects.add(new Rect(detections.get(i)));
     }
     output.setValue(new RectsReport(input, rects));
   }
 
+  @Override
+  public void cleanUp() {
+    detections.deallocate();
+  }
 }
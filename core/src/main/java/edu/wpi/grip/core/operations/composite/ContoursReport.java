@@ -5,6 +5,7 @@ import edu.wpi.grip.core.operations.network.PublishValue;
 import edu.wpi.grip.core.operations.network.Publishable;
 import edu.wpi.grip.core.sockets.NoSocketTypeLabel;
 import edu.wpi.grip.core.sockets.Socket;
+import edu.wpi.grip.core.util.SharedNativeResource;
 
 import com.google.auto.value.AutoValue;
 
@@ -23,10 +24,13 @@ import static org.bytedeco.javacpp.opencv_imgproc.convexHull;
  * The output of {@link FindContoursOperation}.  This stores a list of contours (which is basically
  * a list of points) in OpenCV objects, as well as the width and height of the image that the
  * contours are from, to give context to the points.
+ *
+ * <p>The report owns its contours, so they are freed when the report is released and nothing
+ * {@link #retain() retains} it any more.</p>
  */
 @PublishableObject
 @NoSocketTypeLabel
-public final class ContoursReport implements Publishable {
+public final class ContoursReport extends SharedNativeResource implements Publishable {
 
   private final int rows;
   private final int cols;
@@ -95,6 +99,27 @@ public final class ContoursReport implements Publishable {
     return boundingBoxes.get();
   }
 
+  @Override
+  public synchronized long estimatedSize() {
+    long bytes = 0;
+    for (int i = 0; i < contours.size(); i++) {
+      final Mat contour = contours.get(i);
+      bytes += contour.total() * contour.elemSize();
+    }
+    return bytes;
+  }
+
+  @Override
+  protected synchronized void free() {
+    if (boundingBoxes.isPresent()) {
+      for (Rect boundingBox : boundingBoxes.get()) {
+        boundingBox.deallocate();
+      }
+      boundingBoxes = Optional.empty();
+    }
+    contours.deallocate();
+  }
+
   @PublishValue(key = "area", weight = 0)
   public double[] getArea() {
     final double[] areas = new double[(int) contours.size()];
@@ -152,7 +177,7 @@ public final class ContoursReport implements Publishable {
       convexHull(contours.get(i), hull);
       solidities[i] = contourArea(contours.get(i)) / contourArea(hull);
     }
-    hull.release();
+    hull.deallocate();
     return solidities;
   }
 
@@ -7,6 +7,7 @@ import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sockets.SocketHint;
 import edu.wpi.grip.core.sockets.SocketHints;
+import edu.wpi.grip.core.util.NativeScope;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
@@ -90,6 +91,11 @@ public class FilterContoursOperation implements Operation {
 
   private final OutputSocket<ContoursReport> outputSocket;
 
+  /**
+   * Reused for the convex hull of every contour, so that its memory is only allocated once.
+   */
+  private final Mat hull = new Mat();
+
   @Inject
   @SuppressWarnings("JavadocMethod")
   public FilterContoursOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
@@ -155,48 +161,47 @@ public class FilterContoursOperation implements Operation {
 
     final MatVector inputContours = inputSocket.getValue().get().getContours();
     final MatVector outputContours = new MatVector(inputContours.size());
-    final Mat hull = new Mat();
-
     // Add contours from the input vector to the output vector only if they pass all of the
     // criteria (minimum
     // area, minimum perimeter, width, and height, etc...)
     int filteredContourCount = 0;
-    for (int i = 0; i < inputContours.size(); i++) {
-      final Mat contour = inputContours.get(i);
-
-      final Rect bb = boundingRect(contour);
-      if (bb.width() < minWidth || bb.width() > maxWidth) {
-        continue;
-      }
-      if (bb.height() < minHeight || bb.height() > maxHeight) {
-        continue;
-      }
-
-      final double area = contourArea(contour);
-      if (area < minArea) {
-        continue;
-      }
-      if (arcLength(contour, true) < minPerimeter) {
-        continue;
-      }
-
-      convexHull(contour, hull);
-      final double solidity = 100 * area / contourArea(hull);
-      hull.release();
-      if (solidity < minSolidity || solidity > maxSolidity) {
-        continue;
+    try (NativeScope scope = new NativeScope()) {
+      for (int i = 0; i < inputContours.size(); i++) {
+        final Mat contour = inputContours.get(i);
+
+        final Rect bb = scope.attach(boundingRect(contour));
+        if (bb.width() < minWidth || bb.width() > maxWidth) {
+          continue;
+        }
+        if (bb.height() < minHeight || bb.height() > maxHeight) {
+          continue;
+        }
+
+        final double area = contourArea(contour);
+        if (area < minArea) {
+          continue;
+        }
+        if (arcLength(contour, true) < minPerimeter) {
+          continue;
+        }
+
+        convexHull(contour, hull);
+        final double solidity = 100 * area / contourArea(hull);
+        if (solidity < minSolidity || solidity > maxSolidity) {
+          continue;
+        }
+
+        if (contour.rows() < minVertexCount || contour.rows() > maxVertexCount) {
+          continue;
+        }
+
+        final double ratio = (double) bb.width() / (double) bb.height();
+        if (ratio < minRatio || ratio > maxRatio) {
+          continue;
+        }
+
+        outputContours.put(filteredContourCount++, contour);
       }
-
-      if (contour.rows() < minVertexCount || contour.rows() > maxVertexCount) {
-        continue;
-      }
-
-      final double ratio = (double) bb.width() / (double) bb.height();
-      if (ratio < minRatio || ratio > maxRatio) {
-        continue;
-      }
-
-      outputContours.put(filteredContourCount++, contour);
     }
 
     outputContours.resize(filteredContourCount);
@@ -204,4 +209,9 @@ public class FilterContoursOperation implements Operation {
     outputSocket.setValue(new ContoursReport(outputContours,
         inputSocket.getValue().get().getRows(), inputSocket.getValue().get().getCols()));
   }
+
+  @Override
+  public void cleanUp() {
+    hull.deallocate();
+  }
 }
@@ -8,6 +8,7 @@ import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sockets.SocketHint;
 import edu.wpi.grip.core.sockets.SocketHints;
+import edu.wpi.grip.core.util.NativeScope;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
@@ -49,6 +50,11 @@ public class FindBlobsOperation implements Operation {
 
   private final OutputSocket<BlobsReport> outputSocket;
 
+  /**
+   * Reused for the blobs found in every run, so that its memory is only allocated once.
+   */
+  private final KeyPointVector keyPointVector = new KeyPointVector();
+
   @Inject
   @SuppressWarnings("JavadocMethod")
   public FindBlobsOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
@@ -87,29 +93,35 @@ public class FindBlobsOperation implements Operation {
     final Boolean darkBlobs = colorSocket.getValue().get();
 
 
-    final SimpleBlobDetector blobDetector = SimpleBlobDetector.create(new SimpleBlobDetector
-        .Params()
-        .filterByArea(true)
-        .minArea(minArea.intValue())
-        .maxArea(Integer.MAX_VALUE)
-
-        .filterByColor(true)
-        .blobColor(darkBlobs ? (byte) 0 : (byte) 255)
-
-        .filterByCircularity(true)
-        .minCircularity(circularity.get(0).floatValue())
-        .maxCircularity(circularity.get(1).floatValue()));
-
-    // Detect the blobs and store them in the output BlobsReport
-    final KeyPointVector keyPointVector = new KeyPointVector();
-    blobDetector.detect(input, keyPointVector);
-
     final List<BlobsReport.Blob> blobs = new ArrayList<>();
-    for (int i = 0; i < keyPointVector.size(); i++) {
-      final KeyPoint keyPoint = keyPointVector.get(i);
-      blobs.add(new BlobsReport.Blob(keyPoint.pt().x(), keyPoint.pt().y(), keyPoint.size()));
+    try (NativeScope scope = new NativeScope()) {
+      final SimpleBlobDetector blobDetector = scope.attach(SimpleBlobDetector.create(
+          scope.attach(new SimpleBlobDetector.Params())
+              .filterByArea(true)
+              .minArea(minArea.intValue())
+              .maxArea(Integer.MAX_VALUE)
+
+              .filterByColor(true)
+              .blobColor(darkBlobs ? (byte) 0 : (byte) 255)
+
+              .filterByCircularity(true)
+              .minCircularity(circularity.get(0).floatValue())
+              .maxCircularity(circularity.get(1).floatValue())));
+
+      // Detect the blobs and store them in the output BlobsReport
+      blobDetector.detect(input, keyPointVector);
+
+      for (int i = 0; i < keyPointVector.size(); i++) {
+        final KeyPoint keyPoint = keyPointVector.get(i);
+        blobs.add(new BlobsReport.Blob(keyPoint.pt().x(), keyPoint.pt().y(), keyPoint.size()));
+      }
     }
 
     outputSocket.setValue(new BlobsReport(inputSocket.getValue().get(), blobs));
   }
+
+  @Override
+  public void cleanUp() {
+    keyPointVector.deallocate();
+  }
 }
@@ -8,6 +8,8 @@ import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sockets.SocketHint;
 import edu.wpi.grip.core.sockets.SocketHints;
+import edu.wpi.grip.core.util.MatPool;
+import edu.wpi.grip.core.util.NativeScope;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
@@ -46,14 +48,23 @@ public class FindContoursOperation implements Operation {
 
   private final OutputSocket<ContoursReport> contoursSocket;
 
-  @Inject
+  private final MatPool matPool;
+
   @SuppressWarnings("JavadocMethod")
   public FindContoursOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
       outputSocketFactory) {
+    this(inputSocketFactory, outputSocketFactory, new MatPool());
+  }
+
+  @Inject
+  @SuppressWarnings("JavadocMethod")
+  public FindContoursOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
+      outputSocketFactory, MatPool matPool) {
     this.inputSocket = inputSocketFactory.create(inputHint);
     this.externalSocket = inputSocketFactory.create(externalHint);
 
     this.contoursSocket = outputSocketFactory.create(contoursHint);
+    this.matPool = matPool;
   }
 
   @Override
@@ -78,21 +89,21 @@ public class FindContoursOperation implements Operation {
       return;
     }
 
-    final Mat tmp = new Mat();
     final boolean externalOnly = externalSocket.getValue().get();
 
-    // findContours modifies its input, so we pass it a temporary copy of the input image
-    input.copyTo(tmp);
-
     // OpenCV has a few different things it can return from findContours, but for now we only use
     // EXTERNAL and LIST.
     // The other ones involve hierarchies of contours, which might be useful in some situations,
     // but probably only
     // when processing the contours manually in code (so, not in a graphical pipeline).
-    MatVector contours = new MatVector();
-    findContours(tmp, contours, externalOnly ? CV_RETR_EXTERNAL : CV_RETR_LIST,
-        CV_CHAIN_APPROX_TC89_KCOS);
-    tmp.release();
+    final MatVector contours = new MatVector();
+    try (NativeScope scope = new NativeScope()) {
+      // findContours modifies its input, so we pass it a temporary copy of the input image
+      final Mat tmp = scope.borrow(matPool, input.rows(), input.cols(), input.type());
+      input.copyTo(tmp);
+      findContours(tmp, contours, externalOnly ? CV_RETR_EXTERNAL : CV_RETR_LIST,
+          CV_CHAIN_APPROX_TC89_KCOS);
+    }
 
     contoursSocket.setValue(new ContoursReport(contours, input.rows(), input.cols()));
   }
@@ -8,6 +8,8 @@ import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sockets.SocketHint;
 import edu.wpi.grip.core.sockets.SocketHints;
+import edu.wpi.grip.core.util.MatPool;
+import edu.wpi.grip.core.util.NativeScope;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
@@ -17,6 +19,7 @@ import org.bytedeco.javacpp.indexer.FloatIndexer;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
 import static org.bytedeco.javacpp.opencv_core.Mat;
 import static org.bytedeco.javacpp.opencv_imgproc.COLOR_BGR2GRAY;
 import static org.bytedeco.javacpp.opencv_imgproc.LineSegmentDetector;
@@ -40,11 +43,23 @@ public class FindLinesOperation implements Operation {
 
   private final OutputSocket<LinesReport> linesReportSocket;
 
-  @Inject
+  private final MatPool matPool;
+  /**
+   * The lines found in the last run, kept so that its memory can be reused.
+   */
+  private final Mat lines = new Mat();
+
   public FindLinesOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
       outputSocketFactory) {
+    this(inputSocketFactory, outputSocketFactory, new MatPool());
+  }
+
+  @Inject
+  public FindLinesOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
+      outputSocketFactory, MatPool matPool) {
     this.inputSocket = inputSocketFactory.create(inputHint);
     this.linesReportSocket = outputSocketFactory.create(linesHint);
+    this.matPool = matPool;
   }
 
   @Override
@@ -67,30 +82,34 @@ public class FindLinesOperation implements Operation {
     final MatWrapper input = inputSocket.getValue().get();
     final LineSegmentDetector lsd = linesReportSocket.getValue().get().getLineSegmentDetector();
 
-    final Mat lines = new Mat();
-    if (input.channels() == 1) {
-      lsd.detect(input.getCpu(), lines);
-    } else {
-      // The line detector works on a single channel.  If the input is a color image, we can just
-      // give the line  detector a grayscale version of it
-      final Mat tmp = new Mat();
-      cvtColor(input.getCpu(), tmp, COLOR_BGR2GRAY);
-      lsd.detect(tmp, lines);
-      tmp.release();
-    }
-
     // Store the lines in the LinesReport object
-    List<LinesReport.Line> lineList = new ArrayList<>();
-    if (!lines.empty()) {
-      final FloatIndexer indexer = lines.createIndexer();
-      final float[] tmp = new float[4];
-      for (int i = 0; i < lines.rows(); i++) {
-        indexer.get(i, tmp);
-        lineList.add(new LinesReport.Line(tmp[0], tmp[1], tmp[2], tmp[3]));
+    final List<LinesReport.Line> lineList = new ArrayList<>();
+    try (NativeScope scope = new NativeScope()) {
+      if (input.channels() == 1) {
+        lsd.detect(input.getCpu(), lines);
+      } else {
+        // The line detector works on a single channel.  If the input is a color image, we can just
+        // give the line  detector a grayscale version of it
+        final Mat tmp = scope.borrow(matPool, input.rows(), input.cols(), CV_8UC1);
+        cvtColor(input.getCpu(), tmp, COLOR_BGR2GRAY);
+        lsd.detect(tmp, lines);
+      }
+
+      if (!lines.empty()) {
+        final FloatIndexer indexer = lines.createIndexer();
+        final float[] tmp = new float[4];
+        for (int i = 0; i < lines.rows(); i++) {
+          indexer.get(i, tmp);
+          lineList.add(new LinesReport.Line(tmp[0], tmp[1], tmp[2], tmp[3]));
+        }
       }
     }
-    lines.release();
 
     linesReportSocket.setValue(new LinesReport(lsd, input, lineList));
   }
+
+  @Override
+  public void cleanUp() {
+    lines.deallocate();
+  }
 }
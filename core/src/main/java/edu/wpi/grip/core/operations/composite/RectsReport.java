@@ -5,6 +5,7 @@ import edu.wpi.grip.core.MatWrapper;
 import edu.wpi.grip.core.operations.network.PublishValue;
 import edu.wpi.grip.core.operations.network.Publishable;
 import edu.wpi.grip.core.sockets.NoSocketTypeLabel;
+import edu.wpi.grip.core.util.SharedNativeResource;
 
 import com.google.common.collect.ImmutableList;
 
@@ -18,7 +19,7 @@ import java.util.List;
  */
 @PublishableObject
 @NoSocketTypeLabel
-public class RectsReport implements Publishable {
+public class RectsReport extends SharedNativeResource implements Publishable {
 
   private final MatWrapper image;
   private final List<Rect> rectangles;
@@ -26,6 +27,13 @@ public class RectsReport implements Publishable {
   public static final RectsReport NIL
       = new RectsReport(MatWrapper.emptyWrapper(), new ArrayList<>());
 
+  /**
+   * Creates a report. The report owns the rectangles, so they are freed when the report is
+   * released; the image is not.
+   *
+   * @param image      the image the rectangles were found in
+   * @param rectangles the rectangles that were found
+   */
   public RectsReport(MatWrapper image, List<Rect> rectangles) {
     this.image = image;
     this.rectangles = ImmutableList.copyOf(rectangles);
@@ -45,6 +53,19 @@ public class RectsReport implements Publishable {
     return rectangles;
   }
 
+  @Override
+  public long estimatedSize() {
+    // Four ints per rectangle
+    return rectangles.size() * 4L * Integer.BYTES;
+  }
+
+  @Override
+  protected void free() {
+    for (Rect rectangle : rectangles) {
+      rectangle.deallocate();
+    }
+  }
+
   /**
    * An array of the coordinates of the X-values of the top-left corner of every rectangle.
    */
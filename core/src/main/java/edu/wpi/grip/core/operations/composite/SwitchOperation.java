@@ -15,6 +15,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Allows for switching between two arbitrary typed {@link Socket} using a boolean {@link
@@ -31,6 +32,14 @@ public class SwitchOperation implements Operation {
 
   private final OutputSocket<?> outputSocket;
 
+  /**
+   * The inputs needed for each value of the switch, made once so that checking them doesn't make
+   * new lists.
+   */
+  private final List<InputSocket> allInputs;
+  private final List<InputSocket> trueInputs;
+  private final List<InputSocket> falseInputs;
+
   @Inject
   @SuppressWarnings("JavadocMethod")
   public SwitchOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
@@ -44,15 +53,15 @@ public class SwitchOperation implements Operation {
     this.inputSocket2 = linkedSocketHint.linkedInputSocket("If False");
 
     this.outputSocket = linkedSocketHint.linkedOutputSocket("Result");
+
+    this.allInputs = ImmutableList.of(switcherSocket, inputSocket1, inputSocket2);
+    this.trueInputs = ImmutableList.of(switcherSocket, inputSocket1);
+    this.falseInputs = ImmutableList.of(switcherSocket, inputSocket2);
   }
 
   @Override
   public List<InputSocket> getInputSockets() {
-    return ImmutableList.of(
-        switcherSocket,
-        inputSocket1,
-        inputSocket2
-    );
+    return allInputs;
   }
 
   @Override
@@ -62,6 +71,24 @@ public class SwitchOperation implements Operation {
     );
   }
 
+  @Override
+  public boolean hasSelectiveDemand() {
+    return true;
+  }
+
+  @Override
+  public List<InputSocket> getDemandedInputSockets() {
+    // Only the input that will be passed through is needed
+    final Optional<Boolean> switcher = switcherSocket.getValue();
+    if (!switcher.isPresent()) {
+      return allInputs;
+    } else if (switcher.get()) {
+      return trueInputs;
+    } else {
+      return falseInputs;
+    }
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public void perform() {
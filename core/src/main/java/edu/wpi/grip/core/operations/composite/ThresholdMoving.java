@@ -51,6 +51,11 @@ public class ThresholdMoving implements Operation {
     );
   }
 
+  @Override
+  public boolean isStateless() {
+    return false;
+  }
+
   @Override
   public void perform() {
     final Mat input = imageSocket.getValue().get().getCpu();
@@ -23,7 +23,9 @@ public abstract class ThresholdOperation<O extends ThresholdOperation<O>> implem
         && dataArray[index].type() == input.type()) {
       return dataArray[index].put(value);
     } else {
-      return dataArray[index] = new Mat(input.size(), input.type(), value);
+      // Reuse the mat instead of leaving the old one for the garbage collector to free
+      dataArray[index].create(input.size(), input.type());
+      return dataArray[index].put(value);
     }
   }
 }
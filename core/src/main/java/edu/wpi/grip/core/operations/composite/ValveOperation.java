@@ -26,6 +26,13 @@ public class ValveOperation implements Operation {
 
   private final OutputSocket outputSocket;
 
+  /**
+   * The inputs needed while the valve is open and while it is closed, made once so that checking
+   * them doesn't make new lists.
+   */
+  private final List<InputSocket> openInputs;
+  private final List<InputSocket> closedInputs;
+
   @Inject
   @SuppressWarnings("JavadocMethod")
   public ValveOperation(InputSocket.Factory inputSocketFactory, OutputSocket.Factory
@@ -38,14 +45,14 @@ public class ValveOperation implements Operation {
     this.inputSocket = linkedSocketHint.linkedInputSocket("Input");
 
     this.outputSocket = linkedSocketHint.linkedOutputSocket("Output");
+
+    this.openInputs = ImmutableList.of(switcherSocket, inputSocket);
+    this.closedInputs = ImmutableList.of(switcherSocket);
   }
 
   @Override
   public List<InputSocket> getInputSockets() {
-    return ImmutableList.of(
-        switcherSocket,
-        inputSocket
-    );
+    return openInputs;
   }
 
   @Override
@@ -55,6 +62,21 @@ public class ValveOperation implements Operation {
     );
   }
 
+  @Override
+  public boolean hasSelectiveDemand() {
+    return true;
+  }
+
+  @Override
+  public List<InputSocket> getDemandedInputSockets() {
+    // The input is ignored while the valve is closed
+    if (switcherSocket.getValue().orElse(true)) {
+      return openInputs;
+    } else {
+      return closedInputs;
+    }
+  }
+
   @Override
   public void perform() {
     // If the input is true pass the value through
@@ -8,6 +8,7 @@ import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sockets.SocketHint;
 import edu.wpi.grip.core.sockets.SocketHints;
+import edu.wpi.grip.core.util.NativeScope;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
@@ -135,17 +136,22 @@ public class WatershedOperation implements Operation {
     markers.convertTo(output, CV_8UC1);
 
     List<Mat> contourList = new ArrayList<>((int) contours.size());
-    for (int i = 1; i < contours.size(); i++) {
-      Mat dst = markerPool.get(i - 1);
-      bitwise_xor(dst, dst, dst);
-      output.copyTo(dst, opencv_core.equals(markers, i).asMat());
-      findContours(dst, contour, CV_RETR_EXTERNAL, CV_CHAIN_APPROX_TC89_KCOS);
-      if (contour.size() < 1) {
-        throw new IllegalArgumentException("No contours for marker");
+    final MatVector foundContours;
+    try (NativeScope scope = new NativeScope()) {
+      for (int i = 1; i < contours.size(); i++) {
+        Mat dst = markerPool.get(i - 1);
+        bitwise_xor(dst, dst, dst);
+        final Mat mask = scope.attach(scope.attach(opencv_core.equals(markers, i)).asMat());
+        output.copyTo(dst, mask);
+        findContours(dst, contour, CV_RETR_EXTERNAL, CV_CHAIN_APPROX_TC89_KCOS);
+        if (contour.size() < 1) {
+          throw new IllegalArgumentException("No contours for marker");
+        }
+        contourList.add(scope.attach(contour.get(0).clone()));
       }
-      contourList.add(contour.get(0).clone());
+      // The vector keeps its own references to the contours, so the clones can be freed
+      foundContours = new MatVector(contourList.toArray(new Mat[contourList.size()]));
     }
-    MatVector foundContours = new MatVector(contourList.toArray(new Mat[contourList.size()]));
     outputSocket.setValue(new ContoursReport(foundContours, output.rows(), output.cols()));
   }
 
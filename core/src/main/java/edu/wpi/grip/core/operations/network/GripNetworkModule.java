@@ -1,5 +1,7 @@
 package edu.wpi.grip.core.operations.network;
 
+import edu.wpi.grip.core.PipelineNamespace;
+import edu.wpi.grip.core.http.ContextStore;
 import edu.wpi.grip.core.http.GripServer;
 import edu.wpi.grip.core.http.HttpPipelineSwitcher;
 import edu.wpi.grip.core.operations.network.http.DataHandler;
@@ -9,6 +11,8 @@ import edu.wpi.grip.core.operations.network.ros.ROSManager;
 import edu.wpi.grip.core.operations.network.ros.ROSNetworkPublisherFactory;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
+import com.google.inject.Module;
 import com.google.inject.name.Names;
 
 import edu.wpi.first.networktables.NetworkTableInstance;
@@ -45,4 +49,26 @@ public final class GripNetworkModule extends AbstractModule {
     bind(NetworkTableInstance.class)
         .toProvider(NetworkTableInstance::getDefault);
   }
+
+  /**
+   * Creates the bindings for a pipeline that runs alongside the main pipeline in the same process.
+   * The pipeline shares the HTTP server of the main pipeline, with its handlers under its own
+   * namespace. This should be used to override this module.
+   *
+   * @param mainInjector the injector of the main pipeline
+   * @param namespace    the namespace of the new pipeline
+   */
+  public static Module sharedWith(Injector mainInjector, PipelineNamespace namespace) {
+    final GripServer server = mainInjector.getInstance(GripServer.class);
+    final ContextStore contextStore =
+        mainInjector.getInstance(ContextStore.class).forNamespace(namespace);
+    return new AbstractModule() {
+      @Override
+      protected void configure() {
+        bind(PipelineNamespace.class).toInstance(namespace);
+        bind(GripServer.class).toInstance(server);
+        bind(ContextStore.class).toInstance(contextStore);
+      }
+    };
+  }
 }
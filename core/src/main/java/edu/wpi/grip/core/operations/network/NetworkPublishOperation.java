@@ -53,6 +53,11 @@ public abstract class NetworkPublishOperation<D> implements Operation {
     return ImmutableList.of();
   }
 
+  @Override
+  public boolean isSink() {
+    return true;
+  }
+
   /**
    * Publishes the data.
    */
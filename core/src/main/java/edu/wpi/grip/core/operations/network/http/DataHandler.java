@@ -6,73 +6,116 @@ import edu.wpi.grip.core.http.ContextStore;
 import edu.wpi.grip.core.http.GripServer;
 import edu.wpi.grip.core.http.PedanticHandler;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.net.HttpHeaders;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
 import org.eclipse.jetty.server.Request;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.annotation.Nullable;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_METHOD_NOT_ALLOWED;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
 /**
  * Jetty handler for sending HTTP publishing data to a client.
  * Only one instance of this class should exist at a time.
+ *
+ * <p>The data is serialized once at the end of every pipeline run that changed it, into a snapshot
+ * that requests are answered from without waiting for the pipeline or locking. Every snapshot has
+ * a version, which is sent as the response's {@code ETag}, so clients that send it back in
+ * {@code If-None-Match} get a 304 until the data changes. Clients can also wait for the data to
+ * change by passing the version they have as the {@value #SINCE_PARAMETER} parameter.</p>
  */
 @Singleton
 public final class DataHandler extends PedanticHandler {
 
+  private static final Logger logger = Logger.getLogger(DataHandler.class.getName());
+
+  /**
+   * The request parameter with the version of the data a client already has. The response is
+   * held until there is newer data, or until {@link #LONG_POLL_TIMEOUT_MILLIS} have passed.
+   */
+  public static final String SINCE_PARAMETER = "since";
+
+  /**
+   * The response header with the version of the data in the response.
+   */
+  public static final String VERSION_HEADER = "X-GRIP-Data-Version";
+
+  /**
+   * The longest a request waits for new data, in milliseconds.
+   */
+  static final long LONG_POLL_TIMEOUT_MILLIS = 20_000;
+
   /**
    * Json serializer.
    */
   private final Gson gson;
 
   /**
-   * Map of data supplier to their names.
+   * Map of data supplier to their names, sorted so that the data is always serialized in the same
+   * order. Guarded by this handler.
    */
   private final Map<String, Supplier<?>> dataSuppliers;
 
   /**
-   * Atomic flag set when the pipeline is running so that requests for data won't get stale data.
+   * Set while the pipeline is running, so that data changed during a run is only published once
+   * the run is done. Guarded by this handler.
    */
-  private final AtomicBoolean staleData;
+  private boolean running = false;
 
   /**
-   * Lock used to park the handler thread while the pipeline is running.
+   * The most recently published data. Snapshots are never modified, only replaced.
    */
-  private final Object runningLock = new Object();
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+  /**
+   * Requests waiting for data newer than they have. They don't hold a server thread while they
+   * wait, and are answered when a snapshot is published or when they time out. Guarded by itself.
+   */
+  private final List<Waiter> waiters = new ArrayList<>();
+
+  private long longPollTimeoutMillis = LONG_POLL_TIMEOUT_MILLIS;
 
   @Inject
   DataHandler(ContextStore store) {
     super(store, GripServer.DATA_PATH, true);
-    this.dataSuppliers = new HashMap<>();
+    this.dataSuppliers = new TreeMap<>();
     this.gson = new GsonBuilder()
-        .setPrettyPrinting()
         .serializeSpecialFloatingPointValues()
         .create();
-    this.staleData = new AtomicBoolean(false);
   }
 
   @Override
-  @SuppressFBWarnings(value = "UW_UNCOND_WAIT",
-      justification = "A bug in FindBugs.  There is a condidtion (outside of the try)")
   protected void handleIfPassed(String target,
                                 Request baseRequest,
                                 HttpServletRequest request,
@@ -83,26 +126,99 @@ public final class DataHandler extends PedanticHandler {
       baseRequest.setHandled(true);
       return;
     }
-    while (staleData.get()) {
-      synchronized (runningLock) {
-        try {
-          runningLock.wait();
-        } catch (InterruptedException e) {
-          throw new ServletException("Could not lock the HTTP data handler thread", e);
-        }
+    final String since = request.getParameter(SINCE_PARAMETER);
+    if (since != null) {
+      final long version;
+      try {
+        version = Long.parseLong(since);
+      } catch (NumberFormatException e) {
+        response.setStatus(SC_BAD_REQUEST);
+        baseRequest.setHandled(true);
+        return;
+      }
+      if (awaitNewerThan(version, request)) {
+        // Answered once there is newer data
+        baseRequest.setHandled(true);
+        return;
       }
     }
-    final Map<String, String[]> uriParameters = request.getParameterMap();
-    Map<String, ?> requestedData = dataSuppliers.entrySet()
-        .stream()
-        .filter(e -> uriParameters.isEmpty() || uriParameters.containsKey(e.getKey()))
-        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
-    String json = gson.toJson(requestedData);
-    sendTextContent(response, json, CONTENT_TYPE_JSON);
-    response.setStatus(SC_OK);
+    respond(request, response, snapshot);
     baseRequest.setHandled(true);
   }
 
+  /**
+   * Answers a request with the data in a snapshot.
+   */
+  private static void respond(HttpServletRequest request,
+                              HttpServletResponse response,
+                              Snapshot current) throws IOException {
+    final String etag = "\"" + current.version + "\"";
+    response.setHeader(HttpHeaders.ETAG, etag);
+    response.setHeader(VERSION_HEADER, Long.toString(current.version));
+    if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+      response.setStatus(SC_NOT_MODIFIED);
+      return;
+    }
+    final Set<String> names = new HashSet<>(request.getParameterMap().keySet());
+    names.remove(SINCE_PARAMETER);
+    sendTextContent(response, current.toJson(names), CONTENT_TYPE_JSON);
+    response.setStatus(SC_OK);
+  }
+
+  /**
+   * Parks a request until there is a snapshot newer than the given version, or until the long poll
+   * times out, unless there already is one.
+   *
+   * @return true if the request was parked, or false if it can be answered right away
+   */
+  private boolean awaitNewerThan(long version, HttpServletRequest request) {
+    synchronized (waiters) {
+      if (snapshot.version > version) {
+        return false;
+      }
+      final AsyncContext context = request.startAsync();
+      context.setTimeout(longPollTimeoutMillis);
+      final Waiter waiter = new Waiter(context, version);
+      context.addListener(waiter);
+      waiters.add(waiter);
+      return true;
+    }
+  }
+
+  /**
+   * Answers the parked requests that are waiting for data older than the current snapshot. The
+   * answers are sent from the server's threads, so publishing never waits for a client.
+   */
+  private void wakeWaiters() {
+    final List<Waiter> woken = new ArrayList<>();
+    synchronized (waiters) {
+      final long version = snapshot.version;
+      for (Iterator<Waiter> iterator = waiters.iterator(); iterator.hasNext(); ) {
+        final Waiter waiter = iterator.next();
+        if (waiter.version < version) {
+          iterator.remove();
+          woken.add(waiter);
+        }
+      }
+    }
+    woken.forEach(waiter -> waiter.context.start(waiter::finish));
+  }
+
+  /**
+   * Checks if an {@code If-None-Match} header matches an entity tag.
+   */
+  private static boolean matches(@Nullable String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : Splitter.on(',').trimResults().split(ifNoneMatch)) {
+      if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Adds a supplier for data with the given name.
    * The data will be published to {@code /GRIP/data} on the internal HTTP server.
@@ -110,10 +226,13 @@ public final class DataHandler extends PedanticHandler {
    * @param name     the name of the data
    * @param supplier a supplier for the data
    */
-  public void addDataSupplier(String name, Supplier<?> supplier) {
+  public synchronized void addDataSupplier(String name, Supplier<?> supplier) {
     checkNotNull(name, "name");
     checkNotNull(supplier, "supplier");
     dataSuppliers.put(name, supplier);
+    if (!running) {
+      publish();
+    }
   }
 
   /**
@@ -122,20 +241,139 @@ public final class DataHandler extends PedanticHandler {
    *
    * @param name the name of the data to remove
    */
-  public void removeDataSupplier(@Nullable String name) {
-    dataSuppliers.remove(name);
+  public synchronized void removeDataSupplier(@Nullable String name) {
+    if (name != null && dataSuppliers.remove(name) != null && !running) {
+      publish();
+    }
+  }
+
+  /**
+   * @return the version of the most recently published data.
+   */
+  @VisibleForTesting
+  long getVersion() {
+    return snapshot.version;
   }
 
   @Subscribe
-  public void onPipelineStart(@Nullable RunStartedEvent e) {
-    staleData.set(true);
+  public synchronized void onPipelineStart(@Nullable RunStartedEvent e) {
+    running = true;
   }
 
   @Subscribe
-  public void onPipelineStop(@Nullable RunStoppedEvent e) {
-    staleData.set(false);
-    synchronized (runningLock) {
-      runningLock.notifyAll();
+  public synchronized void onPipelineStop(@Nullable RunStoppedEvent e) {
+    running = false;
+    publish();
+  }
+
+  /**
+   * Serializes the data from every supplier and publishes it as a new snapshot, unless it is the
+   * same as the current one. Must be called while holding this handler's lock.
+   */
+  private void publish() {
+    final ImmutableMap.Builder<String, String> members = ImmutableMap.builder();
+    dataSuppliers.forEach((name, supplier) ->
+        members.put(name, gson.toJson(name) + ':' + gson.toJson(supplier.get())));
+    final ImmutableMap<String, String> json = members.build();
+    if (json.equals(snapshot.members)) {
+      return;
+    }
+    snapshot = new Snapshot(snapshot.version + 1, json);
+    wakeWaiters();
+  }
+
+  @VisibleForTesting
+  void setLongPollTimeout(long millis) {
+    this.longPollTimeoutMillis = millis;
+  }
+
+  /**
+   * A request parked until there is data newer than the version it has.
+   */
+  private final class Waiter implements AsyncListener {
+    private final AsyncContext context;
+    private final long version;
+
+    Waiter(AsyncContext context, long version) {
+      this.context = context;
+      this.version = version;
+    }
+
+    /**
+     * Answers the request with the newest data and ends it.
+     */
+    void finish() {
+      try {
+        respond((HttpServletRequest) context.getRequest(),
+            (HttpServletResponse) context.getResponse(), snapshot);
+      } catch (IOException e) {
+        logger.log(Level.FINE, "Could not send data to a waiting client", e);
+      } finally {
+        context.complete();
+      }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      synchronized (waiters) {
+        if (!waiters.remove(this)) {
+          // Already being answered with new data
+          return;
+        }
+      }
+      finish();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      synchronized (waiters) {
+        waiters.remove(this);
+      }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      // Nothing to clean up
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // Not restarted
+    }
+  }
+
+  /**
+   * The serialized data at one point in time.
+   */
+  private static final class Snapshot {
+    private static final Snapshot EMPTY = new Snapshot(0, ImmutableMap.of());
+
+    private final long version;
+    /**
+     * The JSON object member for each piece of data, by name.
+     */
+    private final ImmutableMap<String, String> members;
+    /**
+     * The JSON object with all of the data.
+     */
+    private final String json;
+
+    Snapshot(long version, ImmutableMap<String, String> members) {
+      this.version = version;
+      this.members = members;
+      this.json = join(members);
+    }
+
+    /**
+     * Gets the JSON object with the data with the given names, or with all of the data if no
+     * names are given.
+     */
+    String toJson(Set<String> names) {
+      return names.isEmpty() ? json : join(Maps.filterKeys(members, names::contains));
+    }
+
+    private static String join(Map<String, String> members) {
+      return "{" + String.join(",", members.values()) + "}";
     }
   }
 }
@@ -1,5 +1,6 @@
 package edu.wpi.grip.core.operations.network.networktables;
 
+import edu.wpi.grip.core.PipelineNamespace;
 import edu.wpi.grip.core.PipelineRunner;
 import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
 import edu.wpi.grip.core.events.RunStoppedEvent;
@@ -26,6 +27,7 @@ import edu.wpi.first.networktables.NetworkTableType;
 import edu.wpi.first.networktables.NetworkTablesJNI;
 
 import java.io.File;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -73,24 +75,50 @@ public class NTManager implements Manager, MapNetworkPublisherFactory, MapNetwor
   private final NetworkTableInstance ntInstance;
 
   private static final Object ntLock = new Object();
+  /**
+   * The server the shared NetworkTables client is connected to. Pipelines running in the same
+   * process share the client, so it's only restarted when a project asks for a different server.
+   */
+  private static String currentServer = null;
+  /**
+   * The handles of the NetworkTables instances whose log messages are already redirected to our
+   * logs. Pipelines running in the same process share an instance, and each message should only be
+   * logged once.
+   */
+  private static final Set<Integer> loggedInstances = new HashSet<>();
 
-  @Inject
   @VisibleForTesting
   @SuppressWarnings("JavadocMethod")
   public NTManager(NetworkTableInstance ntInstance) {
+    this(ntInstance, PipelineNamespace.DEFAULT);
+  }
+
+  /**
+   * Creates a manager whose {@code run} and {@code trigger} keys are in the table of the given
+   * pipeline namespace.
+   */
+  @Inject
+  public NTManager(NetworkTableInstance ntInstance, PipelineNamespace namespace) {
     this.ntInstance = Objects.requireNonNull(ntInstance, "ntInstance");
+    final String tableName = namespace.getTableName();
+    final NetworkTable controlTable = ntInstance.getTable(tableName);
     // Redirect NetworkTables log messages to our own log files.  This gets rid of console spam,
     // and it also lets us grep through NetworkTables messages just like any other messages.
-    ntInstance.addLogger(NTManager::logNtMessage, 0, 50);
+    synchronized (ntLock) {
+      if (loggedInstances.add(ntInstance.getHandle())) {
+        ntInstance.addLogger(NTManager::logNtMessage, 0, 50);
+      }
+    }
 
     ntInstance.startClient();
 
-    // When in headless mode, start and stop the pipeline based on the "GRIP/run" key.  This
-    // allows robot programs to control GRIP without actually restarting the process.
-    ntInstance.getTable("GRIP").addEntryListener("run", (source, key, entry, value, flags) -> {
+    // When in headless mode, start and stop the pipeline based on the "GRIP/run" key, or the "run"
+    // key in the pipeline's own table.  This allows robot programs to control GRIP without
+    // actually restarting the process.
+    controlTable.addEntryListener("run", (source, key, entry, value, flags) -> {
       if (gripMode == GripMode.HEADLESS) {
         if (value.getType() != NetworkTableType.kBoolean) {
-          logger.warning("NetworkTables value GRIP/run should be a boolean!");
+          logger.warning("NetworkTables value " + tableName + "/run should be a boolean!");
           return;
         }
 
@@ -109,6 +137,19 @@ public class NTManager implements Manager, MapNetworkPublisherFactory, MapNetwor
         | EntryListenerFlags.kNew
         | EntryListenerFlags.kDelete
         | EntryListenerFlags.kUpdate);
+
+    // Setting the "GRIP/trigger" key to true runs the pipeline once, which is how robot programs
+    // drive GRIP with the manual run policy. The key is set back to false to acknowledge it.
+    controlTable.addEntryListener("trigger", (table, key, entry, value, flags) -> {
+      if (value.getType() != NetworkTableType.kBoolean) {
+        logger.warning("NetworkTables value " + tableName + "/trigger should be a boolean!");
+        return;
+      }
+      if (value.getBoolean()) {
+        pipelineRunner.trigger();
+        entry.setBoolean(false);
+      }
+    }, EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
   }
 
   private static void logNtMessage(LogMessage logMessage) {
@@ -133,10 +174,15 @@ public class NTManager implements Manager, MapNetworkPublisherFactory, MapNetwor
     final ProjectSettings projectSettings = event.getProjectSettings();
 
     synchronized (ntLock) {
+      if (projectSettings.getPublishAddress().equals(currentServer)) {
+        // Don't drop the entries of other pipelines using the same connection
+        return;
+      }
+      currentServer = projectSettings.getPublishAddress();
       ntInstance.stopClient();
       ntInstance.deleteAllEntries();
       ntInstance.startClient();
-      ntInstance.setServer(projectSettings.getPublishAddress());
+      ntInstance.setServer(currentServer);
     }
   }
 
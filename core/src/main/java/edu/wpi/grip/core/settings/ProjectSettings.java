@@ -1,5 +1,8 @@
 package edu.wpi.grip.core.settings;
 
+import edu.wpi.grip.core.ExecutionMode;
+import edu.wpi.grip.core.RunPolicy;
+
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Throwables;
 
@@ -43,6 +46,34 @@ public class ProjectSettings implements Settings, Cloneable {
   private String deployJvmOptions = "-Xmx50m -XX:-OmitStackTraceInFastThrow "
       + "-XX:+HeapDumpOnOutOfMemoryError -XX:MaxNewSize=16m";
 
+  @Setting(label = "Execution mode", description = "How the steps in the pipeline are run. "
+      + "Parallel runs steps that don't depend on each other at the same time. Pipelined works on "
+      + "several consecutive frames at once, one in each stage of the pipeline.")
+  private ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+
+  @Setting(label = "Execution threads", description = "The maximum number of steps (or stages, "
+      + "when pipelined) to run at the same time. If 0, the number of processors is used.")
+  private int executionThreads = 0;
+
+  @Setting(label = "Only run needed steps", description = "Only run the steps whose results are "
+      + "published, saved, or previewed, along with the steps they depend on. Branches behind a "
+      + "closed valve or the unselected side of a switch are skipped.")
+  private boolean onlyRunNeededSteps = false;
+
+  @Setting(label = "Step cache size (MB)", description = "How much memory to use for remembering "
+      + "the outputs of steps, so that steps given the same inputs again don't have to run. If 0, "
+      + "outputs are not remembered.")
+  private int stepCacheSize = 0;
+
+  @Setting(label = "Run policy", description = "When the pipeline runs. Limited rate runs on "
+      + "changes but no faster than the run rate, fixed rate runs at exactly the run rate, and "
+      + "manual only runs when triggered over HTTP or NetworkTables.")
+  private RunPolicy runPolicy = RunPolicy.AS_FAST_AS_POSSIBLE;
+
+  @Setting(label = "Run rate (FPS)", description = "How many times per second to run the pipeline "
+      + "with the limited rate and fixed rate run policies.")
+  private double runRate = 30;
+
 
   // Getters and setters
 
@@ -134,6 +165,61 @@ public class ProjectSettings implements Settings, Cloneable {
     }
   }
 
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  public void setExecutionMode(@Nullable ExecutionMode executionMode) {
+    if (executionMode != null) {
+      this.executionMode = executionMode;
+    }
+  }
+
+  public int getExecutionThreads() {
+    return executionThreads;
+  }
+
+  public void setExecutionThreads(@Nonnegative int executionThreads) {
+    checkArgument(executionThreads >= 0, "Execution threads cannot be negative");
+    this.executionThreads = executionThreads;
+  }
+
+  public boolean isOnlyRunNeededSteps() {
+    return onlyRunNeededSteps;
+  }
+
+  public void setOnlyRunNeededSteps(boolean onlyRunNeededSteps) {
+    this.onlyRunNeededSteps = onlyRunNeededSteps;
+  }
+
+  public int getStepCacheSize() {
+    return stepCacheSize;
+  }
+
+  public void setStepCacheSize(@Nonnegative int stepCacheSize) {
+    checkArgument(stepCacheSize >= 0, "Step cache size cannot be negative");
+    this.stepCacheSize = stepCacheSize;
+  }
+
+  public RunPolicy getRunPolicy() {
+    return runPolicy;
+  }
+
+  public void setRunPolicy(@Nullable RunPolicy runPolicy) {
+    if (runPolicy != null) {
+      this.runPolicy = runPolicy;
+    }
+  }
+
+  public double getRunRate() {
+    return runRate;
+  }
+
+  public void setRunRate(double runRate) {
+    checkArgument(runRate > 0, "Run rate must be positive");
+    this.runRate = runRate;
+  }
+
   private String computeFRCAddress(int teamNumber) {
     return "roboRIO-" + teamNumber + "-FRC.local";
   }
@@ -146,7 +232,13 @@ public class ProjectSettings implements Settings, Cloneable {
         .add("deployUser", deployUser)
         .add("deployJavaHome", deployJavaHome)
         .add("deployJvmOptions", deployJvmOptions)
+        .add("executionMode", executionMode)
+        .add("executionThreads", executionThreads)
+        .add("onlyRunNeededSteps", onlyRunNeededSteps)
         .add("publishAddress", publishAddress)
+        .add("runPolicy", runPolicy)
+        .add("runRate", runRate)
+        .add("stepCacheSize", stepCacheSize)
         .add("teamNumber", teamNumber)
         .toString();
   }
@@ -1,6 +1,7 @@
 package edu.wpi.grip.core.sockets;
 
 
+import edu.wpi.grip.core.Connection;
 import edu.wpi.grip.core.events.SocketPreviewChangedEvent;
 
 import com.google.common.base.MoreObjects;
@@ -20,6 +21,11 @@ public class OutputSocketImpl<T> extends SocketImpl<T> implements OutputSocket<T
    * Indicates if the socket is being previewed.
    */
   private boolean previewed = false;
+  /**
+   * The connections from this socket. This is replaced whenever a connection is added or removed,
+   * so values can be pushed along it without locking or copying the set of connections.
+   */
+  private volatile Connection[] downstream = new Connection[0];
 
   /**
    * @param eventBus   The Guava {@link EventBus} used by the application.
@@ -46,6 +52,29 @@ public class OutputSocketImpl<T> extends SocketImpl<T> implements OutputSocket<T
     }
   }
 
+  @Override
+  public void addConnection(Connection connection) {
+    super.addConnection(connection);
+    downstream = getConnections().toArray(new Connection[0]);
+  }
+
+  @Override
+  public void removeConnection(Connection connection) {
+    super.removeConnection(connection);
+    downstream = getConnections().toArray(new Connection[0]);
+  }
+
+  /**
+   * Pushes the new value directly to every connection from this socket, rather than having every
+   * connection in the pipeline check each {@link edu.wpi.grip.core.events.SocketChangedEvent}.
+   */
+  @Override
+  protected void propagateValue() {
+    for (Connection connection : downstream) {
+      connection.onOutputChanged();
+    }
+  }
+
   @Override
   public void resetValueToInitial() {
     this.setValue(this.getSocketHint()
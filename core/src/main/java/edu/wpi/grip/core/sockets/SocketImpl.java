@@ -59,15 +59,26 @@ public class SocketImpl<T> implements Socket<T> {
       this.value = optionalValue;
       onValueChanged();
     }
+    propagateValue();
     eventBus.post(new SocketChangedEvent(this));
   }
 
   @Override
   public void flagChanged() {
     onValueChanged();
+    propagateValue();
     eventBus.post(new SocketChangedEvent(this));
   }
 
+  /**
+   * Pushes the value of this socket to anything connected to it. This is called every time the
+   * value changes, before the {@link SocketChangedEvent} is posted, so anything listening for the
+   * event will see the connected sockets already updated.
+   */
+  protected void propagateValue() {
+    /* no-op */
+  }
+
   @Override
   public Optional<T> getValue() {
     if (!this.value.isPresent()) {
@@ -0,0 +1,37 @@
+package edu.wpi.grip.core.sources;
+
+/**
+ * What a source does with new frames when the pipeline hasn't finished with the ones it already
+ * has.
+ */
+public enum BackpressurePolicy {
+
+  /**
+   * Only the newest frame is kept. Older frames that the pipeline never got to are dropped, so the
+   * pipeline always processes the most recent frame.
+   */
+  DROP_OLDEST("Drop oldest"),
+
+  /**
+   * The source waits for the pipeline to take a frame before capturing another one. No frames are
+   * dropped, but the source slows down to the speed of the pipeline.
+   */
+  BLOCK_PRODUCER("Block producer"),
+
+  /**
+   * Up to a fixed number of frames are queued and processed in order. Once the queue is full, the
+   * oldest frame is dropped to make room for the new one.
+   */
+  QUEUE("Queue");
+
+  private final String label;
+
+  BackpressurePolicy(String label) {
+    this.label = label;
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
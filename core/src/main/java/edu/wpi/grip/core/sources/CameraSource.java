@@ -86,9 +86,9 @@ public class CameraSource extends Source implements RestartableService {
   private final OutputSocket<MatWrapper> frameOutputSocket;
   private final OutputSocket<Number> frameRateOutputSocket;
   private final Supplier<FrameGrabber> grabberSupplier;
-  @SuppressWarnings("PMD.LinguisticNaming")
-  private final AtomicBoolean isNewFrame = new AtomicBoolean(false);
-  private final Mat currentFrameTransferMat = new Mat();
+  private final FrameCountSockets frameCountSockets;
+  private final FrameQueue frameQueue;
+  private final AtomicBoolean isNewFrameRate = new AtomicBoolean(false);
   private final AutoRestartingService cameraService;
   private volatile double frameRate = 0.0;
 
@@ -140,7 +140,9 @@ public class CameraSource extends Source implements RestartableService {
     this.eventBus = eventBus;
     this.frameOutputSocket = outputSocketFactory.create(imageOutputHint);
     this.frameRateOutputSocket = outputSocketFactory.create(frameRateOutputHint);
+    this.frameCountSockets = new FrameCountSockets(outputSocketFactory);
     this.properties = properties;
+    this.frameQueue = FrameQueue.fromProperties(properties);
 
     final String deviceNumberProperty = properties.getProperty(DEVICE_NUMBER_PROPERTY);
     final String addressProperty = properties.getProperty(ADDRESS_PROPERTY);
@@ -151,9 +153,10 @@ public class CameraSource extends Source implements RestartableService {
       this.grabberSupplier = () -> grabberFactory.create(deviceNumber);
     } else if (addressProperty != null) { // NOPMD
       this.name = "IP Camera " + new URL(addressProperty).getHost();
+      final DecodeScale decodeScale = DecodeScale.fromProperties(properties);
       this.grabberSupplier = () -> {
         try {
-          return grabberFactory.create(addressProperty);
+          return grabberFactory.create(addressProperty, decodeScale);
         } catch (MalformedURLException ex) {
           throw new IllegalArgumentException(ex.getMessage(), ex);
         }
@@ -173,15 +176,12 @@ public class CameraSource extends Source implements RestartableService {
                   @Override
                   public void setFrameRate(double value) {
                     CameraSource.this.frameRate = value;
-                    isNewFrame.set(true);
+                    isNewFrameRate.set(true);
                   }
 
                   @Override
                   public void copyNewMat(Mat matToCopy) {
-                    synchronized (CameraSource.this.currentFrameTransferMat) {
-                      matToCopy.copyTo(CameraSource.this.currentFrameTransferMat);
-                    }
-                    isNewFrame.set(true);
+                    frameQueue.offer(matToCopy);
                   }
 
                   @Override
@@ -228,25 +228,28 @@ public class CameraSource extends Source implements RestartableService {
 
   @Override
   public List<OutputSocket> createOutputSockets() {
-    return ImmutableList.of(
-        frameOutputSocket,
-        frameRateOutputSocket
-    );
+    return ImmutableList.<OutputSocket>builder()
+        .add(frameOutputSocket)
+        .add(frameRateOutputSocket)
+        .addAll(frameCountSockets.sockets())
+        .build();
   }
 
   @Override
   protected boolean updateOutputSockets() {
-    // We have a new frame then we need to update the socket value
-    if (isNewFrame.compareAndSet(true, false)) {
-      // The camera frame thread should not try to modify the transfer mat while it is being
-      // written to the pipeline
-      synchronized (currentFrameTransferMat) {
-        frameOutputSocket.getValue().ifPresent(m -> m.set(currentFrameTransferMat));
-      }
+    // Take the next frame from the queue if the camera has captured one
+    final boolean newFrame = frameOutputSocket.getValue().map(frameQueue::poll).orElse(false);
+    if (newFrame) {
       frameOutputSocket.flagChanged();
-
+    }
+    if (isNewFrameRate.getAndSet(false) || newFrame) {
       // Update the frame rate value
       frameRateOutputSocket.setValue(frameRate);
+      frameCountSockets.update(frameQueue);
+      if (frameQueue.hasPending()) {
+        // Queued frames each get their own run
+        eventBus.post(new SourceHasPendingUpdateEvent(this));
+      }
       // We have updated output sockets
       return true;
     } else {
@@ -254,6 +257,11 @@ public class CameraSource extends Source implements RestartableService {
     }
   }
 
+  @Override
+  public Optional<FrameQueue> getFrameQueue() {
+    return Optional.of(frameQueue);
+  }
+
   @Override
   public Properties getProperties() {
     return this.properties;
@@ -372,6 +380,7 @@ public class CameraSource extends Source implements RestartableService {
           this.stopAndAwait();
         }
       } finally {
+        frameQueue.close();
         this.eventBus.unregister(this);
       }
     }
@@ -392,6 +401,15 @@ public class CameraSource extends Source implements RestartableService {
     FrameGrabber create(int deviceNumber);
 
     FrameGrabber create(String addressProperty) throws MalformedURLException;
+
+    /**
+     * Creates a frame grabber for a network video stream that decodes its images at the given
+     * scale. Grabbers that can't decode images smaller ignore the scale.
+     */
+    default FrameGrabber create(String addressProperty, DecodeScale decodeScale)
+        throws MalformedURLException {
+      return create(addressProperty);
+    }
   }
 
   public static class FrameGrabberFactoryImpl implements FrameGrabberFactory {
@@ -410,8 +428,14 @@ public class CameraSource extends Source implements RestartableService {
     }
 
     @Override
-    @SuppressWarnings("PMD.AvoidReassigningParameters")
     public FrameGrabber create(String addressProperty) throws MalformedURLException {
+      return create(addressProperty, DecodeScale.FULL);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.AvoidReassigningParameters")
+    public FrameGrabber create(String addressProperty, DecodeScale decodeScale)
+        throws MalformedURLException {
       // If no path was specified in the URL (ie: it was something like http://10.1.90.11/), use
       // the default path for Axis M1011 cameras.
       if (new URL(addressProperty).getPath().length() <= 1) {
@@ -421,7 +445,8 @@ public class CameraSource extends Source implements RestartableService {
           addressProperty,
           IP_CAMERA_CONNECTION_TIMEOUT,
           IP_CAMERA_READ_TIMEOUT,
-          IP_CAMERA_TIMEOUT_UNIT);
+          IP_CAMERA_TIMEOUT_UNIT,
+          decodeScale);
     }
   }
 }
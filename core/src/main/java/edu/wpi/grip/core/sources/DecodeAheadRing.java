@@ -0,0 +1,104 @@
+package edu.wpi.grip.core.sources;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Holds frames that were decoded from a video ahead of when they are shown, so that a frame that
+ * is slow to decode doesn't hold up the pipeline. The images of frames that have been shown are
+ * reused for new frames.
+ *
+ * <p>Frames are put in by one decoding thread and taken out by one other thread.</p>
+ */
+final class DecodeAheadRing {
+
+  private final BlockingQueue<DecodedFrame> decoded;
+  private final Queue<DecodedFrame> spares = new ConcurrentLinkedQueue<>();
+  private volatile boolean closed = false;
+
+  /**
+   * A decoded frame and its position in the video.
+   */
+  static final class DecodedFrame {
+    final Mat mat = new Mat();
+    int frameNumber;
+  }
+
+  /**
+   * @param capacity the number of frames to decode ahead.
+   */
+  DecodeAheadRing(int capacity) {
+    checkArgument(capacity > 0, "Must decode at least one frame ahead");
+    this.decoded = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Copies a decoded frame into the ring, waiting until there is room for it.
+   *
+   * @throws InterruptedException if the thread was interrupted while waiting for room
+   */
+  void put(Mat frame, int frameNumber) throws InterruptedException {
+    final DecodedFrame spare = spares.poll();
+    final DecodedFrame decodedFrame = spare == null ? new DecodedFrame() : spare;
+    frame.copyTo(decodedFrame.mat);
+    decodedFrame.frameNumber = frameNumber;
+    decoded.put(decodedFrame);
+    if (closed) {
+      clear();
+    }
+  }
+
+  /**
+   * Takes the oldest decoded frame. It should be {@link #recycle recycled} once it has been shown.
+   *
+   * @return the oldest frame, or null if no frames have been decoded ahead
+   */
+  DecodedFrame poll() {
+    return decoded.poll();
+  }
+
+  /**
+   * Lets the image of a frame that has been shown be reused for a new frame.
+   */
+  void recycle(DecodedFrame frame) {
+    if (closed) {
+      frame.mat.release();
+    } else {
+      spares.add(frame);
+    }
+  }
+
+  /**
+   * Throws away every frame that was decoded ahead, eg because the video has been moved to another
+   * frame.
+   */
+  void clear() {
+    for (DecodedFrame frame = decoded.poll(); frame != null; frame = decoded.poll()) {
+      recycle(frame);
+    }
+  }
+
+  /**
+   * @return the number of frames that have been decoded ahead.
+   */
+  int size() {
+    return decoded.size();
+  }
+
+  /**
+   * Releases every image in the ring. Frames put in after this are released right away.
+   */
+  void close() {
+    closed = true;
+    clear();
+    for (DecodedFrame frame = spares.poll(); frame != null; frame = spares.poll()) {
+      frame.mat.release();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package edu.wpi.grip.core.sources;
+
+import java.util.Properties;
+
+import static org.bytedeco.javacpp.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.javacpp.opencv_imgcodecs.IMREAD_REDUCED_COLOR_2;
+import static org.bytedeco.javacpp.opencv_imgcodecs.IMREAD_REDUCED_COLOR_4;
+import static org.bytedeco.javacpp.opencv_imgcodecs.IMREAD_REDUCED_COLOR_8;
+
+/**
+ * The size to decode compressed images from a source at, relative to their full size.
+ *
+ * <p>JPEG images are scaled down while they are being decoded, which skips most of the work of
+ * decoding them, so a pipeline that starts by shrinking its images is much faster if its source
+ * decodes them smaller in the first place. Other formats are decoded at full size and then
+ * shrunk.</p>
+ *
+ * <p>The scale is read from a source's {@link Properties}, so it is saved with the project.</p>
+ */
+public enum DecodeScale {
+
+  FULL("1", IMREAD_COLOR),
+  HALF("1/2", IMREAD_REDUCED_COLOR_2),
+  QUARTER("1/4", IMREAD_REDUCED_COLOR_4),
+  EIGHTH("1/8", IMREAD_REDUCED_COLOR_8);
+
+  /**
+   * The source property with the name of the scale to decode images at.
+   */
+  public static final String PROPERTY = "decodeScale";
+
+  private final String label;
+  private final int imreadFlags;
+
+  DecodeScale(String label, int imreadFlags) {
+    this.label = label;
+    this.imreadFlags = imreadFlags;
+  }
+
+  /**
+   * Gets the scale stored in the given properties. Sources without this property decode images at
+   * full size.
+   *
+   * @throws IllegalArgumentException if the properties have an unknown scale
+   */
+  public static DecodeScale fromProperties(Properties properties) {
+    final String scale = properties.getProperty(PROPERTY);
+    return scale == null ? FULL : valueOf(scale);
+  }
+
+  /**
+   * Stores this scale in the given properties. Nothing is stored for {@link #FULL}, since that is
+   * the default.
+   */
+  public void store(Properties properties) {
+    if (this == FULL) {
+      properties.remove(PROPERTY);
+    } else {
+      properties.setProperty(PROPERTY, name());
+    }
+  }
+
+  /**
+   * @return the flags to decode color images at this scale with {@code imdecode} or {@code imread}
+   */
+  public int getImreadFlags() {
+    return imreadFlags;
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
@@ -0,0 +1,54 @@
+package edu.wpi.grip.core.sources;
+
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.sockets.SocketHint;
+import edu.wpi.grip.core.sockets.SocketHints;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * The output sockets that go with a source's frame rate to show what its {@link FrameQueue} has
+ * been doing.
+ */
+final class FrameCountSockets {
+
+  private final SocketHint<Number> capturedHint =
+      SocketHints.createNumberSocketHint("Frames Captured", 0);
+  private final SocketHint<Number> processedHint =
+      SocketHints.createNumberSocketHint("Frames Processed", 0);
+  private final SocketHint<Number> droppedHint =
+      SocketHints.createNumberSocketHint("Frames Dropped", 0);
+  private final SocketHint<Number> frameAgeHint =
+      SocketHints.createNumberSocketHint("Frame Age (ms)", 0);
+
+  private final OutputSocket<Number> capturedSocket;
+  private final OutputSocket<Number> processedSocket;
+  private final OutputSocket<Number> droppedSocket;
+  private final OutputSocket<Number> frameAgeSocket;
+
+  FrameCountSockets(OutputSocket.Factory outputSocketFactory) {
+    this.capturedSocket = outputSocketFactory.create(capturedHint);
+    this.processedSocket = outputSocketFactory.create(processedHint);
+    this.droppedSocket = outputSocketFactory.create(droppedHint);
+    this.frameAgeSocket = outputSocketFactory.create(frameAgeHint);
+  }
+
+  /**
+   * @return the sockets, in the order they should come after the frame rate socket.
+   */
+  List<OutputSocket> sockets() {
+    return ImmutableList.of(capturedSocket, processedSocket, droppedSocket, frameAgeSocket);
+  }
+
+  /**
+   * Sets the sockets to the current counts of the given queue.
+   */
+  void update(FrameQueue frameQueue) {
+    capturedSocket.setValue(frameQueue.getCapturedCount());
+    processedSocket.setValue(frameQueue.getProcessedCount());
+    droppedSocket.setValue(frameQueue.getDroppedCount());
+    frameAgeSocket.setValue(frameQueue.getFrameAge());
+  }
+}
@@ -0,0 +1,271 @@
+package edu.wpi.grip.core.sources;
+
+import edu.wpi.grip.core.MatWrapper;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Hands frames from the thread capturing them to the pipeline thread, following a {@link
+ * BackpressurePolicy} when the pipeline can't keep up. The queue also counts how many frames were
+ * captured, processed and dropped, and how old the last frame was when the pipeline took it.
+ *
+ * <p>With {@link BackpressurePolicy#DROP_OLDEST}, frames go through a {@link TripleBuffer}: the
+ * capture thread copies each frame once, into an image the pipeline isn't using, and the pipeline
+ * takes the newest one by swapping images, without copying it again or waiting on a lock. The other
+ * policies hold on to more than one frame, so their frames are queued under a lock and copied into
+ * the pipeline's image when it takes them.</p>
+ *
+ * <p>The policy and queue length are read from a source's {@link Properties}, so they are saved
+ * with the project.</p>
+ */
+public final class FrameQueue {
+
+  /**
+   * The source property with the name of the {@link BackpressurePolicy} to use.
+   */
+  public static final String POLICY_PROPERTY = "backpressure";
+  static final String LENGTH_PROPERTY = "queueLength";
+  private static final int DEFAULT_QUEUE_LENGTH = 4;
+
+  private final BackpressurePolicy policy;
+  private final int capacity;
+  /**
+   * Holds the newest frame for {@link BackpressurePolicy#DROP_OLDEST}, or null for the other
+   * policies.
+   */
+  private final TripleBuffer latest;
+  private final Deque<Frame> frames = new ArrayDeque<>();
+  /**
+   * Mats of frames that have already been handed to the pipeline, reused for new frames.
+   */
+  private final Deque<Mat> spareMats = new ArrayDeque<>();
+  private volatile boolean closed = false;
+
+  private final AtomicLong capturedCount = new AtomicLong();
+  private final AtomicLong processedCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private volatile long frameAgeNanos = 0;
+
+  /**
+   * @param policy   what to do when the pipeline hasn't taken the queued frames yet.
+   * @param capacity the number of frames to hold. This is always 1 for {@link
+   *                 BackpressurePolicy#DROP_OLDEST}.
+   */
+  FrameQueue(BackpressurePolicy policy, int capacity) {
+    checkArgument(capacity > 0, "The queue length must be positive");
+    this.policy = checkNotNull(policy, "Policy cannot be null");
+    this.capacity = policy == BackpressurePolicy.DROP_OLDEST ? 1 : capacity;
+    this.latest = policy == BackpressurePolicy.DROP_OLDEST ? new TripleBuffer() : null;
+  }
+
+  /**
+   * Creates a frame queue with the policy and length stored in the given properties. Sources
+   * without these properties drop old frames, which is how sources have always behaved.
+   *
+   * @throws IllegalArgumentException if the properties have an unknown policy or a bad length.
+   */
+  static FrameQueue fromProperties(Properties properties) {
+    final String policyProperty = properties.getProperty(POLICY_PROPERTY);
+    final BackpressurePolicy policy = policyProperty == null
+        ? BackpressurePolicy.DROP_OLDEST
+        : BackpressurePolicy.valueOf(policyProperty);
+    final String lengthProperty = properties.getProperty(LENGTH_PROPERTY);
+    final int length = lengthProperty == null
+        ? (policy == BackpressurePolicy.QUEUE ? DEFAULT_QUEUE_LENGTH : 1)
+        : Integer.parseInt(lengthProperty);
+    return new FrameQueue(policy, length);
+  }
+
+  /**
+   * Copies a newly captured frame into the queue. Depending on the policy, this either drops the
+   * oldest queued frame to make room or waits until the pipeline has taken one. If the thread is
+   * interrupted while waiting, the frame is dropped and the interrupt flag is left set.
+   *
+   * <p>Frames must only be offered from one thread at a time.</p>
+   */
+  void offer(Mat frame) {
+    if (closed) {
+      return;
+    }
+    capturedCount.incrementAndGet();
+    if (latest != null) {
+      final TripleBuffer.Slot slot = latest.writeSlot();
+      frame.copyTo(slot.mat);
+      slot.capturedAt = System.nanoTime();
+      if (latest.publish()) {
+        droppedCount.incrementAndGet();
+      }
+      return;
+    }
+    enqueue(frame);
+  }
+
+  private synchronized void enqueue(Mat frame) {
+    if (policy == BackpressurePolicy.BLOCK_PRODUCER) {
+      while (frames.size() >= capacity && !closed) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          droppedCount.incrementAndGet();
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      if (closed) {
+        return;
+      }
+    } else {
+      while (frames.size() >= capacity) {
+        spareMats.push(frames.removeFirst().mat);
+        droppedCount.incrementAndGet();
+      }
+    }
+    final Mat copy = spareMats.isEmpty() ? new Mat() : spareMats.pop();
+    frame.copyTo(copy);
+    frames.addLast(new Frame(copy, System.nanoTime()));
+  }
+
+  /**
+   * Hands the oldest queued frame to the pipeline. With {@link BackpressurePolicy#DROP_OLDEST}
+   * the destination shares the frame's image instead of getting a copy of it, which stays
+   * untouched until the next frame is taken.
+   *
+   * <p>Frames must only be taken from one thread at a time.</p>
+   *
+   * @param destination the image to hand the frame to.
+   *
+   * @return true if there was a frame to hand over, false if nothing new has been captured.
+   */
+  boolean poll(MatWrapper destination) {
+    if (latest != null) {
+      final TripleBuffer.Slot slot = latest.take();
+      if (slot == null) {
+        return false;
+      }
+      destination.share(slot.mat);
+      frameAgeNanos = System.nanoTime() - slot.capturedAt;
+      processedCount.incrementAndGet();
+      return true;
+    }
+    return dequeue(destination);
+  }
+
+  private synchronized boolean dequeue(MatWrapper destination) {
+    final Frame frame = frames.pollFirst();
+    if (frame == null) {
+      return false;
+    }
+    destination.set(frame.mat);
+    frameAgeNanos = System.nanoTime() - frame.capturedAt;
+    processedCount.incrementAndGet();
+    spareMats.push(frame.mat);
+    notifyAll();
+    return true;
+  }
+
+  /**
+   * @return true if there are frames that the pipeline hasn't taken yet.
+   */
+  boolean hasPending() {
+    if (latest != null) {
+      return latest.hasFresh();
+    }
+    synchronized (this) {
+      return !frames.isEmpty();
+    }
+  }
+
+  /**
+   * Releases every queued frame and wakes up a capture thread waiting for room. Frames offered
+   * after this are ignored.
+   */
+  void close() {
+    closed = true;
+    if (latest != null) {
+      latest.close();
+      return;
+    }
+    closeQueue();
+  }
+
+  private synchronized void closeQueue() {
+    for (Frame frame : frames) {
+      frame.mat.release();
+    }
+    frames.clear();
+    spareMats.forEach(Mat::release);
+    spareMats.clear();
+    notifyAll();
+  }
+
+  public BackpressurePolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * @return the number of frames this queue can hold.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of frames the source has captured.
+   */
+  public long getCapturedCount() {
+    return capturedCount.get();
+  }
+
+  /**
+   * @return the number of frames the pipeline has taken.
+   */
+  public long getProcessedCount() {
+    return processedCount.get();
+  }
+
+  /**
+   * @return the number of captured frames that were thrown away before the pipeline took them.
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * @return how long the last frame the pipeline took had been waiting since it was captured, in
+   *     milliseconds.
+   */
+  public double getFrameAge() {
+    return frameAgeNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @VisibleForTesting
+  int size() {
+    if (latest != null) {
+      return latest.hasFresh() ? 1 : 0;
+    }
+    synchronized (this) {
+      return frames.size();
+    }
+  }
+
+  private static final class Frame {
+    private final Mat mat;
+    private final long capturedAt;
+
+    Frame(Mat mat, long capturedAt) {
+      this.mat = mat;
+      this.capturedAt = capturedAt;
+    }
+  }
+}
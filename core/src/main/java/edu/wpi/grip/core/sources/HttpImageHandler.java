@@ -3,17 +3,25 @@ package edu.wpi.grip.core.sources;
 import edu.wpi.grip.core.http.ContextStore;
 import edu.wpi.grip.core.http.GripServer;
 import edu.wpi.grip.core.http.PedanticHandler;
+import edu.wpi.grip.core.util.DaemonThread;
 
-import org.apache.commons.io.IOUtils;
+import com.google.common.annotations.VisibleForTesting;
+
+import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacpp.opencv_core.Mat;
 import org.eclipse.jetty.server.Request;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Consumer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
 import javax.servlet.ServletException;
@@ -22,37 +30,147 @@ import javax.servlet.http.HttpServletResponse;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
-import static javax.servlet.http.HttpServletResponse.SC_CREATED;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_METHOD_NOT_ALLOWED;
+import static javax.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.bytedeco.javacpp.opencv_core.CV_8UC3;
 
 /**
  * Jetty handler for incoming images to be used by {@link HttpSource}.
  * Only one instance of this class can exist for a context.
  *
+ * <p>Uploads are read straight into a direct buffer from a small pool, and then handed to a
+ * background thread that passes them on to the callbacks, so a request never waits for the
+ * sources. If images arrive faster than the callbacks handle them, only the newest waiting image
+ * is kept. An image with the same hash and length as the previous one is ignored.</p>
+ *
+ * <p>Images are normally uploaded encoded, as a JPEG or PNG file. Producers that already have the
+ * pixels can instead upload them raw, without encoding them, by sending them as
+ * {@value #RAW_CONTENT_TYPE} with the {@value #WIDTH_HEADER}, {@value #HEIGHT_HEADER} and
+ * {@value #FORMAT_HEADER} headers. The body is then the rows of the image one after another, with
+ * no padding, in one of the {@link RawFormat formats}. Uploads without the format header are
+ * treated as encoded images, whatever their content type.</p>
+ *
  * <p>This handler will return one of the following status codes to a request on
  * {@code /GRIP/upload/image}:
  * <ul>
  * <li>405 - Not Allowed: if the request is not a POST</li>
- * <li>202 - Accepted: if the image sent is the same as the previous one</li>
- * <li>201 - Created: if the image was successfully handled</li>
+ * <li>400 - Bad Request: if a raw image has missing or invalid headers, or its length doesn't
+ * match them</li>
+ * <li>413 - Request Entity Too Large: if the image is {@value #MAX_IMAGE_SIZE} bytes or
+ * bigger</li>
+ * <li>202 - Accepted: if the image was queued, or is the same as the previous one</li>
  * </ul>
  */
 public final class HttpImageHandler extends PedanticHandler {
 
+  /**
+   * The content type of raw image uploads.
+   */
+  public static final String RAW_CONTENT_TYPE = "application/octet-stream";
+  /**
+   * The header with the width of a raw image, in pixels.
+   */
+  public static final String WIDTH_HEADER = "X-Image-Width";
+  /**
+   * The header with the height of a raw image, in pixels.
+   */
+  public static final String HEIGHT_HEADER = "X-Image-Height";
+  /**
+   * The header with the name of the {@link RawFormat} of a raw image.
+   */
+  public static final String FORMAT_HEADER = "X-Image-Format";
+  /**
+   * The size of the smallest image that is too big to upload, in bytes.
+   */
+  static final int MAX_IMAGE_SIZE = 32 * 1024 * 1024;
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  /**
+   * The most buffers to keep for reuse. More than this are only needed when many clients upload at
+   * the same time.
+   */
+  private static final int POOLED_BUFFERS = 4;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
   /**
    * Callbacks that take OpenCV Mats. These will be called when a new image is posted.
    */
-  private final List<Consumer<Mat>> callbacks;
+  private final List<ImageCallback> callbacks = new CopyOnWriteArrayList<>();
 
+  private final BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
   /**
-   * The most recent image. Could be a local field, but this is more memory-efficient.
+   * The newest upload that hasn't been passed on to the callbacks yet.
+   */
+  private final AtomicReference<Upload> pending = new AtomicReference<>();
+  /**
+   * Passes uploads on to the callbacks. Created for the first upload, and shut down when the
+   * handler stops, which happens when it's removed from the server or the server stops. Guarded by
+   * this handler.
+   */
+  @Nullable
+  private ExecutorService ingester;
+
+  /**
+   * The most recent image, which is passed on to new callbacks. Guarded by this handler.
    */
   private Mat image;
+  /**
+   * True if {@link #image} is encoded, or false if it is raw pixels. Guarded by this handler.
+   */
+  private boolean encoded;
 
   /**
-   * The most recent bytes received.
+   * The most recent upload, to ignore it if it is uploaded again. Guarded by this handler.
    */
-  private byte[] lastBytes;
+  @Nullable
+  private Upload last;
+
+  /**
+   * The layouts of the pixels in raw image uploads.
+   */
+  public enum RawFormat {
+    /**
+     * Three bytes per pixel, in blue, green, red order.
+     */
+    BGR8(CV_8UC3, 3),
+    /**
+     * One byte per pixel.
+     */
+    GRAY8(CV_8UC1, 1);
+
+    private final int type;
+    private final int channels;
+
+    RawFormat(int type, int channels) {
+      this.type = type;
+      this.channels = channels;
+    }
+
+    @Nullable
+    private static RawFormat forName(@Nullable String name) {
+      for (RawFormat format : values()) {
+        if (format.name().equalsIgnoreCase(name)) {
+          return format;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Receives the images uploaded to a handler.
+   */
+  @FunctionalInterface
+  public interface ImageCallback {
+    /**
+     * @param image   the uploaded image. It is reused once this returns.
+     * @param encoded true if the image is an encoded file in a single row of bytes, or false if
+     *                it is the raw pixels
+     */
+    void accept(Mat image, boolean encoded);
+  }
 
   /**
    * Creates an image handler on the default upload path {@code /GRIP/upload/image}.
@@ -68,7 +186,6 @@ public final class HttpImageHandler extends PedanticHandler {
    */
   public HttpImageHandler(ContextStore store, String path) {
     super(store, path, true);
-    callbacks = new ArrayList<>();
   }
 
   @Override
@@ -76,52 +193,265 @@ public final class HttpImageHandler extends PedanticHandler {
                                 Request baseRequest,
                                 HttpServletRequest request,
                                 HttpServletResponse response) throws IOException, ServletException {
-    if (!isPost(request)) {
-      response.setStatus(SC_METHOD_NOT_ALLOWED);
-      baseRequest.setHandled(true);
-      return;
+    response.setStatus(isPost(request) ? receive(request) : SC_METHOD_NOT_ALLOWED);
+    baseRequest.setHandled(true);
+  }
+
+  /**
+   * Reads an uploaded image and queues it for the callbacks.
+   *
+   * @return the status code to respond with
+   */
+  private int receive(HttpServletRequest request) throws IOException {
+    if (!isRaw(request)) {
+      if (request.getContentLength() >= MAX_IMAGE_SIZE) {
+        return SC_REQUEST_ENTITY_TOO_LARGE;
+      }
+      final ByteBuffer body = read(request);
+      if (body == null) {
+        return SC_REQUEST_ENTITY_TOO_LARGE;
+      }
+      offer(new Upload(body, 1, body.limit(), CV_8UC1, true));
+      return SC_ACCEPTED;
+    }
+
+    final int width = parseDimension(request.getHeader(WIDTH_HEADER));
+    final int height = parseDimension(request.getHeader(HEIGHT_HEADER));
+    final RawFormat format = RawFormat.forName(request.getHeader(FORMAT_HEADER));
+    if (width <= 0 || height <= 0 || format == null) {
+      return SC_BAD_REQUEST;
+    }
+    final long length = (long) width * height * format.channels;
+    if (length >= MAX_IMAGE_SIZE) {
+      return SC_REQUEST_ENTITY_TOO_LARGE;
+    }
+    final ByteBuffer body = read(request);
+    if (body == null) {
+      return SC_REQUEST_ENTITY_TOO_LARGE;
+    }
+    if (body.limit() != length) {
+      releaseBuffer(body);
+      return SC_BAD_REQUEST;
+    }
+    offer(new Upload(body, height, width, format.type, false));
+    return SC_ACCEPTED;
+  }
+
+  private static boolean isRaw(HttpServletRequest request) {
+    final String contentType = request.getContentType();
+    return contentType != null && contentType.startsWith(RAW_CONTENT_TYPE)
+        && request.getHeader(FORMAT_HEADER) != null;
+  }
+
+  /**
+   * @return the size in a header, or -1 if it is missing or not a number
+   */
+  private static int parseDimension(@Nullable String header) {
+    if (header == null) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(header.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Reads the body of a request into a pooled buffer.
+   *
+   * @return the buffer, with the body between its position and limit, or null if it is too big
+   */
+  @Nullable
+  private ByteBuffer read(HttpServletRequest request) throws IOException {
+    ByteBuffer buffer = acquireBuffer(request.getContentLength());
+    final ReadableByteChannel body = Channels.newChannel(request.getInputStream());
+    try {
+      while (true) {
+        if (!buffer.hasRemaining()) {
+          if (buffer.capacity() >= MAX_IMAGE_SIZE) {
+            releaseBuffer(buffer);
+            return null;
+          }
+          final ByteBuffer bigger = ByteBuffer.allocateDirect(
+              Math.min(buffer.capacity() * 2, MAX_IMAGE_SIZE));
+          buffer.flip();
+          bigger.put(buffer);
+          buffer = bigger;
+        }
+        if (body.read(buffer) < 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      releaseBuffer(buffer);
+      throw e;
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Queues an upload for the callbacks, unless it's the same as the previous one.
+   */
+  private void offer(Upload upload) {
+    synchronized (this) {
+      if (upload.isSameAs(last)) {
+        // no change
+        releaseBuffer(upload.buffer);
+        return;
+      }
+      last = upload;
+    }
+    final Upload replaced = pending.getAndSet(upload);
+    if (replaced == null) {
+      startIngesting();
+    } else {
+      // The callbacks haven't gotten to the replaced upload yet, and now never need to
+      releaseBuffer(replaced.buffer);
+    }
+  }
+
+  private synchronized void startIngesting() {
+    if (ingester == null) {
+      ingester = Executors.newSingleThreadExecutor(DaemonThread::new);
     }
-    byte[] newBytes = IOUtils.toByteArray(request.getInputStream());
-    if (Arrays.equals(lastBytes, newBytes)) {
-      // no change
-      response.setStatus(SC_ACCEPTED);
-      baseRequest.setHandled(true);
+    ingester.execute(this::ingest);
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    super.doStop();
+    final ExecutorService stopped;
+    synchronized (this) {
+      stopped = ingester;
+      ingester = null;
+    }
+    if (stopped != null) {
+      // Lets an upload that's already queued reach the callbacks
+      stopped.shutdown();
+    }
+  }
+
+  /**
+   * Passes the newest upload on to the callbacks. Runs on the ingestion thread.
+   */
+  private void ingest() {
+    final Upload upload = pending.getAndSet(null);
+    if (upload == null) {
       return;
     }
-    image = new Mat(newBytes);
-    lastBytes = newBytes;
-    callbacks.forEach(c -> c.accept(image));
-    response.setStatus(SC_CREATED);
-    baseRequest.setHandled(true);
+    final Mat newImage;
+    synchronized (this) {
+      if (image == null) {
+        image = new Mat();
+      }
+      image.create(upload.rows, upload.cols, upload.type);
+      final BytePointer data = image.data();
+      data.capacity(upload.length).asBuffer().put(upload.buffer);
+      encoded = upload.encoded;
+      newImage = image;
+    }
+    releaseBuffer(upload.buffer);
+    callbacks.forEach(c -> c.accept(newImage, upload.encoded));
+  }
+
+  private ByteBuffer acquireBuffer(int contentLength) {
+    final int size = Math.max(contentLength, DEFAULT_BUFFER_SIZE);
+    final ByteBuffer pooled = buffers.poll();
+    if (pooled != null && pooled.capacity() >= size) {
+      pooled.clear();
+      return pooled;
+    }
+    return ByteBuffer.allocateDirect(Math.min(size, MAX_IMAGE_SIZE));
+  }
+
+  private void releaseBuffer(ByteBuffer buffer) {
+    // If the pool is full the buffer is left to the garbage collector
+    buffers.offer(buffer);
   }
 
   /**
-   * Gets the most recently POSTed image.
+   * Hashes the bytes in a buffer with 64 bit FNV-1a, eight bytes at a time.
    */
-  public Optional<Mat> getImage() {
-    return Optional.ofNullable(image);
+  @VisibleForTesting
+  static long hash(ByteBuffer buffer) {
+    long hash = FNV_OFFSET_BASIS;
+    int i = buffer.position();
+    for (; i + Long.BYTES <= buffer.limit(); i += Long.BYTES) {
+      hash = (hash ^ buffer.getLong(i)) * FNV_PRIME;
+    }
+    for (; i < buffer.limit(); i++) {
+      hash = (hash ^ buffer.get(i)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Calls a callback with the most recently POSTed image, if an image has been POSTed.
+   */
+  public synchronized void sendImageTo(ImageCallback callback) {
+    if (image != null) {
+      callback.accept(image, encoded);
+    }
   }
 
   /**
    * Adds a callback to this handler. The callback will be called when a new image is POSTed to
-   * {@code /GRIP/upload/image} and can be removed later with {@link #removeCallback(Consumer)}.
+   * {@code /GRIP/upload/image} and can be removed later with
+   * {@link #removeCallback(ImageCallback)}. Callbacks are called on the handler's own thread, and
+   * the image is reused once they return.
    *
    * @param callback the callback to add
-   * @see #removeCallback(Consumer)
+   * @see #removeCallback(ImageCallback)
    */
-  public void addCallback(Consumer<Mat> callback) {
+  public void addCallback(ImageCallback callback) {
     callbacks.add(checkNotNull(callback));
   }
 
   /**
    * Removes the given callback from this handler. The callback will no longer be called when a new
    * image is POSTed to {@code /GRIP/upload/image}, unless it is re-added with
-   * {@link #addCallback(Consumer)}. Does nothing if {@code callback} is {@code null}.
+   * {@link #addCallback(ImageCallback)}. Does nothing if {@code callback} is {@code null}.
    *
    * @param callback the callback to remove
-   * @see #addCallback(Consumer)
+   * @see #addCallback(ImageCallback)
    */
-  public void removeCallback(@Nullable Consumer<Mat> callback) {
+  public void removeCallback(@Nullable ImageCallback callback) {
     callbacks.remove(callback);
   }
+
+  /**
+   * An uploaded image, its layout, and its hash. The bytes are between the buffer's position and
+   * limit.
+   */
+  private static final class Upload {
+    private final ByteBuffer buffer;
+    private final int length;
+    private final int rows;
+    private final int cols;
+    private final int type;
+    private final boolean encoded;
+    private final long hash;
+
+    Upload(ByteBuffer buffer, int rows, int cols, int type, boolean encoded) {
+      this.buffer = buffer;
+      this.length = buffer.remaining();
+      this.rows = rows;
+      this.cols = cols;
+      this.type = type;
+      this.encoded = encoded;
+      this.hash = hash(buffer);
+    }
+
+    /**
+     * Checks if this is the same image as another upload. The other upload's buffer may have been
+     * reused since, so only its hash and layout are compared.
+     */
+    boolean isSameAs(@Nullable Upload other) {
+      return other != null && hash == other.hash && length == other.length
+          && rows == other.rows && cols == other.cols && type == other.type
+          && encoded == other.encoded;
+    }
+  }
 }
@@ -25,9 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.function.Consumer;
 
-import static org.bytedeco.javacpp.opencv_imgcodecs.CV_LOAD_IMAGE_COLOR;
 import static org.bytedeco.javacpp.opencv_imgcodecs.imdecode;
 
 /**
@@ -37,12 +35,17 @@ import static org.bytedeco.javacpp.opencv_imgcodecs.imdecode;
  * Note that multiple {@link HttpSource HttpSources} will all supply the same image
  * (or, more precisely, the same <i>reference</i> to a single image).
  * </p>
+ * <p>
+ * Each source decodes the image at its own {@link DecodeScale}. Images uploaded as raw pixels are
+ * not encoded, so they are used at the size they were uploaded at.
+ * </p>
  */
 @XStreamAlias("grip:HttpImage")
 public class HttpSource extends Source {
 
   /**
-   * Map of handlers to their paths to avoid having multiple handlers per path.
+   * Map of handlers to their paths to avoid having multiple handlers per path. Paths are resolved
+   * in the namespace of the pipeline, since pipelines in the same process share this map.
    */
   private static final Map<String, HttpImageHandler> handlers = new HashMap<>();
 
@@ -56,8 +59,19 @@ public class HttpSource extends Source {
   private final OutputSocket<MatWrapper> imageOutput;
   private final SocketHint<MatWrapper> outputHint = SocketHints.createImageSocketHint("Image");
   private final MatWrapper image = MatWrapper.emptyWrapper();
-  private final Consumer<Mat> callback;
+  private final HttpImageHandler.ImageCallback callback;
   private final EventBus eventBus;
+  private final DecodeScale decodeScale;
+  /**
+   * True if {@link #image} is an encoded image file, or false if it is raw pixels. Guarded by
+   * {@link #image}.
+   */
+  private boolean encoded;
+  /**
+   * Reused for every decoded image, so decoding doesn't leave a new image in native memory each
+   * time. Guarded by {@link #image}.
+   */
+  private final Mat decoded = new Mat();
   private String path;
 
   public interface Factory {
@@ -79,7 +93,8 @@ public class HttpSource extends Source {
         osf,
         server,
         store,
-        properties.getProperty(PATH_PROPERTY));
+        properties.getProperty(PATH_PROPERTY),
+        DecodeScale.fromProperties(properties));
   }
 
   @AssistedInject
@@ -90,9 +105,22 @@ public class HttpSource extends Source {
       GripServer server,
       ContextStore store,
       @Assisted String path) {
+    this(exceptionWitnessFactory, eventBus, osf, server, store, path, DecodeScale.FULL);
+  }
+
+  private HttpSource(
+      ExceptionWitness.Factory exceptionWitnessFactory,
+      EventBus eventBus,
+      OutputSocket.Factory osf,
+      GripServer server,
+      ContextStore store,
+      String path,
+      DecodeScale decodeScale) {
     super(exceptionWitnessFactory);
     this.path = path;
-    this.imageHandler = handlers.computeIfAbsent(path, p -> new HttpImageHandler(store, p));
+    this.decodeScale = decodeScale;
+    this.imageHandler = handlers.computeIfAbsent(store.resolve(path),
+        p -> new HttpImageHandler(store, path));
     this.imageOutput = osf.create(outputHint);
     this.eventBus = eventBus;
     // Will add the handler only when the first HttpSource is created -- no-op every subsequent time
@@ -101,8 +129,12 @@ public class HttpSource extends Source {
     this.callback = this::setImage;
   }
 
-  private void setImage(Mat image) {
-    this.image.set(image);
+  private void setImage(Mat image, boolean encoded) {
+    // Uploads arrive on the handler's thread while the pipeline may be reading the image
+    synchronized (this.image) {
+      this.image.set(image);
+      this.encoded = encoded;
+    }
     eventBus.post(new SourceHasPendingUpdateEvent(this));
   }
 
@@ -120,11 +152,18 @@ public class HttpSource extends Source {
 
   @Override
   protected boolean updateOutputSockets() {
-    if (image.empty()) {
-      // No data, don't bother converting
-      return false;
+    synchronized (image) {
+      if (image.empty()) {
+        // No data, don't bother converting
+        return false;
+      }
+      if (encoded) {
+        imdecode(image.getCpu(), decodeScale.getImreadFlags(), decoded).deallocate();
+        imageOutput.getValue().get().set(decoded);
+      } else {
+        imageOutput.getValue().get().set(image);
+      }
     }
-    imageOutput.getValue().get().set(imdecode(image.getCpu(), CV_LOAD_IMAGE_COLOR));
     imageOutput.flagChanged();
     return true;
   }
@@ -133,19 +172,23 @@ public class HttpSource extends Source {
   public Properties getProperties() {
     Properties properties = new Properties();
     properties.setProperty(PATH_PROPERTY, path);
+    decodeScale.store(properties);
     return properties;
   }
 
   @Override
   public void initialize() {
     imageHandler.addCallback(callback);
-    imageHandler.getImage().ifPresent(this::setImage);
+    imageHandler.sendImageTo(callback);
   }
 
   @Subscribe
   public void onSourceRemovedEvent(SourceRemovedEvent event) {
     if (event.getSource() == this) {
       imageHandler.removeCallback(callback);
+      synchronized (image) {
+        decoded.release();
+      }
     }
   }
 
@@ -25,29 +25,24 @@ package edu.wpi.grip.core.sources;
 
 import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacpp.Loader;
+import org.bytedeco.javacpp.opencv_core.Mat;
 import org.bytedeco.javacv.Frame;
-import org.bytedeco.javacv.FrameConverter;
 import org.bytedeco.javacv.FrameGrabber;
 import org.bytedeco.javacv.OpenCVFrameConverter;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
 
 import javax.imageio.ImageIO;
 
 import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
-import static org.bytedeco.javacpp.opencv_core.CvMat;
-import static org.bytedeco.javacpp.opencv_core.IplImage;
-import static org.bytedeco.javacpp.opencv_core.cvMat;
-import static org.bytedeco.javacpp.opencv_core.cvReleaseImage;
-import static org.bytedeco.javacpp.opencv_imgcodecs.cvDecodeImage;
+import static org.bytedeco.javacpp.opencv_imgcodecs.imdecode;
 
 // This is here because FrameGrabber has an exception called Exception which triggers PMD
 @SuppressWarnings({"PMD.AvoidThrowingRawExceptionTypes", "all"})
@@ -64,14 +59,33 @@ public class IPCameraFrameGrabber extends FrameGrabber {
   private final int connectionTimeout;
   private final int readTimeout;
   private URLConnection connection;
-  private DataInputStream input;
-  private byte[] pixelBuffer = new byte[1024];
-  private IplImage decoded = null;
-  private FrameConverter<IplImage> converter = new OpenCVFrameConverter.ToIplImage();
+  private MjpegStreamReader reader;
+  /**
+   * The reader's buffer that {@link #encoded} refers to.
+   */
+  private ByteBuffer encodedBuffer = null;
+  /**
+   * A header around the reader's buffer, so images can be decoded straight out of it.
+   */
+  private Mat encoded = null;
+  private final Mat decoded = new Mat();
+  private final int imreadFlags;
+  private final OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+
   public IPCameraFrameGrabber(String urlstr, int connectionTimeout, int readTimeout, TimeUnit
       unit) throws MalformedURLException {
+    this(urlstr, connectionTimeout, readTimeout, unit, DecodeScale.FULL);
+  }
+
+  /**
+   * @param decodeScale the size to decode the camera's images at, which is much faster than
+   *                    decoding them at full size and shrinking them afterwards.
+   */
+  public IPCameraFrameGrabber(String urlstr, int connectionTimeout, int readTimeout, TimeUnit
+      unit, DecodeScale decodeScale) throws MalformedURLException {
     super();
     url = new URL(urlstr);
+    this.imreadFlags = decodeScale.getImreadFlags();
     this.connectionTimeout = Math.toIntExact(TimeUnit.MILLISECONDS.convert(connectionTimeout,
         unit));
     this.readTimeout = Math.toIntExact(TimeUnit.MILLISECONDS.convert(readTimeout, unit));
@@ -96,7 +110,7 @@ public class IPCameraFrameGrabber extends FrameGrabber {
       connection = url.openConnection();
       connection.setConnectTimeout(connectionTimeout);
       connection.setReadTimeout(readTimeout);
-      input = new DataInputStream(connection.getInputStream());
+      reader = new MjpegStreamReader(connection.getInputStream());
     } catch (IOException e) {
       // Make sure we rethrow the IO exception https://github.com/bytedeco/javacv/pull/300
       throw new Exception(e.getMessage(), e);
@@ -107,16 +121,19 @@ public class IPCameraFrameGrabber extends FrameGrabber {
   public void stop() throws Exception {
     // Our fix. This ensures that restart doesn't null pointer.
     // https://github.com/bytedeco/javacv/issues/299
-    if (input != null) {
+    if (reader != null) {
       try {
-        input.close();
-        input = null;
+        reader.close();
+        reader = null;
         connection = null;
         // Don't set url to null
         // https://github.com/bytedeco/javacv/pull/300
-        if (decoded != null) {
-          cvReleaseImage(decoded);
+        if (encoded != null) {
+          encoded.deallocate();
+          encoded = null;
+          encodedBuffer = null;
         }
+        decoded.release();
       } catch (IOException e) {
         throw new Exception(e.getMessage(), e);
       }
@@ -127,95 +144,54 @@ public class IPCameraFrameGrabber extends FrameGrabber {
   public void trigger() throws Exception {
   }
 
+  /**
+   * Grabs the next image from the stream. The returned frame refers to an image that is reused, so
+   * it is only valid until the next frame is grabbed.
+   */
   @Override
   public Frame grab() throws Exception {
     try {
-      byte[] b = readImage();
-      CvMat mat = cvMat(1, b.length, CV_8UC1, new BytePointer(b));
-      if (decoded != null) {
-        cvReleaseImage(decoded);
+      final Mat frame = encodedFrame(reader.readFrame());
+      try {
+        imdecode(frame, imreadFlags, decoded).deallocate();
+      } finally {
+        frame.deallocate();
+      }
+      if (decoded.empty()) {
+        throw new IOException("Could not decode a frame from the camera");
       }
-      return converter.convert(decoded = cvDecodeImage(mat));
+      return converter.convert(decoded);
     } catch (IOException e) {
       throw new Exception(e.getMessage(), e);
     }
   }
 
   public BufferedImage grabBufferedImage() throws IOException {
-    BufferedImage bi = ImageIO.read(new ByteArrayInputStream(readImage()));
-    return bi;
-  }
-
-  byte[] readImage() throws IOException {
-    StringBuffer sb = new StringBuffer();
-    int c;
-    // read http subheader
-    while ((c = input.read()) != -1) {
-      if (c > 0) {
-        sb.append((char) c);
-        if (c == 13) {
-          sb.append((char) input.read()); // '10'+
-          c = input.read();
-          sb.append((char) c);
-          if (c == 13) {
-            sb.append((char) input.read()); // '10'
-            break; // done with subheader
-          }
-
-        }
-      }
-    }
-
-    // find embedded jpeg in stream
-    final String subheader = sb.toString().toLowerCase();
-    //log.debug(subheader);
-
-    // if (boundryKey == null)
-    // {
-    // Yay! - server was nice and sent content length
-    int c0 = subheader.indexOf("content-length: ");
-    int c1 = subheader.indexOf('\r', c0);
-
-    if (c0 < 0) {
-      //log.info("no content length returning null");
-      throw new EOFException("The camera stream ended unexpectedly");
-    }
-
-    c0 += 16;
-    final int contentLength = Integer.parseInt(subheader.substring(c0, c1).trim());
-    //log.debug("Content-Length: " + contentLength);
-
-    // adaptive size - careful - don't want a 2G jpeg
-    ensureBufferCapacity(contentLength);
-
-    input.readFully(pixelBuffer, 0, contentLength);
-    input.read(); // \r
-    input.read(); // \n
-    input.read(); // \r
-    input.read(); // \n
-
-    return pixelBuffer;
+    final int length = reader.readFrame();
+    final byte[] image = new byte[length];
+    final ByteBuffer buffer = reader.getBuffer().duplicate();
+    buffer.position(0);
+    buffer.get(image);
+    return ImageIO.read(new ByteArrayInputStream(image));
   }
 
   /**
-   * Grow the pixel buffer if necessary.  Using this method instead of allocating a new buffer every
-   * time a frame is grabbed improves performance by reducing the frequency of garbage collections.
-   * In a simple test, the unmodified version of IPCameraFrameGrabber caused about 200MB of
-   * allocations within 13 seconds.  In this version, almost no additional heap space is typically
-   * allocated per frame. The downside to this is that the returned frames can't really be modified,
-   * so this probably won't go upstream, but it's useful for us because in GRIP we don't operate on
-   * images in-place.
+   * Gets a header around the last frame that was read, which is at the start of the reader's
+   * buffer. The header has to be deallocated once the frame is decoded.
+   *
+   * @param length the length of the frame, in bytes
    */
-  private void ensureBufferCapacity(int desiredCapacity) {
-    int capacity = pixelBuffer.length;
-
-    while (capacity < desiredCapacity) {
-      capacity *= 2;
-    }
-
-    if (capacity > pixelBuffer.length) {
-      pixelBuffer = new byte[capacity];
+  private Mat encodedFrame(int length) {
+    final ByteBuffer buffer = reader.getBuffer();
+    if (buffer != encodedBuffer) {
+      // The reader had to grow its buffer
+      if (encoded != null) {
+        encoded.deallocate();
+      }
+      encoded = new Mat(1, buffer.capacity(), CV_8UC1, new BytePointer(buffer).position(0));
+      encodedBuffer = buffer;
     }
+    return encoded.colRange(0, length);
   }
 
   @Override
@@ -0,0 +1,191 @@
+package edu.wpi.grip.core.sources;
+
+import edu.wpi.grip.core.MatWrapper;
+import edu.wpi.grip.core.util.ImageLoadingUtility;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.math.IntMath;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Decodes images from a list of files when they are first needed, and keeps the most recently used
+ * ones so that going back and forth between them doesn't decode them again. The decoded images
+ * take up at most a fixed number of bytes, so the memory used stays the same no matter how many
+ * files there are. Images near the one being shown can be {@link #prefetch prefetched} in the
+ * background, so they are usually decoded by the time they are needed.
+ *
+ * <p>This class is thread safe.</p>
+ */
+final class ImageCache {
+
+  private static final Logger logger = Logger.getLogger(ImageCache.class.getName());
+
+  private final List<String> paths;
+  private final long capacity;
+  private final Executor prefetcher;
+  private final Map<Integer, Mat> images = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * The indexes of the images that are being prefetched.
+   */
+  private final Set<Integer> prefetching = new HashSet<>();
+  private long size = 0;
+  private boolean closed = false;
+
+  /**
+   * @param paths      the paths of the image files
+   * @param capacity   the maximum number of bytes of decoded images to keep. The image that was
+   *                   used last is always kept, even if it is bigger than this.
+   * @param prefetcher runs the prefetches in the background
+   */
+  ImageCache(List<String> paths, long capacity, Executor prefetcher) {
+    checkArgument(capacity >= 0, "The capacity cannot be negative");
+    this.paths = paths;
+    this.capacity = capacity;
+    this.prefetcher = prefetcher;
+  }
+
+  /**
+   * Copies an image into the destination, decoding it first if it isn't cached.
+   *
+   * @param index the index of the image's path
+   *
+   * @throws IOException if the image couldn't be decoded
+   */
+  void copyTo(int index, MatWrapper destination) throws IOException {
+    checkElementIndex(index, paths.size(), "Image index");
+    synchronized (this) {
+      final Mat image = images.get(index);
+      if (image != null) {
+        destination.set(image);
+        return;
+      }
+    }
+    final Mat image = load(index);
+    synchronized (this) {
+      destination.set(image);
+      put(index, image);
+    }
+  }
+
+  /**
+   * Decodes the images around an index in the background, if they aren't already cached. Indexes
+   * wrap around the ends of the list.
+   *
+   * @param index  the index of the image being shown
+   * @param radius the number of images on each side of the index to decode
+   */
+  void prefetch(int index, int radius) {
+    for (int offset = 1; offset <= radius; offset++) {
+      prefetchImage(IntMath.mod(index + offset, paths.size()));
+      prefetchImage(IntMath.mod(index - offset, paths.size()));
+    }
+  }
+
+  private void prefetchImage(int index) {
+    synchronized (this) {
+      if (closed || images.containsKey(index) || !prefetching.add(index)) {
+        return;
+      }
+    }
+    prefetcher.execute(() -> {
+      Mat image = null;
+      try {
+        image = load(index);
+      } catch (IOException e) {
+        // The error is reported if the image is ever shown
+        logger.log(Level.FINE, "Could not prefetch " + paths.get(index), e);
+      }
+      synchronized (this) {
+        prefetching.remove(index);
+        if (image != null && !images.containsKey(index)) {
+          put(index, image);
+        } else if (image != null) {
+          image.deallocate();
+        }
+      }
+    });
+  }
+
+  private Mat load(int index) throws IOException {
+    final Mat image = new Mat();
+    try {
+      ImageLoadingUtility.loadImage(paths.get(index), image);
+    } catch (IOException e) {
+      image.deallocate();
+      throw e;
+    }
+    return image;
+  }
+
+  /**
+   * Caches an image, then frees the least recently used images until the cache fits in its
+   * capacity again. Must be called while holding this object's lock.
+   */
+  private void put(int index, Mat image) {
+    if (closed) {
+      image.deallocate();
+      return;
+    }
+    final Mat previous = images.put(index, image);
+    if (previous != null) {
+      size -= bytesOf(previous);
+      previous.deallocate();
+    }
+    size += bytesOf(image);
+    final Iterator<Map.Entry<Integer, Mat>> iterator = images.entrySet().iterator();
+    while (size > capacity && iterator.hasNext()) {
+      final Map.Entry<Integer, Mat> entry = iterator.next();
+      if (entry.getKey() == index) {
+        continue;
+      }
+      size -= bytesOf(entry.getValue());
+      entry.getValue().deallocate();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Frees every cached image. Images that finish decoding after this are freed right away.
+   */
+  synchronized void close() {
+    closed = true;
+    images.values().forEach(Mat::deallocate);
+    images.clear();
+    size = 0;
+  }
+
+  /**
+   * @return true if the image at the given index is cached.
+   */
+  @VisibleForTesting
+  synchronized boolean isCached(int index) {
+    return images.containsKey(index);
+  }
+
+  /**
+   * @return the number of bytes of decoded images in the cache.
+   */
+  @VisibleForTesting
+  synchronized long getSize() {
+    return size;
+  }
+
+  private static long bytesOf(Mat image) {
+    return image.total() * image.elemSize();
+  }
+}
@@ -0,0 +1,276 @@
+package edu.wpi.grip.core.sources;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reads the images out of an MJPEG stream, which is a multipart HTTP response with one JPEG image
+ * in each part.
+ *
+ * <p>The stream is read in large chunks into a direct buffer that is reused for every frame, and
+ * the headers of each part are parsed straight from the buffer, so reading a frame creates no
+ * garbage once the buffer is big enough. After {@link #readFrame()} returns, the frame's bytes are
+ * at the start of the {@link #getBuffer() buffer}, where native code can decode them without
+ * copying them.</p>
+ *
+ * <p>The length of each image is taken from the part's {@code Content-Length} header. For cameras
+ * that don't send one, the image ends at the first JPEG end of image marker.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+final class MjpegStreamReader implements Closeable {
+
+  private static final int DEFAULT_CAPACITY = 64 * 1024;
+  /**
+   * Streams that send bigger images than this are assumed to be broken, rather than growing the
+   * buffer without limit.
+   */
+  private static final int MAX_FRAME_SIZE = 32 * 1024 * 1024;
+  /**
+   * Part headers longer than this are assumed to be broken.
+   */
+  private static final int MAX_HEADER_SIZE = 16 * 1024;
+  private static final byte[] CONTENT_LENGTH = {
+      'c', 'o', 'n', 't', 'e', 'n', 't', '-', 'l', 'e', 'n', 'g', 't', 'h', ':'
+  };
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final byte MARKER = (byte) 0xFF;
+  private static final byte END_OF_IMAGE = (byte) 0xD9;
+
+  private final ReadableByteChannel channel;
+  private ByteBuffer buffer;
+  /**
+   * The number of bytes in the buffer that have been read from the stream.
+   */
+  private int end = 0;
+  /**
+   * The number of bytes of the last frame at the start of the buffer.
+   */
+  private int frameLength = 0;
+
+  MjpegStreamReader(InputStream input) {
+    this(input, DEFAULT_CAPACITY);
+  }
+
+  @VisibleForTesting
+  MjpegStreamReader(InputStream input, int initialCapacity) {
+    checkArgument(initialCapacity > 0, "The initial capacity must be positive");
+    this.channel = Channels.newChannel(input);
+    this.buffer = ByteBuffer.allocateDirect(initialCapacity);
+  }
+
+  /**
+   * Reads the next image from the stream. Its bytes are then at the start of the {@link
+   * #getBuffer() buffer}, until the next image is read.
+   *
+   * @return the length of the image, in bytes
+   *
+   * @throws EOFException if the stream ended before the whole image was read
+   * @throws IOException  if the stream couldn't be read, or isn't a valid MJPEG stream
+   */
+  int readFrame() throws IOException {
+    discard(frameLength);
+    frameLength = 0;
+
+    skipLineBreaks();
+    final int headerEnd = findHeaderEnd();
+    final int contentLength = parseContentLength(headerEnd);
+    discard(headerEnd);
+    if (contentLength < 0) {
+      frameLength = findEndOfImage();
+    } else {
+      if (contentLength > MAX_FRAME_SIZE) {
+        throw new IOException("The camera sent a frame of " + contentLength + " bytes");
+      }
+      fill(contentLength);
+      frameLength = contentLength;
+    }
+    return frameLength;
+  }
+
+  /**
+   * Gets the buffer the stream is read into. The buffer is replaced with a bigger one when a frame
+   * doesn't fit in it, so this should be called again after every frame.
+   */
+  ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Skips the line breaks between the end of one part and the start of the next.
+   */
+  private void skipLineBreaks() throws IOException {
+    int skipped = 0;
+    while (true) {
+      if (skipped == end) {
+        discard(skipped);
+        skipped = 0;
+        readMore();
+      }
+      final byte b = buffer.get(skipped);
+      if (b != CR && b != LF) {
+        break;
+      }
+      skipped++;
+    }
+    discard(skipped);
+  }
+
+  /**
+   * Finds the blank line that ends the headers of a part, which starts with the boundary line.
+   *
+   * @return the index of the first byte after the blank line
+   */
+  private int findHeaderEnd() throws IOException {
+    int i = 0;
+    while (true) {
+      while (i + 4 > end) {
+        if (end >= MAX_HEADER_SIZE) {
+          throw new IOException("The headers of a frame are too long");
+        }
+        readMore();
+      }
+      if (buffer.get(i) == CR && buffer.get(i + 1) == LF
+          && buffer.get(i + 2) == CR && buffer.get(i + 3) == LF) {
+        return i + 4;
+      }
+      i++;
+    }
+  }
+
+  /**
+   * Parses the {@code Content-Length} header out of the headers at the start of the buffer.
+   *
+   * @return the length, or -1 if there is no {@code Content-Length} header
+   */
+  private int parseContentLength(int headerEnd) throws IOException {
+    for (int line = 0; line < headerEnd; line = nextLine(line, headerEnd)) {
+      if (!startsWithIgnoreCase(line, headerEnd, CONTENT_LENGTH)) {
+        continue;
+      }
+      int i = line + CONTENT_LENGTH.length;
+      while (i < headerEnd && buffer.get(i) == ' ') {
+        i++;
+      }
+      long length = 0;
+      int digits = 0;
+      for (; i < headerEnd && buffer.get(i) >= '0' && buffer.get(i) <= '9'; i++, digits++) {
+        length = length * 10 + buffer.get(i) - '0';
+        if (length > Integer.MAX_VALUE) {
+          throw new IOException("The content length of a frame is too long");
+        }
+      }
+      if (digits == 0) {
+        throw new IOException("A frame has an invalid content length");
+      }
+      return (int) length;
+    }
+    return -1;
+  }
+
+  private int nextLine(int start, int headerEnd) {
+    int i = start;
+    while (i < headerEnd && buffer.get(i) != LF) {
+      i++;
+    }
+    return i + 1;
+  }
+
+  private boolean startsWithIgnoreCase(int start, int headerEnd, byte[] lowerCase) {
+    if (start + lowerCase.length > headerEnd) {
+      return false;
+    }
+    for (int i = 0; i < lowerCase.length; i++) {
+      final byte b = buffer.get(start + i);
+      final byte lower = b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+      if (lower != lowerCase[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the end of the JPEG image at the start of the buffer, for parts without a length.
+   *
+   * @return the length of the image
+   */
+  private int findEndOfImage() throws IOException {
+    int i = 0;
+    while (true) {
+      while (i + 2 > end) {
+        if (end >= MAX_FRAME_SIZE) {
+          throw new IOException("The camera sent a frame without an end");
+        }
+        readMore();
+      }
+      if (buffer.get(i) == MARKER && buffer.get(i + 1) == END_OF_IMAGE) {
+        return i + 2;
+      }
+      i++;
+    }
+  }
+
+  /**
+   * Reads from the stream until the buffer has at least the given number of bytes.
+   */
+  private void fill(int length) throws IOException {
+    while (end < length) {
+      readMore();
+    }
+  }
+
+  /**
+   * Reads as much as is available from the stream, growing the buffer if it is full.
+   *
+   * @throws EOFException if the stream has ended
+   */
+  private void readMore() throws IOException {
+    if (end == buffer.capacity()) {
+      grow();
+    }
+    buffer.limit(buffer.capacity());
+    buffer.position(end);
+    final int read = channel.read(buffer);
+    if (read < 0) {
+      throw new EOFException("The camera stream ended unexpectedly");
+    }
+    end += read;
+  }
+
+  private void grow() {
+    final ByteBuffer bigger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+    buffer.position(0);
+    buffer.limit(end);
+    bigger.put(buffer);
+    buffer = bigger;
+  }
+
+  /**
+   * Throws away the given number of bytes from the start of the buffer.
+   */
+  private void discard(int length) {
+    if (length == 0) {
+      return;
+    }
+    buffer.limit(end);
+    buffer.position(length);
+    buffer.compact();
+    end -= length;
+  }
+}
@@ -4,21 +4,22 @@ import edu.wpi.grip.core.MatWrapper;
 import edu.wpi.grip.core.PreviousNext;
 import edu.wpi.grip.core.Source;
 import edu.wpi.grip.core.events.SourceHasPendingUpdateEvent;
+import edu.wpi.grip.core.events.SourceRemovedEvent;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sockets.SocketHint;
 import edu.wpi.grip.core.sockets.SocketHints;
+import edu.wpi.grip.core.util.DaemonThread;
 import edu.wpi.grip.core.util.ExceptionWitness;
 import edu.wpi.grip.core.util.ImageLoadingUtility;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 import com.google.common.math.IntMath;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
-import org.bytedeco.javacpp.opencv_core.Mat;
-
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -26,6 +27,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkElementIndex;
@@ -33,11 +36,24 @@ import static com.google.common.base.Preconditions.checkElementIndex;
 /**
  * A Source that supports multiple images. They can be toggled using {@link
  * MultiImageFileSource#next()} and {@link MultiImageFileSource#previous()}
+ *
+ * <p>Images are only decoded when they are first shown, and an {@link ImageCache} keeps a bounded
+ * number of bytes of them around. The images next to the one being shown are decoded in the
+ * background, so stepping through the images rarely waits for one to be decoded. This keeps
+ * adding a source with thousands of images fast, and its memory use flat.</p>
  */
 @XStreamAlias("grip:MultiImageFile")
 public final class MultiImageFileSource extends Source implements PreviousNext {
   private static final String INDEX_PROPERTY = "index";
   private static final String SIZE_PROPERTY = "numImages";
+  /**
+   * The most bytes of decoded images to keep in memory.
+   */
+  private static final long CACHE_CAPACITY = 256 * 1024 * 1024;
+  /**
+   * The number of images on each side of the current one to decode in the background.
+   */
+  private static final int PREFETCH_RADIUS = 2;
 
   private final SocketHint<MatWrapper> imageOutputHint = SocketHints.createImageSocketHint("Image");
   private final OutputSocket<MatWrapper> outputSocket;
@@ -45,8 +61,12 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
   private final EventBus eventBus;
   private final List<String> paths;
   private final AtomicInteger index;
-  private Mat[] images;
-  private Optional<Mat> currentImage = Optional.empty();
+  private final ExecutorService prefetcher;
+  private final ImageCache images;
+  /**
+   * The index of the image in the output socket, or -1 if no image has been output yet.
+   */
+  private int outputIndex = -1;
 
   /**
    * @param eventBus                The event bus.
@@ -104,6 +124,8 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
     this.outputSocket = outputSocketFactory.create(imageOutputHint);
     this.index = new AtomicInteger(checkElementIndex(index, paths.length, "File List Index"));
     this.paths = Arrays.asList(paths);
+    this.prefetcher = Executors.newSingleThreadExecutor(DaemonThread::new);
+    this.images = new ImageCache(this.paths, CACHE_CAPACITY, prefetcher);
   }
 
   private static String getPathProperty(int index) {
@@ -111,24 +133,18 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
   }
 
   /**
-   * Creates an array of mats from the paths on the filesystem. This pre-loads them into memory so
-   * that they can be accessed quickly. The returned array will have the same number of elements as
-   * paths.
+   * Checks that every path is an image that can be loaded, without decoding any of them.
    *
    * @param paths The paths of all of the images.
    *
-   * @return The list of Mats loaded from the file system.
-   *
-   * @throws IOException if one of the images fails to load
+   * @throws IOException if one of the files can't be read or isn't an image
    */
-  private static Mat[] createImagesArray(List<String> paths) throws IOException {
-    final Mat[] images = new Mat[paths.size()];
-    for (int i = 0; i < paths.size(); i++) {
-      final Mat image = new Mat();
-      ImageLoadingUtility.loadImage(paths.get(i), image);
-      images[i] = image;
+  private static void checkImages(List<String> paths) throws IOException {
+    for (String path : paths) {
+      if (!ImageLoadingUtility.hasImageSignature(path)) {
+        throw new IOException("Not an image " + path);
+      }
     }
-    return images;
   }
 
   private static int sizeFromProperties(Properties properties) {
@@ -150,8 +166,8 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
 
   @Override
   public void initialize() throws IOException {
-    this.images = createImagesArray(this.paths);
-    currentImage = Optional.of(addIndexAndGetImageByOffset(0));
+    checkImages(this.paths);
+    images.prefetch(index.get(), PREFETCH_RADIUS);
     eventBus.post(new SourceHasPendingUpdateEvent(this));
   }
 
@@ -169,16 +185,21 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
 
   @Override
   protected boolean updateOutputSockets() {
-    if (outputSocket.getValue()
-        .map(m -> m.getCpu())
-        .map(m -> !currentImage.get().equals(m))
-        .orElse(false)) {
-      outputSocket.getValue().ifPresent(m -> currentImage.ifPresent(m::set));
-      outputSocket.flagChanged();
-      return true;
-    } else {
+    final int currentIndex = index.get();
+    final Optional<MatWrapper> output = outputSocket.getValue();
+    if (currentIndex == outputIndex || !output.isPresent()) {
+      return false;
+    }
+    try {
+      images.copyTo(currentIndex, output.get());
+    } catch (IOException e) {
+      getExceptionWitness().flagException(e, "Could not load image");
       return false;
     }
+    outputIndex = currentIndex;
+    outputSocket.flagChanged();
+    images.prefetch(currentIndex, PREFETCH_RADIUS);
+    return true;
   }
 
   @Override
@@ -193,17 +214,15 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
   }
 
   /**
-   * Adds the delta to the index value and returns the matrix at that index (Circular). If the delta
-   * moves the index pointer outside of the bounds of the image array the number will 'overflow' to
-   * remain within the bounds of the image array.
+   * Adds the delta to the index value (Circular). If the delta moves the index pointer outside of
+   * the bounds of the image list the number will 'overflow' to remain within the bounds of the
+   * image list.
    *
-   * @param delta the value to add to the index when getting the image
-   *
-   * @return The matrix at the given index in the array.
+   * @param delta the value to add to the index
    */
-  private Mat addIndexAndGetImageByOffset(final int delta) {
-    final int listSize = images.length;
-    final int newMatIndex = index.updateAndGet(currentIndex -> {
+  private void addIndexByOffset(final int delta) {
+    final int listSize = paths.size();
+    index.updateAndGet(currentIndex -> {
       assert currentIndex >= 0 : "The current index should never be less than zero";
       assert currentIndex < listSize : "The current index should always be less than the size of "
           + "the list";
@@ -213,7 +232,6 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
       }
       return IntMath.mod(currentIndex + delta, listSize);
     });
-    return images[newMatIndex];
   }
 
   /**
@@ -221,7 +239,7 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
    */
   @Override
   public void next() {
-    currentImage = Optional.of(addIndexAndGetImageByOffset(+1));
+    addIndexByOffset(+1);
     eventBus.post(new SourceHasPendingUpdateEvent(this));
   }
 
@@ -230,10 +248,19 @@ public final class MultiImageFileSource extends Source implements PreviousNext {
    */
   @Override
   public void previous() {
-    currentImage = Optional.of(addIndexAndGetImageByOffset(-1));
+    addIndexByOffset(-1);
     eventBus.post(new SourceHasPendingUpdateEvent(this));
   }
 
+  @Subscribe
+  public void onSourceRemoved(SourceRemovedEvent sourceRemovedEvent) {
+    if (sourceRemovedEvent.getSource() == this) {
+      prefetcher.shutdownNow();
+      images.close();
+      eventBus.unregister(this);
+    }
+  }
+
   public interface Factory {
     MultiImageFileSource create(List<File> files, int index);
 
@@ -0,0 +1,31 @@
+package edu.wpi.grip.core.sources;
+
+/**
+ * How fast a video file source plays its video.
+ */
+public enum PlaybackMode {
+
+  /**
+   * Frames are shown at the video's frame rate, and the video loops when it ends. If the pipeline
+   * can't keep up, the source's {@link BackpressurePolicy} decides which frames are dropped.
+   */
+  REAL_TIME("Real time"),
+
+  /**
+   * Each frame is shown as soon as the pipeline is ready for it, so the video is processed as fast
+   * as the pipeline can go. Every frame is processed exactly once, in order, and no frames are
+   * dropped. The video is played once.
+   */
+  AS_FAST_AS_POSSIBLE("As fast as possible");
+
+  private final String label;
+
+  PlaybackMode(String label) {
+    this.label = label;
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
@@ -0,0 +1,112 @@
+package edu.wpi.grip.core.sources;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the newest frame from one capture thread to one pipeline thread without locking or
+ * copying between them.
+ *
+ * <p>There are three images. The capture thread writes into one, the pipeline reads from
+ * another, and the third holds the newest frame that neither is using. Publishing a frame swaps
+ * the written image with the held one, and taking a frame swaps the read image with the held one,
+ * so each thread only ever touches an image the other can't get to. If a frame is published before
+ * the previous one was taken, the previous one is overwritten the next time around.</p>
+ *
+ * <p>{@link #writeSlot()} and {@link #publish()} must only be called from the capture thread, and
+ * {@link #take()} only from the pipeline thread.</p>
+ */
+final class TripleBuffer {
+
+  /**
+   * The bits of {@link #state} with the index of the held slot.
+   */
+  private static final int INDEX = 0b011;
+  /**
+   * Set when the held slot has a frame that hasn't been taken yet.
+   */
+  private static final int FRESH = 0b100;
+  /**
+   * Set once the buffer has been closed.
+   */
+  private static final int CLOSED = 0b1000;
+
+  private final Slot[] slots = {new Slot(), new Slot(), new Slot()};
+  private final AtomicInteger state = new AtomicInteger(0);
+  private int writeIndex = 1;
+  private int readIndex = 2;
+
+  /**
+   * An image in the buffer, and when the frame in it was captured.
+   */
+  static final class Slot {
+    final Mat mat = new Mat();
+    long capturedAt;
+  }
+
+  /**
+   * @return the slot to write the next frame into. It belongs to the capture thread until it is
+   *     {@link #publish() published}.
+   */
+  Slot writeSlot() {
+    return slots[writeIndex];
+  }
+
+  /**
+   * Makes the frame in the write slot the newest frame, and gets a new slot to write into. If the
+   * buffer has been closed, the frame is released instead.
+   *
+   * @return true if a frame the pipeline never took was replaced
+   */
+  boolean publish() {
+    int held;
+    do {
+      held = state.get();
+      if ((held & CLOSED) != 0) {
+        slots[writeIndex].mat.release();
+        return false;
+      }
+    } while (!state.compareAndSet(held, writeIndex | FRESH));
+    writeIndex = held & INDEX;
+    return (held & FRESH) != 0;
+  }
+
+  /**
+   * Takes the newest frame, if there is one that hasn't already been taken. The returned slot
+   * belongs to the pipeline thread until the next frame is taken, so its image can be used without
+   * copying it until then.
+   *
+   * @return the slot with the newest frame, or null if there is no new frame
+   */
+  Slot take() {
+    int held;
+    do {
+      held = state.get();
+      if ((held & FRESH) == 0 || (held & CLOSED) != 0) {
+        return null;
+      }
+    } while (!state.compareAndSet(held, readIndex));
+    readIndex = held & INDEX;
+    return slots[readIndex];
+  }
+
+  /**
+   * @return true if there is a frame that hasn't been taken yet.
+   */
+  boolean hasFresh() {
+    final int held = state.get();
+    return (held & FRESH) != 0 && (held & CLOSED) == 0;
+  }
+
+  /**
+   * Releases the held frame. Frames published after this are released instead of being held. The
+   * slots the capture and pipeline threads are using are left to them.
+   */
+  void close() {
+    final int held = state.getAndSet(CLOSED);
+    if ((held & CLOSED) == 0) {
+      slots[held & INDEX].mat.release();
+    }
+  }
+}
@@ -28,32 +28,69 @@ import org.bytedeco.javacv.OpenCVFrameConverter;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 /**
  * A source for a video file input.
+ *
+ * <p>Frames are decoded on a background thread ahead of when they are needed. In {@link
+ * PlaybackMode#REAL_TIME real time} a {@link DecodeAheadRing} holds the decoded frames until they
+ * are shown at the video's frame rate, so a frame that is slow to decode doesn't delay the
+ * pipeline. {@link PlaybackMode#AS_FAST_AS_POSSIBLE As fast as possible}, the decoded frames are
+ * queued for the pipeline straight away, and decoding waits whenever the queue is full, so every
+ * frame is processed once without throttling the pipeline to the video's frame rate.</p>
+ *
+ * <p>The playback mode and the number of frames to decode ahead are read from the source's
+ * properties, so they are saved with the project.</p>
  */
 @XStreamAlias("grip:VideoFile")
 public class VideoFileSource extends Source implements Pausable {
 
+  /**
+   * The source property with the name of the {@link PlaybackMode} to use.
+   */
+  public static final String PLAYBACK_PROPERTY = "playback";
+  /**
+   * The source property with the number of frames to decode ahead.
+   */
+  public static final String DECODE_AHEAD_PROPERTY = "decodeAhead";
+  private static final int DEFAULT_DECODE_AHEAD = 8;
+  private static final int NO_SEEK = -1;
+  private static final Logger logger = Logger.getLogger(VideoFileSource.class.getName());
+
   private final String path;
+  private final Properties properties;
   private final SocketHint<MatWrapper> imageHint = SocketHints.createImageSocketHint("Image");
   private final SocketHint<Number> fpsHint = SocketHints.Outputs.createNumberSocketHint("FPS", 0);
   private final OutputSocket<MatWrapper> imageSocket;
   private final OutputSocket<Number> fpsSocket;
-  private final Mat workingMat = new Mat();
-  @SuppressWarnings("PMD.LinguisticNaming")
-  private final AtomicBoolean isNewFrame = new AtomicBoolean(false);
+  private final FrameCountSockets frameCountSockets;
+  private final PlaybackMode playbackMode;
+  private final FrameQueue frameQueue;
+  private final DecodeAheadRing decodeAhead;
   private FFmpegFrameGrabber frameGrabber;
   private final OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
   private final EventBus eventBus;
-  private final ExecutorService manualGrabberService; // only for manual frame control
-  private ScheduledFuture<?> grabberFuture = null;
+  private final ExecutorService decoder;
+  /**
+   * Shows decoded frames at the video's frame rate. Only used in real time.
+   */
+  private final ScheduledExecutorService player;
+  /**
+   * Wakes up the decoder while it is waiting for the source to be resumed.
+   */
+  private final Object decoderLock = new Object();
+  /**
+   * The frame the decoder should move to next, or {@link #NO_SEEK}.
+   */
+  private final AtomicInteger seekTo = new AtomicInteger(NO_SEEK);
   private final Observable<Integer> currentFrame = Observable.synchronizedOf(0);
   private final Observable<Boolean> paused = Observable.synchronizedOf(false);
   private volatile int frameCount = -1;
@@ -63,7 +100,33 @@ public class VideoFileSource extends Source implements Pausable {
                   ExceptionWitness.Factory exceptionWitnessFactory,
                   EventBus eventBus,
                   @Assisted Properties properties) {
-    this(osf, exceptionWitnessFactory, eventBus, properties.getProperty("path"));
+    super(exceptionWitnessFactory);
+    this.eventBus = eventBus;
+    this.path = properties.getProperty("path");
+    this.properties = properties;
+    this.imageSocket = osf.create(imageHint);
+    this.fpsSocket = osf.create(fpsHint);
+    this.frameCountSockets = new FrameCountSockets(osf);
+    final String playbackProperty = properties.getProperty(PLAYBACK_PROPERTY);
+    this.playbackMode = playbackProperty == null
+        ? PlaybackMode.REAL_TIME
+        : PlaybackMode.valueOf(playbackProperty);
+    final String decodeAheadProperty = properties.getProperty(DECODE_AHEAD_PROPERTY);
+    final int decodeAheadLength = decodeAheadProperty == null
+        ? DEFAULT_DECODE_AHEAD
+        : Integer.parseInt(decodeAheadProperty);
+    if (playbackMode == PlaybackMode.AS_FAST_AS_POSSIBLE) {
+      // The frame queue holds the frames decoded ahead, and holds up the decoder when it's full
+      this.frameQueue = new FrameQueue(BackpressurePolicy.BLOCK_PRODUCER, decodeAheadLength);
+      this.decodeAhead = null;
+      this.player = null;
+    } else {
+      this.frameQueue = FrameQueue.fromProperties(properties);
+      this.decodeAhead = new DecodeAheadRing(decodeAheadLength);
+      this.player = Executors.newSingleThreadScheduledExecutor(DaemonThread::new);
+    }
+    this.decoder = Executors.newSingleThreadExecutor(DaemonThread::new);
+    this.paused.addObserver((previous, current) -> wakeDecoder());
   }
 
   @AssistedInject
@@ -71,19 +134,13 @@ public class VideoFileSource extends Source implements Pausable {
                   ExceptionWitness.Factory exceptionWitnessFactory,
                   EventBus eventBus,
                   @Assisted File file) {
-    this(osf, exceptionWitnessFactory, eventBus, file.getAbsolutePath());
+    this(osf, exceptionWitnessFactory, eventBus, createProperties(file));
   }
 
-  private VideoFileSource(OutputSocket.Factory osf,
-                          ExceptionWitness.Factory exceptionWitnessFactory,
-                          EventBus eventBus,
-                          String path) {
-    super(exceptionWitnessFactory);
-    this.eventBus = eventBus;
-    this.path = path;
-    this.imageSocket = osf.create(imageHint);
-    this.fpsSocket = osf.create(fpsHint);
-    this.manualGrabberService = Executors.newSingleThreadExecutor(DaemonThread::new);
+  private static Properties createProperties(File file) {
+    final Properties properties = new Properties();
+    properties.setProperty("path", file.getAbsolutePath());
+    return properties;
   }
 
   @Override
@@ -93,20 +150,23 @@ public class VideoFileSource extends Source implements Pausable {
 
   @Override
   protected List<OutputSocket> createOutputSockets() {
-    return ImmutableList.of(
-        imageSocket,
-        fpsSocket
-    );
+    return ImmutableList.<OutputSocket>builder()
+        .add(imageSocket)
+        .add(fpsSocket)
+        .addAll(frameCountSockets.sockets())
+        .build();
   }
 
   @Override
   protected boolean updateOutputSockets() {
-    if (isNewFrame.compareAndSet(true, false)) {
+    if (frameQueue.poll(imageSocket.getValue().get())) {
       // New frame, update outputs
-      synchronized (workingMat) {
-        workingMat.copyTo(imageSocket.getValue().get().rawCpu());
-      }
       imageSocket.setValue(imageSocket.getValue().get()); // force the socket to update
+      frameCountSockets.update(frameQueue);
+      if (frameQueue.hasPending()) {
+        // Queued frames each get their own run
+        eventBus.post(new SourceHasPendingUpdateEvent(this));
+      }
       return true;
     } else {
       // No new frame, no update
@@ -114,11 +174,21 @@ public class VideoFileSource extends Source implements Pausable {
     }
   }
 
+  @Override
+  public Optional<FrameQueue> getFrameQueue() {
+    return Optional.of(frameQueue);
+  }
+
   @Override
   public Properties getProperties() {
-    Properties p = new Properties();
-    p.put("path", path);
-    return p;
+    return properties;
+  }
+
+  /**
+   * @return how fast this source plays its video.
+   */
+  public PlaybackMode getPlaybackMode() {
+    return playbackMode;
   }
 
   @Override
@@ -130,21 +200,14 @@ public class VideoFileSource extends Source implements Pausable {
       fpsSocket.setValue(fps);
       frameCount = frameGrabber.getLengthInFrames();
       if (frameCount <= 1) {
-        // Only one frame, no point in scheduling automatic updates to grab the same
-        // image over and over
-        manualGrabberService.submit(this::grabNextFrame);
+        // Only one frame, no point in decoding the same image over and over
+        decoder.submit(this::decodeOneFrame);
       } else {
-        grabberFuture = Executors.newSingleThreadScheduledExecutor(DaemonThread::new)
-            .scheduleAtFixedRate(
-                () -> {
-                  if (!isPaused()) {
-                    grabNextFrame();
-                  }
-                },
-                0L,
-                (long) (1e3 / fps),
-                TimeUnit.MILLISECONDS
-            );
+        decoder.submit(this::decodeFrames);
+        if (player != null) {
+          player.scheduleAtFixedRate(() -> showNextFrame(false), 0L,
+              Math.round(TimeUnit.SECONDS.toMicros(1) / fps), TimeUnit.MICROSECONDS);
+        }
       }
     } catch (FrameGrabber.Exception e) {
       throw new IOException("Could not open video file " + path, e);
@@ -152,33 +215,118 @@ public class VideoFileSource extends Source implements Pausable {
   }
 
   /**
-   * Grabs the next frame from the video, or the first frame
-   * if the end of the file has been reached.
+   * Decodes frames until the source is removed, or until the end of the video when playing as fast
+   * as possible. Runs on the decoder thread, which is the only thread that uses the frame grabber.
    */
-  private void grabNextFrame() {
+  private void decodeFrames() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        awaitResumeOrSeek();
+        final int seek = seekTo.getAndSet(NO_SEEK);
+        if (seek != NO_SEEK) {
+          frameGrabber.setFrameNumber(seek);
+          if (decodeAhead != null) {
+            // Frames decoded from where the video was before are no longer wanted
+            decodeAhead.clear();
+          }
+        }
+        final Mat frame = grabNextFrame();
+        if (frame == null) {
+          if (playbackMode == PlaybackMode.AS_FAST_AS_POSSIBLE) {
+            // Every frame has been processed
+            return;
+          }
+          // End of the video file, loop back to the first frame
+          frameGrabber.setFrameNumber(0);
+          continue;
+        }
+        final int frameNumber = frameGrabber.getFrameNumber(); // best guess
+        if (decodeAhead == null) {
+          // Depending on the backpressure policy, this waits for the pipeline to catch up
+          show(frame, frameNumber);
+        } else {
+          decodeAhead.put(frame, frameNumber);
+          if (seek != NO_SEEK) {
+            // Show the frame that was moved to right away, even if the source is paused
+            player.execute(() -> showNextFrame(true));
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (FrameGrabber.Exception e) {
+      getExceptionWitness().flagException(e, "Could not decode the video");
+    }
+  }
+
+  private void decodeOneFrame() {
     try {
-      Frame frame = frameGrabber.grabFrame();
+      final Mat frame = grabNextFrame();
+      if (frame != null) {
+        show(frame, frameGrabber.getFrameNumber());
+      }
+    } catch (FrameGrabber.Exception e) {
+      getExceptionWitness().flagException(e, "Could not decode the video");
+    }
+  }
+
+  /**
+   * Grabs the next frame from the video.
+   *
+   * @return the frame, or null if the end of the file has been reached. The frame belongs to the
+   *     converter, which reuses it for the next frame, so it must be copied to be kept and must
+   *     not be released.
+   */
+  private Mat grabNextFrame() throws FrameGrabber.Exception {
+    while (true) {
+      final Frame frame = frameGrabber.grabFrame();
       if (frame == null) {
-        // End of the video file, loop back to the first frame
-        frameGrabber.setFrameNumber(0);
-        grabNextFrame();
-        return;
+        return null;
       }
-      Mat m = converter.convert(frame);
-      if (m == null) {
-        // Try again (I have no idea why this happens)
-        grabNextFrame();
-        return;
+      final Mat mat = converter.convert(frame);
+      if (mat != null) {
+        return mat;
       }
-      synchronized (workingMat) {
-        m.copyTo(workingMat);
+      // Try again (I have no idea why this happens)
+    }
+  }
+
+  /**
+   * Shows the next frame that was decoded ahead, unless the source is paused. Runs on the player
+   * thread.
+   *
+   * @param evenIfPaused true to show the frame even if the source is paused
+   */
+  private void showNextFrame(boolean evenIfPaused) {
+    if (isPaused() && !evenIfPaused) {
+      return;
+    }
+    final DecodeAheadRing.DecodedFrame decoded = decodeAhead.poll();
+    if (decoded == null) {
+      // Decoding has fallen behind
+      return;
+    }
+    show(decoded.mat, decoded.frameNumber);
+    decodeAhead.recycle(decoded);
+  }
+
+  private void show(Mat frame, int frameNumber) {
+    frameQueue.offer(frame);
+    currentFrame.set(frameNumber);
+    eventBus.post(new SourceHasPendingUpdateEvent(this));
+  }
+
+  private void awaitResumeOrSeek() throws InterruptedException {
+    synchronized (decoderLock) {
+      while (isPaused() && seekTo.get() == NO_SEEK) {
+        decoderLock.wait();
       }
-      m.release();
-      currentFrame.set(frameGrabber.getFrameNumber()); // best guess
-      isNewFrame.set(true);
-      eventBus.post(new SourceHasPendingUpdateEvent(this));
-    } catch (FrameGrabber.Exception e) {
-      getExceptionWitness().flagException(e);
+    }
+  }
+
+  private void wakeDecoder() {
+    synchronized (decoderLock) {
+      decoderLock.notifyAll();
     }
   }
 
@@ -217,12 +365,12 @@ public class VideoFileSource extends Source implements Pausable {
           "Frame number too high: " + frameNumber + " > " + frameGrabber.getLengthInFrames());
     }
     pause();
-    try {
-      frameGrabber.setFrameNumber(frameNumber);
-    } catch (FrameGrabber.Exception e) {
-      getExceptionWitness().flagException(e, "Could not set frame number");
+    seekTo.set(frameNumber);
+    if (decodeAhead != null) {
+      // Make room in case the decoder is waiting for some
+      decodeAhead.clear();
     }
-    manualGrabberService.submit(this::grabNextFrame);
+    wakeDecoder();
   }
 
   /**
@@ -243,13 +391,24 @@ public class VideoFileSource extends Source implements Pausable {
   public void onSourceRemoved(SourceRemovedEvent sourceRemovedEvent) {
     if (sourceRemovedEvent.getSource() == this) {
       try {
-        if (grabberFuture != null && !grabberFuture.isCancelled()) {
-          grabberFuture.cancel(true);
+        if (player != null) {
+          player.shutdownNow();
+        }
+        decoder.shutdownNow();
+        // Closing the queue lets the decoder go if it's waiting for the pipeline
+        frameQueue.close();
+        if (!decoder.awaitTermination(1, TimeUnit.SECONDS)) {
+          logger.warning("The decoder for " + path + " did not stop in time");
         }
         frameGrabber.stop();
       } catch (FrameGrabber.Exception e) {
         getExceptionWitness().flagException(e, "Exception when stopping frame grabber");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       } finally {
+        if (decodeAhead != null) {
+          decodeAhead.close();
+        }
         eventBus.unregister(this);
       }
     }
@@ -1,10 +1,16 @@
 package edu.wpi.grip.core.util;
 
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
 import org.bytedeco.javacpp.opencv_core.Mat;
 import org.bytedeco.javacpp.opencv_imgcodecs;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -12,6 +18,27 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * A utility wrapper for loading images from the file system.
  */
 public final class ImageLoadingUtility {
+
+  /**
+   * The bytes that files of each image format OpenCV can read start with.
+   */
+  private static final ImmutableList<byte[]> SIGNATURES = ImmutableList.of(
+      ascii("BM"), // BMP
+      bytes(0xFF, 0xD8, 0xFF), // JPEG
+      bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A), // PNG
+      ascii("II*\0"), ascii("MM\0*"), ascii("II+\0"), ascii("MM\0+"), // TIFF and BigTIFF
+      bytes(0x00, 0x00, 0x00, 0x0C, 'j', 'P', ' ', ' ', 0x0D, 0x0A, 0x87, 0x0A), // JPEG 2000
+      bytes(0xFF, 0x4F, 0xFF, 0x51), // JPEG 2000 codestream
+      ascii("P1"), ascii("P2"), ascii("P3"), ascii("P4"), ascii("P5"), ascii("P6"), // PBM/PGM/PPM
+      ascii("P7"), // PAM
+      bytes(0x59, 0xA6, 0x6A, 0x95), // Sun raster
+      ascii("#?RGBE"), ascii("#?RADIANCE"), // Radiance HDR
+      bytes(0x76, 0x2F, 0x31, 0x01) // OpenEXR
+  );
+  private static final byte[] RIFF = ascii("RIFF");
+  private static final byte[] WEBP = ascii("WEBP");
+  private static final int SIGNATURE_LENGTH = 12;
+
   private ImageLoadingUtility() { /* no op */ }
 
   public static void loadImage(String path, Mat dst) throws IOException {
@@ -36,4 +63,52 @@ public final class ImageLoadingUtility {
     }
   }
 
+  /**
+   * Checks if a file starts with the signature of an image format that OpenCV can read. This is the
+   * same check {@code imread} makes before decoding a file, but only the first few bytes of the
+   * file are read, so many files can be checked quickly without decoding any of them.
+   *
+   * @param path The location on the file system of the file to check.
+   *
+   * @throws IOException if the file can't be read
+   */
+  public static boolean hasImageSignature(String path) throws IOException {
+    checkNotNull(path, "The path can not be null");
+    final byte[] start = new byte[SIGNATURE_LENGTH];
+    final int length;
+    try (InputStream in = new FileInputStream(path)) {
+      length = ByteStreams.read(in, start, 0, start.length);
+    }
+    for (byte[] signature : SIGNATURES) {
+      if (startsWith(start, length, signature, 0)) {
+        return true;
+      }
+    }
+    // WebP files are RIFF files whose contents are labelled as WebP
+    return startsWith(start, length, RIFF, 0) && startsWith(start, length, WEBP, 8);
+  }
+
+  private static boolean startsWith(byte[] start, int length, byte[] signature, int offset) {
+    if (length < offset + signature.length) {
+      return false;
+    }
+    for (int i = 0; i < signature.length; i++) {
+      if (start[offset + i] != signature[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] ascii(String signature) {
+    return signature.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[] bytes(int... signature) {
+    final byte[] bytes = new byte[signature.length];
+    for (int i = 0; i < signature.length; i++) {
+      bytes[i] = (byte) signature[i];
+    }
+    return bytes;
+  }
 }
@@ -0,0 +1,180 @@
+package edu.wpi.grip.core.util;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps images that are no longer needed so that they can be reused for images with the same
+ * size and type, instead of allocating and freeing native memory for temporary images every
+ * frame.
+ *
+ * <p>An image is {@link #borrow borrowed} for as long as it is needed, then {@link #giveBack given
+ * back}. The pool holds a limited number of images of each shape and a limited number of bytes in
+ * total. Once there are more, the images of the shapes that were used least recently are freed.
+ * </p>
+ *
+ * <p>This class is thread safe.</p>
+ */
+@Singleton
+public class MatPool {
+
+  /**
+   * The default maximum number of bytes of images the pool holds on to.
+   */
+  public static final long DEFAULT_CAPACITY = 64 * 1024 * 1024;
+  /**
+   * The default maximum number of images of the same shape the pool holds on to.
+   */
+  public static final int DEFAULT_MATS_PER_SHAPE = 4;
+
+  private final long capacity;
+  private final int matsPerShape;
+  private final Map<Shape, Deque<Mat>> mats = new LinkedHashMap<>(16, 0.75f, true);
+  private long size = 0;
+
+  @Inject
+  public MatPool() {
+    this(DEFAULT_CAPACITY, DEFAULT_MATS_PER_SHAPE);
+  }
+
+  /**
+   * @param capacity     the maximum number of bytes of images to hold on to
+   * @param matsPerShape the maximum number of images with the same size and type to hold on to
+   */
+  public MatPool(long capacity, int matsPerShape) {
+    checkArgument(capacity >= 0, "The capacity cannot be negative");
+    checkArgument(matsPerShape >= 0, "The number of mats per shape cannot be negative");
+    this.capacity = capacity;
+    this.matsPerShape = matsPerShape;
+  }
+
+  /**
+   * Gets an image with the given size and type. The contents of the image are undefined.
+   *
+   * @return an image from the pool, or a newly allocated one if the pool has none of that shape
+   */
+  public Mat borrow(int rows, int cols, int type) {
+    checkArgument(rows >= 0 && cols >= 0, "The size of an image cannot be negative");
+    synchronized (this) {
+      final Shape shape = new Shape(rows, cols, type);
+      final Deque<Mat> pooled = mats.get(shape);
+      if (pooled != null) {
+        final Mat mat = pooled.pop();
+        if (pooled.isEmpty()) {
+          mats.remove(shape);
+        }
+        size -= bytesOf(mat);
+        return mat;
+      }
+    }
+    return new Mat(rows, cols, type);
+  }
+
+  /**
+   * Gives an image back to the pool, so that it can be borrowed again. The image must not be used
+   * after it has been given back, and must not share its data with any other image that is still
+   * in use. Images the pool has no room for are freed.
+   */
+  public void giveBack(Mat mat) {
+    if (mat.empty() || mat.dims() > 2 || !mat.isContinuous()) {
+      // Views into other images and images with more than two dimensions can't be reused as-is
+      mat.deallocate();
+      return;
+    }
+    final long bytes = bytesOf(mat);
+    synchronized (this) {
+      final Shape shape = new Shape(mat.rows(), mat.cols(), mat.type());
+      Deque<Mat> pooled = mats.get(shape);
+      final int count = pooled == null ? 0 : pooled.size();
+      if (bytes <= capacity && count < matsPerShape) {
+        if (pooled == null) {
+          pooled = new ArrayDeque<>();
+          mats.put(shape, pooled);
+        }
+        pooled.push(mat);
+        size += bytes;
+        evict();
+        return;
+      }
+    }
+    mat.deallocate();
+  }
+
+  /**
+   * Frees every image the pool is holding on to.
+   */
+  public synchronized void clear() {
+    for (Deque<Mat> pooled : mats.values()) {
+      pooled.forEach(Mat::deallocate);
+    }
+    mats.clear();
+    size = 0;
+  }
+
+  /**
+   * @return the number of bytes of images the pool is holding on to.
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  private void evict() {
+    final Iterator<Deque<Mat>> iterator = mats.values().iterator();
+    while (size > capacity && iterator.hasNext()) {
+      final Deque<Mat> pooled = iterator.next();
+      while (size > capacity && !pooled.isEmpty()) {
+        final Mat mat = pooled.removeLast();
+        size -= bytesOf(mat);
+        mat.deallocate();
+      }
+      if (pooled.isEmpty()) {
+        iterator.remove();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  static long bytesOf(Mat mat) {
+    return mat.total() * mat.elemSize();
+  }
+
+  private static final class Shape {
+    private final int rows;
+    private final int cols;
+    private final int type;
+
+    Shape(int rows, int cols, int type) {
+      this.rows = rows;
+      this.cols = cols;
+      this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Shape)) {
+        return false;
+      }
+      final Shape other = (Shape) o;
+      return rows == other.rows && cols == other.cols && type == other.type;
+    }
+
+    @Override
+    public int hashCode() {
+      return (rows * 31 + cols) * 31 + type;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package edu.wpi.grip.core.util;
+
+/**
+ * A value that owns native memory, such as a report that holds OpenCV objects. Once the pipeline
+ * is done with a value like this, it releases the value right away instead of waiting for the
+ * garbage collector to get around to it.
+ */
+public interface NativeResource {
+
+  /**
+   * Frees the native memory owned by this value. Nothing owned by this value can be used
+   * afterwards. Calling this more than once has no effect.
+   */
+  void release();
+
+  /**
+   * Estimates how much native memory this value owns, so that caches holding on to it can account
+   * for it.
+   *
+   * @return the approximate number of bytes owned by this value
+   */
+  default long estimatedSize() {
+    return 0;
+  }
+}
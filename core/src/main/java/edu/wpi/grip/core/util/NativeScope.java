@@ -0,0 +1,82 @@
+package edu.wpi.grip.core.util;
+
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Owns native objects that are only needed for a short time, such as the temporary images an
+ * operation uses while it runs, and frees them all as soon as the scope is closed. Their native
+ * memory is never left waiting for the Java objects to be garbage collected.
+ *
+ * <p>This works like JavaCPP's {@code PointerScope}, except that objects are only owned by the
+ * scope if they are attached to it explicitly. Anything that has to outlive the scope, like the
+ * values an operation outputs or the buffers it keeps between runs, is never freed by accident.
+ * </p>
+ * <pre><code>
+ * try (NativeScope scope = new NativeScope()) {
+ *   final Mat tmp = scope.attach(new Mat());
+ *   input.copyTo(tmp);
+ *   ...
+ * }
+ * </code></pre>
+ *
+ * <p>Images that a scope {@link #borrow borrows} from a {@link MatPool} are given back to the pool
+ * when the scope is closed, instead of being freed.</p>
+ */
+public final class NativeScope implements AutoCloseable {
+
+  private final Deque<Pointer> pointers = new ArrayDeque<>();
+  private final Deque<Loan> loans = new ArrayDeque<>();
+
+  /**
+   * Makes this scope the owner of a native object.
+   *
+   * @param pointer the object to free when this scope is closed
+   * @return the same object
+   */
+  public <P extends Pointer> P attach(P pointer) {
+    pointers.push(checkNotNull(pointer, "pointer"));
+    return pointer;
+  }
+
+  /**
+   * Borrows an image from a pool until this scope is closed.
+   *
+   * @see MatPool#borrow(int, int, int)
+   */
+  public Mat borrow(MatPool pool, int rows, int cols, int type) {
+    final Mat mat = pool.borrow(rows, cols, type);
+    loans.push(new Loan(pool, mat));
+    return mat;
+  }
+
+  /**
+   * Gives back every borrowed image and frees every object attached to this scope, most recent
+   * first.
+   */
+  @Override
+  public void close() {
+    while (!loans.isEmpty()) {
+      final Loan loan = loans.pop();
+      loan.pool.giveBack(loan.mat);
+    }
+    while (!pointers.isEmpty()) {
+      pointers.pop().deallocate();
+    }
+  }
+
+  private static final class Loan {
+    private final MatPool pool;
+    private final Mat mat;
+
+    Loan(MatPool pool, Mat mat) {
+      this.pool = pool;
+      this.mat = mat;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package edu.wpi.grip.core.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link NativeResource} that can be read off the pipeline thread, such as by a preview, while
+ * the pipeline may release it at any time.
+ *
+ * <p>Anything that reads the value away from the pipeline thread {@link #retain() retains} it
+ * first and {@link #unretain() unretains} it when it is done. Releasing the value only frees its
+ * native memory once every reader that retained it is done with it.</p>
+ *
+ * <p>This class is thread safe.</p>
+ */
+public abstract class SharedNativeResource implements NativeResource {
+
+  /**
+   * The number of readers holding the value, plus one for the pipeline until it releases the
+   * value. The memory is freed when this reaches zero.
+   */
+  private final AtomicInteger holders = new AtomicInteger(1);
+  private final AtomicBoolean released = new AtomicBoolean(false);
+
+  /**
+   * Keeps the native memory of this value from being freed until {@link #unretain()} is called.
+   *
+   * @return true if the value can be used, or false if it has already been freed. The value must
+   *     not be used, and {@link #unretain()} must not be called, if this returns false.
+   */
+  public final boolean retain() {
+    while (true) {
+      final int count = holders.get();
+      if (count == 0) {
+        return false;
+      }
+      if (holders.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Lets the native memory of this value be freed again after a successful {@link #retain()}. The
+   * value must not be used afterwards.
+   */
+  public final void unretain() {
+    drop();
+  }
+
+  /**
+   * Frees the native memory of this value, once every reader that retained it has unretained it.
+   * Calling this more than once has no effect.
+   */
+  @Override
+  public final void release() {
+    if (released.compareAndSet(false, true)) {
+      drop();
+    }
+  }
+
+  /**
+   * @return true if the native memory of this value has been freed.
+   */
+  public final boolean isFreed() {
+    return holders.get() == 0;
+  }
+
+  private void drop() {
+    if (holders.decrementAndGet() == 0) {
+      free();
+    }
+  }
+
+  /**
+   * Frees the native memory owned by this value. Called once, when nothing holds the value any
+   * more.
+   */
+  protected abstract void free();
+}
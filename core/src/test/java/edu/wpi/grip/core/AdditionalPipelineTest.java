@@ -0,0 +1,124 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.events.SourceAddedEvent;
+import edu.wpi.grip.core.http.GripServer;
+import edu.wpi.grip.core.operations.network.GripNetworkModule;
+import edu.wpi.grip.core.operations.network.MockGripNetworkModule;
+import edu.wpi.grip.core.sources.CameraSource;
+import edu.wpi.grip.core.sources.MockFrameGrabberFactory;
+import edu.wpi.grip.core.util.MockFileManager;
+import edu.wpi.grip.util.GripCoreTestModule;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AdditionalPipelineTest {
+
+  private GripCoreTestModule testModule;
+  private Injector mainInjector;
+  private EventRecorder sharedRecorder;
+
+  @Before
+  public void setUp() {
+    testModule = new GripCoreTestModule();
+    testModule.setUp();
+    sharedRecorder = new EventRecorder();
+    mainInjector = Guice.createInjector(Modules.override(testModule)
+        .with(new MockGripNetworkModule(), new AbstractModule() {
+          @Override
+          protected void configure() {
+            bind(EventRecorder.class).toInstance(sharedRecorder);
+          }
+        }));
+  }
+
+  @After
+  public void tearDown() {
+    testModule.tearDown();
+  }
+
+  @Test
+  public void testEventsOfSecondPipelineDoNotReachSharedComponents() {
+    final Injector second = createAdditionalPipeline("second");
+
+    second.getInstance(EventBus.class).post(new TestEvent());
+    assertTrue("An event of the second pipeline reached a component of the main pipeline",
+        sharedRecorder.events.isEmpty());
+
+    mainInjector.getInstance(EventBus.class).post(new TestEvent());
+    assertEquals("The events of the main pipeline should still reach its components",
+        1, sharedRecorder.events.size());
+  }
+
+  @Test
+  public void testEventsOfSecondPipelineOnlyChangeSecondPipeline() {
+    final Injector second = createAdditionalPipeline("second");
+    final Source source = new MockSource();
+
+    second.getInstance(EventBus.class).post(new SourceAddedEvent(source));
+
+    assertEquals("The source should have been added to the second pipeline",
+        Collections.singletonList(source), second.getInstance(Pipeline.class).getSources());
+    assertTrue("The source should not have been added to the main pipeline",
+        mainInjector.getInstance(Pipeline.class).getSources().isEmpty());
+  }
+
+  @Test
+  public void testSecondPipelineKeepsUncaughtExceptionHandler() {
+    final Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+    createAdditionalPipeline("second");
+    assertSame("Creating another pipeline should not replace the uncaught exception handler",
+        handler, Thread.getDefaultUncaughtExceptionHandler());
+  }
+
+  /**
+   * Creates the injector of a pipeline that runs alongside the main one, the way the headless app
+   * does.
+   */
+  private Injector createAdditionalPipeline(String name) {
+    return Guice.createInjector(
+        Modules.override(
+            GripCoreModule.forAdditionalPipeline(
+                mainInjector.getInstance(GripServer.class), sharedRecorder),
+            new MockGripNetworkModule()
+        ).with(
+            GripNetworkModule.sharedWith(mainInjector, new PipelineNamespace(name)),
+            new AbstractModule() {
+              @Override
+              protected void configure() {
+                bind(CameraSource.FrameGrabberFactory.class).to(MockFrameGrabberFactory.class);
+                bind(FileManager.class).to(MockFileManager.class);
+                bind(PipelineRunner.class).to(ManualPipelineRunner.class);
+                bind(EventRecorder.class).toInstance(sharedRecorder);
+              }
+            }));
+  }
+
+  public static final class TestEvent {
+  }
+
+  public static final class EventRecorder {
+    private final List<TestEvent> events = new ArrayList<>();
+
+    @Subscribe
+    public void onTestEvent(TestEvent event) {
+      events.add(event);
+    }
+  }
+}
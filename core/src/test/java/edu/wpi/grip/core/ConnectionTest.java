@@ -1,5 +1,6 @@
 package edu.wpi.grip.core;
 
+import edu.wpi.grip.core.events.ConnectionAddedEvent;
 import edu.wpi.grip.core.events.ConnectionRemovedEvent;
 import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.MockInputSocketFactory;
@@ -43,6 +44,7 @@ public class ConnectionTest {
   public void testInputSocketChanges() {
     final Connection<Number> connection = new Connection(eventBus, new MockPipeline(), foo, bar);
     eventBus.register(connection);
+    eventBus.post(new ConnectionAddedEvent(connection));
 
     foo.setValue(testValue);
     assertEquals(testValue, bar.getValue().get());
@@ -50,6 +52,31 @@ public class ConnectionTest {
     eventBus.unregister(connection);
   }
 
+  @Test
+  public void testInputSocketChangesWithoutEventBus() {
+    final Connection<Number> connection = new Connection<>(eventBus, new MockPipeline(), foo, bar);
+    eventBus.register(connection);
+    eventBus.post(new ConnectionAddedEvent(connection));
+    eventBus.unregister(connection);
+
+    foo.setValue(testValue);
+    assertEquals("The output socket should push its value straight to the connection",
+        testValue, bar.getValue().get());
+  }
+
+  @Test
+  public void testRemovedConnectionDoesNotChangeInputSocket() {
+    final Connection<Number> connection = new Connection<>(eventBus, new MockPipeline(), foo, bar);
+    eventBus.register(connection);
+    eventBus.post(new ConnectionAddedEvent(connection));
+    eventBus.post(new ConnectionRemovedEvent(connection));
+
+    foo.setValue(testValue);
+    assertEquals(0.0, bar.getValue().get().doubleValue(), 0.01);
+
+    eventBus.unregister(connection);
+  }
+
   @Test
   public void testInputSocketResets() {
     final Connection<Number> connection = new Connection<>(eventBus, new MockPipeline(), foo, bar);
@@ -1,7 +1,24 @@
 package edu.wpi.grip.core;
 
+import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
+import edu.wpi.grip.core.settings.AppSettings;
+import edu.wpi.grip.core.settings.CodeGenerationSettings;
+import edu.wpi.grip.core.settings.ProjectSettings;
+import edu.wpi.grip.core.settings.SettingsProvider;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class CoreCommandLineHelperTest {
@@ -70,4 +87,74 @@ public class CoreCommandLineHelperTest {
     assertTrue("The application didn't exit", exited[0]);
   }
 
+  @Test
+  public void testRunPolicy() {
+    final ProjectSettings[] posted = {null};
+    final EventBus eventBus = new EventBus();
+    eventBus.register(new Object() {
+      @Subscribe
+      public void onProjectSettingsChanged(ProjectSettingsChangedEvent event) {
+        posted[0] = event.getProjectSettings();
+      }
+    });
+    final SettingsProvider settingsProvider = new SettingsProvider() {
+      @Override
+      public ProjectSettings getProjectSettings() {
+        return new ProjectSettings();
+      }
+
+      @Override
+      public AppSettings getAppSettings() {
+        return new AppSettings();
+      }
+
+      @Override
+      public CodeGenerationSettings getCodeGenerationSettings() {
+        return CodeGenerationSettings.DEFAULT_SETTINGS;
+      }
+    };
+
+    final MockHelper m = new MockHelper();
+    m.setRunPolicy(m.parse("--run-policy", "limited-rate", "--run-rate", "15"),
+        settingsProvider, eventBus);
+
+    assertNotNull("The new settings were not posted", posted[0]);
+    assertEquals("The run policy was not set", RunPolicy.LIMITED_RATE, posted[0].getRunPolicy());
+    assertEquals("The run rate was not set", 15, posted[0].getRunRate(), 0);
+  }
+
+  @Test
+  public void testAdditionalPipelines() {
+    final MockHelper m = new MockHelper();
+    final Map<String, File> pipelines = m.getAdditionalPipelines(m.parse(
+        "--pipeline", "targets=targets.grip",
+        "--pipeline", "balls=balls.grip",
+        "--pipeline", "no name.grip",
+        "--pipeline", "balls=other.grip"));
+
+    assertEquals("Only the valid pipelines should be loaded, in order",
+        ImmutableList.of("targets", "balls"), ImmutableList.copyOf(pipelines.keySet()));
+    assertEquals(new File("balls.grip"), pipelines.get("balls"));
+  }
+
+  @Test
+  public void testBenchmark() {
+    final MockHelper m = new MockHelper();
+    assertTrue(m.isBenchmark(m.parse("--benchmark", "100", "--warmup", "10")));
+    assertFalse(m.isBenchmark(m.parse("--port", "8080")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBenchmarkWithoutRuns() throws IOException, InterruptedException {
+    final MockHelper m = new MockHelper();
+    // The arguments are checked before the benchmark is used
+    m.runBenchmark(m.parse("--benchmark", "0"), null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBenchmarkWithBadReportFile() throws IOException, InterruptedException {
+    final MockHelper m = new MockHelper();
+    m.runBenchmark(m.parse("--benchmark", "10", "--report", "report.txt"), null);
+  }
+
 }
@@ -0,0 +1,56 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.sockets.SocketHints;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An operation that adds one to its input, for testing how steps are scheduled.
+ */
+public class IncrementOperation implements Operation {
+  public static final OperationDescription DESCRIPTION = OperationDescription.builder()
+      .name("Increment")
+      .summary("Adds one to a number")
+      .build();
+
+  final InputSocket<Number> input;
+  final OutputSocket<Number> output;
+  final AtomicInteger performCount = new AtomicInteger();
+  private final Runnable onPerform;
+
+  public IncrementOperation(InputSocket.Factory isf, OutputSocket.Factory osf) {
+    this(isf, osf, () -> { });
+  }
+
+  /**
+   * @param onPerform run every time the operation performs, before the output is set.
+   */
+  public IncrementOperation(InputSocket.Factory isf, OutputSocket.Factory osf,
+                            Runnable onPerform) {
+    this.input = isf.create(SocketHints.createNumberSocketHint("Input", 0));
+    this.output = osf.create(SocketHints.Outputs.createNumberSocketHint("Output", 0));
+    this.onPerform = onPerform;
+  }
+
+  @Override
+  public List<InputSocket> getInputSockets() {
+    return ImmutableList.of(input);
+  }
+
+  @Override
+  public List<OutputSocket> getOutputSockets() {
+    return ImmutableList.of(output);
+  }
+
+  @Override
+  public void perform() {
+    performCount.incrementAndGet();
+    onPerform.run();
+    output.setValue(input.getValue().get().intValue() + 1);
+  }
+}
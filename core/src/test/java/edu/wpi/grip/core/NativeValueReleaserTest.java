@@ -0,0 +1,169 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.sockets.SocketHint;
+import edu.wpi.grip.core.sockets.SocketHints;
+import edu.wpi.grip.core.util.SharedNativeResource;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NativeValueReleaserTest {
+
+  private ResourceOperation operation;
+  private Step step;
+  private StepOutputCache cache;
+  private NativeValueReleaser releaser;
+
+  @Before
+  public void setUp() {
+    cache = new StepOutputCache();
+    final StepFixture fixture = new StepFixture(cache);
+    operation = new ResourceOperation(fixture.isf, fixture.osf);
+    step = fixture.step(operation);
+    releaser = new NativeValueReleaser();
+  }
+
+  @Test
+  public void testReplacedOutputIsReleasedAfterOneMoreRun() {
+    final Resource first = run(1);
+    final Resource second = run(2);
+    assertFalse("A value should not be released in the run that replaced it", first.released);
+
+    releaser.releaseUnused(new Step[]{step}, Sets.newIdentityHashSet());
+    assertTrue("A replaced value should be released one run later", first.released);
+    assertFalse("The current output should not be released", second.released);
+  }
+
+  @Test
+  public void testValueInUseIsNotReleased() {
+    final Resource first = run(1);
+    run(2);
+    final Set<Object> inUse = Sets.newIdentityHashSet();
+    inUse.add(first);
+    releaser.releaseUnused(new Step[]{step}, inUse);
+    assertFalse("A value that is still used should not be released", first.released);
+
+    releaser.releaseUnused(new Step[]{step}, Sets.newIdentityHashSet());
+    assertTrue("The value should be released once it is not used", first.released);
+  }
+
+  @Test
+  public void testCachedValueIsNotReleased() {
+    cache.setCapacity(1024 * 1024);
+    final Resource first = run(1);
+    run(2);
+    releaser.releaseUnused(new Step[]{step}, Sets.newIdentityHashSet());
+    assertFalse("A value in the output cache should not be released", first.released);
+  }
+
+  @Test
+  public void testOutputOfRemovedStepIsReleased() {
+    final Resource output = run(1);
+    releaser.releaseUnused(new Step[0], Sets.newIdentityHashSet());
+    releaser.releaseUnused(new Step[0], Sets.newIdentityHashSet());
+    assertTrue("The output of a removed step should be released", output.released);
+  }
+
+  @Test
+  public void testValueBeingPreviewedIsFreedOncePreviewIsDone() throws InterruptedException {
+    final Resource first = run(1);
+    final CountDownLatch previewing = new CountDownLatch(1);
+    final CountDownLatch released = new CountDownLatch(1);
+    final AtomicBoolean freedWhilePreviewing = new AtomicBoolean();
+    final Thread preview = new Thread(() -> {
+      if (!first.retain()) {
+        return;
+      }
+      try {
+        previewing.countDown();
+        released.await();
+        freedWhilePreviewing.set(first.released);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        first.unretain();
+      }
+    });
+    preview.start();
+    assertTrue("The preview should have started",
+        previewing.await(5, TimeUnit.SECONDS));
+
+    run(2);
+    releaser.releaseUnused(new Step[]{step}, Sets.newIdentityHashSet());
+    released.countDown();
+    preview.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertFalse("A value should not be freed while a preview is reading it",
+        freedWhilePreviewing.get());
+    assertTrue("The value should be freed once the preview is done with it", first.released);
+  }
+
+  @Test
+  public void testFreedValueCannotBePreviewed() {
+    final Resource first = run(1);
+    run(2);
+    releaser.releaseUnused(new Step[]{step}, Sets.newIdentityHashSet());
+    assertFalse("A preview should not be able to read a freed value", first.retain());
+  }
+
+  /**
+   * Runs the step with a new input and lets the releaser see the result.
+   */
+  private Resource run(int input) {
+    operation.input.setValue(input);
+    step.runPerform(false);
+    releaser.releaseUnused(new Step[]{step}, Sets.newIdentityHashSet());
+    return operation.output.getValue().get();
+  }
+
+  private static final class Resource extends SharedNativeResource {
+    private volatile boolean released = false;
+
+    @Override
+    protected void free() {
+      released = true;
+    }
+  }
+
+  private static final class ResourceOperation implements Operation {
+    private final InputSocket<Number> input;
+    private final OutputSocket<Resource> output;
+
+    ResourceOperation(InputSocket.Factory isf, OutputSocket.Factory osf) {
+      input = isf.create(SocketHints.createNumberSocketHint("Input", 0));
+      output = osf.create(new SocketHint.Builder<>(Resource.class)
+          .identifier("Output")
+          .initialValueSupplier(Resource::new)
+          .build());
+    }
+
+    @Override
+    public List<InputSocket> getInputSockets() {
+      return ImmutableList.of(input);
+    }
+
+    @Override
+    public List<OutputSocket> getOutputSockets() {
+      return ImmutableList.of(output);
+    }
+
+    @Override
+    public void perform() {
+      output.setValue(new Resource());
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelStepSchedulerTest {
+
+  private StepFixture fixture;
+  private InputSocket.Factory isf;
+  private OutputSocket.Factory osf;
+  private ParallelStepScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    fixture = new StepFixture();
+    isf = fixture.isf;
+    osf = fixture.osf;
+    scheduler = new ParallelStepScheduler(4);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testConnectedStepsRunInOrder() {
+    final IncrementOperation first = new IncrementOperation(isf, osf);
+    final IncrementOperation second = new IncrementOperation(isf, osf);
+    final IncrementOperation third = new IncrementOperation(isf, osf);
+    final List<Step> steps =
+        ImmutableList.of(fixture.step(first), fixture.step(second), fixture.step(third));
+    fixture.connect(first.output, second.input);
+    fixture.connect(second.output, third.input);
+
+    first.input.setValue(0);
+    scheduler.run(steps, false, () -> true);
+
+    assertEquals("Each step should have seen the value from the step before it",
+        3, third.output.getValue().get().intValue());
+  }
+
+  @Test
+  public void testIndependentStepsRunConcurrently() {
+    final CyclicBarrier barrier = new CyclicBarrier(2);
+    final Runnable awaitOther = () -> {
+      try {
+        barrier.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+        throw new IllegalStateException("The other step was not running at the same time", e);
+      }
+    };
+    final IncrementOperation left = new IncrementOperation(isf, osf, awaitOther);
+    final IncrementOperation right = new IncrementOperation(isf, osf, awaitOther);
+    final List<Step> steps = ImmutableList.of(fixture.step(left), fixture.step(right));
+
+    left.input.setValue(0);
+    right.input.setValue(0);
+    scheduler.run(steps, false, () -> true);
+
+    assertEquals("The left step should not have failed", 1,
+        left.output.getValue().get().intValue());
+    assertEquals("The right step should not have failed", 1,
+        right.output.getValue().get().intValue());
+  }
+
+  @Test
+  public void testNoStepsRunWhenStopped() {
+    final IncrementOperation operation = new IncrementOperation(isf, osf);
+    final List<Step> steps =
+        ImmutableList.of(fixture.step(operation), fixture.step(new MockOperation()));
+
+    operation.input.setValue(0);
+    scheduler.run(steps, false, () -> false);
+
+    assertEquals("The step should not have performed", 0, operation.performCount.get());
+  }
+
+  @Test
+  public void testCleanStepsDoNotPerform() {
+    final IncrementOperation operation = new IncrementOperation(isf, osf);
+    final List<Step> steps =
+        ImmutableList.of(fixture.step(operation), fixture.step(new MockOperation()));
+
+    operation.input.setValue(0);
+    scheduler.run(steps, false, () -> true);
+    scheduler.run(steps, false, () -> true);
+
+    assertEquals("The step should only perform when its input is dirty",
+        1, operation.performCount.get());
+  }
+}
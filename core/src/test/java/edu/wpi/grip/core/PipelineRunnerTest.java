@@ -1,10 +1,13 @@
 package edu.wpi.grip.core;
 
 import edu.wpi.grip.core.events.ExceptionEvent;
+import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
 import edu.wpi.grip.core.events.RenderEvent;
 import edu.wpi.grip.core.events.RunPipelineEvent;
+import edu.wpi.grip.core.events.StepAddedEvent;
 import edu.wpi.grip.core.events.StopPipelineEvent;
 import edu.wpi.grip.core.metrics.MockTimer;
+import edu.wpi.grip.core.settings.ProjectSettings;
 import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.MockInputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
@@ -27,9 +30,11 @@ import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -260,6 +265,39 @@ public class PipelineRunnerTest {
       runner.stopAndAwait();
     }
 
+    @Test
+    @SuppressWarnings("PMD.AvoidDuplicateLiterals")
+    public void testManualRunPolicyOnlyRunsWhenTriggered()
+        throws TimeoutException, InterruptedException {
+      eventBus.register(new RenderWaiterResumer(renderWaiter));
+      final PipelineRunner runner = new PipelineRunner(eventBus,
+          () -> ImmutableList.of(sourceCounter),
+          () -> ImmutableList.of(runCounterStep),
+          MockTimer.MOCK_FACTORY);
+      runner.addListener(failureListener, MoreExecutors.directExecutor());
+      final ProjectSettings settings = new ProjectSettings();
+      settings.setRunPolicy(RunPolicy.MANUAL);
+      runner.onProjectSettingsChanged(new ProjectSettingsChangedEvent(settings));
+
+      runner.startAsync().awaitRunning();
+      // Changing the policy wakes the pipeline thread once
+      renderWaiter.await(10, TimeUnit.SECONDS);
+      final int runs = sourceCounter.updateCount;
+
+      runner.onRunPipeline(new RunPipelineEvent() {
+        // Defaults to true
+      });
+      Thread.sleep(250);
+      assertEquals("The pipeline should not run on changes", runs, sourceCounter.updateCount);
+
+      runner.trigger();
+      renderWaiter.await(10, TimeUnit.SECONDS);
+
+      assertEquals("Only the trigger should have run the pipeline", runs + 1,
+          sourceCounter.updateCount);
+      runner.stopAndAwait();
+    }
+
     @Test
     @SuppressWarnings("PMD.AvoidDuplicateLiterals")
     public void testRemovedStepWillNotRun() {
@@ -356,6 +394,48 @@ public class PipelineRunnerTest {
 
   }
 
+  public static class PlanTests {
+    private EventBus eventBus;
+    private AtomicInteger stepSupplierCalls;
+    private List<Step> steps;
+    private PipelineRunner runner;
+
+    @Before
+    public void setUp() {
+      eventBus = new EventBus();
+      stepSupplierCalls = new AtomicInteger();
+      steps = new ArrayList<>();
+      runner = new PipelineRunner(eventBus, () -> ImmutableList.of(), () -> {
+        stepSupplierCalls.incrementAndGet();
+        return ImmutableList.copyOf(steps);
+      }, MockTimer.MOCK_FACTORY);
+      eventBus.register(runner);
+    }
+
+    @Test
+    public void testPlanIsOnlyBuiltWhenTheStructureChanges() {
+      runner.runPipeline();
+      runner.runPipeline();
+      runner.runPipeline();
+      assertEquals("The steps should only have been read for the first run", 1,
+          stepSupplierCalls.get());
+    }
+
+    @Test
+    public void testAddedStepsAreRun() {
+      final RunCounterOperation operation = new RunCounterOperation();
+      runner.runPipeline();
+
+      final Step step = new Step.Factory(MockExceptionWitness.MOCK_FACTORY, MockTimer.MOCK_FACTORY)
+          .create(new OperationMetaData(RunCounterOperation.DESCRIPTION, () -> operation));
+      steps.add(step);
+      eventBus.post(new StepAddedEvent(step));
+      runner.runPipeline();
+
+      assertEquals("The added step should have run", 1, operation.performCount);
+    }
+  }
+
   static class RenderWaiterResumer {
     private final Waiter waiter;
 
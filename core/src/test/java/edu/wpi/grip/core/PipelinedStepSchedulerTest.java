@@ -0,0 +1,103 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class PipelinedStepSchedulerTest {
+
+  private StepFixture fixture;
+  private PipelinedStepScheduler scheduler;
+
+  private IncrementOperation first;
+  private IncrementOperation second;
+  private IncrementOperation third;
+  private List<Step> steps;
+
+  @Before
+  public void setUp() {
+    fixture = new StepFixture();
+    final InputSocket.Factory isf = fixture.isf;
+    final OutputSocket.Factory osf = fixture.osf;
+    scheduler = new PipelinedStepScheduler(4);
+
+    first = new IncrementOperation(isf, osf);
+    second = new IncrementOperation(isf, osf);
+    third = new IncrementOperation(isf, osf);
+    steps = ImmutableList.of(fixture.step(first), fixture.step(second), fixture.step(third));
+    fixture.connect(first.output, second.input);
+    fixture.connect(second.output, third.input);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testValuesMoveOneStagePerRun() {
+    first.input.setValue(10);
+
+    scheduler.run(steps, false, () -> true);
+    assertEquals("The first stage should have seen the new value", 11,
+        first.output.getValue().get().intValue());
+    assertEquals("The second stage should not have seen the new value yet", 0,
+        second.input.getValue().get().intValue());
+
+    scheduler.run(steps, false, () -> true);
+    assertEquals("The second stage should have seen the new value", 12,
+        second.output.getValue().get().intValue());
+    assertEquals("The third stage should not have seen the new value yet", 1,
+        third.input.getValue().get().intValue());
+
+    scheduler.run(steps, false, () -> true);
+    assertEquals("The value should have made it through every stage", 13,
+        third.output.getValue().get().intValue());
+  }
+
+  @Test
+  public void testRunsUntilNothingIsInFlight() {
+    first.input.setValue(10);
+
+    int runs = 0;
+    while (scheduler.run(steps, false, () -> true)) {
+      runs++;
+      assertFalse("The pipeline should have drained", runs > 10);
+    }
+
+    assertEquals("The value should have made it through every stage", 13,
+        third.output.getValue().get().intValue());
+  }
+
+  @Test
+  public void testConnectionsLeftOutOfANewGraphAreRestored() {
+    final StepGraph graph = StepGraph.of(steps);
+    scheduler.run(graph, false, () -> true);
+    scheduler.run(graph, false, () -> true);
+    scheduler.run(StepGraph.of(steps.subList(0, 2)), false, () -> true);
+
+    second.output.setValue(42);
+    assertEquals("Values should move along a connection once its step is no longer scheduled", 42,
+        third.input.getValue().get().intValue());
+  }
+
+  @Test
+  public void testConnectionsAreRestoredOnShutdown() {
+    scheduler.run(steps, false, () -> true);
+    scheduler.shutdown();
+
+    first.output.setValue(42);
+    assertEquals("Values should move along the connection immediately after shutting down", 42,
+        second.input.getValue().get().intValue());
+  }
+}
@@ -0,0 +1,101 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.metrics.MockTimer;
+import edu.wpi.grip.core.operations.composite.ValveOperation;
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StepDemandTest {
+
+  private StepFixture fixture;
+  private InputSocket.Factory isf;
+  private OutputSocket.Factory osf;
+
+  @Before
+  public void setUp() {
+    fixture = new StepFixture();
+    isf = fixture.isf;
+    osf = fixture.osf;
+  }
+
+  @Test
+  public void testNothingIsNeededWithoutSinks() {
+    final IncrementOperation first = new IncrementOperation(isf, osf);
+    final IncrementOperation second = new IncrementOperation(isf, osf);
+    final ImmutableList<Step> steps = ImmutableList.of(fixture.step(first), fixture.step(second));
+    fixture.connect(first.output, second.input);
+
+    assertEquals("No steps should be needed", ImmutableList.of(), StepDemand.neededSteps(steps));
+  }
+
+  @Test
+  public void testPreviewedStepPullsInUpstreamSteps() {
+    final IncrementOperation first = new IncrementOperation(isf, osf);
+    final IncrementOperation second = new IncrementOperation(isf, osf);
+    final IncrementOperation unused = new IncrementOperation(isf, osf);
+    final Step firstStep = fixture.step(first);
+    final Step secondStep = fixture.step(second);
+    final ImmutableList<Step> steps = ImmutableList.of(firstStep, fixture.step(unused), secondStep);
+    fixture.connect(first.output, second.input);
+    second.output.setPreviewed(true);
+
+    assertEquals("The previewed step and the step feeding it should be needed",
+        ImmutableList.of(firstStep, secondStep), StepDemand.neededSteps(steps));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testClosedValvePrunesItsInput() {
+    final IncrementOperation behindValve = new IncrementOperation(isf, osf);
+    final ValveOperation valve = new ValveOperation(isf, osf);
+    final IncrementOperation last = new IncrementOperation(isf, osf);
+    final Step behindValveStep = fixture.step(behindValve);
+    final Step valveStep = fixture.step(valve);
+    final Step lastStep = fixture.step(last);
+    final ImmutableList<Step> steps = ImmutableList.of(behindValveStep, valveStep, lastStep);
+    fixture.connect(behindValve.output, valve.getInputSockets().get(1));
+    fixture.connect(valve.getOutputSockets().get(0), last.input);
+    last.output.setPreviewed(true);
+
+    assertEquals("Every step should be needed while the valve is open",
+        steps, StepDemand.neededSteps(steps));
+
+    valve.getInputSockets().get(0).setValue(false);
+    assertEquals("The step behind the valve should not be needed while the valve is closed",
+        ImmutableList.of(valveStep, lastStep), StepDemand.neededSteps(steps));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPlanFollowsValve() {
+    final IncrementOperation behindValve = new IncrementOperation(isf, osf);
+    final ValveOperation valve = new ValveOperation(isf, osf);
+    final Step behindValveStep = fixture.step(behindValve);
+    final Step valveStep = fixture.step(valve);
+    final ImmutableList<Step> steps = ImmutableList.of(behindValveStep, valveStep);
+    fixture.connect(behindValve.output, valve.getInputSockets().get(1));
+    valve.getOutputSockets().get(0).setPreviewed(true);
+
+    final ExecutionPlan plan = ExecutionPlan.compile(ImmutableList.of(), steps,
+        MockTimer.simpleFactory(fixture.eventBus));
+    assertEquals("Every step should be needed while the valve is open",
+        steps, plan.neededGraph().getSteps());
+    assertFalse("Nothing has changed since the plan was built", plan.demandChanged());
+
+    valve.getInputSockets().get(0).setValue(false);
+    assertTrue("Closing the valve should change what it demands", plan.demandChanged());
+    final ExecutionPlan closed = plan.withCurrentDemand();
+    assertEquals("The step behind the closed valve should not be needed",
+        ImmutableList.of(valveStep), closed.neededGraph().getSteps());
+    assertFalse("The new plan should match the closed valve", closed.demandChanged());
+  }
+}
@@ -0,0 +1,55 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.events.ConnectionAddedEvent;
+import edu.wpi.grip.core.metrics.MockTimer;
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.MockInputSocketFactory;
+import edu.wpi.grip.core.sockets.MockOutputSocketFactory;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.util.MockExceptionWitness;
+
+import com.google.common.eventbus.EventBus;
+
+/**
+ * Creates steps and connections on a plain event bus, for tests that run steps without a whole
+ * pipeline.
+ */
+final class StepFixture {
+
+  final EventBus eventBus = new EventBus();
+  final InputSocket.Factory isf = new MockInputSocketFactory(eventBus);
+  final OutputSocket.Factory osf = new MockOutputSocketFactory(eventBus);
+  private final Step.Factory stepFactory;
+
+  StepFixture() {
+    stepFactory = new Step.Factory(MockExceptionWitness.simpleFactory(eventBus),
+        MockTimer.simpleFactory(eventBus));
+  }
+
+  /**
+   * @param cache the cache the steps keep their outputs in
+   */
+  StepFixture(StepOutputCache cache) {
+    stepFactory = new Step.Factory(MockExceptionWitness.simpleFactory(eventBus),
+        MockTimer.simpleFactory(eventBus), cache);
+  }
+
+  /**
+   * Creates a step that runs the given operation.
+   */
+  Step step(Operation operation) {
+    return stepFactory.create(new OperationMetaData(IncrementOperation.DESCRIPTION,
+        () -> operation));
+  }
+
+  /**
+   * Connects two sockets, as if the user had dragged a connection between them.
+   */
+  @SuppressWarnings("unchecked")
+  void connect(OutputSocket output, InputSocket input) {
+    final Connection connection =
+        new Connection(eventBus, (outputSocket, inputSocket) -> true, output, input);
+    eventBus.register(connection);
+    eventBus.post(new ConnectionAddedEvent(connection));
+  }
+}
@@ -0,0 +1,117 @@
+package edu.wpi.grip.core;
+
+import edu.wpi.grip.core.sockets.InputSocket;
+import edu.wpi.grip.core.sockets.OutputSocket;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC3;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class StepOutputCacheTest {
+
+  private StepFixture fixture;
+  private InputSocket.Factory isf;
+  private OutputSocket.Factory osf;
+  private StepOutputCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new StepOutputCache();
+    cache.setCapacity(1024 * 1024);
+    fixture = new StepFixture(cache);
+    isf = fixture.isf;
+    osf = fixture.osf;
+  }
+
+  @Test
+  public void testRepeatedInputsRestoreOutputs() {
+    final IncrementOperation operation = new IncrementOperation(isf, osf);
+    final Step step = fixture.step(operation);
+
+    operation.input.setValue(1);
+    step.runPerform(false);
+    operation.input.setValue(2);
+    step.runPerform(false);
+    operation.input.setValue(1);
+    step.runPerform(false);
+
+    assertEquals("The operation should not perform for inputs it has already seen",
+        2, operation.performCount.get());
+    assertEquals("The output for the repeated input should have been restored",
+        2, operation.output.getValue().get().intValue());
+  }
+
+  @Test
+  public void testStatefulOperationsAlwaysPerform() {
+    final IncrementOperation operation = new IncrementOperation(isf, osf) {
+      @Override
+      public boolean isStateless() {
+        return false;
+      }
+    };
+    final Step step = fixture.step(operation);
+
+    operation.input.setValue(1);
+    step.runPerform(false);
+    operation.input.setValue(1);
+    step.runPerform(false);
+
+    assertEquals("A stateful operation should perform every time", 2,
+        operation.performCount.get());
+  }
+
+  @Test
+  public void testDisabledCacheAlwaysPerforms() {
+    cache.setCapacity(0);
+    final IncrementOperation operation = new IncrementOperation(isf, osf);
+    final Step step = fixture.step(operation);
+
+    operation.input.setValue(1);
+    step.runPerform(false);
+    operation.input.setValue(2);
+    step.runPerform(false);
+    operation.input.setValue(1);
+    step.runPerform(false);
+
+    assertEquals("The operation should perform every time", 3, operation.performCount.get());
+  }
+
+  @Test
+  public void testOutputsWithoutImagesAreLimited() {
+    final IncrementOperation operation = new IncrementOperation(isf, osf);
+    final Step step = fixture.step(operation);
+
+    for (int i = 0; i < StepOutputCache.MAX_ENTRIES * 2; i++) {
+      operation.input.setValue(i);
+      step.runPerform(false);
+    }
+
+    assertEquals("The cache should stop growing once it is full",
+        StepOutputCache.MAX_ENTRIES, cache.entryCount());
+    operation.input.setValue(StepOutputCache.MAX_ENTRIES * 2 - 2);
+    step.runPerform(false);
+    assertEquals("Recent outputs should have been kept",
+        StepOutputCache.MAX_ENTRIES * 2, operation.performCount.get());
+    operation.input.setValue(0);
+    step.runPerform(false);
+    assertEquals("The oldest outputs should have been evicted",
+        StepOutputCache.MAX_ENTRIES * 2 + 1, operation.performCount.get());
+  }
+
+  @Test
+  public void testImageFingerprintsDependOnContents() {
+    final Mat red = new Mat(4, 4, CV_8UC3, new Scalar(0, 0, 255, 0));
+    final Mat alsoRed = new Mat(4, 4, CV_8UC3, new Scalar(0, 0, 255, 0));
+    final Mat blue = new Mat(4, 4, CV_8UC3, new Scalar(255, 0, 0, 0));
+
+    assertEquals("Images with the same contents should have the same fingerprint",
+        new StepOutputCache.MatFingerprint(red), new StepOutputCache.MatFingerprint(alsoRed));
+    assertNotEquals("Images with different contents should have different fingerprints",
+        new StepOutputCache.MatFingerprint(red), new StepOutputCache.MatFingerprint(blue));
+  }
+}
@@ -1,5 +1,7 @@
 package edu.wpi.grip.core.http;
 
+import edu.wpi.grip.core.PipelineNamespace;
+
 import org.eclipse.jetty.server.Request;
 import org.junit.After;
 import org.junit.Test;
@@ -11,6 +13,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class GenericHandlerTest {
@@ -47,6 +50,30 @@ public class GenericHandlerTest {
     assertEquals("Context was wrong", context, gh.getContext());
   }
 
+  @Test
+  public void testNamespacedContext() {
+    final GenericHandler handler = new GenericHandler(
+        store.forNamespace(new PipelineNamespace("balls")), GripServer.DATA_PATH, true) {
+      @Override
+      public void handle(String target,
+                         Request baseRequest,
+                         HttpServletRequest request,
+                         HttpServletResponse response) {
+        // NOP
+      }
+    };
+    try {
+      assertEquals("The context should be in the namespace of the pipeline",
+          "/GRIP/balls/data", handler.getContext());
+      assertTrue("The namespaced context should be claimed in the shared store",
+          store.contains("/GRIP/balls/data"));
+      assertFalse("The main pipeline's context should not be claimed",
+          store.contains(GripServer.DATA_PATH));
+    } finally {
+      handler.releaseContext();
+    }
+  }
+
   @After
   public void tearDown() {
     if (gh != null) {
@@ -0,0 +1,79 @@
+package edu.wpi.grip.core.metrics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BenchmarkReportTest {
+
+  private BenchmarkReport report;
+
+  @Before
+  public void setUp() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    // The warmup run shouldn't show up in the report
+    histogram.record(5000);
+    final LatencyHistogram.Snapshot warmedUp = histogram.snapshot();
+    histogram.record(1000);
+    histogram.record(3000);
+    report = BenchmarkReport.builder(1, 2)
+        .add("1. Blur", "step", histogram.snapshot().since(warmedUp))
+        .add("Camera, front", "source", LatencyHistogram.Snapshot.EMPTY)
+        .build();
+  }
+
+  @Test
+  public void testJson() throws IOException {
+    final StringWriter writer = new StringWriter();
+    report.writeJson(writer);
+
+    final JsonObject json = new JsonParser().parse(writer.toString()).getAsJsonObject();
+    assertEquals(1, json.get("warmupRuns").getAsInt());
+    assertEquals(2, json.get("measuredRuns").getAsInt());
+    final JsonArray results = json.getAsJsonArray("results");
+    assertEquals(2, results.size());
+    final JsonObject blur = results.get(0).getAsJsonObject();
+    assertEquals("1. Blur", blur.get("name").getAsString());
+    assertEquals("step", blur.get("kind").getAsString());
+    assertEquals("Only the measured runs should be counted", 2, blur.get("count").getAsLong());
+    assertEquals(2000, blur.get("mean").getAsDouble(), 0.001);
+    assertEquals(1000, blur.get("standardDeviation").getAsDouble(), 0.001);
+    assertTrue("The 99th percentile should be close to the slowest run",
+        Math.abs(blur.get("p99").getAsLong() - 3000) <= 3000 * 0.07);
+  }
+
+  @Test
+  public void testCsv() throws IOException {
+    final StringWriter writer = new StringWriter();
+    report.writeCsv(writer);
+
+    final String[] lines = writer.toString().split("\n");
+    assertEquals("There should be a header and one line per row", 3, lines.length);
+    assertTrue(lines[1], lines[1].startsWith("1. Blur,step,2,2000.0,1000.0,"));
+    assertEquals("Commas in names should not add columns",
+        lines[0].split(",").length, lines[2].split(",").length);
+  }
+
+  @Test
+  public void testCanWriteTo() {
+    assertTrue(BenchmarkReport.canWriteTo(new File("report.json")));
+    assertTrue(BenchmarkReport.canWriteTo(new File("REPORT.CSV")));
+    assertFalse(BenchmarkReport.canWriteTo(new File("report.txt")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoMeasuredRuns() {
+    BenchmarkReport.builder(10, 0);
+  }
+}
@@ -0,0 +1,94 @@
+package edu.wpi.grip.core.metrics;
+
+import com.google.common.base.Stopwatch;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderTest {
+
+  @Test
+  public void testKeepsMostRecentSpans() {
+    final FlightRecorder recorder = new FlightRecorder(4);
+    final long now = System.nanoTime();
+    for (int i = 0; i < 6; i++) {
+      recorder.record(FlightRecorder.Category.STEP, "Step " + i, 1, now + i, 1);
+    }
+    final List<FlightRecorder.Span> spans = recorder.getSpans(1, TimeUnit.MINUTES);
+
+    assertEquals("Only the newest spans should be kept once the buffer is full", 4, spans.size());
+    assertEquals("Step 2", spans.get(0).getName());
+    assertEquals("Step 5", spans.get(3).getName());
+  }
+
+  @Test
+  public void testOldSpansAreOutsideWindow() {
+    final FlightRecorder recorder = new FlightRecorder(4);
+    final long now = System.nanoTime();
+    recorder.record(FlightRecorder.Category.SOURCE, "Old", 1, now - TimeUnit.MINUTES.toNanos(2), 1);
+    recorder.record(FlightRecorder.Category.SOURCE, "New", 1, now, 1);
+    final List<FlightRecorder.Span> spans = recorder.getSpans(1, TimeUnit.MINUTES);
+
+    assertEquals(1, spans.size());
+    assertEquals("New", spans.get(0).getName());
+  }
+
+  @Test
+  public void testDisabledRecorderRecordsNothing() {
+    final FlightRecorder recorder = new FlightRecorder(4);
+    recorder.setEnabled(false);
+    recorder.end(FlightRecorder.Category.CONNECTION, "Connection", recorder.begin());
+
+    assertTrue(recorder.getSpans(1, TimeUnit.MINUTES).isEmpty());
+    assertTrue(FlightRecorder.NONE.getSpans(1, TimeUnit.MINUTES).isEmpty());
+  }
+
+  @Test
+  public void testTimerRecordsSpans() {
+    final FlightRecorder recorder = new FlightRecorder(4);
+    final Timer timer = new Timer(new MetricsRegistry(), recorder, this,
+        Stopwatch.createUnstarted(new MockTimer.MockTicker()));
+    timer.time(() -> {
+    });
+    final List<FlightRecorder.Span> spans = recorder.getSpans(1, TimeUnit.MINUTES);
+
+    assertEquals(1, spans.size());
+    assertEquals(FlightRecorder.Category.EVENT, spans.get(0).getCategory());
+    assertEquals("FlightRecorderTest", spans.get(0).getName());
+    assertEquals(TimeUnit.SECONDS.toNanos(1), spans.get(0).getDurationNanos());
+  }
+
+  @Test
+  public void testChromeTrace() throws IOException {
+    final FlightRecorder recorder = new FlightRecorder(4);
+    final long now = System.nanoTime();
+    recorder.record(FlightRecorder.Category.STEP, "Blur", 7, now, 2_000);
+    recorder.record(FlightRecorder.Category.GC, "G1 Young Generation", 0, now + 1_000, 500);
+    final StringWriter writer = new StringWriter();
+    recorder.writeChromeTrace(writer, 1, TimeUnit.MINUTES);
+
+    final JsonArray events = new JsonParser().parse(writer.toString()).getAsJsonObject()
+        .getAsJsonArray("traceEvents");
+    final JsonObject blur = events.get(0).getAsJsonObject();
+    assertEquals("Blur", blur.get("name").getAsString());
+    assertEquals("step", blur.get("cat").getAsString());
+    assertEquals("X", blur.get("ph").getAsString());
+    assertEquals(0, blur.get("ts").getAsDouble(), 0);
+    assertEquals(2, blur.get("dur").getAsDouble(), 0);
+    assertEquals(7, blur.get("tid").getAsLong());
+    final JsonObject gc = events.get(1).getAsJsonObject();
+    assertEquals("gc", gc.get("cat").getAsString());
+    assertEquals("Times should be relative to the first span", 1, gc.get("ts").getAsDouble(), 0);
+    assertEquals("Each thread should be named", 4, events.size());
+  }
+}
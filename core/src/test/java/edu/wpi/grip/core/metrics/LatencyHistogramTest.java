@@ -0,0 +1,99 @@
+package edu.wpi.grip.core.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+      final long lowerBound = LatencyHistogram.lowerBoundOf(i);
+      assertEquals("The lower bound of bucket " + i + " should be counted in it",
+          i, LatencyHistogram.indexOf(lowerBound));
+      assertEquals("The value before bucket " + i + " should be in the previous bucket",
+          i - 1, LatencyHistogram.indexOf(lowerBound - 1));
+    }
+    assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testMeanAndStandardDeviationAreExact() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1000);
+    histogram.record(3000);
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(2, snapshot.getCount());
+    assertEquals(2000, snapshot.getMean(), 0);
+    assertEquals(1000, snapshot.getStandardDeviation(), 1e-6);
+    assertEquals(1000, snapshot.getMin());
+    assertEquals(3000, snapshot.getMax());
+    assertEquals(3000, histogram.getLast());
+  }
+
+  @Test
+  public void testPercentilesAreWithinBucketError() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 100);
+    }
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertWithinError(50_000, snapshot.getPercentile(50));
+    assertWithinError(95_000, snapshot.getPercentile(95));
+    assertWithinError(99_000, snapshot.getPercentile(99));
+    assertEquals("The 100th percentile should be the largest value",
+        100_000, snapshot.getPercentile(100));
+  }
+
+  @Test
+  public void testSnapshotDifference() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(10);
+    final LatencyHistogram.Snapshot before = histogram.snapshot();
+    histogram.record(20);
+    histogram.record(30);
+    final LatencyHistogram.Snapshot difference = histogram.snapshot().since(before);
+
+    assertEquals("Only the values recorded after the first snapshot should be counted",
+        2, difference.getCount());
+    assertEquals(25, difference.getMean(), 0);
+    assertEquals(20, difference.getMin());
+    assertEquals(30, difference.getMax());
+  }
+
+  @Test
+  public void testCountAtMost() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(10);
+    histogram.record(20);
+    histogram.record(1000);
+    histogram.record(5000);
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(0, snapshot.getCountAtMost(-1));
+    assertEquals(1, snapshot.getCountAtMost(19));
+    assertEquals(2, snapshot.getCountAtMost(20));
+    assertEquals("Values that might be larger should not be counted",
+        2, snapshot.getCountAtMost(1000));
+    assertEquals(3, snapshot.getCountAtMost(
+        LatencyHistogram.lowerBoundOf(LatencyHistogram.indexOf(1000) + 1) - 1));
+    assertEquals(4, snapshot.getCountAtMost(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testEmptyHistogram() {
+    final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMean(), 0);
+    assertEquals(0, snapshot.getPercentile(99));
+  }
+
+  private static void assertWithinError(long expected, long actual) {
+    assertTrue("Expected about " + expected + " but was " + actual,
+        Math.abs(actual - expected) <= expected * 0.07);
+  }
+}
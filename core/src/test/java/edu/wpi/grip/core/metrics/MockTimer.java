@@ -14,7 +14,21 @@ public class MockTimer extends Timer {
   public static final MockTimer.Factory MOCK_FACTORY = simpleFactory(EventBus::new);
 
   public MockTimer(EventBus eventBus, Object source) {
-    super(eventBus, source, Stopwatch.createUnstarted(new MockTicker()));
+    this(registeredRegistry(eventBus), source);
+  }
+
+  public MockTimer(MetricsRegistry metricsRegistry, Object source) {
+    super(metricsRegistry, source, Stopwatch.createUnstarted(new MockTicker()));
+  }
+
+  /**
+   * Creates a metrics registry that forgets the histograms of steps and sources removed through
+   * the given event bus, like the one used by the app.
+   */
+  private static MetricsRegistry registeredRegistry(EventBus eventBus) {
+    final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    eventBus.register(metricsRegistry);
+    return metricsRegistry;
   }
 
   public static Timer.Factory simpleFactory(Supplier<EventBus> eventBusSupplier) {
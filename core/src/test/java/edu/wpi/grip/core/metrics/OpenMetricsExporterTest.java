@@ -0,0 +1,82 @@
+package edu.wpi.grip.core.metrics;
+
+import edu.wpi.grip.core.metrics.OpenMetricsExporter.Type;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpenMetricsExporterTest {
+
+  @Test
+  public void testCounterAndGauge() {
+    final String text = new OpenMetricsExporter()
+        .family("grip_frames", Type.COUNTER, "", "Frames")
+        .counter(12, "source", "Camera")
+        .family("grip_heap_bytes", Type.GAUGE, "bytes", "Heap")
+        .gauge(1024)
+        .export();
+
+    assertEquals("# TYPE grip_frames counter\n"
+        + "# HELP grip_frames Frames\n"
+        + "grip_frames_total{source=\"Camera\"} 12\n"
+        + "# TYPE grip_heap_bytes gauge\n"
+        + "# UNIT grip_heap_bytes bytes\n"
+        + "# HELP grip_heap_bytes Heap\n"
+        + "grip_heap_bytes 1024\n"
+        + "# EOF\n", text);
+  }
+
+  @Test
+  public void testHistogram() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(50);
+    histogram.record(3_000_000);
+    final String text = new OpenMetricsExporter()
+        .family("grip_step_duration_seconds", Type.HISTOGRAM, "seconds", "Steps")
+        .histogram(histogram.snapshot(), "step", "1. Blur", "operation", "Blur")
+        .export();
+
+    final String labels = "step=\"1. Blur\",operation=\"Blur\"";
+    assertTrue(text, text.contains(
+        "grip_step_duration_seconds_bucket{" + labels + ",le=\"0.0001\"} 1\n"));
+    assertTrue(text, text.contains(
+        "grip_step_duration_seconds_bucket{" + labels + ",le=\"2.5\"} 1\n"));
+    assertTrue(text, text.contains(
+        "grip_step_duration_seconds_bucket{" + labels + ",le=\"5\"} 2\n"));
+    assertTrue(text, text.contains(
+        "grip_step_duration_seconds_bucket{" + labels + ",le=\"+Inf\"} 2\n"));
+    assertTrue(text, text.contains("grip_step_duration_seconds_count{" + labels + "} 2\n"));
+    assertTrue(text, text.contains("grip_step_duration_seconds_sum{" + labels + "} 3.00005\n"));
+  }
+
+  @Test
+  public void testLabelValuesAreEscaped() {
+    final String text = new OpenMetricsExporter()
+        .family("grip_frames", Type.COUNTER, "", "Frames")
+        .counter(1, "source", "C:\\\"front\"\n")
+        .export();
+
+    assertTrue(text, text.contains("grip_frames_total{source=\"C:\\\\\\\"front\\\"\\n\"} 1\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFamilyOnlyOnce() {
+    new OpenMetricsExporter()
+        .family("grip_frames", Type.COUNTER, "", "Frames")
+        .family("grip_frames", Type.COUNTER, "", "Frames");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnitMustBeInName() {
+    new OpenMetricsExporter().family("grip_heap", Type.GAUGE, "bytes", "Heap");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSampleMustMatchFamily() {
+    new OpenMetricsExporter()
+        .family("grip_heap_bytes", Type.GAUGE, "bytes", "Heap")
+        .counter(1);
+  }
+}
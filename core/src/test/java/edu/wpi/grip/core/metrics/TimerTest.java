@@ -26,7 +26,7 @@ public class TimerTest {
 
   @Test(expected = IllegalStateException.class)
   public void testStartedTwice() {
-    Timer timer = new Timer(eventBus, this);
+    Timer timer = new Timer(new MetricsRegistry(), this);
     timer.started();
     timer.started();
     fail("Timer should have thrown an exception");
@@ -34,14 +34,14 @@ public class TimerTest {
 
   @Test(expected = IllegalStateException.class)
   public void testStoppedWhenNotStarted() {
-    Timer timer = new Timer(eventBus, this);
+    Timer timer = new Timer(new MetricsRegistry(), this);
     timer.stop();
     fail("Timer should have thrown an exception");
   }
 
   @Test(expected = IllegalStateException.class)
   public void testStoppedTwice() {
-    Timer timer = new Timer(eventBus, this);
+    Timer timer = new Timer(new MetricsRegistry(), this);
     timer.started();
     timer.stop();
     timer.stop();
@@ -79,9 +79,20 @@ public class TimerTest {
     assertTrue("Did not run", ran.get());
   }
 
+  @Test
+  public void testRecordsIntoRegistry() {
+    final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    Timer timer = new MockTimer(metricsRegistry, this);
+    timer.time(() -> { });
+    timer.time(() -> { });
+    final LatencyHistogram.Snapshot snapshot = metricsRegistry.find(this).get().snapshot();
+    assertEquals("Both runs should have been recorded", 2, snapshot.getCount());
+    assertEquals(WRONG_TIME_MSG, 1_000_000, snapshot.getMean(), 0);
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testTimeThrowsException() {
-    Timer timer = new Timer(eventBus, this);
+    Timer timer = new Timer(new MetricsRegistry(), this);
     timer.started();
     timer.time(() -> { });
     fail("An exception should have been thrown");
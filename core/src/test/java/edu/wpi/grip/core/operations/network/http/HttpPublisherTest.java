@@ -11,6 +11,7 @@ import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.MockInputSocketFactory;
 
 import com.google.common.eventbus.EventBus;
+import com.google.common.net.HttpHeaders;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
@@ -32,9 +33,9 @@ import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
 
 public class HttpPublisherTest {
 
@@ -42,7 +43,7 @@ public class HttpPublisherTest {
   private static final String noDataPath = "/GRIP/data?no_data_here";
   private static final String empty = "{}";
   private static final String name = "foo";
-  private static final String json = "{\n  \"foo\": 1.0\n}";
+  private static final String json = "{\"foo\":1.0}";
   private static final String unexpectedResponseMsg = "Unexpected response to data request";
 
   private EventBus eventBus;
@@ -103,29 +104,67 @@ public class HttpPublisherTest {
   @Test
   public void testWhenPipelineRunning() throws IOException {
     perform();
-    // Stop the pipeline after (about) 500ms
-    new Timer().schedule(new TimerTask() {
-      @Override
-      public void run() {
-        eventBus.post(new RunStoppedEvent());
-      }
-    }, 500);
-    // Start the pipeline. Will get stopped in a bit by the timer task
     eventBus.post(new RunStartedEvent());
-    doGet(dataPath); // should block
-    assertEquals("Data handler should have run", json, doGetText(dataPath));
+    dataHandler.addDataSupplier("some_data", () -> "some_value");
+    assertEquals("Data from an unfinished run should not be sent", json, doGetText(dataPath));
+    eventBus.post(new RunStoppedEvent());
+    assertEquals("Data should be sent once the run is done",
+        "{\"foo\":1.0,\"some_data\":\"some_value\"}", doGetText(dataPath));
   }
 
   @Test
   public void testNotPost() throws IOException {
-    dataHandler.addDataSupplier("fail", () -> {
-      fail("This should not have been called");
-      return null;
-    });
+    final AtomicInteger calls = new AtomicInteger();
+    dataHandler.addDataSupplier("count", calls::incrementAndGet);
     HttpResponse response = doPost(dataPath);
     assertEquals("Server should have returned a 405 status",
         405,
         response.getStatusLine().getStatusCode());
+    assertEquals("A POST should not get the data", 1, calls.get());
+  }
+
+  @Test
+  public void testNotModified() throws IOException {
+    perform();
+    final HttpResponse first = doGet(dataPath);
+    EntityUtils.consume(first.getEntity());
+    final String etag = first.getFirstHeader(HttpHeaders.ETAG).getValue();
+
+    final HttpResponse unchanged = doGet(dataPath, etag);
+    EntityUtils.consume(unchanged.getEntity());
+    assertEquals("Unchanged data should not be sent again",
+        304, unchanged.getStatusLine().getStatusCode());
+
+    dataHandler.addDataSupplier("some_data", () -> "some_value");
+    final HttpResponse changed = doGet(dataPath, etag);
+    EntityUtils.consume(changed.getEntity());
+    assertEquals("Changed data should be sent", 200, changed.getStatusLine().getStatusCode());
+  }
+
+  @Test
+  public void testLongPoll() throws IOException {
+    perform();
+    final long version = dataHandler.getVersion();
+    // Change the data after (about) 500ms, while the request is waiting for it
+    new Timer().schedule(new TimerTask() {
+      @Override
+      public void run() {
+        dataHandler.addDataSupplier("some_data", () -> "some_value");
+      }
+    }, 500);
+    assertEquals("The request should wait for newer data",
+        "{\"foo\":1.0,\"some_data\":\"some_value\"}",
+        doGetText(dataPath + "?" + DataHandler.SINCE_PARAMETER + "=" + version));
+    assertEquals("A request for older data should not wait", json,
+        doGetText("/GRIP/data?foo&" + DataHandler.SINCE_PARAMETER + "=" + version));
+  }
+
+  @Test
+  public void testLongPollTimesOut() throws IOException {
+    perform();
+    dataHandler.setLongPollTimeout(200);
+    assertEquals("A request should get the current data once it has waited long enough", json,
+        doGetText(dataPath + "?" + DataHandler.SINCE_PARAMETER + "=" + dataHandler.getVersion()));
   }
 
   @Test
@@ -133,7 +172,7 @@ public class HttpPublisherTest {
     perform();
     dataHandler.addDataSupplier("some_data", () -> "some_value");
     assertEquals(unexpectedResponseMsg,
-        "{\n  \"foo\": 1.0,\n  \"some_data\": \"some_value\"\n}",
+        "{\"foo\":1.0,\"some_data\":\"some_value\"}",
         doGetText(dataPath));
     assertEquals(unexpectedResponseMsg, json, doGetText("/GRIP/data?foo"));
     dataHandler.removeDataSupplier("some_data");
@@ -170,6 +209,13 @@ public class HttpPublisherTest {
     return client.execute(get);
   }
 
+  private HttpResponse doGet(String path, String etag) throws IOException {
+    String uri = "http://localhost:" + server.getPort() + path;
+    HttpGet get = new HttpGet(uri);
+    get.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+    return client.execute(get);
+  }
+
   private HttpResponse doPost(String path) throws IOException {
     String uri = "http://localhost:" + server.getPort() + path;
     HttpPost post = new HttpPost(uri);
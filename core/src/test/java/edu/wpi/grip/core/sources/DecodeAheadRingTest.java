@@ -0,0 +1,83 @@
+package edu.wpi.grip.core.sources;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+import org.junit.Test;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DecodeAheadRingTest {
+
+  @Test
+  public void testFramesAreTakenInOrder() throws InterruptedException {
+    final DecodeAheadRing ring = new DecodeAheadRing(3);
+    ring.put(frame(1), 10);
+    ring.put(frame(2), 11);
+    assertEquals(2, ring.size());
+
+    final DecodeAheadRing.DecodedFrame first = ring.poll();
+    assertEquals(1, valueOf(first.mat));
+    assertEquals(10, first.frameNumber);
+    final DecodeAheadRing.DecodedFrame second = ring.poll();
+    assertEquals(2, valueOf(second.mat));
+    assertEquals(11, second.frameNumber);
+    assertNull("There should be no more frames", ring.poll());
+  }
+
+  @Test
+  public void testRecycledImagesAreReused() throws InterruptedException {
+    final DecodeAheadRing ring = new DecodeAheadRing(1);
+    ring.put(frame(1), 0);
+    final DecodeAheadRing.DecodedFrame shown = ring.poll();
+    ring.recycle(shown);
+    ring.put(frame(2), 1);
+    assertSame("The image of a shown frame should be reused", shown, ring.poll());
+    assertEquals(2, valueOf(shown.mat));
+  }
+
+  @Test(timeout = 5000)
+  public void testDecoderWaitsForRoom() throws InterruptedException {
+    final DecodeAheadRing ring = new DecodeAheadRing(1);
+    ring.put(frame(1), 0);
+    final Thread decoder = new Thread(() -> {
+      try {
+        ring.put(frame(2), 1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    decoder.start();
+    decoder.join(200);
+    assertTrue("The decoder should wait while the ring is full", decoder.isAlive());
+
+    ring.clear();
+    decoder.join();
+    assertEquals("The frame should have been put in once there was room", 2,
+        valueOf(ring.poll().mat));
+  }
+
+  @Test
+  public void testCloseReleasesImages() throws InterruptedException {
+    final DecodeAheadRing ring = new DecodeAheadRing(2);
+    ring.put(frame(1), 0);
+    final DecodeAheadRing.DecodedFrame shown = ring.poll();
+    ring.put(frame(2), 1);
+    ring.close();
+    assertEquals(0, ring.size());
+
+    ring.recycle(shown);
+    assertTrue("Frames recycled after closing should be released", shown.mat.empty());
+  }
+
+  private static Mat frame(int value) {
+    return new Mat(2, 2, CV_8UC1, new Scalar(value));
+  }
+
+  private static int valueOf(Mat mat) {
+    return mat.ptr(0, 0).get() & 0xFF;
+  }
+}
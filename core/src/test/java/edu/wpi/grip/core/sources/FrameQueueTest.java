@@ -0,0 +1,146 @@
+package edu.wpi.grip.core.sources;
+
+import edu.wpi.grip.core.MatWrapper;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.bytedeco.javacpp.opencv_core.mean;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrameQueueTest {
+
+  @Test
+  public void testDropOldestKeepsNewestFrame() {
+    final FrameQueue queue = new FrameQueue(BackpressurePolicy.DROP_OLDEST, 5);
+    queue.offer(frame(1));
+    queue.offer(frame(2));
+    queue.offer(frame(3));
+
+    final MatWrapper destination = MatWrapper.emptyWrapper();
+    assertTrue("There should be a frame to take", queue.poll(destination));
+    assertEquals("The newest frame should be taken", 3, valueOf(destination));
+    assertFalse("Older frames should have been dropped", queue.poll(destination));
+    assertEquals("Three frames were captured", 3, queue.getCapturedCount());
+    assertEquals("One frame was processed", 1, queue.getProcessedCount());
+    assertEquals("Two frames were dropped", 2, queue.getDroppedCount());
+  }
+
+  @Test
+  public void testDropOldestHandsOverFrameWithoutCopying() {
+    final FrameQueue queue = new FrameQueue(BackpressurePolicy.DROP_OLDEST, 1);
+    queue.offer(frame(1));
+    final MatWrapper destination = MatWrapper.emptyWrapper();
+    assertTrue(queue.poll(destination));
+    final long taken = destination.getCpu().data().address();
+
+    queue.offer(frame(2));
+    queue.offer(frame(3));
+    queue.offer(frame(4));
+    assertEquals("Newer frames should not overwrite the frame the pipeline took", 1,
+        valueOf(destination));
+    assertEquals(taken, destination.getCpu().data().address());
+
+    assertTrue(queue.poll(destination));
+    assertEquals(4, valueOf(destination));
+    assertNotEquals("The frame should be shared with the destination, not copied into it", taken,
+        destination.getCpu().data().address());
+  }
+
+  @Test(timeout = 10000)
+  public void testDropOldestNeverHandsOverTornFrames() throws InterruptedException {
+    final FrameQueue queue = new FrameQueue(BackpressurePolicy.DROP_OLDEST, 1);
+    final Mat frame = new Mat(64, 64, CV_8UC1);
+    final Thread producer = new Thread(() -> {
+      for (int i = 0; i < 5000; i++) {
+        frame.put(new Scalar(i % 256));
+        queue.offer(frame);
+      }
+    });
+    producer.start();
+
+    final MatWrapper destination = MatWrapper.emptyWrapper();
+    while (producer.isAlive() || queue.hasPending()) {
+      if (queue.poll(destination)) {
+        assertEquals("Every pixel should come from the same frame", valueOf(destination),
+            mean(destination.getCpu()).get(0), 0);
+      }
+    }
+    producer.join();
+    assertEquals(5000, queue.getProcessedCount() + queue.getDroppedCount());
+  }
+
+  @Test
+  public void testQueueKeepsFramesInOrder() {
+    final FrameQueue queue = new FrameQueue(BackpressurePolicy.QUEUE, 2);
+    queue.offer(frame(1));
+    queue.offer(frame(2));
+    queue.offer(frame(3));
+
+    final MatWrapper destination = MatWrapper.emptyWrapper();
+    assertTrue(queue.poll(destination));
+    assertEquals("The oldest frame that fit in the queue should be taken first", 2,
+        valueOf(destination));
+    assertTrue("The queue should still have a frame", queue.hasPending());
+    assertTrue(queue.poll(destination));
+    assertEquals(3, valueOf(destination));
+    assertEquals("Only the frame that didn't fit should have been dropped", 1,
+        queue.getDroppedCount());
+  }
+
+  @Test(timeout = 5000)
+  public void testBlockProducerWaitsForPipeline() throws InterruptedException {
+    final FrameQueue queue = new FrameQueue(BackpressurePolicy.BLOCK_PRODUCER, 1);
+    queue.offer(frame(1));
+    final Thread producer = new Thread(() -> queue.offer(frame(2)));
+    producer.start();
+    producer.join(200);
+    assertTrue("The producer should wait while the queue is full", producer.isAlive());
+
+    final MatWrapper destination = MatWrapper.emptyWrapper();
+    assertTrue(queue.poll(destination));
+    producer.join();
+    assertTrue(queue.poll(destination));
+    assertEquals("The second frame should have been queued", 2, valueOf(destination));
+    assertEquals("No frames should be dropped", 0, queue.getDroppedCount());
+  }
+
+  @Test(timeout = 5000)
+  public void testCloseReleasesBlockedProducer() throws InterruptedException {
+    final FrameQueue queue = new FrameQueue(BackpressurePolicy.BLOCK_PRODUCER, 1);
+    queue.offer(frame(1));
+    final Thread producer = new Thread(() -> queue.offer(frame(2)));
+    producer.start();
+    queue.close();
+    producer.join();
+    assertFalse("A closed queue should not hold any frames", queue.hasPending());
+  }
+
+  @Test
+  public void testPolicyIsReadFromProperties() {
+    final Properties properties = new Properties();
+    assertEquals("Sources drop old frames by default", BackpressurePolicy.DROP_OLDEST,
+        FrameQueue.fromProperties(properties).getPolicy());
+
+    properties.setProperty(FrameQueue.POLICY_PROPERTY, BackpressurePolicy.QUEUE.name());
+    properties.setProperty(FrameQueue.LENGTH_PROPERTY, "8");
+    final FrameQueue queue = FrameQueue.fromProperties(properties);
+    assertEquals(BackpressurePolicy.QUEUE, queue.getPolicy());
+    assertEquals(8, queue.getCapacity());
+  }
+
+  private static Mat frame(int value) {
+    return new Mat(2, 2, CV_8UC1, new Scalar(value));
+  }
+
+  private static int valueOf(MatWrapper wrapper) {
+    return wrapper.getCpu().ptr(0, 0).get() & 0xFF;
+  }
+}
@@ -0,0 +1,37 @@
+package edu.wpi.grip.core.sources;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class HttpImageHandlerTest {
+
+  @Test
+  public void testSameBytesHaveSameHash() {
+    final ByteBuffer direct = ByteBuffer.allocateDirect(64);
+    direct.put(bytes("xxxxThe same image"));
+    direct.flip();
+    direct.position(4);
+    assertEquals("The hash should only depend on the bytes between the position and limit",
+        HttpImageHandler.hash(ByteBuffer.wrap(bytes("The same image"))),
+        HttpImageHandler.hash(direct));
+  }
+
+  @Test
+  public void testDifferentBytesHaveDifferentHashes() {
+    assertNotEquals("Images that differ in one byte should have different hashes",
+        HttpImageHandler.hash(ByteBuffer.wrap(bytes("An image of 17 by"))),
+        HttpImageHandler.hash(ByteBuffer.wrap(bytes("An image of 17 bz"))));
+    assertNotEquals("Images that differ in a whole word should have different hashes",
+        HttpImageHandler.hash(ByteBuffer.wrap(bytes("12345678abc"))),
+        HttpImageHandler.hash(ByteBuffer.wrap(bytes("12345679abc"))));
+  }
+
+  private static byte[] bytes(String string) {
+    return string.getBytes(StandardCharsets.US_ASCII);
+  }
+}
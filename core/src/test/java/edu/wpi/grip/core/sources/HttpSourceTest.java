@@ -14,6 +14,8 @@ import com.google.common.eventbus.EventBus;
 
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.FileEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
@@ -25,7 +27,11 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.Properties;
 
+import static org.bytedeco.javacpp.opencv_core.CV_8UC3;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -37,13 +43,14 @@ public class HttpSourceTest {
   private File logoFile;
 
   private GripServer server;
+  private ContextStore contextStore;
   private HttpSource source;
   private CloseableHttpClient postClient;
 
   @Before
   public void setUp() throws URISyntaxException {
     GripServer.JettyServerFactory f = new GripServerTest.TestServerFactory();
-    ContextStore contextStore = new ContextStore();
+    contextStore = new ContextStore();
     server = GripServerTest.makeServer(contextStore, f, new Pipeline());
     server.start();
     EventBus eventBus = new EventBus();
@@ -77,12 +84,80 @@ public class HttpSourceTest {
         imageSource.getValue().get().empty());
 
     doPost(GripServer.IMAGE_UPLOAD_PATH, logoFile);
-    source.updateOutputSockets();
+    awaitImage(source);
     assertFalse(
         "The value should now be present after POSTing the image",
         imageSource.getValue().get().empty());
   }
 
+  @Test
+  public void testDecodeScale() throws IOException, InterruptedException {
+    // Sources on the same path share their images, so use a path no other test uploads to
+    final String path = GripServer.IMAGE_UPLOAD_PATH + "/half";
+    final Properties properties = new Properties();
+    properties.setProperty("image_upload_path", path);
+    DecodeScale.HALF.store(properties);
+    final EventBus eventBus = new EventBus();
+    final HttpSource halfSource = new HttpSource(
+        origin -> new MockExceptionWitness(eventBus, origin),
+        eventBus,
+        new MockOutputSocketFactory(eventBus),
+        server,
+        contextStore,
+        properties);
+    assertEquals("The scale should be saved with the source", DecodeScale.HALF.name(),
+        halfSource.getProperties().getProperty(DecodeScale.PROPERTY));
+
+    halfSource.initialize();
+    doPost(path, logoFile);
+    awaitImage(halfSource);
+    final OutputSocket<MatWrapper> imageSource = halfSource.getOutputSockets().get(0);
+    assertEquals("The image should be decoded at half its width", Files.imageFile.getCols() / 2,
+        imageSource.getValue().get().cols());
+  }
+
+  @Test
+  public void testPostRawImage() throws IOException, InterruptedException {
+    // Sources on the same path share their images, so use a path no other test uploads to
+    final String path = GripServer.IMAGE_UPLOAD_PATH + "/raw";
+    final EventBus eventBus = new EventBus();
+    final HttpSource rawSource = new HttpSource(
+        origin -> new MockExceptionWitness(eventBus, origin),
+        eventBus,
+        new MockOutputSocketFactory(eventBus),
+        server,
+        contextStore,
+        path);
+    rawSource.initialize();
+
+    // Two rows of three BGR pixels
+    final byte[] pixels = new byte[2 * 3 * 3];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (byte) i;
+    }
+    assertEquals("A raw image should be accepted", 202, doRawPost(path, pixels, "3", "2", "BGR8"));
+    awaitImage(rawSource);
+
+    final MatWrapper image = rawSource.getOutputSockets().get(0).getValue().get();
+    assertEquals("The image should have the uploaded width", 3, image.cols());
+    assertEquals("The image should have the uploaded height", 2, image.rows());
+    assertEquals("The image should have the uploaded format", CV_8UC3, image.type());
+    final byte[] actual = new byte[pixels.length];
+    image.getCpu().data().get(actual);
+    assertArrayEquals("The image should have the uploaded pixels", pixels, actual);
+  }
+
+  @Test
+  public void testPostInvalidRawImage() throws IOException {
+    final byte[] pixels = new byte[2 * 3];
+    assertEquals("A raw image without a width should be rejected",
+        400, doRawPost(GripServer.IMAGE_UPLOAD_PATH, pixels, null, "2", "GRAY8"));
+    assertEquals("A raw image in an unknown format should be rejected",
+        400, doRawPost(GripServer.IMAGE_UPLOAD_PATH, pixels, "3", "2", "RGBA16"));
+    assertEquals("A raw image with the wrong number of bytes should be rejected",
+        400, doRawPost(GripServer.IMAGE_UPLOAD_PATH, pixels, "3", "2", "BGR8"));
+  }
+
   // POSTs the given image file to the given path on the server
   private void doPost(String path, File imageFile) throws IOException {
     final String uri = "http://localhost:" + server.getPort() + path;
@@ -93,6 +168,30 @@ public class HttpSourceTest {
     EntityUtils.consume(response.getEntity());
   }
 
+  // POSTs raw pixels to the given path on the server, leaving out null headers
+  private int doRawPost(String path, byte[] pixels, String width, String height, String format)
+      throws IOException {
+    final HttpPost post = new HttpPost("http://localhost:" + server.getPort() + path);
+    post.setEntity(new ByteArrayEntity(pixels, ContentType.APPLICATION_OCTET_STREAM));
+    if (width != null) {
+      post.setHeader(HttpImageHandler.WIDTH_HEADER, width);
+    }
+    post.setHeader(HttpImageHandler.HEIGHT_HEADER, height);
+    post.setHeader(HttpImageHandler.FORMAT_HEADER, format);
+    try (CloseableHttpResponse response = postClient.execute(post)) {
+      EntityUtils.consume(response.getEntity());
+      return response.getStatusLine().getStatusCode();
+    }
+  }
+
+  // Uploads are passed to the sources in the background, so wait for the source to get one
+  private void awaitImage(HttpSource source) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + 5000;
+    while (!source.updateOutputSockets() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
   @After
   public void tearDown() throws IOException {
     server.stop();
@@ -0,0 +1,65 @@
+package edu.wpi.grip.core.sources;
+
+import edu.wpi.grip.core.MatWrapper;
+import edu.wpi.grip.util.Files;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImageCacheTest {
+
+  private static final List<String> PATHS = ImmutableList.of(
+      Files.imageFile.file.getAbsolutePath(),
+      Files.gompeiJpegFile.file.getAbsolutePath(),
+      Files.imageFile.file.getAbsolutePath());
+
+  @Test
+  public void testImagesAreDecodedWhenFirstUsed() throws IOException {
+    final ImageCache cache = new ImageCache(PATHS, Long.MAX_VALUE, Runnable::run);
+    assertFalse("No images should be decoded up front", cache.isCached(1));
+
+    final MatWrapper destination = MatWrapper.emptyWrapper();
+    cache.copyTo(1, destination);
+    Files.gompeiJpegFile.assertSameImage(destination);
+    assertTrue("The decoded image should be cached", cache.isCached(1));
+    cache.close();
+  }
+
+  @Test
+  public void testPrefetchDecodesNeighbours() {
+    final ImageCache cache = new ImageCache(PATHS, Long.MAX_VALUE, Runnable::run);
+    cache.prefetch(0, 1);
+    assertTrue("The next image should be prefetched", cache.isCached(1));
+    assertTrue("The previous image should be prefetched, wrapping around", cache.isCached(2));
+    assertFalse("The image itself isn't prefetched", cache.isCached(0));
+    cache.close();
+  }
+
+  @Test
+  public void testLeastRecentlyUsedImagesAreFreed() throws IOException {
+    final ImageCache cache = new ImageCache(PATHS, 0, Runnable::run);
+    final MatWrapper destination = MatWrapper.emptyWrapper();
+    cache.copyTo(0, destination);
+    cache.copyTo(1, destination);
+    assertFalse("The older image should have been freed", cache.isCached(0));
+    assertTrue("The image used last should always be kept", cache.isCached(1));
+    Files.gompeiJpegFile.assertSameImage(destination);
+    cache.close();
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test(expected = IOException.class)
+  public void testFileThatIsNotAnImage() throws IOException {
+    final ImageCache cache = new ImageCache(
+        ImmutableList.of(Files.textFile.getAbsolutePath()), Long.MAX_VALUE, Runnable::run);
+    cache.copyTo(0, MatWrapper.emptyWrapper());
+  }
+}
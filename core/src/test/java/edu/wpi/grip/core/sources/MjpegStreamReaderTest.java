@@ -0,0 +1,118 @@
+package edu.wpi.grip.core.sources;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MjpegStreamReaderTest {
+
+  private static final String BOUNDARY = "--myboundary\r\n";
+
+  @Test
+  public void testFramesWithContentLength() throws IOException {
+    final byte[] first = image(10, 1);
+    final byte[] second = image(20, 2);
+    final MjpegStreamReader reader = new MjpegStreamReader(stream(
+        part("Content-Type: image/jpeg\r\nContent-Length: 10\r\n", first),
+        part("Content-Type: image/jpeg\r\nContent-Length: 20\r\n", second)));
+
+    assertEquals(10, reader.readFrame());
+    assertArrayEquals(first, frameBytes(reader, 10));
+    assertEquals(20, reader.readFrame());
+    assertArrayEquals(second, frameBytes(reader, 20));
+  }
+
+  @Test
+  public void testHeadersAreCaseInsensitive() throws IOException {
+    final byte[] image = image(12, 3);
+    final MjpegStreamReader reader = new MjpegStreamReader(stream(
+        part("CONTENT-TYPE: image/jpeg\r\ncontent-LENGTH:12\r\n", image)));
+    assertEquals(12, reader.readFrame());
+    assertArrayEquals(image, frameBytes(reader, 12));
+  }
+
+  @Test
+  public void testFrameWithoutContentLengthEndsAtEndOfImage() throws IOException {
+    final byte[] first = image(16, 4);
+    final byte[] second = image(8, 5);
+    final MjpegStreamReader reader = new MjpegStreamReader(stream(
+        part("Content-Type: image/jpeg\r\n", first),
+        part("Content-Type: image/jpeg\r\nContent-Length: 8\r\n", second)));
+    assertEquals(16, reader.readFrame());
+    assertArrayEquals(first, frameBytes(reader, 16));
+    assertEquals(8, reader.readFrame());
+    assertArrayEquals(second, frameBytes(reader, 8));
+  }
+
+  @Test
+  public void testBufferGrowsForBigFrames() throws IOException {
+    final byte[] image = image(1000, 6);
+    final MjpegStreamReader reader = new MjpegStreamReader(stream(
+        part("Content-Length: 1000\r\n", image)), 16);
+    assertEquals(1000, reader.readFrame());
+    assertArrayEquals(image, frameBytes(reader, 1000));
+  }
+
+  @Test(expected = EOFException.class)
+  public void testTruncatedFrame() throws IOException {
+    final byte[] image = image(10, 7);
+    final byte[] part = part("Content-Length: 50\r\n", image);
+    new MjpegStreamReader(stream(part)).readFrame();
+  }
+
+  @Test(expected = EOFException.class)
+  public void testEndOfStream() throws IOException {
+    final MjpegStreamReader reader = new MjpegStreamReader(stream(
+        part("Content-Length: 10\r\n", image(10, 8))));
+    reader.readFrame();
+    reader.readFrame();
+  }
+
+  /**
+   * Creates fake JPEG data, which starts with a start of image marker and ends with an end of image
+   * marker.
+   */
+  private static byte[] image(int length, int fill) {
+    final byte[] image = new byte[length];
+    for (int i = 0; i < length; i++) {
+      image[i] = (byte) fill;
+    }
+    image[0] = (byte) 0xFF;
+    image[1] = (byte) 0xD8;
+    image[length - 2] = (byte) 0xFF;
+    image[length - 1] = (byte) 0xD9;
+    return image;
+  }
+
+  private static byte[] part(String headers, byte[] image) throws IOException {
+    final ByteArrayOutputStream part = new ByteArrayOutputStream();
+    part.write((BOUNDARY + headers + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    part.write(image);
+    part.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    return part.toByteArray();
+  }
+
+  private static ByteArrayInputStream stream(byte[]... parts) throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    for (byte[] part : parts) {
+      stream.write(part);
+    }
+    return new ByteArrayInputStream(stream.toByteArray());
+  }
+
+  private static byte[] frameBytes(MjpegStreamReader reader, int length) {
+    final ByteBuffer buffer = reader.getBuffer().duplicate();
+    buffer.clear();
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,133 @@
+package edu.wpi.grip.core.sources;
+
+import edu.wpi.grip.core.MatWrapper;
+import edu.wpi.grip.core.events.SourceRemovedEvent;
+import edu.wpi.grip.core.sockets.MockOutputSocketFactory;
+import edu.wpi.grip.core.sockets.OutputSocket;
+import edu.wpi.grip.core.util.MockExceptionWitness;
+
+import com.google.common.eventbus.EventBus;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.bytedeco.javacpp.opencv_core.Scalar;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.FrameRecorder;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.javacpp.avcodec.AV_CODEC_ID_MJPEG;
+import static org.bytedeco.javacpp.avutil.AV_PIX_FMT_YUVJ420P;
+import static org.bytedeco.javacpp.opencv_core.CV_8UC3;
+import static org.bytedeco.javacpp.opencv_core.mean;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class VideoFileSourceTest {
+
+  private static final int FRAMES = 30;
+  /**
+   * How much brighter each frame is than the one before it, so frames can be told apart after
+   * being compressed.
+   */
+  private static final int BRIGHTNESS_STEP = 8;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+  @Rule
+  public final Timeout timeout = new Timeout(30, TimeUnit.SECONDS);
+
+  private EventBus eventBus;
+  private OutputSocket.Factory osf;
+  private VideoFileSource source;
+
+  @Before
+  public void setUp() {
+    eventBus = new EventBus();
+    osf = new MockOutputSocketFactory(eventBus);
+  }
+
+  @After
+  public void tearDown() {
+    if (source != null) {
+      source.onSourceRemoved(new SourceRemovedEvent(source));
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testAsFastAsPossibleShowsEveryFrameOnceInOrder() throws IOException,
+      InterruptedException {
+    final File video = folder.newFile("frames.avi");
+    writeVideo(video);
+    final Properties properties = new Properties();
+    properties.setProperty("path", video.getAbsolutePath());
+    properties.setProperty(VideoFileSource.PLAYBACK_PROPERTY,
+        PlaybackMode.AS_FAST_AS_POSSIBLE.name());
+    // Smaller than the video, so the decoder has to wait for the pipeline
+    properties.setProperty(VideoFileSource.DECODE_AHEAD_PROPERTY, "2");
+    source = new VideoFileSource(osf, MockExceptionWitness.simpleFactory(eventBus), eventBus,
+        properties);
+    final OutputSocket<MatWrapper> image = source.getOutputSockets().get(0);
+    source.initialize();
+
+    final List<Integer> shown = new ArrayList<>();
+    while (shown.size() < FRAMES) {
+      if (source.updateOutputSockets()) {
+        shown.add(frameIndex(image.getValue().get().getCpu()));
+      } else {
+        Thread.sleep(1);
+      }
+    }
+    // Give the decoder time to show any frame twice
+    Thread.sleep(200);
+    assertFalse("No frames should be shown after the last one", source.updateOutputSockets());
+
+    final List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < FRAMES; i++) {
+      expected.add(i);
+    }
+    assertEquals("Every frame should be shown once, in order", expected, shown);
+  }
+
+  /**
+   * Writes a video where every frame is a flat gray, a little brighter than the frame before it.
+   */
+  private static void writeVideo(File file) throws FrameRecorder.Exception {
+    final FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(file, 32, 32);
+    recorder.setFormat("avi");
+    recorder.setVideoCodec(AV_CODEC_ID_MJPEG);
+    recorder.setPixelFormat(AV_PIX_FMT_YUVJ420P);
+    recorder.setFrameRate(30);
+    recorder.setVideoQuality(1);
+    final OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+    recorder.start();
+    try {
+      for (int i = 0; i < FRAMES; i++) {
+        final int brightness = i * BRIGHTNESS_STEP;
+        final Mat frame = new Mat(32, 32, CV_8UC3,
+            new Scalar(brightness, brightness, brightness, 0));
+        recorder.record(converter.convert(frame));
+        frame.release();
+      }
+    } finally {
+      recorder.stop();
+      recorder.release();
+    }
+  }
+
+  private static int frameIndex(Mat frame) {
+    return (int) Math.round(mean(frame).get(0) / BRIGHTNESS_STEP);
+  }
+}
@@ -0,0 +1,72 @@
+package edu.wpi.grip.core.util;
+
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.junit.Test;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.bytedeco.javacpp.opencv_core.CV_8UC3;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MatPoolTest {
+
+  @Test
+  public void testBorrowedMatHasShape() {
+    final Mat mat = new MatPool().borrow(4, 6, CV_8UC3);
+    assertEquals(4, mat.rows());
+    assertEquals(6, mat.cols());
+    assertEquals(CV_8UC3, mat.type());
+    mat.deallocate();
+  }
+
+  @Test
+  public void testGivenBackMatIsReused() {
+    final MatPool pool = new MatPool();
+    final Mat mat = pool.borrow(4, 6, CV_8UC3);
+    pool.giveBack(mat);
+    assertEquals(4 * 6 * 3, pool.getSize());
+    assertSame("A mat of the same shape should be reused", mat, pool.borrow(4, 6, CV_8UC3));
+    assertEquals(0, pool.getSize());
+    mat.deallocate();
+  }
+
+  @Test
+  public void testDifferentShapeIsNotReused() {
+    final MatPool pool = new MatPool();
+    final Mat mat = pool.borrow(4, 6, CV_8UC3);
+    pool.giveBack(mat);
+    final Mat other = pool.borrow(4, 6, CV_8UC1);
+    assertNotSame("A mat of a different type should not be reused", mat, other);
+    other.deallocate();
+    pool.clear();
+    assertTrue("Clearing the pool should free its mats", mat.isNull());
+  }
+
+  @Test
+  public void testMatsPerShapeIsBounded() {
+    final MatPool pool = new MatPool(MatPool.DEFAULT_CAPACITY, 1);
+    final Mat first = pool.borrow(4, 4, CV_8UC1);
+    final Mat second = pool.borrow(4, 4, CV_8UC1);
+    pool.giveBack(first);
+    pool.giveBack(second);
+    assertFalse("The first mat should be kept", first.isNull());
+    assertTrue("There is no room for the second mat, so it should be freed", second.isNull());
+    pool.clear();
+  }
+
+  @Test
+  public void testLeastRecentlyUsedShapeIsEvicted() {
+    final MatPool pool = new MatPool(100, MatPool.DEFAULT_MATS_PER_SHAPE);
+    final Mat older = pool.borrow(10, 10, CV_8UC1);
+    final Mat newer = pool.borrow(5, 20, CV_8UC1);
+    pool.giveBack(older);
+    pool.giveBack(newer);
+    assertTrue("The least recently used mat should be freed", older.isNull());
+    assertFalse("The most recently used mat should be kept", newer.isNull());
+    assertEquals(100, pool.getSize());
+    pool.clear();
+  }
+}
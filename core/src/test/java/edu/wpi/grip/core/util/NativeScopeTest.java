@@ -0,0 +1,49 @@
+package edu.wpi.grip.core.util;
+
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.opencv_core.Mat;
+import org.junit.Test;
+
+import static org.bytedeco.javacpp.opencv_core.CV_8UC1;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NativeScopeTest {
+
+  @Test
+  public void testAttachedPointersAreFreedOnClose() {
+    final BytePointer first;
+    final BytePointer second;
+    try (NativeScope scope = new NativeScope()) {
+      first = scope.attach(new BytePointer(16));
+      second = scope.attach(new BytePointer(16));
+      assertFalse("Pointers should not be freed before the scope is closed", first.isNull());
+    }
+    assertTrue("The first pointer should have been freed", first.isNull());
+    assertTrue("The second pointer should have been freed", second.isNull());
+  }
+
+  @Test
+  public void testUnattachedPointersAreNotFreed() {
+    final BytePointer pointer = new BytePointer(16);
+    try (NativeScope scope = new NativeScope()) {
+      scope.attach(new BytePointer(16));
+    }
+    assertFalse("A pointer that was never attached should not be freed", pointer.isNull());
+    pointer.deallocate();
+  }
+
+  @Test
+  public void testBorrowedMatsAreGivenBackOnClose() {
+    final MatPool pool = new MatPool();
+    final Mat borrowed;
+    try (NativeScope scope = new NativeScope()) {
+      borrowed = scope.borrow(pool, 2, 2, CV_8UC1);
+    }
+    assertFalse("A borrowed mat should not be freed", borrowed.isNull());
+    assertSame("The mat should have been given back to the pool", borrowed,
+        pool.borrow(2, 2, CV_8UC1));
+    borrowed.deallocate();
+  }
+}
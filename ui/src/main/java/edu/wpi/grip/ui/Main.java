@@ -9,7 +9,10 @@ import edu.wpi.grip.core.cuda.CudaVerifier;
 import edu.wpi.grip.core.events.UnexpectedThrowableEvent;
 import edu.wpi.grip.core.exception.GripServerException;
 import edu.wpi.grip.core.http.GripServer;
+import edu.wpi.grip.core.http.HttpMetricsHandler;
 import edu.wpi.grip.core.http.HttpPipelineSwitcher;
+import edu.wpi.grip.core.http.HttpPipelineTrigger;
+import edu.wpi.grip.core.http.HttpTraceHandler;
 import edu.wpi.grip.core.operations.CVOperations;
 import edu.wpi.grip.core.operations.Operations;
 import edu.wpi.grip.core.operations.network.GripNetworkModule;
@@ -68,6 +71,9 @@ public class Main extends Application {
   @Inject private CVOperations cvOperations;
   @Inject private GripServer server;
   @Inject private HttpPipelineSwitcher pipelineSwitcher;
+  @Inject private HttpPipelineTrigger pipelineTrigger;
+  @Inject private HttpTraceHandler traceHandler;
+  @Inject private HttpMetricsHandler metricsHandler;
   private Parent root;
   private boolean headless;
   private final UICommandLineHelper commandLineHelper = new UICommandLineHelper();
@@ -119,6 +125,9 @@ public class Main extends Application {
 
     notifyPreloader(new Preloader.ProgressNotification(0.45));
     server.addHandler(pipelineSwitcher);
+    server.addHandler(pipelineTrigger);
+    server.addHandler(traceHandler);
+    server.addHandler(metricsHandler);
     notifyPreloader(new Preloader.ProgressNotification(0.6));
 
     pipelineRunner.startAsync();
@@ -157,6 +166,7 @@ public class Main extends Application {
 
     commandLineHelper.loadFile(parsedArgs, project);
     commandLineHelper.setServerPort(parsedArgs, settingsProvider, eventBus);
+    commandLineHelper.setRunPolicy(parsedArgs, settingsProvider, eventBus);
 
     // This will throw an exception if the port specified by the save file or command line
     // argument is already taken. Since we have to have the server running to handle remotely
@@ -7,9 +7,10 @@ import edu.wpi.grip.core.events.AppSettingsChangedEvent;
 import edu.wpi.grip.core.events.BenchmarkEvent;
 import edu.wpi.grip.core.events.CodeGenerationSettingsChangedEvent;
 import edu.wpi.grip.core.events.ProjectSettingsChangedEvent;
-import edu.wpi.grip.core.events.TimerEvent;
 import edu.wpi.grip.core.events.UnexpectedThrowableEvent;
 import edu.wpi.grip.core.events.WarningEvent;
+import edu.wpi.grip.core.metrics.LatencyHistogram;
+import edu.wpi.grip.core.metrics.MetricsRegistry;
 import edu.wpi.grip.core.serialization.Project;
 import edu.wpi.grip.core.settings.AppSettings;
 import edu.wpi.grip.core.settings.CodeGenerationSettings;
@@ -34,6 +35,9 @@ import java.io.IOException;
 import java.util.Optional;
 import java.util.Set;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.Parent;
@@ -53,6 +57,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.Duration;
 
 import javax.inject.Inject;
 
@@ -62,6 +67,12 @@ import javax.inject.Inject;
 @SuppressWarnings("PMD.TooManyFields")
 public class MainWindowController {
 
+  /**
+   * How often the time the pipeline took is shown. The pipeline can run far more often than the
+   * label could be read, so it is polled instead of updated after every run.
+   */
+  private static final Duration ELAPSED_TIME_REFRESH = Duration.millis(250);
+
   @FXML
   private Parent root;
   @FXML
@@ -95,12 +106,18 @@ public class MainWindowController {
   @Inject
   private PipelineRunner pipelineRunner;
   @Inject
+  private MetricsRegistry metricsRegistry;
+  @Inject
   private StartStoppableButton.Factory startStoppableButtonFactory;
   @Inject
   private Project project;
 
   private Stage aboutDialogStage;
   private Stage analysisStage;
+  /**
+   * The number of runs as of the last time the elapsed time was shown.
+   */
+  private long shownRunCount = 0;
 
   @FXML
   protected void initialize() {
@@ -121,6 +138,11 @@ public class MainWindowController {
         e.consume();
       }
     }));
+
+    final Timeline elapsedTimeUpdater =
+        new Timeline(new KeyFrame(ELAPSED_TIME_REFRESH, event -> updateElapsedTime()));
+    elapsedTimeUpdater.setCycleCount(Animation.INDEFINITE);
+    elapsedTimeUpdater.play();
   }
 
   /**
@@ -384,11 +406,11 @@ public class MainWindowController {
     alert.showAndWait();
   }
 
-  @Subscribe
-  @SuppressWarnings({"PMD.UnusedPrivateMethod", "PMD.UnusedFormalParameter"})
-  private void runStopped(TimerEvent event) {
-    if (event.getTarget() instanceof PipelineRunner) {
-      Platform.runLater(() -> updateElapsedTimeLabel(event.getElapsedTime()));
+  private void updateElapsedTime() {
+    final Optional<LatencyHistogram> histogram = metricsRegistry.find(pipelineRunner);
+    if (histogram.isPresent() && histogram.get().getCount() != shownRunCount) {
+      shownRunCount = histogram.get().getCount();
+      updateElapsedTimeLabel(histogram.get().getLast());
     }
   }
 
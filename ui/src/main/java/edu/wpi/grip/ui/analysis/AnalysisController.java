@@ -1,25 +1,37 @@
 package edu.wpi.grip.ui.analysis;
 
 import edu.wpi.grip.core.OperationDescription;
+import edu.wpi.grip.core.Pipeline;
 import edu.wpi.grip.core.Step;
 import edu.wpi.grip.core.StepIndexer;
 import edu.wpi.grip.core.events.BenchmarkEvent;
 import edu.wpi.grip.core.events.RunStoppedEvent;
 import edu.wpi.grip.core.events.StepRemovedEvent;
-import edu.wpi.grip.core.events.TimerEvent;
 import edu.wpi.grip.core.metrics.BenchmarkRunner;
 import edu.wpi.grip.core.metrics.CsvExporter;
+import edu.wpi.grip.core.metrics.FlightRecorder;
+import edu.wpi.grip.core.metrics.LatencyHistogram;
+import edu.wpi.grip.core.metrics.MetricsRegistry;
 import edu.wpi.grip.core.metrics.Statistics;
+import edu.wpi.grip.core.sources.FrameQueue;
 
 import com.google.common.collect.EvictingQueue;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.Inject;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,6 +54,7 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.util.Callback;
 
 import javax.annotation.Nullable;
@@ -51,6 +64,13 @@ import javax.annotation.Nullable;
  */
 public class AnalysisController {
 
+  private static final Logger logger = Logger.getLogger(AnalysisController.class.getName());
+
+  /**
+   * How many seconds of the flight recorder to save in a trace.
+   */
+  private static final long TRACE_SECONDS = 10;
+
   // Table
   @FXML
   private TableView<StepStatisticsEntry> table;
@@ -67,6 +87,15 @@ public class AnalysisController {
   @Inject
   private BenchmarkRunner benchmarker;
 
+  @Inject
+  private FlightRecorder flightRecorder;
+
+  // Sources
+  @FXML
+  private Label frameStatsLabel;
+  @Inject
+  private Pipeline pipeline;
+
   private final Callback<StepStatisticsEntry, Observable[]> extractor =
       entry -> new Observable[]{entry.stepProperty(), entry.analysisProperty()};
   private final ObservableList<StepStatisticsEntry> tableItems
@@ -74,9 +103,15 @@ public class AnalysisController {
 
   @Inject
   private StepIndexer stepIndexer;
+  @Inject
+  private MetricsRegistry metricsRegistry;
   private Statistics lastStats = Statistics.NIL;
   private final Map<Step, TimeView> timeViewMap = new HashMap<>();
   private final Map<Step, Collection<Long>> sampleMap = new HashMap<>();
+  /**
+   * The number of run times each step's histogram had the last time it was checked.
+   */
+  private final Map<Step, Long> seenCounts = new HashMap<>();
   private static final int DEFAULT_NUM_RECENT_SAMPLES = 16;
   private int numRecentSamples = DEFAULT_NUM_RECENT_SAMPLES;
   private String csvReport = "";
@@ -120,25 +155,37 @@ public class AnalysisController {
     });
   }
 
-  @Subscribe
-  @SuppressWarnings("PMD.UnusedPrivateMethod")
-  private void onRun(TimerEvent event) {
-    if (event.getTarget() instanceof Step) {
-      Step source = (Step) event.getTarget();
-      Optional<StepStatisticsEntry> possibleEntry
-          = tableItems.stream().filter(e -> e.getStep() == source).findAny();
-      Collection<Long> samples = sampleMap.computeIfAbsent(source,
-          s -> EvictingQueue.create(numRecentSamples));
-      samples.add(event.getElapsedTime());
-      Statistics stepStatistics = Statistics.of(samples);
-      if (possibleEntry.isPresent()) {
-        possibleEntry.get().setStatistics(stepStatistics);
-      } else {
-        StepStatisticsEntry entry = new StepStatisticsEntry();
-        entry.setStep(source);
-        entry.setStatistics(stepStatistics);
-        tableItems.add(entry);
+  /**
+   * Adds the latest run time of every step that has run since the last time this was called.
+   */
+  private void collectSamples() {
+    for (Step step : pipeline.getSteps()) {
+      final Optional<LatencyHistogram> histogram = metricsRegistry.find(step);
+      if (!histogram.isPresent()) {
+        continue;
       }
+      final long count = histogram.get().getCount();
+      if (count != seenCounts.getOrDefault(step, 0L)) {
+        seenCounts.put(step, count);
+        addSample(step, histogram.get().getLast());
+      }
+    }
+  }
+
+  private void addSample(Step step, long elapsedTime) {
+    Optional<StepStatisticsEntry> possibleEntry
+        = tableItems.stream().filter(e -> e.getStep() == step).findAny();
+    Collection<Long> samples = sampleMap.computeIfAbsent(step,
+        s -> EvictingQueue.create(numRecentSamples));
+    samples.add(elapsedTime);
+    Statistics stepStatistics = Statistics.of(samples);
+    if (possibleEntry.isPresent()) {
+      possibleEntry.get().setStatistics(stepStatistics);
+    } else {
+      StepStatisticsEntry entry = new StepStatisticsEntry();
+      entry.setStep(step);
+      entry.setStatistics(stepStatistics);
+      tableItems.add(entry);
     }
   }
 
@@ -146,6 +193,7 @@ public class AnalysisController {
   @SuppressWarnings("PMD.UnusedPrivateMethod")
   private void onStepRemoved(StepRemovedEvent e) {
     sampleMap.remove(e.getStep());
+    seenCounts.remove(e.getStep());
     timeViewMap.remove(e.getStep());
     tableItems.removeIf(entry -> entry.getStep() == e.getStep());
   }
@@ -153,6 +201,7 @@ public class AnalysisController {
   @Subscribe
   @SuppressWarnings({"PMD.UnusedPrivateMethod", "PMD.UnusedFormalParameter"})
   private void onPipelineFinish(@Nullable RunStoppedEvent event) {
+    collectSamples();
     double[] averageRunTimes = sortedStream(sampleMap)
         .parallel()
         .map(Map.Entry::getValue)
@@ -161,6 +210,22 @@ public class AnalysisController {
     Statistics statistics = Statistics.of(averageRunTimes);
     // Update the stats after the pipeline finishes
     lastStats = statistics;
+
+    final String frameStats = pipeline.getSources().stream()
+        .filter(source -> source.getFrameQueue().isPresent())
+        .map(source -> describeFrames(source.getName(), source.getFrameQueue().get()))
+        .collect(Collectors.joining("; "));
+    Platform.runLater(() -> frameStatsLabel.setText(
+        frameStats.isEmpty() ? "No sources with frames" : frameStats));
+  }
+
+  private static String describeFrames(String sourceName, FrameQueue frameQueue) {
+    return String.format("%s: %d captured, %d processed, %d dropped, %.1fms old",
+        sourceName,
+        frameQueue.getCapturedCount(),
+        frameQueue.getProcessedCount(),
+        frameQueue.getDroppedCount(),
+        frameQueue.getFrameAge());
   }
 
   @Subscribe
@@ -198,6 +263,29 @@ public class AnalysisController {
     });
   }
 
+  @FXML
+  @SuppressWarnings("PMD.UnusedPrivateMethod")
+  private void saveTrace() {
+    final FileChooser fileChooser = new FileChooser();
+    fileChooser.setTitle("Save Trace");
+    fileChooser.setInitialFileName("grip-trace.json");
+    fileChooser.getExtensionFilters().add(
+        new FileChooser.ExtensionFilter("Chrome trace", "*.json"));
+    final File file = fileChooser.showSaveDialog(table.getScene().getWindow());
+    if (file == null) {
+      return;
+    }
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      flightRecorder.writeChromeTrace(writer, TRACE_SECONDS, TimeUnit.SECONDS);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not save the trace to " + file, e);
+      Alert alert = new Alert(Alert.AlertType.ERROR);
+      alert.setHeaderText("Could not save the trace");
+      alert.setContentText(e.getMessage());
+      alert.showAndWait();
+    }
+  }
+
   /**
    * Streams the entries in a {@code Map<Step, *>} sorted by the step's index according to the
    * {@link #stepIndexer}.
@@ -3,7 +3,8 @@ package edu.wpi.grip.ui.pipeline;
 import edu.wpi.grip.core.Pipeline;
 import edu.wpi.grip.core.Step;
 import edu.wpi.grip.core.events.BenchmarkEvent;
-import edu.wpi.grip.core.events.TimerEvent;
+import edu.wpi.grip.core.metrics.LatencyHistogram;
+import edu.wpi.grip.core.metrics.MetricsRegistry;
 import edu.wpi.grip.core.sockets.InputSocket;
 import edu.wpi.grip.core.sockets.OutputSocket;
 import edu.wpi.grip.core.sockets.SocketHint;
@@ -23,8 +24,10 @@ import com.google.inject.assistedinject.Assisted;
 
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.function.Predicate;
 
+import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
@@ -61,6 +64,7 @@ public class StepController implements Controller {
   private final ExceptionWitnessResponderButton.Factory exceptionWitnessResponderButtonFactory;
   private final StepDragService stepDragService;
   private final EventBus eventBus;
+  private final MetricsRegistry metricsRegistry;
   private final Step step;
   private final BooleanProperty expanded = new SimpleBooleanProperty(true);
   @FXML
@@ -89,7 +93,18 @@ public class StepController implements Controller {
   private Button expand;
   private ControllerMap<InputSocketController, Node> inputSocketMapManager;
   private ControllerMap<OutputSocketController, Node> outputSocketMapManager;
+  private final Timeline elapsedTimeUpdater =
+      new Timeline(new KeyFrame(ELAPSED_TIME_REFRESH, event -> updateElapsedTime()));
+  /**
+   * The number of times the step had run as of the last time its elapsed time was shown.
+   */
+  private long shownRunCount = 0;
 
+  /**
+   * How often the time the step took is shown. Steps are polled rather than told about every run,
+   * since the pipeline can run far more often than the label could be read.
+   */
+  private static final Duration ELAPSED_TIME_REFRESH = Duration.millis(250);
   private static final Image UP_ARROW = new Image("/edu/wpi/grip/ui/icons/up.png");
   private static final Image DOWN_ARROW = new Image("/edu/wpi/grip/ui/icons/down.png");
   private static final Predicate<InputSocketController> interactiveInputSocketFilter
@@ -102,6 +117,7 @@ public class StepController implements Controller {
                  ExceptionWitnessResponderButton.Factory exceptionWitnessResponderButtonFactory,
                  StepDragService stepDragService,
                  EventBus eventBus,
+                 MetricsRegistry metricsRegistry,
                  @Assisted Step step) {
     this.pipeline = pipeline;
     this.inputSocketControllerFactory = inputSocketControllerFactory;
@@ -109,6 +125,7 @@ public class StepController implements Controller {
     this.exceptionWitnessResponderButtonFactory = exceptionWitnessResponderButtonFactory;
     this.stepDragService = stepDragService;
     this.eventBus = eventBus;
+    this.metricsRegistry = metricsRegistry;
     this.step = step;
   }
 
@@ -166,6 +183,16 @@ public class StepController implements Controller {
       event.consume();
     });
 
+    // Only poll while the step is shown
+    elapsedTimeUpdater.setCycleCount(Animation.INDEFINITE);
+    root.sceneProperty().addListener((observable, oldScene, newScene) -> {
+      if (newScene == null) {
+        elapsedTimeUpdater.stop();
+      } else {
+        elapsedTimeUpdater.play();
+      }
+    });
+
   }
 
   /**
@@ -208,14 +235,13 @@ public class StepController implements Controller {
     pipeline.moveStep(step, +1);
   }
 
-  @Subscribe
-  @SuppressWarnings("PMD.UnusedPrivateMethod")
-  private void finished(TimerEvent event) {
-    if (event.getTarget() != this.step) {
-      return;
+  private void updateElapsedTime() {
+    final Optional<LatencyHistogram> histogram = metricsRegistry.find(step);
+    // Steps that didn't run since the last update still show how long they took last time
+    if (histogram.isPresent() && histogram.get().getCount() != shownRunCount) {
+      shownRunCount = histogram.get().getCount();
+      elapsedTime.setText(String.format("Ran in %.1f ms", histogram.get().getLast() / 1e3));
     }
-    Platform.runLater(() ->
-        elapsedTime.setText(String.format("Ran in %.1f ms", event.getElapsedTime() / 1e3)));
   }
 
   @Subscribe
@@ -53,25 +53,34 @@ public final class ContoursSocketPreviewView extends ImageBasedPreviewView<Conto
   protected void convertImage() {
     synchronized (this) {
       final ContoursReport contours = this.getSocket().getValue().get();
+      if (!contours.retain()) {
+        // The pipeline has already freed this report, and a render for its new output is coming
+        return;
+      }
       long numContours = 0;
 
-      if (!contours.getContours().isNull() && contours.getRows() > 0 && contours.getCols() > 0) {
-        // Allocate a completely black OpenCV Mat to draw the contours onto.  We can easily
-        // render contours
-        // by using OpenCV's drawContours function and converting the Mat into a JavaFX Image.
-        this.tmp.create(contours.getRows(), contours.getCols(), CV_8UC3);
-        bitwise_xor(tmp, tmp, tmp);
+      try {
+        if (!contours.getContours().isNull() && contours.getRows() > 0
+            && contours.getCols() > 0) {
+          // Allocate a completely black OpenCV Mat to draw the contours onto.  We can easily
+          // render contours
+          // by using OpenCV's drawContours function and converting the Mat into a JavaFX Image.
+          this.tmp.create(contours.getRows(), contours.getCols(), CV_8UC3);
+          bitwise_xor(tmp, tmp, tmp);
 
-        numContours = contours.getContours().size();
+          numContours = contours.getContours().size();
 
-        if (this.colorContours.isSelected()) {
-          for (int i = 0; i < numContours; i++) {
-            drawContours(this.tmp, contours.getContours(), i, CONTOUR_COLORS[i % CONTOUR_COLORS
-                .length]);
+          if (this.colorContours.isSelected()) {
+            for (int i = 0; i < numContours; i++) {
+              drawContours(this.tmp, contours.getContours(), i, CONTOUR_COLORS[i % CONTOUR_COLORS
+                  .length]);
+            }
+          } else {
+            drawContours(this.tmp, contours.getContours(), -1, Scalar.WHITE);
           }
-        } else {
-          drawContours(this.tmp, contours.getContours(), -1, Scalar.WHITE);
         }
+      } finally {
+        contours.unretain();
       }
 
       final long finalNumContours = numContours;
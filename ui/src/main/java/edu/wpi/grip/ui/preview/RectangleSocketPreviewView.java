@@ -57,26 +57,36 @@ public final class RectangleSocketPreviewView extends ImageBasedPreviewView<Rect
   protected void convertImage() {
     synchronized (this) {
       final RectsReport report = this.getSocket().getValue().get();
-      final List<Rect> rectangles = report.getRectangles();
-      Mat input = report.getImage().getCpu();
-
-      if (input.channels() == 3) {
-        input.copyTo(tmp);
-      } else {
-        cvtColor(input, tmp, CV_GRAY2BGR);
+      if (!report.retain()) {
+        // The pipeline has already freed this report, and a render for its new output is coming
+        return;
       }
+      final int numRegions;
+      try {
+        final List<Rect> rectangles = report.getRectangles();
+        Mat input = report.getImage().getCpu();
 
-      // If we don't want to see the background image, set it to black
-      if (!this.showInputImage) {
-        bitwise_xor(tmp, tmp, tmp);
-      }
+        if (input.channels() == 3) {
+          input.copyTo(tmp);
+        } else {
+          cvtColor(input, tmp, CV_GRAY2BGR);
+        }
 
-      // If rectangles were found, draw them on the image before displaying it
-      for (Rect r : rectangles) {
-        rectangle(tmp, r, Scalar.WHITE, 3, LINE_8, 0);
+        // If we don't want to see the background image, set it to black
+        if (!this.showInputImage) {
+          bitwise_xor(tmp, tmp, tmp);
+        }
+
+        // If rectangles were found, draw them on the image before displaying it
+        for (Rect r : rectangles) {
+          rectangle(tmp, r, Scalar.WHITE, 3, LINE_8, 0);
+        }
+        numRegions = rectangles.size();
+      } finally {
+        report.unretain();
       }
+
       final Mat convertInput = tmp;
-      final int numRegions = rectangles.size();
       platform.runAsSoonAsPossible(() -> {
         final Image image = this.imageConverter.convert(convertInput);
         this.imageView.setImage(image);